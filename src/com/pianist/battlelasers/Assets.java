@@ -98,17 +98,17 @@ public class Assets
 
 	public static Pixmap horLine;
 
-	public static Pixmap[] horAnimation;
+	public static Pixmap horGlow;
 
 	public static Pixmap verLine;
 
-	public static Pixmap[] verAnimation;
+	public static Pixmap verGlow;
 
 	public static Pixmap gridHighlight;
 
 	public static Pixmap shadedTile;
 
-	public static Pixmap[] tileAnimation;
+	public static Pixmap tileGlow;
 
 	public static Pixmap mirrorBorder;
 
@@ -130,7 +130,7 @@ public class Assets
 
 	public static Pixmap computerWins;
 
-	public static Pixmap[] winningAnimation;
+	public static Pixmap winningGlow;
 
 	public static Pixmap lastMove;
 
@@ -2,15 +2,18 @@ package com.pianist.battlelasers;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
-import android.os.Environment;
 import android.preference.PreferenceManager;
 
 /**
@@ -27,8 +30,9 @@ public class FileIO
 	// An asset manager to deal with assets
 	AssetManager assets;
 
-	// The path to the external storage
-	String externalStoragePath;
+	// The path to the files only the game can see, which it can write to
+	// without asking for any permission
+	String filesPath;
 
 	/**
 	 * Create a new File input output object with the given context
@@ -40,8 +44,8 @@ public class FileIO
 	{
 		this.context = context;
 		this.assets = context.getAssets();
-		this.externalStoragePath = Environment.getExternalStorageDirectory()
-				.getAbsolutePath() + File.separator;
+		this.filesPath = context.getFilesDir().getAbsolutePath()
+				+ File.separator;
 	}
 
 	/**
@@ -59,7 +63,63 @@ public class FileIO
 	}
 
 	/**
-	 * Reads from a non-asset file with the given filename
+	 * Reads a whole asset into a buffer. An asset that is stored uncompressed
+	 * in the package is memory mapped, so its pages are only read when they
+	 * are touched, and any other asset is read in one go.
+	 * 
+	 * @param fileName
+	 *            The name of the file to read
+	 * @return a buffer holding the file
+	 * @throws IOException
+	 *             If there was an error finding or reading the file
+	 */
+	public ByteBuffer readAssetBuffer(String fileName) throws IOException
+	{
+		try
+		{
+			AssetFileDescriptor descriptor = assets.openFd(fileName);
+			FileInputStream in = descriptor.createInputStream();
+			try
+			{
+				// The mapping stays valid after the file is closed
+				return in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+						descriptor.getStartOffset(), descriptor.getLength());
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (FileNotFoundException e)
+		{
+			// The asset is compressed, so it has to be read
+		}
+
+		InputStream in = assets.open(fileName);
+		try
+		{
+			// The stream of an asset knows its whole length
+			byte[] bytes = new byte[in.available()];
+			int length = 0;
+			while (length < bytes.length)
+			{
+				int read = in.read(bytes, length, bytes.length - length);
+				if (read < 0)
+					throw new IOException("Asset '" + fileName
+							+ "' ended early");
+				length += read;
+			}
+			return ByteBuffer.wrap(bytes);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads from a non-asset file with the given filename in the game's own
+	 * files
 	 * 
 	 * @param fileName
 	 *            The name of the file to read
@@ -69,11 +129,12 @@ public class FileIO
 	 */
 	public InputStream readFile(String fileName) throws IOException
 	{
-		return new FileInputStream(externalStoragePath + fileName);
+		return new FileInputStream(filesPath + fileName);
 	}
 
 	/**
-	 * Writes to a given file with the given filename
+	 * Writes to a given file with the given filename in the game's own files
+	 * (which can be pulled off a debug build with run-as)
 	 * 
 	 * @param fileName
 	 *            The name of the file to write to
@@ -83,6 +144,6 @@ public class FileIO
 	 */
 	public OutputStream writeFile(String fileName) throws IOException
 	{
-		return new FileOutputStream(externalStoragePath + fileName);
+		return new FileOutputStream(filesPath + fileName);
 	}
 }
@@ -11,9 +11,16 @@ import com.google.android.gms.gcm.GoogleCloudMessaging;
 import com.pianist.battlelasers.FileIO;
 import com.pianist.battlelasers.R;
 import com.pianist.battlelasers.game_objects.Match;
+import com.pianist.battlelasers.graphics.AssetBundle;
+import com.pianist.battlelasers.graphics.CanvasGraphics;
+import com.pianist.battlelasers.graphics.GLGraphics;
+import com.pianist.battlelasers.graphics.GLRenderView;
 import com.pianist.battlelasers.graphics.Graphics;
 import com.pianist.battlelasers.graphics.Pixmap;
 import com.pianist.battlelasers.graphics.RenderGraphics;
+import com.pianist.battlelasers.graphics.RenderScale;
+import com.pianist.battlelasers.graphics.RenderView;
+import com.pianist.battlelasers.graphics.TextureAtlas;
 import com.pianist.battlelasers.input_handlers.Input;
 import com.pianist.battlelasers.screens.GameScreen;
 import com.pianist.battlelasers.screens.MainMenuScreen;
@@ -42,9 +49,7 @@ import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager.NameNotFoundException;
-import android.content.res.Configuration;
 import android.graphics.Bitmap;
-import android.graphics.Bitmap.Config;
 import android.graphics.Color;
 import android.graphics.Point;
 import android.support.v4.content.LocalBroadcastManager;
@@ -71,9 +76,21 @@ public class BattleLaserActivity extends Activity
 {
 	private static String TAG = "BattleLaserGame";
 	
-	// Deals with drawing the framebuffer to the screen and updating all the
-	// game screens
-	RenderGraphics renderView;
+	// Whether the game is drawn with OpenGL ES instead of a software
+	// framebuffer (the software framebuffer works on every device, so it
+	// stays the default until the OpenGL renderer has been tried on more)
+	private static final boolean USE_OPENGL = false;
+
+	// Whether the frame profiler is shown over the game, with its numbers
+	// written to the game's own files whenever the game is paused
+	private static final boolean PROFILE_FRAMES = false;
+
+	// The file the frame profiler writes to
+	private static final String PROFILE_FILE = "BattleLasersFrames.csv";
+
+	// Deals with drawing the game to the screen and updating all the game
+	// screens
+	RenderView renderView;
 
 	// Deals with all the graphics implementation in the game
 	Graphics graphics;
@@ -87,7 +104,10 @@ public class BattleLaserActivity extends Activity
 	// The current screen that is showing
 	Screen screen;
 
-	// The framebuffer width and height
+	// How many pixels the game is drawn with on this device
+	RenderScale renderScale;
+
+	// The width and height the screens draw in
 	int frameBufferWidth;
 
 	int frameBufferHeight;
@@ -226,13 +246,13 @@ public class BattleLaserActivity extends Activity
 				WindowManager.LayoutParams.FLAG_FULLSCREEN);
 		getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
 
-		// Create the framebuffer that is draw to and its dimensions
-		boolean isLandscape = getResources().getConfiguration().orientation == Configuration.ORIENTATION_LANDSCAPE;
-		frameBufferWidth = isLandscape ? 800 : 480;
-		frameBufferHeight = isLandscape ? 480 : 800;
-
-		Bitmap frameBuffer = Bitmap.createBitmap(frameBufferWidth,
-				frameBufferHeight, Config.ARGB_8888);
+		// Pick the size and format of the framebuffer for this device (the
+		// screens always draw in the same coordinates)
+		renderScale = RenderScale.choose(this);
+		frameBufferWidth = renderScale.getLogicalWidth();
+		frameBufferHeight = renderScale.getLogicalHeight();
+		Log.i(TAG, "Drawing at " + renderScale.getScale() + "x ("
+				+ renderScale.getTier() + " tier)");
 
 		// Gets the scale factor between the screen and buffer to handle user
 		// input
@@ -243,10 +263,51 @@ public class BattleLaserActivity extends Activity
 				/ mScreenHeight;
 
 		// Create all the objects that run the game
-		renderView = new RenderGraphics(frameBuffer, this);
-		graphics = new Graphics(getAssets(), frameBuffer);
+		View view;
+		if (USE_OPENGL)
+		{
+			GLGraphics glGraphics = new GLGraphics(getAssets(), renderScale);
+			GLRenderView glView = new GLRenderView(glGraphics, this);
+			graphics = glGraphics;
+			renderView = glView;
+			view = glView;
+		}
+		else
+		{
+			Bitmap frameBuffer = Bitmap.createBitmap(renderScale
+					.getBufferWidth(), renderScale.getBufferHeight(),
+					renderScale.getConfig());
+			RenderGraphics canvasView = new RenderGraphics(frameBuffer, this);
+			graphics = new CanvasGraphics(getAssets(), frameBuffer,
+					renderScale);
+			renderView = canvasView;
+			view = canvasView;
+		}
+		renderView.getProfiler().setOverlayVisible(PROFILE_FRAMES);
+
+		// Take the small images from the texture atlas, which is the only
+		// place they are shipped
+		try
+		{
+			graphics.loadAtlas(TextureAtlas.ASSET_NAME);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Couldn't load the texture atlas");
+		}
 		fileIO = new FileIO(this);
-		input = new Input(this, renderView, scaleX, scaleY);
+
+		// Copy the images that were decoded ahead of time out of the bundle
+		try
+		{
+			graphics.loadBundle(fileIO, AssetBundle.ASSET_NAME);
+		}
+		catch (IOException e)
+		{
+			Log.i(TAG, "No asset bundle, decoding every image from its file");
+		}
+		input = new Input(this, view, frameBufferWidth, frameBufferHeight,
+				scaleX, scaleY);
 		
 		// Create the vibration handler
 		vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
@@ -261,7 +322,7 @@ public class BattleLaserActivity extends Activity
 	    
 	    // Create the screen and set the view to the render view that was created
 		screen = new MainMenuScreen(this, true, mMatch);
-		setContentView(renderView);
+		setContentView(view);
 		
 		// Create the interstitial.
 	    interstitial = new InterstitialAd(this);
@@ -440,9 +501,33 @@ public class BattleLaserActivity extends Activity
 	{
 		super.onPause();
 		renderView.pause();
+		if (PROFILE_FRAMES)
+		{
+			try
+			{
+				renderView.getProfiler().write(fileIO.writeFile(PROFILE_FILE));
+			}
+			catch (IOException e)
+			{
+				Log.w(TAG, "Couldn't write the frame profile", e);
+			}
+		}
 		screen.pause();
 		if (isFinishing())
+		{
 			screen.dispose();
+			graphics.getLoader().shutdown();
+		}
+	}
+
+	/**
+	 * When the system runs low on memory, free the images no screen is using
+	 */
+	@Override
+	public void onLowMemory()
+	{
+		super.onLowMemory();
+		graphics.getCache().trim();
 	}
 	
 	@Override
@@ -1,46 +1,65 @@
 package com.pianist.battlelasers.game_objects;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.pianist.battlelasers.FileIO;
 
 import android.graphics.Point;
 
 /**
  * The AI Class is used to simulate a player with different skill levels. When
- * asked to calculate a move, it creates a new thread that is used to calculate
- * that move and reports to the main thread when it is finished. It also doesn't
- * ever repeat the same grid configuration to make the game more fun.
- * 
+ * asked to calculate a move, it calculates that move on its own background
+ * thread (which is kept for the whole game) and tells its listener when it is
+ * finished. It also doesn't ever repeat the same grid configuration to make the
+ * game more fun.
+ *
  * @author Peter Gokhshteyn and Alex Szoke
  */
-public class AI implements Runnable
+public class AI
 {
-	// Store the original grid and list of mirrors
-	private AIMirror[][] originalGrid;
+	// The most moves that can be made on a single turn (five for each mirror)
+	private static final int MAX_MOVES = 5 * MirrorBoard.NUM_CELLS;
+
+	// The transposition table has two to the power of this many slots
+	private static final int TABLE_SIZE_BITS = 15;
 
-	private ArrayList<AIMirror> originalList;
+	// The longest the AI pretends to think for and the least time the
+	// impossible AI spends searching (in milliseconds)
+	private static final int MAX_THINKING_TIME = 2000;
 
-	// A variable that tells the main thread when the AI is done calculating a
-	// move
-	private boolean isFinishedCalculating;
+	private static final int MIN_SEARCH_TIME = 1000;
 
-	// The move that the AI selected
+	// Store the original board
+	private MirrorBoard originalBoard;
+
+	// The move that the AI selected that hasn't been taken yet
 	private Move selectedMove;
 
-	// The thread in which the move is calculated
-	private Thread calculationThread;
+	// The thread the moves are calculated on, which also hands over each move
+	// once the AI is done pretending to think
+	private ScheduledExecutorService executor;
 
-	// The start and end points of the last move
-	// Are volatile because they are read and written from both threads
-	private volatile Point illegalStart;
+	// The token of the move being calculated (cancelled when that move is no
+	// longer wanted)
+	private CancellationToken currentToken;
 
-	private volatile Point illegalEnd;
+	// Told when a move has been calculated
+	private MoveListener listener;
 
 	// Whether the AI should pretend to think for a long time or not
 	private boolean thinkLong;
 
-	// The lists of mirrors that describe previously used grids
-	private ArrayList<ArrayList<AIMirror>> archivedGrids;
+	// The hashes of previously used grids
+	private PositionSet archivedGrids;
+
+	// The results of positions that were already searched, kept for the whole
+	// match
+	private TranspositionTable transpositions;
 
 	// Whether the AI is difficult or easy
 	private AIDifficulty difficulty;
@@ -48,110 +67,162 @@ public class AI implements Runnable
 	// Whether the AI could win after the last move
 	private boolean computerCouldWin;
 
+	// The boards, shot results and move lists used while choosing a move, so
+	// that searching doesn't create any objects
+	private MirrorBoard rootBoard;
+
+	private MirrorBoard searchBoard;
+
+	private ShotCache rootShots;
+
+	private int[] possibleMoves;
+
+	private int[] filteredMoves;
+
+	// The results of the shots on the original board
+	private ShotCache boardShots;
+
+	// Looks ahead for the impossible AI
+	private GameSearch search;
+
+	// Used for reading the opening book and the endgame table
+	private FileIO fileIO;
+
+	// The best replies in the early positions of the layouts and the winning
+	// moves in the solved positions of the small layouts, shared by all AIs
+	// and read the first time they are needed
+	private static OpeningBook openingBook = null;
+
+	private static EndgameTable endgameTable = null;
+
 	public enum AIDifficulty {
 		Easy, Medium, Hard, Impossible
 	}
 
+	/**
+	 * The MoveListener interface is told when the AI has calculated a move.
+	 * It is called from the AI's thread.
+	 */
+	public interface MoveListener
+	{
+		/**
+		 * Called when the AI has a move ready to be taken with takeMove
+		 */
+		public void moveCalculated();
+	}
+
 	/**
 	 * Creates a new AI with the given grid, list of mirrors and difficulty. It
-	 * copies over the contents of the grid and list into more efficiently
-	 * stored mirror object.
-	 * 
+	 * copies over the contents of the grid and list into a more efficiently
+	 * stored board.
+	 *
 	 * @param grid
 	 *            The initial grid that contains the mirrors
 	 * @param mirrors
 	 *            The initial list that contains the mirrors
 	 * @param difficulty
 	 *            The difficulty of the AI
+	 * @param fileIO
+	 *            Used for reading the opening book and the endgame table (or
+	 *            null to play without them)
 	 */
 	public AI(final Mirror[][] grid, final List<Mirror> mirrors,
-			AIDifficulty difficulty)
+			AIDifficulty difficulty, FileIO fileIO)
 	{
 		// Copy over the mirror information
-		originalGrid = new AIMirror[12][8];
-		originalList = new ArrayList<AIMirror>();
+		originalBoard = new MirrorBoard();
 		for (Mirror mirror : mirrors)
-		{
-			AIMirror nextMirror = new AIMirror(mirror.row, mirror.col,
+			originalBoard.addMirror(mirror.row, mirror.col,
 					mirror.isHorizontal());
-			originalList.add(nextMirror);
-			originalGrid[nextMirror.row][nextMirror.col] = nextMirror;
-		}
 
 		// Initialise other variables to default
-		isFinishedCalculating = false;
-		selectedMove = new Move(null, null);
+		selectedMove = null;
 		thinkLong = false;
-		calculationThread = null;
-		illegalStart = null;
-		illegalEnd = null;
+		currentToken = null;
+		listener = null;
 		computerCouldWin = false;
-		archivedGrids = new ArrayList<ArrayList<AIMirror>>();
+		archivedGrids = new PositionSet();
+		transpositions = new TranspositionTable(TABLE_SIZE_BITS);
 		this.difficulty = difficulty;
+		this.fileIO = fileIO;
+
+		rootBoard = new MirrorBoard();
+		searchBoard = new MirrorBoard();
+		rootShots = new ShotCache();
+		possibleMoves = new int[MAX_MOVES];
+		filteredMoves = new int[MAX_MOVES];
+		boardShots = new ShotCache();
+		boardShots.reset(originalBoard);
+		search = new GameSearch(transpositions, archivedGrids);
+
+		// The AI's thread doesn't keep the game running if it is closed
+		executor = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(Runnable runnable)
+					{
+						Thread thread = new Thread(runnable, "AI");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
 
 		// Add the first grid to the archived grids
-		ArrayList<AIMirror> saveGrid = new ArrayList<AIMirror>(
-				originalList.size());
-		for (AIMirror mirror : originalList)
-			saveGrid.add(mirror.clone());
-		archivedGrids.add(saveGrid);
-
+		archiveGrid(originalBoard);
 	}
 
 	/**
-	 * Checks whether the AI is finished calculating the next move
-	 * 
-	 * @return whether the AI is finished calculating the next move
+	 * Sets the listener that is told when a move has been calculated
+	 *
+	 * @param listener
+	 *            The listener to tell
 	 */
-	public synchronized boolean isFinishedCalculating()
+	public synchronized void setMoveListener(MoveListener listener)
 	{
-		if (isFinishedCalculating)
-		{
-			isFinishedCalculating = false;
-			return true;
-		}
-		return false;
+		this.listener = listener;
 	}
 
 	/**
-	 * Returns the move that the AI chose
-	 * 
-	 * @return the move that the AI chose
+	 * Returns the move that the AI chose, if it is done calculating it and it
+	 * wasn't cancelled since
+	 *
+	 * @return the move that the AI chose, or null if there isn't one
 	 */
-	public Move getMove()
+	public synchronized Move takeMove()
 	{
-		return selectedMove;
+		Move move = selectedMove;
+		selectedMove = null;
+		currentToken = null;
+		return move;
 	}
 
 	/**
 	 * Tell the AI that a move was made so it can update the board
-	 * 
+	 *
 	 * @param move
 	 *            The move that was made
 	 */
 	public void userMadeMove(Move move, boolean undoingMove)
 	{
-		// Update the grid
-		makeMove(originalGrid, move);
-
-		// Save the grid to the archived list if the move is not an undo
-		if (!undoingMove)
+		synchronized (this)
 		{
-			ArrayList<AIMirror> saveGrid = new ArrayList<AIMirror>(
-					originalList.size());
-			for (AIMirror mirror : originalList)
-				saveGrid.add(mirror.clone());
-			archivedGrids.add(saveGrid);
+			// Update the board and the shots that cross the changed cells
+			int encodedMove = encodeMove(move);
+			originalBoard.makeMove(encodedMove);
+			boardShots.moveMade(originalBoard, encodedMove);
+
+			// Save the grid to the archived list if the move is not an undo
+			if (!undoingMove)
+				archiveGrid(originalBoard);
 		}
 	}
 
 	/**
 	 * Checks if the AI could win after its last turn and stores it
 	 */
-	public void checkAIWin()
+	public synchronized void checkAIWin()
 	{
-		if (testGrid(originalGrid, false, false) >= 0
-				|| testGrid(originalGrid, false, true) >= 0)
+		if (boardShots.getResult(false, false) >= 0
+				|| boardShots.getResult(false, true) >= 0)
 			computerCouldWin = true;
 		else
 			computerCouldWin = false;
@@ -159,119 +230,215 @@ public class AI implements Runnable
 
 	/**
 	 * Tells the AI to start calculating a new move along with the last move
-	 * which it isn't allowed to undo
-	 * 
+	 * which it isn't allowed to undo. Any move still being calculated is
+	 * cancelled.
+	 *
 	 * @param illegalStart
 	 *            The start of the previous move
 	 * @param illegalEnd
 	 *            The end of the previous move
 	 */
-	public void startCalculatingMove(Point illegalStart, Point illegalEnd)
+	public synchronized void startCalculatingMove(final Point illegalStart,
+			final Point illegalEnd)
 	{
-		this.illegalStart = illegalStart;
-		this.illegalEnd = illegalEnd;
-		thinkLong = false;
-		isFinishedCalculating = false;
-		if (calculationThread != null)
-			calculationThread.interrupt();
-		calculationThread = new Thread(this);
-		calculationThread.start();
+		cancelMove();
+		final CancellationToken token = new CancellationToken();
+		currentToken = token;
+		executor.execute(new Runnable() {
+			public void run()
+			{
+				calculateMove(illegalStart, illegalEnd, token);
+			}
+		});
 	}
 
 	/**
-	 * Calculates the move taking at least 5 seconds for better gameplay
+	 * Cancels the move being calculated (or waiting to be taken) so that it
+	 * is never handed over
 	 */
-	public void run()
+	public synchronized void cancelMove()
 	{
-		long startTime = System.currentTimeMillis();
-		Move foundMove = findMove(originalGrid, originalList, 1);
-		int thinkingLength = thinkLong ? 2000
-				: (int) (Math.random() * 2000 + 1);
-		if (System.currentTimeMillis() - startTime < thinkingLength)
+		if (currentToken != null)
+			currentToken.cancel();
+		currentToken = null;
+		selectedMove = null;
+	}
+
+	/**
+	 * Stops any move being calculated and the threads used for calculating.
+	 * The AI can't be used after this.
+	 */
+	public void dispose()
+	{
+		cancelMove();
+		executor.shutdownNow();
+		search.shutdown();
+	}
+
+	/**
+	 * Chooses a move straight away on the calling thread, without pretending
+	 * to think. This is used for measuring how long the AI takes to choose a
+	 * move.
+	 *
+	 * @param illegalStart
+	 *            The cell the previous move started on or -1
+	 * @param illegalEnd
+	 *            The cell the previous move ended on or -1
+	 * @param deadline
+	 *            The time (in milliseconds) the impossible AI has to finish
+	 *            searching by
+	 * @return the encoded move that was chosen
+	 */
+	public int chooseMove(int illegalStart, int illegalEnd, long deadline)
+	{
+		synchronized (this)
 		{
-			try
-			{
-				Thread.sleep(thinkingLength
-						- (System.currentTimeMillis() - startTime));
-				// If the thread was interrupted, don't update the chosen move
-				// so it isn't used
-				if (!Thread.currentThread().isInterrupted())
-				{
-					synchronized (this)
-					{
-						selectedMove = foundMove;
-						isFinishedCalculating = true;
-						return;
-					}
-				}
-			}
-			catch (InterruptedException e)
-			{
-			}
+			rootBoard.set(originalBoard);
+			rootShots.set(boardShots);
 		}
+		return findMove(rootBoard, rootShots, illegalStart, illegalEnd,
+				deadline, new CancellationToken());
+	}
+
+	/**
+	 * Calculates the move on the AI's thread and hands it over after up to 2
+	 * seconds for better gameplay
+	 *
+	 * @param illegalStart
+	 *            The start of the previous move
+	 * @param illegalEnd
+	 *            The end of the previous move
+	 * @param token
+	 *            The token that tells if the move is no longer wanted
+	 */
+	private void calculateMove(Point illegalStart, Point illegalEnd,
+			final CancellationToken token)
+	{
+		if (token.isCancelled())
+			return;
+		long startTime = System.currentTimeMillis();
 
-		// If the thread was interrupted, don't update the chosen move
-		// so it isn't used
-		if (!Thread.currentThread().isInterrupted())
+		// The impossible AI searches for as long as it would pretend to think
+		// (but at least a second)
+		thinkLong = false;
+		int thinkingLength = (int) (Math.random() * MAX_THINKING_TIME + 1);
+		long deadline = startTime
+				+ Math.max(thinkingLength, MIN_SEARCH_TIME);
+
+		// Copy the board over in synchronized form to avoid access issues
+		synchronized (this)
 		{
-			synchronized (this)
-			{
-				selectedMove = foundMove;
-				isFinishedCalculating = true;
-				return;
-			}
+			rootBoard.set(originalBoard);
+			rootShots.set(boardShots);
 		}
+		int foundMove = findMove(rootBoard, rootShots, toCell(illegalStart),
+				toCell(illegalEnd), deadline, token);
+		if (token.isCancelled())
+			return;
 
+		// Hand the move over once the AI is done pretending to think
+		if (thinkLong)
+			thinkingLength = MAX_THINKING_TIME;
+		final Move move = decodeMove(foundMove);
+		Runnable handOver = new Runnable() {
+			public void run()
+			{
+				handOverMove(move, token);
+			}
+		};
+		long delay = thinkingLength - (System.currentTimeMillis() - startTime);
+		if (delay > 0)
+			executor.schedule(handOver, delay, TimeUnit.MILLISECONDS);
+		else
+			handOver.run();
 	}
 
 	/**
-	 * Chooses a move based on the given grid and difficulty
-	 * 
-	 * @param grid
-	 *            The grid that contains all the mirrors
-	 * @param mirrors
-	 *            The list of mirrors
-	 * @param depth
-	 *            The depth of recursion
-	 * @return the move that was chosen
+	 * Stores the calculated move and tells the listener about it, unless it
+	 * was cancelled
+	 *
+	 * @param move
+	 *            The move that was calculated
+	 * @param token
+	 *            The token of the move
 	 */
-	private Move findMove(final AIMirror[][] grid,
-			final ArrayList<AIMirror> mirrors, int depth)
+	private void handOverMove(Move move, CancellationToken token)
 	{
-		// Copy the grid over to new variables in synchronized form to avoid
-		// access issues
-		AIMirror[][] gridCopy = new AIMirror[12][8];
-		ArrayList<AIMirror> listCopy = new ArrayList<AIMirror>(mirrors.size());
+		MoveListener moveListener;
 		synchronized (this)
 		{
-			for (AIMirror mirror : mirrors)
-			{
-				AIMirror clone = mirror.clone();
-				listCopy.add(clone);
-				gridCopy[mirror.row][mirror.col] = clone;
-			}
+			if (token.isCancelled() || token != currentToken)
+				return;
+			selectedMove = move;
+			moveListener = listener;
 		}
 
-		// If the recursion depth is one, check if the AI can win and return
-		// that move based on the AI's difficulty level
-		// In later depths this case is checked beforehand
-		if (depth == 1
-				&& (Math.random() >= 0.4 || difficulty != AIDifficulty.Easy)
+		// Tell the listener outside of the lock, since it will take the move
+		// while holding its own lock
+		if (moveListener != null)
+			moveListener.moveCalculated();
+	}
+
+	/**
+	 * Chooses a move based on the given board and difficulty
+	 *
+	 * @param board
+	 *            The board that contains all the mirrors (it is left unchanged)
+	 * @param shots
+	 *            The results of the shots on the board
+	 * @param illegalStart
+	 *            The cell the previous move started on or -1
+	 * @param illegalEnd
+	 *            The cell the previous move ended on or -1
+	 * @param deadline
+	 *            The time (in milliseconds) the impossible AI has to finish
+	 *            searching by
+	 * @param token
+	 *            The token that tells if the move is no longer wanted
+	 * @return the encoded move that was chosen
+	 */
+	private int findMove(final MirrorBoard board, final ShotCache shots,
+			int illegalStart, int illegalEnd, long deadline,
+			CancellationToken token)
+	{
+		// Check if the AI can win and return that move based on the AI's
+		// difficulty level
+		if ((Math.random() >= 0.4 || difficulty != AIDifficulty.Easy)
 				&& (Math.random() >= 0.15 || difficulty != AIDifficulty.Medium))
 		{
-			if (testGrid(gridCopy, false, false) >= 0)
+			if (shots.getResult(false, false) >= 0)
 			{
-				return new Move(null, null);
+				return MirrorBoard.SHOOT_LEFT;
 			}
-			else if (testGrid(gridCopy, false, true) >= 0)
+			else if (shots.getResult(false, true) >= 0)
 			{
-				return new Move(null, null).needToTurnRight();
+				return MirrorBoard.SHOOT_RIGHT;
 			}
 		}
 
+		// The impossible AI plays solved positions from its endgame table and
+		// the opening from its book, and otherwise searches as many moves
+		// ahead as it has time for
+		if (difficulty == AIDifficulty.Impossible)
+		{
+			int tableMove = getEndgameTable(fileIO).lookup(
+					EndgameTable.key(board, illegalStart, illegalEnd));
+			if (tableMove != EndgameTable.NO_MOVE
+					&& canPlay(board, tableMove, illegalStart, illegalEnd))
+				return tableMove;
+
+			int bookMove = getOpeningBook(fileIO).lookup(board.getHash());
+			if (bookMove >= 0
+					&& canPlay(board, bookMove, illegalStart, illegalEnd))
+				return bookMove;
+
+			return search.search(board, shots, illegalStart, illegalEnd,
+					deadline, token);
+		}
+
 		// Check if the human player can win
-		boolean humanCanWin = (testGrid(gridCopy, true, false) >= 0 || testGrid(
-				gridCopy, true, true) >= 0);
+		boolean humanCanWin = (shots.getResult(true, false) >= 0 || shots
+				.getResult(true, true) >= 0);
 
 		// If the player made a move after the computer could win and can now
 		// win the next turn, give them a luck bonus to reward them
@@ -289,38 +456,12 @@ public class AI implements Runnable
 		}
 
 		// Generate a list of all possible moves
-		ArrayList<Move> possibleMoves = new ArrayList<Move>();
-		for (AIMirror mirror : listCopy)
-		{
-			if (grid[mirror.row - 1][mirror.col] == null
-					&& mirror.canMove(new Point(mirror.row - 1, mirror.col),
-							depth == 1))
-				possibleMoves.add(new Move(new Point(mirror.row, mirror.col),
-						new Point(mirror.row - 1, mirror.col)));
-			if (grid[mirror.row][mirror.col - 1] == null
-					&& mirror.canMove(new Point(mirror.row, mirror.col - 1),
-							depth == 1))
-				possibleMoves.add(new Move(new Point(mirror.row, mirror.col),
-						new Point(mirror.row, mirror.col - 1)));
-			if (grid[mirror.row][mirror.col + 1] == null
-					&& mirror.canMove(new Point(mirror.row, mirror.col + 1),
-							depth == 1))
-				possibleMoves.add(new Move(new Point(mirror.row, mirror.col),
-						new Point(mirror.row, mirror.col + 1)));
-			if (grid[mirror.row + 1][mirror.col] == null
-					&& mirror.canMove(new Point(mirror.row + 1, mirror.col),
-							depth == 1))
-				possibleMoves.add(new Move(new Point(mirror.row, mirror.col),
-						new Point(mirror.row + 1, mirror.col)));
-			if (mirror.canMove(new Point(mirror.row, mirror.col), depth == 1))
-				possibleMoves.add(new Move(new Point(mirror.row, mirror.col),
-						new Point(mirror.row, mirror.col)));
-		}
+		int numMoves = board.generateMoves(possibleMoves, illegalStart,
+				illegalEnd);
 
 		// Choose a random move in case the AI can't choose a good move or it is
 		// in easy mode
-		Move randomMove = possibleMoves
-				.get((int) (Math.random() * possibleMoves.size()));
+		int randomMove = possibleMoves[(int) (Math.random() * numMoves)];
 
 		// If the AI is in easy mode, always make a random move unless the
 		// computer can win, and if the AI is in medium mode, it only makes a
@@ -334,21 +475,18 @@ public class AI implements Runnable
 				return randomMove;
 		}
 
-		// Filter out all the moves that lead to an opponent winning or that
-		// lead to grids that have already been used
-		// Only the impossible AI makes moves that make sure the opponent cannot
-		// win because of an unlucky move (all other difficulties ignore the
-		// next opponents turn unless they can win using the current game state)
-		ArrayList<Move> filteredMoves = new ArrayList<Move>();
-		for (Move move : possibleMoves)
+		// Filter out all the moves that lead to grids that have already been
+		// used (these difficulties ignore the next opponents turn unless they
+		// can win using the current game state)
+		searchBoard.set(board);
+		int numFiltered = 0;
+		for (int index = 0; index < numMoves; index++)
 		{
-			makeMove(gridCopy, move);
-			if (!usedGrid(listCopy)
-					&& (difficulty != AIDifficulty.Impossible || !(testGrid(
-							gridCopy, true, true) >= 0 || testGrid(gridCopy,
-							true, false) >= 0)))
-				filteredMoves.add(move);
-			makeMove(gridCopy, move.reverse());
+			int move = possibleMoves[index];
+			searchBoard.makeMove(move);
+			if (!usedGrid(searchBoard))
+				filteredMoves[numFiltered++] = move;
+			searchBoard.unmakeMove(move);
 		}
 
 		// If the human player can win, slightly alter the random move rate for
@@ -363,438 +501,202 @@ public class AI implements Runnable
 		}
 
 		// If there are no such possible moves, just make a random move
-		if (filteredMoves.isEmpty())
+		if (numFiltered == 0)
 			return randomMove;
 
 		// Finds the best move as defined by the AI winning after moving
 		// In case of tie breakers, it picks the move that shoots the laser the
 		// farthest
-		Move bestMove = null;
-		for (Move move : filteredMoves)
+		// Only the shots that cross the cells changed by a move are traced
+		// again
+		int bestMove = 0;
+		int bestRating = -1;
+		for (int index = 0; index < numFiltered; index++)
 		{
-			makeMove(gridCopy, move);
+			int move = filteredMoves[index];
+			searchBoard.makeMove(move);
+			int rating = Math.max(
+					shots.resultAfter(searchBoard, move, false, false),
+					shots.resultAfter(searchBoard, move, false, true));
+			if (rating >= 0 && rating >= bestRating)
 			{
-				move.setRating(Math.max(testGrid(gridCopy, false, false),
-						testGrid(gridCopy, false, true)));
-				if (move.getRating() >= 0
-						&& (bestMove == null || move.getRating() >= bestMove
-								.getRating()))
-					bestMove = move;
+				bestMove = move;
+				bestRating = rating;
 			}
-			makeMove(gridCopy, move.reverse());
+			searchBoard.unmakeMove(move);
 		}
 
-		// If a best move was found return it
-		if (bestMove != null)
-			return bestMove;
-
-		// If a best move wasn't found and the AI is set to impossible, recurse
-		// one move depth to look 2 moves ahead
-		if (difficulty == AIDifficulty.Impossible && depth < 2)
-		{
-			for (Move move : filteredMoves)
-			{
-				makeMove(gridCopy, move);
-				Move newMove = findMove(gridCopy, listCopy, depth + 1);
-				if (newMove.getRating() > 0
-						&& (bestMove == null || newMove.getRating() >= bestMove
-								.getRating()))
-					bestMove = move;
-				makeMove(gridCopy, move.reverse());
-			}
-		}
-
-		// If after recursing, there was no best move found, or the AI is set to
-		// easy, return a random move that stops the opponent from winning
-		if (bestMove == null)
-			return filteredMoves.get((int) (Math.random() * filteredMoves
-					.size()));
-		else
+		// If a best move was found return it, otherwise return a random move
+		// that doesn't repeat a grid
+		if (bestRating >= 0)
 			return bestMove;
+		return filteredMoves[(int) (Math.random() * numFiltered)];
 	}
 
 	/**
-	 * Checks whether the given grid was used before
-	 * 
-	 * @param list
-	 *            The list of mirrors that describe the current grid
-	 * @return whether the current grid was used before
+	 * Checks whether a move that was looked up (in the opening book or the
+	 * endgame table) can be made on the given board, since it could belong to
+	 * a different grid with the same hash or lead to a grid that was used
+	 *
+	 * @param board
+	 *            The board that contains all the mirrors (it is left unchanged)
+	 * @param move
+	 *            The encoded move that was looked up
+	 * @param illegalStart
+	 *            The cell the previous move started on or -1
+	 * @param illegalEnd
+	 *            The cell the previous move ended on or -1
+	 * @return whether the move is legal and doesn't repeat a grid
 	 */
-	private boolean usedGrid(ArrayList<AIMirror> list)
+	private boolean canPlay(MirrorBoard board, int move, int illegalStart,
+			int illegalEnd)
 	{
-		int numMirrors = archivedGrids.get(0).size();
-		for (ArrayList<AIMirror> mirrors : archivedGrids)
+		// Shooting is always allowed and doesn't change the grid
+		if (MirrorBoard.isShot(move))
+			return true;
+
+		int numMoves = board.generateMoves(possibleMoves, illegalStart,
+				illegalEnd);
+		for (int index = 0; index < numMoves; index++)
 		{
-			boolean sameGrid = true;
-			for (int index = 0; sameGrid && index < numMirrors; index++)
+			if (possibleMoves[index] == move)
 			{
-				if (!mirrors.get(index).equals(list.get(index)))
-					sameGrid = false;
+				searchBoard.set(board);
+				searchBoard.makeMove(move);
+				return !usedGrid(searchBoard);
 			}
-			if (sameGrid)
-				return true;
 		}
 		return false;
 	}
 
 	/**
-	 * Makes a move by updating the given grid and mirrors
-	 * 
-	 * @param grid
-	 *            The grid that contains all the mirrors
-	 * @param move
-	 *            The move to make
+	 * Returns the opening book, reading it from the assets the first time. If
+	 * the book can't be read, an empty book is used instead.
+	 *
+	 * @param fileIO
+	 *            Used for reading the book (or null to use an empty book)
+	 * @return the opening book
 	 */
-	private void makeMove(AIMirror[][] grid, Move move)
+	private static synchronized OpeningBook getOpeningBook(FileIO fileIO)
 	{
-		// Retrieve the starting and ending points
-		Point startPoint = move.getStartPoint();
-		Point endPoint = move.getEndPoint();
-
-		// If the move was a shot, return
-		if (startPoint == null && endPoint == null)
-			return;
-
-		// If the move was a turn, turn the mirror, otherwise move it
-		if (startPoint.equals(endPoint))
-		{
-			AIMirror movedMirror = grid[endPoint.x][endPoint.y];
-			movedMirror.isHorizontal = !movedMirror.isHorizontal;
-		}
-		else
-		{
-			AIMirror movedMirror = grid[startPoint.x][startPoint.y];
-			grid[endPoint.x][endPoint.y] = grid[startPoint.x][startPoint.y];
-			grid[startPoint.x][startPoint.y] = null;
-			movedMirror.col = endPoint.y;
-			movedMirror.row = endPoint.x;
-		}
-	}
-
-	/**
-	 * Tests to see if the given grid is a winning configuration if shot from
-	 * the given player in the given direction
-	 * 
-	 * @param grid
-	 *            The grid that contains the mirrors
-	 * @param playerOneTurn
-	 *            Whether it is player one's turn
-	 * @param turnedRight
-	 *            Whether the player is shooting right (from their perspective)
-	 * @return -1 if it is not a winning shot or a positive integer representing
-	 *         the length of the winning shot
-	 */
-	private int testGrid(AIMirror[][] grid, boolean playerOneTurn,
-			boolean turnedRight)
-	{
-		Point laserStart;
-		int laserDirection;
-
-		// Based on whose turn it is and if the player is shooting right, find
-		// the starting position and direction of the laser
-		if (!playerOneTurn)
-		{
-			if (turnedRight)
-			{
-				laserStart = new Point(3, 1);
-				laserDirection = 3;
-			}
-			else
-			{
-				laserStart = new Point(4, 1);
-				laserDirection = 4;
-			}
-		}
-		else
+		if (fileIO == null)
+			return OpeningBook.empty();
+		if (openingBook == null)
 		{
-			if (turnedRight)
+			try
 			{
-				laserStart = new Point(4, 10);
-				laserDirection = 1;
+				openingBook = OpeningBook.read(fileIO
+						.readAsset(OpeningBook.ASSET_NAME));
 			}
-			else
+			catch (IOException e)
 			{
-				laserStart = new Point(3, 10);
-				laserDirection = 2;
+				openingBook = OpeningBook.empty();
 			}
 		}
+		return openingBook;
+	}
 
-		// Store the next point that the laser is at and the total shot length
-		// and number of back bounces
-		Point nextPoint = new Point(laserStart);
-		int numBackBounces = 0;
-		int shotLength = 0;
-
-		while (true)
+	/**
+	 * Returns the endgame table, reading it from the assets the first time. If
+	 * the table can't be read, an empty table is used instead.
+	 *
+	 * @param fileIO
+	 *            Used for reading the table (or null to use an empty table)
+	 * @return the endgame table
+	 */
+	private static synchronized EndgameTable getEndgameTable(FileIO fileIO)
+	{
+		if (fileIO == null)
+			return EndgameTable.empty();
+		if (endgameTable == null)
 		{
-			// If the laser is bouncing off the side
-			if (nextPoint.x == 0 || nextPoint.x == 7)
-			{
-				// If the laser is in the corner, return no win
-				if (nextPoint.y == 0 || nextPoint.y == 11)
-					return -1;
-
-				// Otherwise, turn appropriately
-				if (laserDirection == 1)
-					laserDirection = 2;
-				else if (laserDirection == 2)
-					laserDirection = 1;
-				else if (laserDirection == 3)
-					laserDirection = 4;
-				else
-					laserDirection = 3;
-			}
-			// Otherwise, if the laser is just bouncing off the back
-			else if (nextPoint.y == 0 || nextPoint.y == 11)
-			{
-				// Check if it has already bounced back once and return if it
-				// did
-				if (numBackBounces == 1)
-					return -1;
-				else
-					numBackBounces++;
-
-				// Turn appropriately
-				if (laserDirection == 1)
-					laserDirection = 4;
-				else if (laserDirection == 4)
-					laserDirection = 1;
-				else if (laserDirection == 3)
-					laserDirection = 2;
-				else
-					laserDirection = 3;
-			}
-			else
-			{
-				// If the laser is not bouncing off the sides, check if there is
-				// a mirror at the next position and turn if needed
-				AIMirror mirror = grid[nextPoint.y][nextPoint.x];
-				if (mirror != null)
-				{
-					if (mirror.isHorizontal)
-					{
-						if (laserDirection == 1)
-							laserDirection = 4;
-						else if (laserDirection == 4)
-							laserDirection = 1;
-						else if (laserDirection == 3)
-							laserDirection = 2;
-						else
-							laserDirection = 3;
-					}
-					else
-					{
-						if (laserDirection == 1)
-							laserDirection = 2;
-						else if (laserDirection == 2)
-							laserDirection = 1;
-						else if (laserDirection == 3)
-							laserDirection = 4;
-						else
-							laserDirection = 3;
-					}
-				}
-			}
-
-			// Check if the laser will hit the target the next turn, and if it
-			// does, return the length of the laser shot
-			if (nextPoint.x == 3)
-			{
-				if (nextPoint.y == 5 && laserDirection == 4)
-				{
-					return shotLength;
-				}
-				else if (nextPoint.y == 6 && laserDirection == 1)
-				{
-					return shotLength;
-				}
-			}
-			else if (nextPoint.x == 4)
-			{
-				if (nextPoint.y == 5 && laserDirection == 3)
-				{
-					return shotLength;
-				}
-				else if (nextPoint.y == 6 && laserDirection == 2)
-				{
-					return shotLength;
-				}
-			}
-
-			// Check if the laser will hit the top gun and return no win if it
-			// does
-			if (nextPoint.x == 3)
-			{
-				if (nextPoint.y == 0 && laserDirection == 4)
-				{
-					return -1;
-				}
-				else if (nextPoint.y == 1 && laserDirection == 1)
-				{
-					return -1;
-				}
-			}
-			else if (nextPoint.x == 4)
-			{
-				if (nextPoint.y == 0 && laserDirection == 3)
-				{
-					return -1;
-				}
-				else if (nextPoint.y == 1 && laserDirection == 2)
-				{
-					return -1;
-				}
-			}
-
-			// Check if the laser will hit the bottom gun and return no win if
-			// it does
-			if (nextPoint.x == 3)
-			{
-				if (nextPoint.y == 10 && laserDirection == 4)
-				{
-					return -1;
-				}
-				else if (nextPoint.y == 11 && laserDirection == 1)
-				{
-					return -1;
-				}
-			}
-			else if (nextPoint.x == 4)
-			{
-				if (nextPoint.y == 10 && laserDirection == 3)
-				{
-					return -1;
-				}
-				else if (nextPoint.y == 11 && laserDirection == 2)
-				{
-					return -1;
-				}
-			}
-
-			// Move the laser in the appropriate direction
-			if (laserDirection == 1)
-			{
-				nextPoint.x++;
-				nextPoint.y--;
-			}
-			else if (laserDirection == 2)
-			{
-				nextPoint.x--;
-				nextPoint.y--;
-			}
-			else if (laserDirection == 3)
+			try
 			{
-				nextPoint.x--;
-				nextPoint.y++;
+				endgameTable = EndgameTable.read(fileIO
+						.readAsset(EndgameTable.ASSET_NAME));
 			}
-			else
+			catch (IOException e)
 			{
-				nextPoint.x++;
-				nextPoint.y++;
+				endgameTable = EndgameTable.empty();
 			}
-
-			// Update the shot length
-			shotLength++;
 		}
+		return endgameTable;
 	}
 
 	/**
-	 * The AIMirror class is used to efficiently store and access mirror data
-	 * 
-	 * @author Peter Gokhshteyn and Alex Szoke
-	 * @version June 15, 2013
+	 * Adds the given board to the list of previously used grids
+	 *
+	 * @param board
+	 *            The board to archive
 	 */
-	private class AIMirror
+	private void archiveGrid(MirrorBoard board)
 	{
-		// Store the row, column and whether the mirror is horizonal
-		private int row;
-
-		private int col;
+		archivedGrids.add(board.getHash());
+	}
 
-		private boolean isHorizontal;
+	/**
+	 * Checks whether the given grid was used before
+	 *
+	 * @param board
+	 *            The board that describes the current grid
+	 * @return whether the current grid was used before
+	 */
+	private boolean usedGrid(MirrorBoard board)
+	{
+		return archivedGrids.contains(board.getHash());
+	}
 
-		/**
-		 * Create a new mirror with the given data
-		 * 
-		 * @param row
-		 *            The row the mirror is in
-		 * @param col
-		 *            The column the mirror is in
-		 * @param isHorizonal
-		 *            Whether the mirror is horizontal
-		 */
-		private AIMirror(int row, int col, boolean isHorizonal)
-		{
-			this.row = row;
-			this.col = col;
-			this.isHorizontal = isHorizonal;
-		}
+	/**
+	 * Converts the given point in (row, column) form to a board cell
+	 *
+	 * @param point
+	 *            The point to convert
+	 * @return the cell of the point, or -1 if the point is null
+	 */
+	private static int toCell(Point point)
+	{
+		if (point == null)
+			return -1;
+		return MirrorBoard.cell(point.x, point.y);
+	}
 
-		/**
-		 * Creates an exact copy of this mirror and returns it
-		 * 
-		 * @return an exact copy of this mirror
-		 */
-		public AIMirror clone()
-		{
-			return new AIMirror(row, col, isHorizontal);
-		}
+	/**
+	 * Converts the given move to its encoded form
+	 *
+	 * @param move
+	 *            The move to encode
+	 * @return the encoded move
+	 */
+	private static int encodeMove(Move move)
+	{
+		Point startPoint = move.getStartPoint();
+		Point endPoint = move.getEndPoint();
 
-		/**
-		 * Checks whether this mirror can move to the given point based on
-		 * whether the player can undo moves or not
-		 * 
-		 * @param point
-		 *            The point try to move this mirror to
-		 * @param checkUndo
-		 *            Whether to check undoing moves (doesn't check after
-		 *            recursing)
-		 * @return whether this mirror can move to the given position
-		 */
-		private boolean canMove(Point point, boolean checkUndo)
-		{
-			// If the move is to turn the mirror, check if turning would be
-			// undoing a move and return the result
-			if (point.equals(new Point(this.row, this.col)))
-			{
-				if (!checkUndo || !point.equals(illegalStart)
-						|| !point.equals(illegalEnd))
-					return true;
-				else
-					return false;
-			}
+		// If the move was a shot, it doesn't change the board
+		if (startPoint == null || endPoint == null)
+			return move.turnRight() ? MirrorBoard.SHOOT_RIGHT
+					: MirrorBoard.SHOOT_LEFT;
 
-			// Check if the move would undo the last move and return false if it
-			// does
-			if (checkUndo && new Point(this.row, this.col).equals(illegalEnd)
-					&& point.equals(illegalStart))
-				return false;
-
-			// Check if the point is out of bounds and return false if it is
-			if (point.y == 0 || point.y == 7 || point.x == 0 || point.x == 11)
-				return false;
-			if ((point.x < 2 || point.x > 9) && (point.y == 3 || point.y == 4))
-				return false;
-
-			// Return whether the point is right beside the mirror
-			return ((point.y == col && point.x == row - 1)
-					|| (point.y == col + 1 && point.x == row)
-					|| (point.y == col && point.x == row + 1) || (point.y == col - 1 && point.x == row));
-		}
+		return MirrorBoard.encodeMove(toCell(startPoint), toCell(endPoint));
+	}
 
-		/**
-		 * Checks if the mirror is equal to the given object
-		 * 
-		 * @param object
-		 *            The object to check the mirror against
-		 * @return true if the mirror is equal to the object, false if it isn't
-		 */
-		public boolean equals(Object object)
-		{
-			if (object == null)
-				return false;
-			AIMirror otherMirror = (AIMirror) object;
-			return (this.row == otherMirror.row && this.col == otherMirror.col && this.isHorizontal == otherMirror.isHorizontal);
-		}
+	/**
+	 * Converts the given encoded move back to a move
+	 *
+	 * @param move
+	 *            The encoded move
+	 * @return the decoded move
+	 */
+	private static Move decodeMove(int move)
+	{
+		if (move == MirrorBoard.SHOOT_LEFT)
+			return new Move(null, null);
+		if (move == MirrorBoard.SHOOT_RIGHT)
+			return new Move(null, null).needToTurnRight();
+
+		int from = MirrorBoard.moveFrom(move);
+		int to = MirrorBoard.moveTo(move);
+		return new Move(new Point(MirrorBoard.row(from), MirrorBoard.col(from)),
+				new Point(MirrorBoard.row(to), MirrorBoard.col(to)));
 	}
 }
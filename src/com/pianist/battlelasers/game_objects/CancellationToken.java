@@ -0,0 +1,40 @@
+package com.pianist.battlelasers.game_objects;
+
+/**
+ * The CancellationToken class is handed to a piece of background work so that
+ * it can be told to stop. The work checks the token every so often and gives
+ * up as soon as it is cancelled.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class CancellationToken
+{
+	// Whether the work was cancelled (read and written from different threads)
+	private volatile boolean cancelled;
+
+	/**
+	 * Creates a new token that isn't cancelled
+	 */
+	public CancellationToken()
+	{
+		cancelled = false;
+	}
+
+	/**
+	 * Tells the work holding this token to stop
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	/**
+	 * Checks whether the work holding this token should stop
+	 *
+	 * @return whether the token was cancelled
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+}
@@ -0,0 +1,248 @@
+package com.pianist.battlelasers.game_objects;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The EndgameTable class holds the positions of the small layouts that were
+ * solved ahead of time, along with the move that wins each one for the
+ * computer in the fewest turns. Only the positions that the computer wins are
+ * kept, since those are the only ones where the table can choose a move.
+ *
+ * Like the opening book, the table is stored as a sorted list of keys (the
+ * board hash mixed with the opponent's last move), and the AI checks that a
+ * move is legal before making it. The asset starts with the magic number and
+ * the version followed by the number of entries, then every key (as a long),
+ * every move (as a short) and the number of turns to the win for every
+ * position (as a byte).
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class EndgameTable
+{
+	// The name of the asset the table is stored in
+	public static final String ASSET_NAME = "EndgameTable.bin";
+
+	// Returned when a position isn't in the table
+	public static final int NO_MOVE = Integer.MIN_VALUE;
+
+	// Mixed into the key of a position for the opponent's last move
+	private static final long LAST_MOVE_KEY = 0xC2B2AE3D27D4EB4FL;
+
+	// Marks the start of a table file ("BLET")
+	private static final int MAGIC = 0x424C4554;
+
+	// The version of the file format
+	private static final int VERSION = 1;
+
+	// The keys of the solved positions in increasing order
+	private final long[] keys;
+
+	// The winning move for each position
+	private final short[] moves;
+
+	// The number of turns (of both players) until the computer wins
+	private final byte[] turnsToWin;
+
+	/**
+	 * Creates a table from the given positions
+	 *
+	 * @param keys
+	 *            The keys of the positions in increasing order
+	 * @param moves
+	 *            The winning move for each position
+	 * @param turnsToWin
+	 *            The number of turns until the computer wins
+	 */
+	private EndgameTable(long[] keys, short[] moves, byte[] turnsToWin)
+	{
+		this.keys = keys;
+		this.moves = moves;
+		this.turnsToWin = turnsToWin;
+	}
+
+	/**
+	 * Creates an empty table, used when the asset can't be read
+	 *
+	 * @return an empty table
+	 */
+	public static EndgameTable empty()
+	{
+		return new EndgameTable(new long[0], new short[0], new byte[0]);
+	}
+
+	/**
+	 * Creates a table from the given positions
+	 *
+	 * @param keys
+	 *            The keys of the positions (in any order, with no
+	 *            duplicates)
+	 * @param moves
+	 *            The winning move for each position
+	 * @param turnsToWin
+	 *            The number of turns until the computer wins
+	 * @param size
+	 *            The number of positions
+	 * @return the new table
+	 */
+	public static EndgameTable create(final long[] keys, int[] moves,
+			int[] turnsToWin, int size)
+	{
+		// Sort the positions by their key, keeping their moves with them
+		Integer[] order = new Integer[size];
+		for (int index = 0; index < size; index++)
+			order[index] = index;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer first, Integer second)
+			{
+				long a = keys[first];
+				long b = keys[second];
+				return a < b ? -1 : (a == b ? 0 : 1);
+			}
+		});
+
+		long[] sortedKeys = new long[size];
+		short[] sortedMoves = new short[size];
+		byte[] sortedTurns = new byte[size];
+		for (int index = 0; index < size; index++)
+		{
+			sortedKeys[index] = keys[order[index]];
+			sortedMoves[index] = (short) moves[order[index]];
+			sortedTurns[index] = (byte) turnsToWin[order[index]];
+		}
+		return new EndgameTable(sortedKeys, sortedMoves, sortedTurns);
+	}
+
+	/**
+	 * Reads a table from the given stream, which is closed afterwards
+	 *
+	 * @param stream
+	 *            The stream to read the table from
+	 * @return the table that was read
+	 * @throws IOException
+	 *             If the stream couldn't be read or isn't a table
+	 */
+	public static EndgameTable read(InputStream stream) throws IOException
+	{
+		DataInputStream input = new DataInputStream(new BufferedInputStream(
+				stream));
+		try
+		{
+			if (input.readInt() != MAGIC || input.readInt() != VERSION)
+				throw new IOException("Not an endgame table");
+
+			int size = input.readInt();
+			long[] keys = new long[size];
+			short[] moves = new short[size];
+			byte[] turnsToWin = new byte[size];
+			for (int index = 0; index < size; index++)
+				keys[index] = input.readLong();
+			for (int index = 0; index < size; index++)
+				moves[index] = input.readShort();
+			input.readFully(turnsToWin);
+			return new EndgameTable(keys, moves, turnsToWin);
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	/**
+	 * Writes the table to the given stream, which is closed afterwards
+	 *
+	 * @param stream
+	 *            The stream to write the table to
+	 * @throws IOException
+	 *             If the stream couldn't be written to
+	 */
+	public void write(OutputStream stream) throws IOException
+	{
+		DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(stream));
+		try
+		{
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(keys.length);
+			for (long key : keys)
+				output.writeLong(key);
+			for (short move : moves)
+				output.writeShort(move);
+			output.write(turnsToWin);
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+
+	/**
+	 * Returns the key of the given position in the table. The opponent's
+	 * last move is part of the position, since it decides which moves can be
+	 * made.
+	 *
+	 * @param board
+	 *            The board of the position
+	 * @param illegalStart
+	 *            The cell the opponent's last move started on or -1
+	 * @param illegalEnd
+	 *            The cell the opponent's last move ended on or -1
+	 * @return the key of the position
+	 */
+	public static long key(MirrorBoard board, int illegalStart, int illegalEnd)
+	{
+		if (illegalStart < 0)
+			return board.getHash();
+		return board.getHash() ^ LAST_MOVE_KEY
+				* (MirrorBoard.encodeMove(illegalStart, illegalEnd) + 1);
+	}
+
+	/**
+	 * Returns the number of positions in the table
+	 *
+	 * @return the size of the table
+	 */
+	public int size()
+	{
+		return keys.length;
+	}
+
+	/**
+	 * Finds the winning move for the computer in the given position
+	 *
+	 * @param key
+	 *            The key of the position
+	 * @return the encoded move, or NO_MOVE if the position isn't in the table
+	 */
+	public int lookup(long key)
+	{
+		int index = Arrays.binarySearch(keys, key);
+		if (index < 0)
+			return NO_MOVE;
+		return moves[index];
+	}
+
+	/**
+	 * Finds the number of turns until the computer wins the given position
+	 *
+	 * @param key
+	 *            The key of the position
+	 * @return the number of turns of both players, or -1 if the position
+	 *         isn't in the table
+	 */
+	public int turnsToWin(long key)
+	{
+		int index = Arrays.binarySearch(keys, key);
+		if (index < 0)
+			return -1;
+		return turnsToWin[index];
+	}
+}
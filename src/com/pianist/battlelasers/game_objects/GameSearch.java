@@ -0,0 +1,714 @@
+package com.pianist.battlelasers.game_objects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The GameSearch class looks ahead through the moves of both players to find
+ * the best move for the computer (player two). It uses an iterative deepening
+ * negamax search with alpha-beta pruning, searching one move deeper every
+ * iteration until it runs out of time, and keeps the best move of the last
+ * iteration that it finished.
+ *
+ * A player wins as soon as it is their turn and one of their shots hits the
+ * target. Positions that are not won are rated by the laser of the player who
+ * just moved: a player that is threatening to win is better off, and a longer
+ * threatening shot is rated a bit higher, the same way the AI has always
+ * broken ties. Missed shots don't change the board, so only mirror moves are
+ * searched.
+ *
+ * The moves at the root are shared out between one worker per processor, each
+ * with its own copy of the board. The workers only share the transposition
+ * table, and the results are merged in the order of the root moves so that
+ * the choice doesn't depend on which worker finished first.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class GameSearch
+{
+	// The value of winning on the current turn (wins further away are worth
+	// one less for every move it takes to get there)
+	public static final int WIN = 1000;
+
+	// The most moves the search will look ahead
+	public static final int MAX_PLY = 12;
+
+	// The number of moves the search always finishes looking ahead, even when
+	// it is out of time
+	private static final int MIN_DEPTH = 2;
+
+	// The value of threatening to win on the next turn (the length of the shot
+	// is added on top)
+	private static final int THREAT = 100;
+
+	// A value larger than any position can have
+	private static final int INFINITY = WIN + 1;
+
+	// Marks that there is no move
+	private static final int NO_MOVE = -3;
+
+	// The number of positions searched between checking the time
+	private static final int CHECK_INTERVAL = 1024;
+
+	// The most moves that can be made on a single turn (five for each mirror)
+	private static final int MAX_MOVES = 5 * MirrorBoard.NUM_CELLS;
+
+	// Mixed into the hash of positions where player one is to move
+	private static final long PLAYER_ONE_KEY = 0x9E3779B97F4A7C15L;
+
+	// Multiplied by the move that led to a position and mixed into its hash,
+	// since that move can't be undone and so changes the moves there are
+	private static final long LAST_MOVE_KEY = 0xC2B2AE3D27D4EB4FL;
+
+	// The results of positions that were already searched
+	private final TranspositionTable transpositions;
+
+	// The grids the computer has used before and isn't allowed to repeat
+	private final PositionSet usedGrids;
+
+	// The workers that search the root moves and the threads they run on
+	// (there is no thread pool if there is only one worker)
+	private final Worker[] workers;
+
+	private final ExecutorService pool;
+
+	private final List<Future<Void>> results;
+
+	// The moves at the root with their values from the last iteration and
+	// the moves that tied for the best value
+	private final int[] rootMoves;
+
+	private final int[] rootValues;
+
+	private final int[] bestMoves;
+
+	private int numRootMoves;
+
+	// The index of the next root move to be searched in this iteration
+	private final AtomicInteger nextRootMove;
+
+	// The number of moves being looked ahead in this iteration
+	private int depth;
+
+	// When the search has to stop (in milliseconds)
+	private long deadline;
+
+	// Tells the search to give up because its result is no longer wanted
+	private CancellationToken token;
+
+	// Whether the search is allowed to stop because it ran out of time
+	private volatile boolean canStop;
+
+	// Whether the search stopped before finishing the current iteration
+	private volatile boolean stopped;
+
+	// The number of moves ahead the last finished iteration looked and the
+	// value it found
+	private int completedDepth;
+
+	private int value;
+
+	/**
+	 * Creates a new search that shares the given table and used grids with
+	 * the AI and uses one worker for each processor
+	 *
+	 * @param transpositions
+	 *            The table of searched positions
+	 * @param usedGrids
+	 *            The grids the computer isn't allowed to repeat
+	 */
+	public GameSearch(TranspositionTable transpositions, PositionSet usedGrids)
+	{
+		this(transpositions, usedGrids, Runtime.getRuntime()
+				.availableProcessors());
+	}
+
+	/**
+	 * Creates a new search that shares the given table and used grids with
+	 * the AI
+	 *
+	 * @param transpositions
+	 *            The table of searched positions
+	 * @param usedGrids
+	 *            The grids the computer isn't allowed to repeat
+	 * @param numWorkers
+	 *            The number of threads to search with
+	 */
+	public GameSearch(TranspositionTable transpositions,
+			PositionSet usedGrids, int numWorkers)
+	{
+		this.transpositions = transpositions;
+		this.usedGrids = usedGrids;
+		rootMoves = new int[MAX_MOVES];
+		rootValues = new int[MAX_MOVES];
+		bestMoves = new int[MAX_MOVES];
+		nextRootMove = new AtomicInteger();
+
+		numWorkers = Math.max(1, numWorkers);
+		workers = new Worker[numWorkers];
+		for (int index = 0; index < numWorkers; index++)
+			workers[index] = new Worker();
+		results = new ArrayList<Future<Void>>(numWorkers);
+
+		// The worker threads don't keep the game running if it is closed
+		if (numWorkers > 1)
+			pool = Executors.newFixedThreadPool(numWorkers,
+					new ThreadFactory() {
+						public Thread newThread(Runnable runnable)
+						{
+							Thread thread = new Thread(runnable, "AI search");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		else
+			pool = null;
+	}
+
+	/**
+	 * Stops the worker threads. The search can't be used after this.
+	 */
+	public void shutdown()
+	{
+		if (pool != null)
+			pool.shutdownNow();
+	}
+
+	/**
+	 * Finds the best move for the computer on the given board
+	 *
+	 * @param root
+	 *            The board to search from (it is left unchanged)
+	 * @param rootShots
+	 *            The results of the shots on the board
+	 * @param illegalStart
+	 *            The cell the opponent's last move started on or -1
+	 * @param illegalEnd
+	 *            The cell the opponent's last move ended on or -1
+	 * @param deadline
+	 *            The time (in milliseconds) the search has to stop by
+	 * @param token
+	 *            The token that tells the search to give up
+	 * @return the encoded move that was chosen
+	 */
+	public int search(MirrorBoard root, ShotCache rootShots, int illegalStart,
+			int illegalEnd, long deadline, CancellationToken token)
+	{
+		this.deadline = deadline;
+		this.token = token;
+		stopped = false;
+		transpositions.nextGeneration();
+		completedDepth = 0;
+		value = 0;
+		for (Worker worker : workers)
+			worker.reset(root, rootShots);
+
+		// Find the moves that don't lead to a used grid, but allow them all if
+		// there are no such moves
+		MirrorBoard board = workers[0].board;
+		int numMoves = board.generateMoves(rootMoves, illegalStart,
+				illegalEnd);
+		int numAllowed = 0;
+		for (int index = 0; index < numMoves; index++)
+		{
+			board.makeMove(rootMoves[index]);
+			if (!usedGrids.contains(board.getHash()))
+				rootMoves[numAllowed++] = rootMoves[index];
+			board.unmakeMove(rootMoves[index]);
+		}
+		if (numAllowed > 0)
+			numMoves = numAllowed;
+		else
+			numMoves = board.generateMoves(rootMoves, illegalStart,
+					illegalEnd);
+		if (numMoves == 0)
+			return MirrorBoard.SHOOT_LEFT;
+		numRootMoves = numMoves;
+
+		int chosenMove = rootMoves[0];
+		for (depth = 1; depth <= MAX_PLY; depth++)
+		{
+			canStop = depth > MIN_DEPTH;
+			nextRootMove.set(0);
+			runWorkers();
+			if (stopped)
+				break;
+
+			// Merge the results in the order of the root moves, keeping track
+			// of all the moves tied for the best value so that one of them
+			// can be picked at random
+			int bestValue = -INFINITY;
+			int numBest = 0;
+			for (int index = 0; index < numMoves; index++)
+			{
+				if (rootValues[index] > bestValue)
+				{
+					bestValue = rootValues[index];
+					numBest = 0;
+				}
+				if (rootValues[index] == bestValue)
+					bestMoves[numBest++] = rootMoves[index];
+			}
+
+			completedDepth = depth;
+			value = bestValue;
+			chosenMove = bestMoves[(int) (Math.random() * numBest)];
+
+			// Search the best moves first in the next iteration
+			sortRootMoves(numMoves);
+
+			// Stop once the result is decided, there is no time left or the
+			// result is no longer wanted
+			if (bestValue >= WIN - MAX_PLY || bestValue <= -(WIN - MAX_PLY)
+					|| System.currentTimeMillis() >= deadline
+					|| token.isCancelled())
+				break;
+		}
+		return chosenMove;
+	}
+
+	/**
+	 * Runs all the workers until every root move has been searched to the
+	 * current depth or the search stops
+	 */
+	private void runWorkers()
+	{
+		if (pool == null)
+		{
+			workers[0].call();
+			return;
+		}
+
+		results.clear();
+		try
+		{
+			for (Worker worker : workers)
+				results.add(pool.submit(worker));
+		}
+		catch (RejectedExecutionException e)
+		{
+			// The pool was shut down while searching
+			stopped = true;
+		}
+
+		// Wait for every worker to finish even if this thread is interrupted,
+		// since the workers can't be reused until they stop
+		boolean interrupted = false;
+		for (Future<Void> result : results)
+		{
+			while (true)
+			{
+				try
+				{
+					result.get();
+					break;
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+					stopped = true;
+				}
+				catch (ExecutionException e)
+				{
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Returns the number of moves ahead the last search looked
+	 *
+	 * @return the depth of the last finished iteration
+	 */
+	public int getCompletedDepth()
+	{
+		return completedDepth;
+	}
+
+	/**
+	 * Returns the value the last search found for the computer
+	 *
+	 * @return the value of the chosen move
+	 */
+	public int getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * Returns the number of positions the last search looked at
+	 *
+	 * @return the number of positions searched
+	 */
+	public int getNumPositions()
+	{
+		int numPositions = 0;
+		for (Worker worker : workers)
+			numPositions += worker.numPositions;
+		return numPositions;
+	}
+
+	/**
+	 * Sorts the root moves by their values from the last iteration, keeping
+	 * moves with the same value in the same order
+	 *
+	 * @param numMoves
+	 *            The number of root moves
+	 */
+	private void sortRootMoves(int numMoves)
+	{
+		for (int index = 1; index < numMoves; index++)
+		{
+			int move = rootMoves[index];
+			int moveValue = rootValues[index];
+			int other = index - 1;
+			while (other >= 0 && rootValues[other] < moveValue)
+			{
+				rootMoves[other + 1] = rootMoves[other];
+				rootValues[other + 1] = rootValues[other];
+				other--;
+			}
+			rootMoves[other + 1] = move;
+			rootValues[other + 1] = moveValue;
+		}
+	}
+
+	/**
+	 * Rates a position where the player to move can't win right away
+	 *
+	 * @param positionShots
+	 *            The results of the shots in the position
+	 * @param playerOne
+	 *            Whether player one is to move
+	 * @return the value of the position for the player to move
+	 */
+	private static int evaluate(ShotCache positionShots, boolean playerOne)
+	{
+		int threat = Math.max(positionShots.getResult(!playerOne, false),
+				positionShots.getResult(!playerOne, true));
+		if (threat >= 0)
+			return -(THREAT + threat);
+		return 0;
+	}
+
+	/**
+	 * Converts a value to be stored in the table, so that wins are stored as
+	 * the number of moves from the position instead of from the root
+	 *
+	 * @param value
+	 *            The value of the position
+	 * @param ply
+	 *            The number of moves made since the root
+	 * @return the value to store
+	 */
+	private static int toTable(int value, int ply)
+	{
+		if (value >= WIN - MAX_PLY)
+			return value + ply;
+		if (value <= -(WIN - MAX_PLY))
+			return value - ply;
+		return value;
+	}
+
+	/**
+	 * Converts a value from the table back to a value from the root
+	 *
+	 * @param value
+	 *            The stored value
+	 * @param ply
+	 *            The number of moves made since the root
+	 * @return the value of the position
+	 */
+	private static int fromTable(int value, int ply)
+	{
+		if (value >= WIN - MAX_PLY)
+			return value - ply;
+		if (value <= -(WIN - MAX_PLY))
+			return value + ply;
+		return value;
+	}
+
+	/**
+	 * The Worker class searches root moves on its own copy of the board until
+	 * there are none left in the current iteration
+	 */
+	private class Worker implements Callable<Void>
+	{
+		// The board that the moves are made on while searching
+		private final MirrorBoard board;
+
+		// The results of the shots and the moves with their ordering scores
+		// at each move ahead, so that searching doesn't create any objects
+		private final ShotCache[] shots;
+
+		private final int[][] moves;
+
+		private final int[][] scores;
+
+		// The number of positions searched
+		private int numPositions;
+
+		/**
+		 * Creates a new worker
+		 */
+		public Worker()
+		{
+			board = new MirrorBoard();
+			shots = new ShotCache[MAX_PLY + 1];
+			for (int ply = 0; ply <= MAX_PLY; ply++)
+				shots[ply] = new ShotCache();
+			moves = new int[MAX_PLY][MAX_MOVES];
+			scores = new int[MAX_PLY][MAX_MOVES];
+		}
+
+		/**
+		 * Copies the root board over before a new search
+		 *
+		 * @param root
+		 *            The board to search from
+		 * @param rootShots
+		 *            The results of the shots on the board
+		 */
+		public void reset(MirrorBoard root, ShotCache rootShots)
+		{
+			board.set(root);
+			shots[0].set(rootShots);
+			numPositions = 0;
+		}
+
+		/**
+		 * Searches root moves until there are none left
+		 */
+		public Void call()
+		{
+			// Search with a window just below the best value this worker has
+			// found so that moves that tie with it get their exact value (any
+			// move that ties with the best value overall ties with the best
+			// value of its worker)
+			int bestValue = -INFINITY;
+			int index;
+			while (!stopped
+					&& (index = nextRootMove.getAndIncrement()) < numRootMoves)
+			{
+				int move = rootMoves[index];
+				board.makeMove(move);
+				shots[1].set(shots[0]);
+				shots[1].moveMade(board, move);
+				int alpha = (bestValue == -INFINITY) ? -INFINITY
+						: bestValue - 1;
+				int moveValue = -negamax(true, depth - 1, -INFINITY, -alpha,
+						1, move);
+				board.unmakeMove(move);
+
+				rootValues[index] = moveValue;
+				if (moveValue > bestValue)
+					bestValue = moveValue;
+			}
+			return null;
+		}
+
+		/**
+		 * Finds the value of the position on the board for the player to move
+		 *
+		 * @param playerOne
+		 *            Whether player one is to move
+		 * @param depth
+		 *            The number of moves left to look ahead
+		 * @param alpha
+		 *            The value the player to move is already guaranteed
+		 * @param beta
+		 *            The value the opponent is already guaranteed (negated)
+		 * @param ply
+		 *            The number of moves made since the root
+		 * @param lastMove
+		 *            The move the opponent just made
+		 * @return the value of the position
+		 */
+		private int negamax(boolean playerOne, int depth, int alpha, int beta,
+				int ply, int lastMove)
+		{
+			ShotCache positionShots = shots[ply];
+
+			// The player to move wins right away if either of their shots
+			// hits
+			if (positionShots.getResult(playerOne, false) >= 0
+					|| positionShots.getResult(playerOne, true) >= 0)
+				return WIN - ply;
+			if (depth == 0 || ply == MAX_PLY)
+				return evaluate(positionShots, playerOne);
+
+			// Check the time every so often
+			if (++numPositions % CHECK_INTERVAL == 0
+					&& ((canStop && System.currentTimeMillis() >= deadline) || token
+							.isCancelled()))
+				stopped = true;
+			if (stopped)
+				return 0;
+
+			// Use the stored result of the position if it was searched deep
+			// enough in this search, otherwise just try its best move first
+			long hash = board.getHash() ^ (playerOne ? PLAYER_ONE_KEY : 0);
+			if (!MirrorBoard.isShot(lastMove))
+				hash ^= (lastMove + 1) * LAST_MOVE_KEY;
+			int tableMove = NO_MOVE;
+			long entry = transpositions.probe(hash);
+			if (entry != 0)
+			{
+				tableMove = TranspositionTable.getMove(entry);
+				if (TranspositionTable.getDepth(entry) >= depth
+						&& transpositions.isCurrent(entry))
+				{
+					int tableValue = fromTable(
+							TranspositionTable.getValue(entry), ply);
+					int bound = TranspositionTable.getBound(entry);
+					if (bound == TranspositionTable.EXACT)
+						return tableValue;
+					if (bound == TranspositionTable.LOWER_BOUND
+							&& tableValue > alpha)
+						alpha = tableValue;
+					else if (bound == TranspositionTable.UPPER_BOUND
+							&& tableValue < beta)
+						beta = tableValue;
+					if (alpha >= beta)
+						return tableValue;
+				}
+			}
+
+			// If there are no moves, the player can only shoot and miss
+			int numMoves = orderMoves(playerOne, ply, lastMove, tableMove);
+			if (numMoves == 0)
+				return 0;
+
+			int originalAlpha = alpha;
+			int bestValue = -INFINITY;
+			int bestMove = NO_MOVE;
+			ShotCache nextShots = shots[ply + 1];
+			for (int index = 0; index < numMoves; index++)
+			{
+				int move = nextMove(ply, index, numMoves);
+				board.makeMove(move);
+				nextShots.set(positionShots);
+				nextShots.moveMade(board, move);
+				int moveValue = -negamax(!playerOne, depth - 1, -beta,
+						-alpha, ply + 1, move);
+				board.unmakeMove(move);
+				if (stopped)
+					return 0;
+
+				if (moveValue > bestValue)
+				{
+					bestValue = moveValue;
+					bestMove = move;
+					if (moveValue > alpha)
+					{
+						alpha = moveValue;
+						if (alpha >= beta)
+							break;
+					}
+				}
+			}
+
+			// Remember the result for later
+			int bound;
+			if (bestValue <= originalAlpha)
+				bound = TranspositionTable.UPPER_BOUND;
+			else if (bestValue >= beta)
+				bound = TranspositionTable.LOWER_BOUND;
+			else
+				bound = TranspositionTable.EXACT;
+			transpositions.store(hash, depth, toTable(bestValue, ply), bound,
+					bestMove);
+			return bestValue;
+		}
+
+		/**
+		 * Generates the moves of the given position and scores them so that
+		 * the stored best move comes first, followed by the moves that
+		 * threaten the longest winning shot
+		 *
+		 * @param playerOne
+		 *            Whether player one is to move
+		 * @param ply
+		 *            The number of moves made since the root
+		 * @param lastMove
+		 *            The move the opponent just made (it can't be undone)
+		 * @param tableMove
+		 *            The best move stored for the position
+		 * @return the number of moves
+		 */
+		private int orderMoves(boolean playerOne, int ply, int lastMove,
+				int tableMove)
+		{
+			int[] positionMoves = moves[ply];
+			int[] positionScores = scores[ply];
+			ShotCache positionShots = shots[ply];
+			int numMoves = board.generateMoves(positionMoves,
+					MirrorBoard.moveFrom(lastMove),
+					MirrorBoard.moveTo(lastMove));
+
+			int numKept = 0;
+			for (int index = 0; index < numMoves; index++)
+			{
+				int move = positionMoves[index];
+				board.makeMove(move);
+
+				// The computer never moves to a grid it used before
+				if (playerOne || !usedGrids.contains(board.getHash()))
+				{
+					positionMoves[numKept] = move;
+					if (move == tableMove)
+						positionScores[numKept] = INFINITY;
+					else
+						positionScores[numKept] = Math.max(positionShots
+								.resultAfter(board, move, playerOne, false),
+								positionShots.resultAfter(board, move,
+										playerOne, true));
+					numKept++;
+				}
+				board.unmakeMove(move);
+			}
+			return numKept;
+		}
+
+		/**
+		 * Moves the highest scoring move that hasn't been searched yet to the
+		 * given index and returns it
+		 *
+		 * @param ply
+		 *            The number of moves made since the root
+		 * @param index
+		 *            The index of the next move to search
+		 * @param numMoves
+		 *            The number of moves
+		 * @return the next move to search
+		 */
+		private int nextMove(int ply, int index, int numMoves)
+		{
+			int[] positionMoves = moves[ply];
+			int[] positionScores = scores[ply];
+			int best = index;
+			for (int other = index + 1; other < numMoves; other++)
+				if (positionScores[other] > positionScores[best])
+					best = other;
+
+			int move = positionMoves[best];
+			positionMoves[best] = positionMoves[index];
+			positionMoves[index] = move;
+			int score = positionScores[best];
+			positionScores[best] = positionScores[index];
+			positionScores[index] = score;
+			return move;
+		}
+	}
+}
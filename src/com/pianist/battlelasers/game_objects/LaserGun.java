@@ -83,6 +83,16 @@ public class LaserGun
 		return false;
 	}
 
+	/**
+	 * Checks whether the laser gun is being held down
+	 * 
+	 * @return whether the gun is held
+	 */
+	public boolean isHeld()
+	{
+		return holdStartTime != -1;
+	}
+
 	/**
 	 * Returns the direction the laser gun is currently facing
 	 * 
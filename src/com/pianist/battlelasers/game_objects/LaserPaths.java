@@ -0,0 +1,413 @@
+package com.pianist.battlelasers.game_objects;
+
+/**
+ * The LaserPaths class traces laser shots over a MirrorBoard using tables that
+ * are calculated once when the class is loaded. For every cell and direction
+ * the laser could leave a mirror in, the tables store the path the laser would
+ * take if there were no more mirrors in its way (including the bounces off the
+ * walls) as one bit mask per back wall bounce. Since the laser moves one row
+ * every step, the first mirror it hits on each of these rays is simply the
+ * lowest or highest set bit of the ray masked with the mirrors on the board,
+ * so a shot is resolved with one lookup per mirror that it hits instead of one
+ * step per cell.
+ *
+ * The results are exactly the same as stepping the laser across the grid one
+ * cell at a time: -1 for a shot that does not hit the target, or the number of
+ * steps the laser took before hitting it.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public final class LaserPaths
+{
+	// The directions the laser can travel in (the same codes as the laser
+	// drawing uses)
+	public static final int UP_RIGHT = 1;
+
+	public static final int UP_LEFT = 2;
+
+	public static final int DOWN_LEFT = 3;
+
+	public static final int DOWN_RIGHT = 4;
+
+	// The number of states a laser can be in right after leaving a mirror (a
+	// cell, one of the four directions and whether it has already bounced off
+	// a back wall)
+	private static final int NUM_STATES = 2 * 4 * MirrorBoard.NUM_CELLS;
+
+	// The cells the laser passes through before and after bouncing off a back
+	// wall for each state
+	private static final long[] rayMasks = new long[NUM_STATES * 2];
+
+	// For each state, ray and cell on that ray, the number of steps taken to
+	// reach the cell (shifted left by two) and the direction the laser arrives
+	// in (minus one)
+	private static final short[] arrivals = new short[NUM_STATES * 2
+			* MirrorBoard.NUM_CELLS];
+
+	// The number of steps to the target for each state if there are no more
+	// mirrors in the way, or -1 if the laser misses
+	private static final byte[] pathEnds = new byte[NUM_STATES];
+
+	// The direction after bouncing off a vertical mirror or side wall and a
+	// horizontal mirror or back wall (indexed by direction)
+	private static final int[] SIDE_BOUNCE = { 0, UP_LEFT, UP_RIGHT,
+			DOWN_RIGHT, DOWN_LEFT };
+
+	private static final int[] BACK_BOUNCE = { 0, DOWN_RIGHT, DOWN_LEFT,
+			UP_LEFT, UP_RIGHT };
+
+	static
+	{
+		for (int bounces = 0; bounces < 2; bounces++)
+			for (int direction = UP_RIGHT; direction <= DOWN_RIGHT; direction++)
+				for (int cell = 0; cell < MirrorBoard.NUM_CELLS; cell++)
+					buildState(cell, direction, bounces);
+	}
+
+	private LaserPaths()
+	{
+	}
+
+	/**
+	 * Returns the state of a laser that is on the given cell travelling in the
+	 * given direction
+	 *
+	 * @param cell
+	 *            The cell the laser is on
+	 * @param direction
+	 *            The direction the laser is travelling in
+	 * @param bounces
+	 *            The number of times the laser bounced off a back wall
+	 * @return the index of the state
+	 */
+	static int state(int cell, int direction, int bounces)
+	{
+		return ((bounces << 2) + direction - 1) * MirrorBoard.NUM_CELLS + cell;
+	}
+
+	/**
+	 * Returns the state the laser starts in for the given shot
+	 *
+	 * @param playerOneTurn
+	 *            Whether player one is shooting
+	 * @param turnedRight
+	 *            Whether the player is shooting right (from their perspective)
+	 * @return the index of the starting state
+	 */
+	static int startState(boolean playerOneTurn, boolean turnedRight)
+	{
+		if (!playerOneTurn)
+		{
+			if (turnedRight)
+				return state(MirrorBoard.cell(1, 3), DOWN_LEFT, 0);
+			return state(MirrorBoard.cell(1, 4), DOWN_RIGHT, 0);
+		}
+		if (turnedRight)
+			return state(MirrorBoard.cell(10, 4), UP_RIGHT, 0);
+		return state(MirrorBoard.cell(10, 3), UP_LEFT, 0);
+	}
+
+	/**
+	 * Calculates the tables for the laser leaving the given cell in the given
+	 * direction by stepping it across an empty grid
+	 *
+	 * @param startCell
+	 *            The cell the laser starts on
+	 * @param startDirection
+	 *            The direction the laser leaves the cell in
+	 * @param startBounces
+	 *            The number of back wall bounces so far
+	 */
+	private static void buildState(int startCell, int startDirection,
+			int startBounces)
+	{
+		int state = state(startCell, startDirection, startBounces);
+		int laserX = MirrorBoard.col(startCell);
+		int laserY = MirrorBoard.row(startCell);
+		int direction = startDirection;
+		int bounces = startBounces;
+		int ray = 0;
+		int steps = 0;
+
+		while (true)
+		{
+			// Check if the laser hits the target or one of the guns from here
+			int end = checkEnd(laserX, laserY, direction);
+			if (end != 0)
+			{
+				pathEnds[state] = (byte) (end > 0 ? steps : -1);
+				return;
+			}
+
+			// Move the laser
+			if (direction == UP_RIGHT || direction == DOWN_RIGHT)
+				laserX++;
+			else
+				laserX--;
+			if (direction == UP_RIGHT || direction == UP_LEFT)
+				laserY--;
+			else
+				laserY++;
+			steps++;
+
+			if (laserX == 0 || laserX == 7)
+			{
+				// The laser misses if it ends up in a corner
+				if (laserY == 0 || laserY == 11)
+				{
+					pathEnds[state] = -1;
+					return;
+				}
+				direction = SIDE_BOUNCE[direction];
+			}
+			else if (laserY == 0 || laserY == 11)
+			{
+				// The laser can only bounce off the back once
+				if (bounces == 1)
+				{
+					pathEnds[state] = -1;
+					return;
+				}
+				bounces++;
+				ray++;
+				direction = BACK_BOUNCE[direction];
+			}
+			else
+			{
+				// Record when and how the laser gets to this cell in case
+				// there is a mirror on it
+				int cell = MirrorBoard.cell(laserY, laserX);
+				rayMasks[state * 2 + ray] |= 1L << cell;
+				arrivals[(state * 2 + ray) * MirrorBoard.NUM_CELLS + cell] = (short) ((steps << 2) | (direction - 1));
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the laser at the given position will hit the target or a
+	 * gun on its next step
+	 *
+	 * @param laserX
+	 *            The column of the laser
+	 * @param laserY
+	 *            The row of the laser
+	 * @param direction
+	 *            The direction the laser is travelling in
+	 * @return 1 if the laser hits the target, -1 if it hits a gun, or 0 if it
+	 *         keeps going
+	 */
+	private static int checkEnd(int laserX, int laserY, int direction)
+	{
+		if (laserX == 3)
+		{
+			if ((laserY == 5 && direction == DOWN_RIGHT)
+					|| (laserY == 6 && direction == UP_RIGHT))
+				return 1;
+			if ((laserY == 0 || laserY == 10) && direction == DOWN_RIGHT)
+				return -1;
+			if ((laserY == 1 || laserY == 11) && direction == UP_RIGHT)
+				return -1;
+		}
+		else if (laserX == 4)
+		{
+			if ((laserY == 5 && direction == DOWN_LEFT)
+					|| (laserY == 6 && direction == UP_LEFT))
+				return 1;
+			if ((laserY == 0 || laserY == 10) && direction == DOWN_LEFT)
+				return -1;
+			if ((laserY == 1 || laserY == 11) && direction == UP_LEFT)
+				return -1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Finds the first mirror on the given ray of the given state
+	 *
+	 * @param state
+	 *            The state the laser is in
+	 * @param ray
+	 *            The ray (0 before bouncing off the back wall, 1 after)
+	 * @param mirrors
+	 *            The mask of all the mirrors on the board
+	 * @return the cell of the first mirror hit, or -1 if there is none
+	 */
+	static int firstMirror(int state, int ray, long mirrors)
+	{
+		long hits = rayMasks[state * 2 + ray] & mirrors;
+		if (hits == 0)
+			return -1;
+
+		// Rays going down the grid visit the cells in increasing order
+		if (goingDown(state, ray))
+			return Long.numberOfTrailingZeros(hits);
+		return 63 - Long.numberOfLeadingZeros(hits);
+	}
+
+	/**
+	 * Checks whether the laser is moving down the grid on the given ray of the
+	 * given state
+	 *
+	 * @param state
+	 *            The state the laser is in
+	 * @param ray
+	 *            The ray (0 before bouncing off the back wall, 1 after)
+	 * @return whether the laser is moving down the grid
+	 */
+	private static boolean goingDown(int state, int ray)
+	{
+		int direction = (state / MirrorBoard.NUM_CELLS & 3) + 1;
+		return (direction == DOWN_LEFT || direction == DOWN_RIGHT) == (ray == 0);
+	}
+
+	/**
+	 * Returns the state the laser is in after hitting the given mirror
+	 *
+	 * @param state
+	 *            The state the laser was in
+	 * @param ray
+	 *            The ray the mirror is on
+	 * @param cell
+	 *            The cell of the mirror
+	 * @param isHorizontal
+	 *            Whether the mirror is horizontal
+	 * @return the new state of the laser
+	 */
+	static int reflect(int state, int ray, int cell, boolean isHorizontal)
+	{
+		int arrival = arrivals[(state * 2 + ray) * MirrorBoard.NUM_CELLS + cell];
+		int direction = (arrival & 3) + 1;
+		direction = isHorizontal ? BACK_BOUNCE[direction]
+				: SIDE_BOUNCE[direction];
+		return state(cell, direction, state / (4 * MirrorBoard.NUM_CELLS)
+				+ ray);
+	}
+
+	/**
+	 * Returns the number of steps the laser takes to get to the given cell
+	 *
+	 * @param state
+	 *            The state the laser was in
+	 * @param ray
+	 *            The ray the cell is on
+	 * @param cell
+	 *            The cell
+	 * @return the number of steps taken
+	 */
+	static int stepsTo(int state, int ray, int cell)
+	{
+		return arrivals[(state * 2 + ray) * MirrorBoard.NUM_CELLS + cell] >> 2;
+	}
+
+	/**
+	 * Returns the mask of the cells on the given ray of the given state
+	 *
+	 * @param state
+	 *            The state the laser is in
+	 * @param ray
+	 *            The ray (0 before bouncing off the back wall, 1 after)
+	 * @return the mask of the cells on the ray
+	 */
+	static long rayMask(int state, int ray)
+	{
+		return rayMasks[state * 2 + ray];
+	}
+
+	/**
+	 * Returns the number of steps to the target from the given state if there
+	 * are no more mirrors in the way
+	 *
+	 * @param state
+	 *            The state the laser is in
+	 * @return the number of steps, or -1 if the laser misses
+	 */
+	static int pathEnd(int state)
+	{
+		return pathEnds[state];
+	}
+
+	/**
+	 * Shoots the laser across the given board and checks if it hits the
+	 * target
+	 *
+	 * @param board
+	 *            The board that contains the mirrors
+	 * @param playerOneTurn
+	 *            Whether player one is shooting
+	 * @param turnedRight
+	 *            Whether the player is shooting right (from their perspective)
+	 * @return -1 if it is not a winning shot or a positive integer representing
+	 *         the length of the winning shot
+	 */
+	public static int shoot(MirrorBoard board, boolean playerOneTurn,
+			boolean turnedRight)
+	{
+		return trace(board, playerOneTurn, turnedRight, null, 0);
+	}
+
+	/**
+	 * Shoots the laser across the given board and records the cells that it
+	 * crosses
+	 *
+	 * @param board
+	 *            The board that contains the mirrors
+	 * @param playerOneTurn
+	 *            Whether player one is shooting
+	 * @param turnedRight
+	 *            Whether the player is shooting right (from their perspective)
+	 * @param paths
+	 *            The array to store the mask of crossed cells in (or null if
+	 *            it isn't needed)
+	 * @param index
+	 *            The index in the array to store the mask at
+	 * @return -1 if it is not a winning shot or a positive integer representing
+	 *         the length of the winning shot
+	 */
+	public static int trace(MirrorBoard board, boolean playerOneTurn,
+			boolean turnedRight, long[] paths, int index)
+	{
+		long mirrors = board.getMirrors();
+		long horizontal = board.getHorizontal();
+		int state = startState(playerOneTurn, turnedRight);
+		int shotLength = 0;
+		long path = 0;
+
+		while (true)
+		{
+			// Find the first mirror in the laser's way, looking past the back
+			// wall if there is nothing before it
+			int ray = 0;
+			int cell = firstMirror(state, 0, mirrors);
+			if (cell < 0)
+			{
+				ray = 1;
+				cell = firstMirror(state, 1, mirrors);
+			}
+
+			// If there are no more mirrors, the rest of the path is fixed
+			if (cell < 0)
+			{
+				if (paths != null)
+					paths[index] = path | rayMasks[state * 2]
+							| rayMasks[state * 2 + 1];
+				int end = pathEnds[state];
+				return end < 0 ? -1 : shotLength + end;
+			}
+
+			// Add the cells up to and including the mirror to the path
+			if (paths != null)
+			{
+				if (ray == 1)
+					path |= rayMasks[state * 2];
+				long rayCells = rayMasks[state * 2 + ray];
+				if (goingDown(state, ray))
+					path |= rayCells & ((2L << cell) - 1);
+				else
+					path |= rayCells & -(1L << cell);
+			}
+
+			shotLength += stepsTo(state, ray, cell);
+			state = reflect(state, ray, cell, (horizontal & (1L << cell)) != 0);
+		}
+	}
+}
@@ -233,6 +233,16 @@ public class Match
 	public Layout getLayout(int id){
 		return layouts[id];
 	}
+
+	/**
+	 * Returns the number of layouts a game can be played on
+	 * 
+	 * @return the number of layouts
+	 */
+	public int getNumLayouts()
+	{
+		return layouts.length;
+	}
 	
 	/**
 	 * Called when the user loses an online game, this method updates the user's rating using an elo formula
@@ -311,6 +321,23 @@ public class Match
 			}
 		}
 
+		/**
+		 * Creates a board with the mirrors of the layout on it, without
+		 * changing the positions being handed out
+		 * 
+		 * @param flipY
+		 *            Whether to flip the layout upside down
+		 * @return the board with the layout's mirrors
+		 */
+		public MirrorBoard toBoard(boolean flipY)
+		{
+			MirrorBoard board = new MirrorBoard();
+			for (int mirror = 0; mirror < rows.length; mirror++)
+				board.addMirror(flipY ? 11 - rows[mirror] : rows[mirror],
+						cols[mirror], horizonal[mirror]);
+			return board;
+		}
+
 		/**
 		 * Returns the position of the next mirror in the layout
 		 * 
@@ -0,0 +1,409 @@
+package com.pianist.battlelasers.game_objects;
+
+import java.util.Random;
+
+/**
+ * The MirrorBoard class stores the positions and orientations of all the
+ * mirrors on the grid packed into bit masks so that the AI can make and undo
+ * moves without creating any objects. Mirrors can only ever sit on the 60
+ * cells inside the border of the 12 by 8 grid (rows 1 to 10 and columns 1 to
+ * 6), so a single long is enough for each mask.
+ *
+ * Moves are encoded as integers holding the starting cell in the low six bits
+ * and the ending cell in the next six bits. A move that starts and ends on the
+ * same cell turns the mirror on that cell.
+ *
+ * Every board also keeps a Zobrist hash of its mirrors that is updated with
+ * every move. The keys come from a fixed seed so that the hash of a grid is
+ * the same on every device and every run of the game.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class MirrorBoard
+{
+	// The number of cells a mirror could possibly be on
+	public static final int NUM_CELLS = 60;
+
+	// The encoded moves for shooting the laser to the left or to the right
+	public static final int SHOOT_LEFT = -1;
+
+	public static final int SHOOT_RIGHT = -2;
+
+	// The cells that a mirror is allowed to move to (every cell except for the
+	// ones directly beside the guns)
+	public static final long LEGAL_CELLS = ~((1L << cell(1, 3))
+			| (1L << cell(1, 4)) | (1L << cell(10, 3)) | (1L << cell(10, 4)))
+			& ((1L << NUM_CELLS) - 1);
+
+	// The seed used to generate the hash keys (changing it invalidates any
+	// stored hashes)
+	private static final long HASH_SEED = 0x4261747446C61736L;
+
+	// The hash key for a vertical and a horizontal mirror on each cell
+	private static final long[] HASH_KEYS = new long[NUM_CELLS * 2];
+
+	static
+	{
+		Random random = new Random(HASH_SEED);
+		for (int index = 0; index < HASH_KEYS.length; index++)
+			HASH_KEYS[index] = random.nextLong();
+	}
+
+	// The cells that have mirrors on them
+	private long mirrors;
+
+	// The cells that have horizontal mirrors on them
+	private long horizontal;
+
+	// The Zobrist hash of the mirrors
+	private long hash;
+
+	/**
+	 * Creates a new empty board
+	 */
+	public MirrorBoard()
+	{
+		mirrors = 0;
+		horizontal = 0;
+		hash = 0;
+	}
+
+	/**
+	 * Creates an exact copy of the given board
+	 *
+	 * @param other
+	 *            The board to copy
+	 */
+	public MirrorBoard(MirrorBoard other)
+	{
+		set(other);
+	}
+
+	/**
+	 * Copies the mirrors of the given board over to this board
+	 *
+	 * @param other
+	 *            The board to copy
+	 */
+	public void set(MirrorBoard other)
+	{
+		mirrors = other.mirrors;
+		horizontal = other.horizontal;
+		hash = other.hash;
+	}
+
+	/**
+	 * Returns the cell number for the given row and column
+	 *
+	 * @param row
+	 *            The row of the cell (1 to 10)
+	 * @param col
+	 *            The column of the cell (1 to 6)
+	 * @return the cell number
+	 */
+	public static int cell(int row, int col)
+	{
+		return (row - 1) * 6 + col - 1;
+	}
+
+	/**
+	 * Returns the row of the given cell
+	 *
+	 * @param cell
+	 *            The cell number
+	 * @return the row the cell is in
+	 */
+	public static int row(int cell)
+	{
+		return cell / 6 + 1;
+	}
+
+	/**
+	 * Returns the column of the given cell
+	 *
+	 * @param cell
+	 *            The cell number
+	 * @return the column the cell is in
+	 */
+	public static int col(int cell)
+	{
+		return cell % 6 + 1;
+	}
+
+	/**
+	 * Encodes a move from the starting cell to the ending cell
+	 *
+	 * @param from
+	 *            The cell the mirror starts on
+	 * @param to
+	 *            The cell the mirror ends on
+	 * @return the encoded move
+	 */
+	public static int encodeMove(int from, int to)
+	{
+		return from | (to << 6);
+	}
+
+	/**
+	 * Returns the starting cell of the given encoded move
+	 *
+	 * @param move
+	 *            The encoded move
+	 * @return the cell the mirror starts on
+	 */
+	public static int moveFrom(int move)
+	{
+		return move & 63;
+	}
+
+	/**
+	 * Returns the ending cell of the given encoded move
+	 *
+	 * @param move
+	 *            The encoded move
+	 * @return the cell the mirror ends on
+	 */
+	public static int moveTo(int move)
+	{
+		return (move >> 6) & 63;
+	}
+
+	/**
+	 * Checks whether the given encoded move is a shot
+	 *
+	 * @param move
+	 *            The encoded move
+	 * @return whether the move shoots the laser
+	 */
+	public static boolean isShot(int move)
+	{
+		return move < 0;
+	}
+
+	/**
+	 * Returns the reverse of the given move (as if undoing)
+	 *
+	 * @param move
+	 *            The encoded move
+	 * @return the reverse of the move
+	 */
+	public static int reverseMove(int move)
+	{
+		if (move < 0)
+			return move;
+		return encodeMove(moveTo(move), moveFrom(move));
+	}
+
+	/**
+	 * Returns the mask of the cells that the given encoded move changes
+	 *
+	 * @param move
+	 *            The encoded move
+	 * @return the mask of the changed cells (empty for shots)
+	 */
+	public static long changedCells(int move)
+	{
+		if (move < 0)
+			return 0;
+		return (1L << (move & 63)) | (1L << ((move >> 6) & 63));
+	}
+
+	/**
+	 * Places a mirror on the board
+	 *
+	 * @param row
+	 *            The row of the mirror
+	 * @param col
+	 *            The column of the mirror
+	 * @param isHorizontal
+	 *            Whether the mirror is horizontal
+	 */
+	public void addMirror(int row, int col, boolean isHorizontal)
+	{
+		int cell = cell(row, col);
+		long bit = 1L << cell;
+
+		// Take any mirror that was already there out of the hash
+		if ((mirrors & bit) != 0)
+			hash ^= hashKey(cell, (horizontal & bit) != 0);
+
+		mirrors |= bit;
+		if (isHorizontal)
+			horizontal |= bit;
+		else
+			horizontal &= ~bit;
+		hash ^= hashKey(cell, isHorizontal);
+	}
+
+	/**
+	 * Returns the hash key of a mirror on the given cell
+	 *
+	 * @param cell
+	 *            The cell number
+	 * @param isHorizontal
+	 *            Whether the mirror is horizontal
+	 * @return the hash key
+	 */
+	private static long hashKey(int cell, boolean isHorizontal)
+	{
+		return HASH_KEYS[cell * 2 + (isHorizontal ? 1 : 0)];
+	}
+
+	/**
+	 * Checks whether there is a mirror on the given cell
+	 *
+	 * @param cell
+	 *            The cell number
+	 * @return whether there is a mirror on the cell
+	 */
+	public boolean hasMirror(int cell)
+	{
+		return (mirrors & (1L << cell)) != 0;
+	}
+
+	/**
+	 * Checks whether the mirror on the given cell is horizontal
+	 *
+	 * @param cell
+	 *            The cell number
+	 * @return whether there is a horizontal mirror on the cell
+	 */
+	public boolean isHorizontal(int cell)
+	{
+		return (horizontal & (1L << cell)) != 0;
+	}
+
+	/**
+	 * Returns the mask of all the cells that have mirrors on them
+	 *
+	 * @return the mirror mask
+	 */
+	public long getMirrors()
+	{
+		return mirrors;
+	}
+
+	/**
+	 * Returns the mask of all the cells that have horizontal mirrors on them
+	 *
+	 * @return the horizontal mirror mask
+	 */
+	public long getHorizontal()
+	{
+		return horizontal;
+	}
+
+	/**
+	 * Returns the Zobrist hash of the mirrors on the board
+	 *
+	 * @return the hash of the board
+	 */
+	public long getHash()
+	{
+		return hash;
+	}
+
+	/**
+	 * Makes the given encoded move. Shots don't change the board. Making the
+	 * reverse of a move undoes it.
+	 *
+	 * @param move
+	 *            The encoded move to make
+	 */
+	public void makeMove(int move)
+	{
+		if (move < 0)
+			return;
+
+		int from = move & 63;
+		int to = (move >> 6) & 63;
+		long fromBit = 1L << from;
+		int orientation = (horizontal & fromBit) != 0 ? 1 : 0;
+
+		// If the move was a turn, turn the mirror, otherwise move it
+		if (from == to)
+		{
+			horizontal ^= fromBit;
+			hash ^= HASH_KEYS[from * 2] ^ HASH_KEYS[from * 2 + 1];
+		}
+		else
+		{
+			long toBit = 1L << to;
+			mirrors = (mirrors & ~fromBit) | toBit;
+			if (orientation == 1)
+				horizontal = (horizontal & ~fromBit) | toBit;
+			hash ^= HASH_KEYS[from * 2 + orientation]
+					^ HASH_KEYS[to * 2 + orientation];
+		}
+	}
+
+	/**
+	 * Undoes the given encoded move
+	 *
+	 * @param move
+	 *            The encoded move to undo
+	 */
+	public void unmakeMove(int move)
+	{
+		makeMove(reverseMove(move));
+	}
+
+	/**
+	 * Fills the given array with all the moves that can be made on this board
+	 * in the order up, left, right, down and turn for each mirror
+	 *
+	 * @param moves
+	 *            The array to fill (must hold at least five moves per mirror)
+	 * @param illegalStart
+	 *            The cell the previous move started on or -1 if there was none
+	 * @param illegalEnd
+	 *            The cell the previous move ended on or -1 if there was none
+	 * @return the number of moves that were generated
+	 */
+	public int generateMoves(int[] moves, int illegalStart, int illegalEnd)
+	{
+		int numMoves = 0;
+		long free = LEGAL_CELLS & ~mirrors;
+		long remaining = mirrors;
+		while (remaining != 0)
+		{
+			int from = Long.numberOfTrailingZeros(remaining);
+			remaining &= remaining - 1;
+			int row = from / 6 + 1;
+			int col = from % 6 + 1;
+
+			// Moving back to where the opponent's mirror just came from would
+			// undo their move
+			int undoCell = (from == illegalEnd) ? illegalStart : -1;
+
+			if (row > 1 && (free & (1L << (from - 6))) != 0
+					&& from - 6 != undoCell)
+				moves[numMoves++] = encodeMove(from, from - 6);
+			if (col > 1 && (free & (1L << (from - 1))) != 0
+					&& from - 1 != undoCell)
+				moves[numMoves++] = encodeMove(from, from - 1);
+			if (col < 6 && (free & (1L << (from + 1))) != 0
+					&& from + 1 != undoCell)
+				moves[numMoves++] = encodeMove(from, from + 1);
+			if (row < 10 && (free & (1L << (from + 6))) != 0
+					&& from + 6 != undoCell)
+				moves[numMoves++] = encodeMove(from, from + 6);
+			if (from != illegalStart || from != illegalEnd)
+				moves[numMoves++] = encodeMove(from, from);
+		}
+		return numMoves;
+	}
+
+	/**
+	 * Checks whether this board has the same mirrors as the given board
+	 *
+	 * @param other
+	 *            The board to compare to
+	 * @return whether the boards are the same
+	 */
+	public boolean sameAs(MirrorBoard other)
+	{
+		return hash == other.hash && mirrors == other.mirrors
+				&& horizontal == other.horizontal;
+	}
+}
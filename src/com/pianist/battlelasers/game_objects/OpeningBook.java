@@ -0,0 +1,195 @@
+package com.pianist.battlelasers.game_objects;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The OpeningBook class holds the best replies for the computer in the early
+ * positions of the built in layouts. The replies are found ahead of time by
+ * searching much longer than the game can afford to, and are stored in an
+ * asset so that the AI can make its first moves instantly.
+ *
+ * The book is stored as a sorted list of board hashes with the encoded reply
+ * for each one. A reply is only a suggestion: the AI still checks that it is a
+ * legal move on the board before making it, since a hash could belong to a
+ * different grid or the reply could undo the opponent's last move.
+ *
+ * The asset starts with the magic number and the version followed by the
+ * number of entries, then every hash (as a long) and every reply (as a short)
+ * in the order of the hashes.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class OpeningBook
+{
+	// The name of the asset the book is stored in
+	public static final String ASSET_NAME = "OpeningBook.bin";
+
+	// Marks the start of a book file ("BLOB")
+	private static final int MAGIC = 0x424C4F42;
+
+	// The version of the file format (changing the hash keys or the move
+	// encoding also needs a new version)
+	private static final int VERSION = 1;
+
+	// The hashes of the positions in the book in increasing order
+	private final long[] hashes;
+
+	// The encoded reply for each position
+	private final short[] replies;
+
+	/**
+	 * Creates a book from the given positions and replies
+	 *
+	 * @param hashes
+	 *            The hashes of the positions in increasing order
+	 * @param replies
+	 *            The encoded reply for each position
+	 */
+	private OpeningBook(long[] hashes, short[] replies)
+	{
+		this.hashes = hashes;
+		this.replies = replies;
+	}
+
+	/**
+	 * Creates an empty book, used when the asset can't be read
+	 *
+	 * @return an empty book
+	 */
+	public static OpeningBook empty()
+	{
+		return new OpeningBook(new long[0], new short[0]);
+	}
+
+	/**
+	 * Creates a book from the given positions and replies
+	 *
+	 * @param hashes
+	 *            The hashes of the positions (in any order, with no
+	 *            duplicates)
+	 * @param replies
+	 *            The encoded reply for each position
+	 * @param size
+	 *            The number of positions
+	 * @return the new book
+	 */
+	public static OpeningBook create(long[] hashes, int[] replies, int size)
+	{
+		// Sort the positions by their hash, keeping their replies with them
+		Integer[] order = new Integer[size];
+		for (int index = 0; index < size; index++)
+			order[index] = index;
+		final long[] keys = hashes;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer first, Integer second)
+			{
+				long a = keys[first];
+				long b = keys[second];
+				return a < b ? -1 : (a == b ? 0 : 1);
+			}
+		});
+
+		long[] sortedHashes = new long[size];
+		short[] sortedReplies = new short[size];
+		for (int index = 0; index < size; index++)
+		{
+			sortedHashes[index] = hashes[order[index]];
+			sortedReplies[index] = (short) replies[order[index]];
+		}
+		return new OpeningBook(sortedHashes, sortedReplies);
+	}
+
+	/**
+	 * Reads a book from the given stream, which is closed afterwards
+	 *
+	 * @param stream
+	 *            The stream to read the book from
+	 * @return the book that was read
+	 * @throws IOException
+	 *             If the stream couldn't be read or isn't a book
+	 */
+	public static OpeningBook read(InputStream stream) throws IOException
+	{
+		DataInputStream input = new DataInputStream(new BufferedInputStream(
+				stream));
+		try
+		{
+			if (input.readInt() != MAGIC || input.readInt() != VERSION)
+				throw new IOException("Not an opening book");
+
+			int size = input.readInt();
+			long[] hashes = new long[size];
+			short[] replies = new short[size];
+			for (int index = 0; index < size; index++)
+				hashes[index] = input.readLong();
+			for (int index = 0; index < size; index++)
+				replies[index] = input.readShort();
+			return new OpeningBook(hashes, replies);
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	/**
+	 * Writes the book to the given stream, which is closed afterwards
+	 *
+	 * @param stream
+	 *            The stream to write the book to
+	 * @throws IOException
+	 *             If the stream couldn't be written to
+	 */
+	public void write(OutputStream stream) throws IOException
+	{
+		DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(stream));
+		try
+		{
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(hashes.length);
+			for (long hash : hashes)
+				output.writeLong(hash);
+			for (short reply : replies)
+				output.writeShort(reply);
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+
+	/**
+	 * Returns the number of positions in the book
+	 *
+	 * @return the size of the book
+	 */
+	public int size()
+	{
+		return hashes.length;
+	}
+
+	/**
+	 * Finds the reply for the given position
+	 *
+	 * @param hash
+	 *            The hash of the position
+	 * @return the encoded reply, or -1 if the position isn't in the book
+	 */
+	public int lookup(long hash)
+	{
+		int index = Arrays.binarySearch(hashes, hash);
+		if (index < 0)
+			return -1;
+		return replies[index] & 0xFFFF;
+	}
+}
@@ -0,0 +1,148 @@
+package com.pianist.battlelasers.game_objects;
+
+/**
+ * The PositionSet class is a set of board hashes stored in an open addressed
+ * table of longs, so that checking whether a grid was already used takes the
+ * same time no matter how long the match has gone on for, and doesn't create
+ * any objects.
+ *
+ * Only one thread may add hashes, but other threads can check for hashes at
+ * the same time. A bigger table is filled completely before it replaces the
+ * old one, so a check always sees every hash that was added before the table
+ * it reads was published.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class PositionSet
+{
+	// The hashes in the set (zero marks an empty slot)
+	private volatile long[] hashes;
+
+	// The number of hashes in the set
+	private int size;
+
+	// Whether the hash zero is in the set (it can't be stored in the table)
+	private volatile boolean containsZero;
+
+	/**
+	 * Creates a new empty set
+	 */
+	public PositionSet()
+	{
+		hashes = new long[64];
+		size = 0;
+		containsZero = false;
+	}
+
+	/**
+	 * Adds the given hash to the set
+	 *
+	 * @param hash
+	 *            The hash to add
+	 */
+	public void add(long hash)
+	{
+		if (hash == 0)
+		{
+			containsZero = true;
+			return;
+		}
+
+		// Keep the table at most half full so that probes stay short
+		long[] table = hashes;
+		if ((size + 1) * 2 > table.length)
+			table = grow(table);
+		if (insert(table, hash))
+			size++;
+	}
+
+	/**
+	 * Checks whether the given hash is in the set
+	 *
+	 * @param hash
+	 *            The hash to look for
+	 * @return whether the hash is in the set
+	 */
+	public boolean contains(long hash)
+	{
+		if (hash == 0)
+			return containsZero;
+
+		// Read the table once in case another thread is growing it
+		long[] table = hashes;
+		int mask = table.length - 1;
+		int index = slot(hash, mask);
+		while (table[index] != 0)
+		{
+			if (table[index] == hash)
+				return true;
+			index = (index + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of hashes in the set
+	 *
+	 * @return the size of the set
+	 */
+	public int size()
+	{
+		return size + (containsZero ? 1 : 0);
+	}
+
+	/**
+	 * Doubles the size of the table and reinserts all the hashes, only
+	 * publishing the new table once it holds all of them
+	 *
+	 * @param table
+	 *            The current table
+	 * @return the new table
+	 */
+	private long[] grow(long[] table)
+	{
+		long[] newHashes = new long[table.length * 2];
+		for (long hash : table)
+			if (hash != 0)
+				insert(newHashes, hash);
+		hashes = newHashes;
+		return newHashes;
+	}
+
+	/**
+	 * Inserts the hash into the given table
+	 *
+	 * @param table
+	 *            The table to insert into
+	 * @param hash
+	 *            The hash to insert
+	 * @return whether the hash was not already in the table
+	 */
+	private static boolean insert(long[] table, long hash)
+	{
+		int mask = table.length - 1;
+		int index = slot(hash, mask);
+		while (table[index] != 0)
+		{
+			if (table[index] == hash)
+				return false;
+			index = (index + 1) & mask;
+		}
+		table[index] = hash;
+		return true;
+	}
+
+	/**
+	 * Returns the first slot to look in for the given hash
+	 *
+	 * @param hash
+	 *            The hash
+	 * @param mask
+	 *            The table size minus one
+	 * @return the slot index
+	 */
+	private static int slot(long hash, int mask)
+	{
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+}
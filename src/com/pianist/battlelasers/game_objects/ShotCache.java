@@ -0,0 +1,141 @@
+package com.pianist.battlelasers.game_objects;
+
+/**
+ * The ShotCache class remembers the result of all four possible shots (each
+ * player shooting left or right) on a board along with the cells that each
+ * laser crosses. A move only changes one or two cells, so after a move only the
+ * shots whose lasers crossed one of those cells have to be traced again.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class ShotCache
+{
+	// The number of different shots that can be made
+	private static final int NUM_SHOTS = 4;
+
+	// The result of each shot (-1 for a miss, otherwise the shot length)
+	private final int[] results;
+
+	// The mask of cells crossed by each shot
+	private final long[] paths;
+
+	/**
+	 * Creates a new empty cache. It must be reset with a board before it is
+	 * used.
+	 */
+	public ShotCache()
+	{
+		results = new int[NUM_SHOTS];
+		paths = new long[NUM_SHOTS];
+	}
+
+	/**
+	 * Returns the index of the given shot
+	 *
+	 * @param playerOneTurn
+	 *            Whether player one is shooting
+	 * @param turnedRight
+	 *            Whether the player is shooting right (from their perspective)
+	 * @return the index of the shot
+	 */
+	private static int shotIndex(boolean playerOneTurn, boolean turnedRight)
+	{
+		return (playerOneTurn ? 2 : 0) + (turnedRight ? 1 : 0);
+	}
+
+	/**
+	 * Traces every shot on the given board from scratch
+	 *
+	 * @param board
+	 *            The board that contains the mirrors
+	 */
+	public void reset(MirrorBoard board)
+	{
+		for (int shot = 0; shot < NUM_SHOTS; shot++)
+			results[shot] = LaserPaths.trace(board, shot >= 2,
+					(shot & 1) == 1, paths, shot);
+	}
+
+	/**
+	 * Copies the results of the given cache over to this cache
+	 *
+	 * @param other
+	 *            The cache to copy
+	 */
+	public void set(ShotCache other)
+	{
+		System.arraycopy(other.results, 0, results, 0, NUM_SHOTS);
+		System.arraycopy(other.paths, 0, paths, 0, NUM_SHOTS);
+	}
+
+	/**
+	 * Updates the cache after the given move was made on the board, tracing
+	 * only the shots that crossed a changed cell
+	 *
+	 * @param board
+	 *            The board the move was made on (after making the move)
+	 * @param move
+	 *            The encoded move that was made
+	 */
+	public void moveMade(MirrorBoard board, int move)
+	{
+		long changed = MirrorBoard.changedCells(move);
+		for (int shot = 0; shot < NUM_SHOTS; shot++)
+			if ((paths[shot] & changed) != 0)
+				results[shot] = LaserPaths.trace(board, shot >= 2,
+						(shot & 1) == 1, paths, shot);
+	}
+
+	/**
+	 * Returns the result of the given shot
+	 *
+	 * @param playerOneTurn
+	 *            Whether player one is shooting
+	 * @param turnedRight
+	 *            Whether the player is shooting right (from their perspective)
+	 * @return -1 if it is not a winning shot or a positive integer representing
+	 *         the length of the winning shot
+	 */
+	public int getResult(boolean playerOneTurn, boolean turnedRight)
+	{
+		return results[shotIndex(playerOneTurn, turnedRight)];
+	}
+
+	/**
+	 * Returns the mask of the cells crossed by the given shot
+	 *
+	 * @param playerOneTurn
+	 *            Whether player one is shooting
+	 * @param turnedRight
+	 *            Whether the player is shooting right (from their perspective)
+	 * @return the mask of crossed cells
+	 */
+	public long getPath(boolean playerOneTurn, boolean turnedRight)
+	{
+		return paths[shotIndex(playerOneTurn, turnedRight)];
+	}
+
+	/**
+	 * Returns the result of the given shot after a move without updating the
+	 * cache, so that many moves can be tried from the same cached board
+	 *
+	 * @param board
+	 *            The board the move was made on (after making the move)
+	 * @param move
+	 *            The encoded move that was made
+	 * @param playerOneTurn
+	 *            Whether player one is shooting
+	 * @param turnedRight
+	 *            Whether the player is shooting right (from their perspective)
+	 * @return -1 if it is not a winning shot or a positive integer representing
+	 *         the length of the winning shot
+	 */
+	public int resultAfter(MirrorBoard board, int move, boolean playerOneTurn,
+			boolean turnedRight)
+	{
+		int shot = shotIndex(playerOneTurn, turnedRight);
+		if ((paths[shot] & MirrorBoard.changedCells(move)) == 0)
+			return results[shot];
+		return LaserPaths.shoot(board, playerOneTurn, turnedRight);
+	}
+}
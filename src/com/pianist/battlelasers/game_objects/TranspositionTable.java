@@ -0,0 +1,183 @@
+package com.pianist.battlelasers.game_objects;
+
+/**
+ * The TranspositionTable class remembers the results of positions the AI has
+ * already searched so that they don't have to be searched again, both later in
+ * the same search and in the following turns of a match. It has a fixed number
+ * of slots picked by the board hash, and a new result always replaces the one
+ * in its slot, so it never grows.
+ *
+ * Every search starts a new generation of the table. Entries stored by
+ * earlier searches were searched with fewer used grids to avoid, so their
+ * values can't be trusted any more, but their best moves are still worth
+ * trying first.
+ *
+ * Each entry is packed into a single long, which is zero for an empty slot.
+ * The table is shared by the search threads without any locking: every slot
+ * stores the hash mixed (with exclusive or) with its entry, so an entry that
+ * was half overwritten by another thread won't match its hash and is simply
+ * treated as missing.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class TranspositionTable
+{
+	// The kinds of values that can be stored: the exact value of the position
+	// or a bound on it
+	public static final int EXACT = 0;
+
+	public static final int LOWER_BOUND = 1;
+
+	public static final int UPPER_BOUND = 2;
+
+	// Marks a slot as being used
+	private static final long USED = 1L << 62;
+
+	// The number of generations before they wrap around
+	private static final int GENERATIONS = 256;
+
+	// The hashes of the stored positions mixed with their entries
+	private final long[] hashes;
+
+	// The packed entries of the stored positions
+	private final long[] entries;
+
+	// The number of slots minus one
+	private final int mask;
+
+	// The generation new entries are stored in
+	private volatile int generation;
+
+	/**
+	 * Creates a new empty table
+	 *
+	 * @param sizeBits
+	 *            The table will have two to the power of this many slots
+	 */
+	public TranspositionTable(int sizeBits)
+	{
+		hashes = new long[1 << sizeBits];
+		entries = new long[1 << sizeBits];
+		mask = (1 << sizeBits) - 1;
+	}
+
+	/**
+	 * Looks for the given position in the table
+	 *
+	 * @param hash
+	 *            The hash of the position
+	 * @return the packed entry of the position, or zero if it isn't stored
+	 */
+	public long probe(long hash)
+	{
+		int index = (int) (hash ^ (hash >>> 32)) & mask;
+		long entry = entries[index];
+		if ((hashes[index] ^ entry) != hash)
+			return 0;
+		return entry;
+	}
+
+	/**
+	 * Stores the result of searching the given position
+	 *
+	 * @param hash
+	 *            The hash of the position
+	 * @param depth
+	 *            The number of moves that were searched from the position
+	 * @param value
+	 *            The value of the position
+	 * @param bound
+	 *            Whether the value is exact or a bound
+	 * @param move
+	 *            The best encoded move found in the position
+	 */
+	public void store(long hash, int depth, int value, int bound, int move)
+	{
+		int index = (int) (hash ^ (hash >>> 32)) & mask;
+		long entry = USED | ((long) bound << 40)
+				| ((long) generation << 42) | ((long) (depth & 0xFF) << 32)
+				| ((long) (value & 0xFFFF) << 16) | (move & 0xFFFF);
+		hashes[index] = hash ^ entry;
+		entries[index] = entry;
+	}
+
+	/**
+	 * Starts a new generation, which makes every entry stored so far stale
+	 */
+	public void nextGeneration()
+	{
+		generation = (generation + 1) % GENERATIONS;
+	}
+
+	/**
+	 * Checks whether the given entry was stored in the current generation
+	 *
+	 * @param entry
+	 *            The packed entry
+	 * @return whether the value of the entry can be used
+	 */
+	public boolean isCurrent(long entry)
+	{
+		return ((int) (entry >> 42) & (GENERATIONS - 1)) == generation;
+	}
+
+	/**
+	 * Empties the table
+	 */
+	public void clear()
+	{
+		for (int index = 0; index <= mask; index++)
+		{
+			hashes[index] = 0;
+			entries[index] = 0;
+		}
+	}
+
+	/**
+	 * Returns the best move stored in the given entry
+	 *
+	 * @param entry
+	 *            The packed entry
+	 * @return the encoded move
+	 */
+	public static int getMove(long entry)
+	{
+		return (short) entry;
+	}
+
+	/**
+	 * Returns the value stored in the given entry
+	 *
+	 * @param entry
+	 *            The packed entry
+	 * @return the value of the position
+	 */
+	public static int getValue(long entry)
+	{
+		return (short) (entry >> 16);
+	}
+
+	/**
+	 * Returns the search depth stored in the given entry
+	 *
+	 * @param entry
+	 *            The packed entry
+	 * @return the number of moves that were searched
+	 */
+	public static int getDepth(long entry)
+	{
+		return (int) (entry >> 32) & 0xFF;
+	}
+
+	/**
+	 * Returns the kind of value stored in the given entry
+	 *
+	 * @param entry
+	 *            The packed entry
+	 * @return EXACT, LOWER_BOUND or UPPER_BOUND
+	 */
+	public static int getBound(long entry)
+	{
+		return (int) (entry >> 40) & 3;
+	}
+}
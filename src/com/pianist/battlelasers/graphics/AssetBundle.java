@@ -0,0 +1,321 @@
+package com.pianist.battlelasers.graphics;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.pianist.battlelasers.graphics.Graphics.PixmapFormat;
+
+/**
+ * The AssetBundle class is a single file holding images that were already
+ * decoded, so that Graphics can copy their pixels straight into bitmaps
+ * instead of inflating PNG files while the game starts. Every image is stored
+ * in the pixel format the format policy of Graphics picks for it on devices
+ * with ARGB4444 bitmaps, laid out the way Android keeps that format in
+ * memory, and is LZ4 compressed if that makes it smaller. Devices without
+ * ARGB4444 bitmaps expand those pixels to ARGB8888 while copying them. An
+ * image that is asked for in a format that the policy maps to a different
+ * one is loaded from its PNG file as usual.
+ *
+ * The file starts with an index of the images, in a block of its own so that
+ * it can be read before touching any pixels, followed by the pixel data.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class AssetBundle
+{
+	// The name of the bundle among the assets (the scaled images have their
+	// own in the directory of the render scale)
+	public static final String ASSET_NAME = "AssetBundle.bin";
+
+	// Identifies the file, and the version of its layout
+	private static final int MAGIC = 0x424C4142;
+
+	public static final int VERSION = 1;
+
+	// The size of the magic number, the version and the length of the index
+	private static final int HEADER_SIZE = 12;
+
+	/**
+	 * The Entry class is where an image is in the bundle and what it is like
+	 */
+	public static class Entry
+	{
+		public final PixmapFormat format;
+
+		public final int width;
+
+		public final int height;
+
+		// Whether the original image has alpha, which the format policy
+		// needs to know
+		public final boolean hasAlpha;
+
+		// Where the pixels start after the index, the number of bytes they
+		// take up in the bundle and the number they decompress to
+		final int offset;
+
+		final int length;
+
+		final int pixelsLength;
+
+		/**
+		 * Creates an entry
+		 *
+		 * @param format
+		 *            The format the pixels are in
+		 * @param width
+		 *            The width of the image in pixels
+		 * @param height
+		 *            The height of the image in pixels
+		 * @param hasAlpha
+		 *            Whether the original image has alpha
+		 * @param offset
+		 *            Where the pixels start after the index
+		 * @param length
+		 *            The number of bytes stored
+		 * @param pixelsLength
+		 *            The number of bytes of pixels
+		 */
+		Entry(PixmapFormat format, int width, int height, boolean hasAlpha,
+				int offset, int length, int pixelsLength)
+		{
+			this.format = format;
+			this.width = width;
+			this.height = height;
+			this.hasAlpha = hasAlpha;
+			this.offset = offset;
+			this.length = length;
+			this.pixelsLength = pixelsLength;
+		}
+
+		/**
+		 * Checks whether the pixels are compressed
+		 *
+		 * @return whether the pixels have to be decompressed
+		 */
+		public boolean isCompressed()
+		{
+			return length != pixelsLength;
+		}
+	}
+
+	// The images by file name, in the order they were added
+	private HashMap<String, Entry> entries = new HashMap<String, Entry>();
+
+	private List<String> names = new ArrayList<String>();
+
+	// The pixel data after the index (a file that was read), or the stored
+	// bytes of every image (a bundle being built)
+	private ByteBuffer data;
+
+	private List<byte[]> stored = new ArrayList<byte[]>();
+
+	private int dataLength;
+
+	/**
+	 * Adds an image to a bundle that is being built
+	 *
+	 * @param name
+	 *            The file name of the image
+	 * @param format
+	 *            The format the pixels are in
+	 * @param width
+	 *            The width of the image in pixels
+	 * @param height
+	 *            The height of the image in pixels
+	 * @param hasAlpha
+	 *            Whether the original image has alpha
+	 * @param pixels
+	 *            The pixels, laid out the way a bitmap of the format keeps
+	 *            them
+	 * @param compress
+	 *            Whether to compress the pixels if that makes them smaller
+	 */
+	public void addImage(String name, PixmapFormat format, int width,
+			int height, boolean hasAlpha, byte[] pixels, boolean compress)
+	{
+		byte[] bytes = pixels;
+		if (compress)
+		{
+			byte[] compressed = Lz4.compress(pixels);
+			if (compressed.length < pixels.length)
+				bytes = compressed;
+		}
+		entries.put(name, new Entry(format, width, height, hasAlpha,
+				dataLength, bytes.length, pixels.length));
+		names.add(name);
+		stored.add(bytes);
+		dataLength += bytes.length;
+	}
+
+	/**
+	 * Returns the entry of the given image
+	 *
+	 * @param name
+	 *            The file name of the image
+	 * @return the entry, or null if the image isn't in the bundle
+	 */
+	public Entry getEntry(String name)
+	{
+		return entries.get(name);
+	}
+
+	/**
+	 * Returns the number of images in the bundle
+	 *
+	 * @return the number of images
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of bytes the pixels of every image take up in the
+	 * bundle
+	 *
+	 * @return the length of the pixel data
+	 */
+	public int getDataLength()
+	{
+		return dataLength;
+	}
+
+	/**
+	 * Returns the pixels of an image in a bundle that was read, decompressing
+	 * them if needed. This can be called from any thread.
+	 *
+	 * @param entry
+	 *            The entry of the image
+	 * @return a buffer with the pixels between its position and its limit
+	 * @throws IOException
+	 *             If the pixels are corrupt
+	 */
+	public ByteBuffer getPixels(Entry entry) throws IOException
+	{
+		ByteBuffer pixels = data.duplicate();
+		pixels.position(entry.offset);
+		pixels.limit(entry.offset + entry.length);
+		if (!entry.isCompressed())
+			return pixels.slice();
+
+		byte[] block;
+		int offset = 0;
+		if (pixels.hasArray())
+		{
+			block = pixels.array();
+			offset = pixels.arrayOffset() + entry.offset;
+		}
+		else
+		{
+			block = new byte[entry.length];
+			pixels.get(block);
+		}
+		byte[] decompressed = new byte[entry.pixelsLength];
+		Lz4.decompress(block, offset, entry.length, decompressed);
+		return ByteBuffer.wrap(decompressed);
+	}
+
+	/**
+	 * Reads a bundle from the given buffer, which the bundle keeps reading
+	 * the pixels from
+	 *
+	 * @param buffer
+	 *            The buffer with the whole file
+	 * @return the bundle that was read
+	 * @throws IOException
+	 *             If the buffer doesn't hold a bundle
+	 */
+	public static AssetBundle read(ByteBuffer buffer) throws IOException
+	{
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+			throw new IOException("Not an asset bundle");
+		int version = buffer.getInt();
+		if (version != VERSION)
+			throw new IOException("Unknown asset bundle version " + version);
+		int indexLength = buffer.getInt();
+		if (indexLength < 0 || indexLength > buffer.remaining())
+			throw new IOException("Truncated asset bundle");
+		byte[] index = new byte[indexLength];
+		buffer.get(index);
+
+		AssetBundle bundle = new AssetBundle();
+		bundle.data = buffer.slice();
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(
+				index));
+		PixmapFormat[] formats = PixmapFormat.values();
+		int numImages = input.readInt();
+		for (int image = 0; image < numImages; image++)
+		{
+			String name = input.readUTF();
+			int format = input.readUnsignedByte();
+			boolean hasAlpha = input.readBoolean();
+			int width = input.readUnsignedShort();
+			int height = input.readUnsignedShort();
+			int offset = input.readInt();
+			int length = input.readInt();
+			int pixelsLength = input.readInt();
+			if (format >= formats.length || offset < 0 || length < 0
+					|| offset + length > bundle.data.capacity())
+				throw new IOException("Bad entry for " + name);
+			bundle.entries.put(name, new Entry(formats[format], width,
+					height, hasAlpha, offset, length, pixelsLength));
+			bundle.names.add(name);
+		}
+		bundle.dataLength = bundle.data.capacity();
+		return bundle;
+	}
+
+	/**
+	 * Writes a bundle that was built to the given stream, and closes it
+	 *
+	 * @param stream
+	 *            The stream to write to
+	 * @throws IOException
+	 *             If the stream couldn't be written to
+	 */
+	public void write(OutputStream stream) throws IOException
+	{
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+		DataOutputStream indexOutput = new DataOutputStream(index);
+		indexOutput.writeInt(names.size());
+		for (String name : names)
+		{
+			Entry entry = entries.get(name);
+			indexOutput.writeUTF(name);
+			indexOutput.writeByte(entry.format.ordinal());
+			indexOutput.writeBoolean(entry.hasAlpha);
+			indexOutput.writeShort(entry.width);
+			indexOutput.writeShort(entry.height);
+			indexOutput.writeInt(entry.offset);
+			indexOutput.writeInt(entry.length);
+			indexOutput.writeInt(entry.pixelsLength);
+		}
+		indexOutput.flush();
+
+		DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(stream));
+		try
+		{
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(index.size());
+			index.writeTo(output);
+			for (byte[] bytes : stored)
+				output.write(bytes);
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+}
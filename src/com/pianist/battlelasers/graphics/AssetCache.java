@@ -0,0 +1,231 @@
+package com.pianist.battlelasers.graphics;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+import android.support.v4.util.LruCache;
+
+/**
+ * The AssetCache class keeps the images that were loaded from files, by file
+ * name, so that an image is only decoded once however many screens use it.
+ * Every Graphics.newPixmap of a file takes a reference to its image and every
+ * dispose gives one back. An image that nobody holds a reference to any more
+ * isn't recycled straight away, but kept among the unused images, so that
+ * going back to a screen doesn't decode its images again. The unused images
+ * are recycled, least recently used first, once their bitmaps take up more
+ * than the budget.
+ *
+ * The regions of the texture atlas share the bitmap of their sheet, which
+ * stays loaded anyway, so they don't count towards the budget. The last few
+ * bitmaps that were let go of are kept back so that Graphics can decode the
+ * next image of the same size and format into one of them instead of
+ * allocating another.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class AssetCache
+{
+	/**
+	 * The Entry class is an image that is in use, with the number of
+	 * references to it
+	 */
+	private static class Entry
+	{
+		Pixmap pixmap;
+
+		int references;
+	}
+
+	// The images that are in use
+	private HashMap<String, Entry> used;
+
+	// The images that nobody uses, measured in bytes of bitmap
+	private LruCache<String, Pixmap> unused;
+
+	// The bitmaps of evicted images that can be decoded into, newest first
+	private LinkedList<Bitmap> reusable;
+
+	// The most bitmaps kept back for decoding into
+	private static final int MAX_REUSABLE = 3;
+
+	/**
+	 * Creates an empty cache
+	 *
+	 * @param maxUnusedBytes
+	 *            The most bytes of bitmaps that are kept for images nobody
+	 *            uses
+	 */
+	public AssetCache(int maxUnusedBytes)
+	{
+		used = new HashMap<String, Entry>();
+		reusable = new LinkedList<Bitmap>();
+		unused = new LruCache<String, Pixmap>(Math.max(maxUnusedBytes, 1)) {
+			@Override
+			protected int sizeOf(String fileName, Pixmap pixmap)
+			{
+				if (pixmap.isRegion())
+					return 0;
+				return pixmap.bitmap.getRowBytes() * pixmap.bitmap.getHeight();
+			}
+
+			@Override
+			protected void entryRemoved(boolean evicted, String fileName,
+					Pixmap oldPixmap, Pixmap newPixmap)
+			{
+				// Images that are used again are taken out without being
+				// recycled
+				if (!evicted)
+					return;
+				if (oldPixmap.isRegion() || !oldPixmap.bitmap.isMutable())
+				{
+					oldPixmap.recycle();
+					return;
+				}
+				oldPixmap.disposed = true;
+				reusable.addFirst(oldPixmap.bitmap);
+				if (reusable.size() > MAX_REUSABLE)
+					reusable.removeLast().recycle();
+			}
+		};
+	}
+
+	/**
+	 * Takes a reference to the image of the given file if it is in the cache
+	 *
+	 * @param fileName
+	 *            The file name of the image
+	 * @return the image, or null if it has to be loaded
+	 */
+	public synchronized Pixmap acquire(String fileName)
+	{
+		Entry entry = used.get(fileName);
+		if (entry == null)
+		{
+			Pixmap pixmap = unused.remove(fileName);
+			if (pixmap == null)
+				return null;
+			entry = new Entry();
+			entry.pixmap = pixmap;
+			used.put(fileName, entry);
+		}
+		entry.references++;
+		return entry.pixmap;
+	}
+
+	/**
+	 * Adds an image that was just loaded, with one reference to it
+	 *
+	 * @param fileName
+	 *            The file name of the image
+	 * @param pixmap
+	 *            The image
+	 */
+	public synchronized void add(String fileName, Pixmap pixmap)
+	{
+		Entry entry = new Entry();
+		entry.pixmap = pixmap;
+		entry.references = 1;
+		used.put(fileName, entry);
+		pixmap.cache = this;
+		pixmap.fileName = fileName;
+	}
+
+	/**
+	 * Adds an image that was loaded ahead of time as an unused image, so that
+	 * it counts towards the budget until a screen takes a reference to it.
+	 * The image is recycled if the cache already has an image for the file.
+	 *
+	 * @param fileName
+	 *            The file name of the image
+	 * @param pixmap
+	 *            The image
+	 */
+	public synchronized void addUnused(String fileName, Pixmap pixmap)
+	{
+		if (used.containsKey(fileName) || unused.get(fileName) != null)
+		{
+			pixmap.recycle();
+			return;
+		}
+		pixmap.cache = this;
+		pixmap.fileName = fileName;
+		unused.put(fileName, pixmap);
+	}
+
+	/**
+	 * Gives back a reference to the given image. The image becomes unused
+	 * when it was the last reference. Giving back more references than were
+	 * taken does nothing.
+	 *
+	 * @param pixmap
+	 *            The image
+	 */
+	public synchronized void release(Pixmap pixmap)
+	{
+		Entry entry = used.get(pixmap.fileName);
+		if (entry == null || entry.pixmap != pixmap)
+			return;
+		if (--entry.references == 0)
+		{
+			used.remove(pixmap.fileName);
+			unused.put(pixmap.fileName, pixmap);
+		}
+	}
+
+	/**
+	 * Checks whether the image of the given file is in the cache, used or
+	 * not
+	 *
+	 * @param fileName
+	 *            The file name of the image
+	 * @return whether the image doesn't have to be loaded
+	 */
+	public synchronized boolean contains(String fileName)
+	{
+		return used.containsKey(fileName) || unused.get(fileName) != null;
+	}
+
+	/**
+	 * Takes a bitmap that was let go of and has the given size and format, so
+	 * that an image can be decoded into it
+	 *
+	 * @param width
+	 *            The width of the bitmap in pixels
+	 * @param height
+	 *            The height of the bitmap in pixels
+	 * @param config
+	 *            The format of the bitmap
+	 * @return the bitmap, or null if none matches
+	 */
+	public synchronized Bitmap takeReusable(int width, int height,
+			Config config)
+	{
+		for (Iterator<Bitmap> iterator = reusable.iterator(); iterator
+				.hasNext();)
+		{
+			Bitmap bitmap = iterator.next();
+			if (bitmap.getWidth() == width && bitmap.getHeight() == height
+					&& bitmap.getConfig() == config)
+			{
+				iterator.remove();
+				return bitmap;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Recycles every image nobody uses and every bitmap kept back for
+	 * decoding into, for when memory runs low
+	 */
+	public synchronized void trim()
+	{
+		unused.evictAll();
+		for (Bitmap bitmap : reusable)
+			bitmap.recycle();
+		reusable.clear();
+	}
+}
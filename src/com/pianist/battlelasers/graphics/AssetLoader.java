@@ -0,0 +1,343 @@
+package com.pianist.battlelasers.graphics;
+
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.os.Process;
+
+import com.pianist.battlelasers.graphics.Graphics.PixmapFormat;
+
+/**
+ * The AssetLoader class decodes images on background threads before the
+ * screens ask for them. A screen asks the loader for the images it is about to
+ * need and keeps the Progress it gets back, shows something else until the
+ * progress is done, and then creates its images with Graphics.newPixmap as
+ * usual. Every image the loader decodes goes into the asset cache as an
+ * unused image, so Graphics.newPixmap takes it from there instead of decoding
+ * it again, and images that were fetched ahead but never used count towards
+ * the budget of the cache and are recycled like any other unused image.
+ *
+ * The images the current screen needs are decoded before the ones that are
+ * fetched ahead for the next screen, and an image that is fetched ahead is
+ * moved up when the current screen asks for it. Asking Graphics for an image
+ * that hasn't been decoded yet decodes it straight away (or waits for the
+ * thread that is already decoding it), so nothing is ever loaded twice.
+ * Images that are still in the asset cache are ready straight away.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class AssetLoader
+{
+	// The priorities of the images: the images the current screen needs come
+	// first and the images fetched ahead for the next screen second
+	public static final int CURRENT = 0;
+
+	public static final int PREFETCH = 1;
+
+	// The most threads that decode at once (decoding also needs the render
+	// thread and the file system, so more don't help)
+	private static final int MAX_WORKERS = 2;
+
+	/**
+	 * The Job class is an image that was asked for and not handed over yet
+	 */
+	private static class Job implements Comparable<Job>
+	{
+		String fileName;
+
+		PixmapFormat format;
+
+		int priority;
+
+		// The order the jobs were asked for in, so that jobs with the same
+		// priority are decoded in that order
+		long order;
+
+		boolean started;
+
+		boolean done;
+
+		// What went wrong if the image couldn't be decoded
+		RuntimeException error;
+
+		public int compareTo(Job other)
+		{
+			if (priority != other.priority)
+				return priority - other.priority;
+			return order < other.order ? -1 : (order > other.order ? 1 : 0);
+		}
+	}
+
+	/**
+	 * The Progress class tracks a group of images that a screen asked for
+	 */
+	public class Progress
+	{
+		private Job[] jobs;
+
+		/**
+		 * Creates the progress of the given jobs
+		 *
+		 * @param jobs
+		 *            The jobs of the images
+		 */
+		private Progress(Job[] jobs)
+		{
+			this.jobs = jobs;
+		}
+
+		/**
+		 * Returns how many of the images are ready
+		 *
+		 * @return the number of images that were decoded
+		 */
+		public int getNumReady()
+		{
+			synchronized (lock)
+			{
+				int ready = 0;
+				for (Job job : jobs)
+					if (job.done)
+						ready++;
+				return ready;
+			}
+		}
+
+		/**
+		 * Returns the number of images in the group
+		 *
+		 * @return the number of images
+		 */
+		public int getNumImages()
+		{
+			return jobs.length;
+		}
+
+		/**
+		 * Returns how much of the group is ready, between 0 and 1
+		 *
+		 * @return the fraction of the images that were decoded
+		 */
+		public float getFraction()
+		{
+			if (jobs.length == 0)
+				return 1;
+			return (float) getNumReady() / jobs.length;
+		}
+
+		/**
+		 * Checks whether every image in the group is ready, so that creating
+		 * them with Graphics doesn't decode anything
+		 *
+		 * @return whether the group is ready
+		 */
+		public boolean isDone()
+		{
+			return getNumReady() == jobs.length;
+		}
+	}
+
+	// The graphics the images are decoded with
+	private Graphics graphics;
+
+	// Guards the jobs, and is notified whenever one finishes
+	private final Object lock = new Object();
+
+	// The jobs waiting for a thread in the order they should be decoded, and
+	// every job that wasn't handed over yet by file name
+	private PriorityQueue<Job> queue;
+
+	private HashMap<String, Job> jobs;
+
+	private long nextOrder;
+
+	// The threads that decode (created when the first image is asked for)
+	private ExecutorService pool;
+
+	/**
+	 * Creates a loader that decodes with the given graphics
+	 *
+	 * @param graphics
+	 *            The graphics content that decodes the images
+	 */
+	AssetLoader(Graphics graphics)
+	{
+		this.graphics = graphics;
+		queue = new PriorityQueue<Job>();
+		jobs = new HashMap<String, Job>();
+	}
+
+	/**
+	 * Starts decoding the given images in the background
+	 *
+	 * @param priority
+	 *            CURRENT for images the current screen needs, or PREFETCH
+	 *            for images of a screen that might come next
+	 * @param format
+	 *            The format of the images
+	 * @param fileNames
+	 *            The file names of the images
+	 * @return the progress of the images
+	 */
+	public Progress load(int priority, PixmapFormat format,
+			String... fileNames)
+	{
+		Job[] group = new Job[fileNames.length];
+		synchronized (lock)
+		{
+			if (pool == null)
+				pool = Executors.newFixedThreadPool(Math.max(1, Math.min(
+						MAX_WORKERS,
+						Runtime.getRuntime().availableProcessors() - 1)),
+						new ThreadFactory() {
+							public Thread newThread(Runnable runnable)
+							{
+								Thread thread = new Thread(runnable,
+										"Asset loader");
+								thread.setDaemon(true);
+								return thread;
+							}
+						});
+
+			for (int index = 0; index < fileNames.length; index++)
+			{
+				Job job = jobs.get(fileNames[index]);
+				if (job == null && graphics.cache.contains(fileNames[index]))
+				{
+					// The image is already loaded
+					job = new Job();
+					job.started = true;
+					job.done = true;
+				}
+				else if (job == null)
+				{
+					job = new Job();
+					job.fileName = fileNames[index];
+					job.format = format;
+					job.priority = priority;
+					job.order = nextOrder++;
+					jobs.put(job.fileName, job);
+					queue.add(job);
+					pool.execute(new Runnable() {
+						public void run()
+						{
+							decodeNext();
+						}
+					});
+				}
+				else if (!job.started && priority < job.priority)
+				{
+					// Move the image up
+					queue.remove(job);
+					job.priority = priority;
+					queue.add(job);
+				}
+				group[index] = job;
+			}
+		}
+		return new Progress(group);
+	}
+
+	/**
+	 * Decodes the most important image that is waiting, on a loader thread.
+	 * One of these runs for every image that is asked for, but the image it
+	 * decodes isn't necessarily that one.
+	 */
+	private void decodeNext()
+	{
+		Job job;
+		synchronized (lock)
+		{
+			job = queue.poll();
+			if (job == null)
+				return;
+			job.started = true;
+		}
+
+		Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+		Pixmap pixmap = null;
+		RuntimeException error = null;
+		try
+		{
+			pixmap = graphics.loadPixmap(job.fileName, job.format);
+		}
+		catch (RuntimeException e)
+		{
+			error = e;
+		}
+
+		// Hand the image to the cache before the job is done, so that
+		// whoever waits for it finds it there
+		if (pixmap != null)
+			graphics.cache.addUnused(job.fileName, pixmap);
+		synchronized (lock)
+		{
+			job.error = error;
+			job.done = true;
+			if (error == null && jobs.get(job.fileName) == job)
+				jobs.remove(job.fileName);
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Makes sure the loader is no longer working on the given image, so that
+	 * the caller can take it from the cache or decode it itself. An image
+	 * that is still waiting is taken off the queue so that the caller can
+	 * decode it straight away, and an image that is being decoded is waited
+	 * for (even if this thread is interrupted, since the loader finishes it
+	 * anyway).
+	 *
+	 * @param fileName
+	 *            The file name of the image
+	 */
+	void take(String fileName)
+	{
+		synchronized (lock)
+		{
+			Job job = jobs.remove(fileName);
+			if (job == null)
+				return;
+			if (!job.started)
+			{
+				queue.remove(job);
+				job.done = true;
+				return;
+			}
+			boolean interrupted = false;
+			while (!job.done)
+			{
+				try
+				{
+					lock.wait();
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			if (job.error != null)
+				throw job.error;
+		}
+	}
+
+	/**
+	 * Stops the loader threads. Images that weren't decoded yet are decoded
+	 * when they are created instead.
+	 */
+	public void shutdown()
+	{
+		synchronized (lock)
+		{
+			queue.clear();
+			if (pool != null)
+				pool.shutdownNow();
+			pool = null;
+		}
+	}
+}
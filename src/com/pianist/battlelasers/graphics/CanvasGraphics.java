@@ -0,0 +1,223 @@
+package com.pianist.battlelasers.graphics;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Paint.Style;
+
+/**
+ * The CanvasGraphics class draws all the images of the game into a framebuffer
+ * bitmap with a software canvas, which RenderGraphics then draws to the screen.
+ * The canvas is scaled so that the screens draw in the same coordinates
+ * whatever size the framebuffer is.
+ *
+ * @author Peter Gokhshteyn and "Apress Beginning Android Games"
+ */
+public class CanvasGraphics extends Graphics
+{
+	Bitmap frameBuffer;
+
+	Canvas canvas;
+
+	Paint paint;
+
+	// Filters the images that are drawn at a different size
+	Paint bitmapPaint;
+
+	// The size of the coordinates the screens draw in
+	int width;
+
+	int height;
+
+	Rect srcRect = new Rect();
+
+	Rect dstRect = new Rect();
+
+	/**
+	 * Creates the graphics content for the activity according to the given
+	 * assets and framebuffer
+	 *
+	 * @param assets
+	 *            The activities assets
+	 * @param frameBuffer
+	 *            the frame set for the activity
+	 * @param renderScale
+	 *            The render scale the framebuffer was made for
+	 */
+	public CanvasGraphics(AssetManager assets, Bitmap frameBuffer,
+			RenderScale renderScale)
+	{
+		super(assets, renderScale);
+		this.frameBuffer = frameBuffer;
+		this.canvas = new Canvas(frameBuffer);
+		this.paint = new Paint();
+		this.bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+		this.width = renderScale.getLogicalWidth();
+		this.height = renderScale.getLogicalHeight();
+		canvas.scale(renderScale.getScale(), renderScale.getScale());
+	}
+
+	/**
+	 * Creates the graphics content that draws onto the given pixmap image
+	 *
+	 * @param assets
+	 *            The activities assets
+	 * @param renderScale
+	 *            The render scale of the device
+	 * @param pixmap
+	 *            The image to draw onto
+	 */
+	CanvasGraphics(AssetManager assets, RenderScale renderScale, Pixmap pixmap)
+	{
+		super(assets, renderScale);
+		this.frameBuffer = pixmap.bitmap;
+		this.canvas = new Canvas(frameBuffer);
+		this.paint = new Paint();
+		this.bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+		this.width = pixmap.width;
+		this.height = pixmap.height;
+		canvas.translate(pixmap.left, pixmap.top);
+		canvas.scale(pixmap.scale, pixmap.scale);
+	}
+
+	@Override
+	public Graphics newGraphics(Pixmap pixmap)
+	{
+		return new CanvasGraphics(assets, renderScale, pixmap);
+	}
+
+	@Override
+	public void clear(int color)
+	{
+		drawCalls++;
+		canvas.drawRGB((color & 0xff0000) >> 16, (color & 0xff00) >> 8,
+				(color & 0xff));
+	}
+
+	@Override
+	public void drawPixel(int x, int y, int color)
+	{
+		paint.setColor(color);
+		drawCalls++;
+		canvas.drawPoint(x, y, paint);
+	}
+
+	@Override
+	public void drawLine(int x, int y, int x2, int y2, int color)
+	{
+		paint.setColor(color);
+		paint.setStrokeWidth(3);
+		drawCalls++;
+		canvas.drawLine(x, y, x2, y2, paint);
+	}
+
+	@Override
+	public void drawRect(int x, int y, int width, int height, int color,
+			boolean filled)
+	{
+		paint.setColor(color);
+		if (filled)
+			paint.setStyle(Style.FILL);
+		else
+		{
+			paint.setStyle(Style.STROKE);
+			paint.setStrokeWidth(3);
+		}
+		drawCalls++;
+		canvas.drawRect(x, y, x + width - 1, y + height - 1, paint);
+	}
+
+	@Override
+	protected void drawImage(Pixmap pixmap, int x, int y, int srcX, int srcY,
+			int srcWidth, int srcHeight)
+	{
+		// The source is in pixels of the bitmap, which can be scaled
+		float scale = pixmap.scale;
+		srcRect.left = pixmap.left + Math.round(srcX * scale);
+		srcRect.top = pixmap.top + Math.round(srcY * scale);
+		srcRect.right = srcRect.left + Math.round(srcWidth * scale) - 1;
+		srcRect.bottom = srcRect.top + Math.round(srcHeight * scale) - 1;
+
+		dstRect.left = x;
+		dstRect.top = y;
+		dstRect.right = x + srcWidth - 1;
+		dstRect.bottom = y + srcHeight - 1;
+		drawCalls++;
+		canvas.drawBitmap(pixmap.bitmap, srcRect, dstRect, bitmapPaint);
+	}
+
+	@Override
+	public void drawCircle(int x, int y, int radius, int color, boolean filled)
+	{
+		paint.setColor(color);
+		if (filled)
+			paint.setStyle(Style.FILL);
+		else
+		{
+			paint.setStyle(Style.STROKE);
+			paint.setStrokeWidth(3);
+		}
+		drawCalls++;
+		canvas.drawCircle(x, y, radius, paint);
+	}
+
+	@Override
+	public void drawText(int x, int y, float size, String text)
+	{
+		paint.setColor(Color.WHITE);
+		paint.setStyle(Style.FILL);
+		paint.setTextSize(size);
+		drawCalls++;
+		canvas.drawText(text, x, y, paint);
+	}
+
+	@Override
+	protected void drawImage(Pixmap pixmap, int x, int y)
+	{
+		// Only the region of an atlas is drawn, and scaled images are drawn
+		// at their normal size
+		if (pixmap.isRegion())
+			drawImage(pixmap, x, y, 0, 0, pixmap.width, pixmap.height);
+		else if (!pixmap.isFullScale())
+		{
+			drawCalls++;
+			dstRect.set(x, y, x + pixmap.width, y + pixmap.height);
+			canvas.drawBitmap(pixmap.bitmap, null, dstRect, bitmapPaint);
+		}
+		else
+		{
+			drawCalls++;
+			canvas.drawBitmap(pixmap.bitmap, x, y, bitmapPaint);
+		}
+	}
+
+	@Override
+	protected void drawImage(Pixmap pixmap, int x, int y, int width,
+			int height, float alpha)
+	{
+		srcRect.left = pixmap.left;
+		srcRect.top = pixmap.top;
+		srcRect.right = pixmap.left + Math.round(pixmap.width * pixmap.scale);
+		srcRect.bottom = pixmap.top + Math.round(pixmap.height * pixmap.scale);
+		dstRect.set(x, y, x + width, y + height);
+		bitmapPaint.setAlpha(Math.round(alpha * 255));
+		drawCalls++;
+		canvas.drawBitmap(pixmap.bitmap, srcRect, dstRect, bitmapPaint);
+		bitmapPaint.setAlpha(255);
+	}
+
+	@Override
+	public int getWidth()
+	{
+		return width;
+	}
+
+	@Override
+	public int getHeight()
+	{
+		return height;
+	}
+}
@@ -0,0 +1,55 @@
+package com.pianist.battlelasers.graphics;
+
+import com.pianist.battlelasers.activities.BattleLaserActivity;
+
+/**
+ * The FixedTimestep class updates the game in steps of the same length no
+ * matter how long the frames take, so that the timers and animations of the
+ * screens don't depend on the frame rate. The real time that passes is
+ * collected, and the screen is updated once for every whole step in it. What
+ * is left over is passed to present, so that the screen can draw in between
+ * two updates.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class FixedTimestep
+{
+	// The length of an update (in seconds)
+	public static final float STEP = 1 / 60f;
+
+	// The most time caught up on in one frame, so that a long stall (like the
+	// game being paused) isn't replayed as a burst of updates
+	private static final float MAX_FRAME_TIME = 0.25f;
+
+	// The time that passed but wasn't updated yet
+	private float accumulator;
+
+	/**
+	 * Updates the current screen for every whole step in the time that passed
+	 *
+	 * @param game
+	 *            The game whose screen is updated
+	 * @param deltaTime
+	 *            The real time since the last frame (in seconds)
+	 * @return the time since the last update, which is less than a step
+	 */
+	public float advance(BattleLaserActivity game, float deltaTime)
+	{
+		accumulator += Math.min(deltaTime, MAX_FRAME_TIME);
+		while (accumulator >= STEP)
+		{
+			game.getCurrentScreen().update(STEP);
+			accumulator -= STEP;
+		}
+		return accumulator;
+	}
+
+	/**
+	 * Forgets the time that wasn't updated yet, for when the game loop starts
+	 * again
+	 */
+	public void reset()
+	{
+		accumulator = 0;
+	}
+}
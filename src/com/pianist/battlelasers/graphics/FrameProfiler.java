@@ -0,0 +1,311 @@
+package com.pianist.battlelasers.graphics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import android.graphics.Color;
+
+/**
+ * The FrameProfiler class records where the time of every frame goes: the
+ * time since the last frame started, updating, presenting, locking the
+ * surface, drawing the framebuffer onto it and posting it, along with the
+ * number of draw calls. The last frames are kept in a ring buffer that the
+ * game loop writes without locking, so reading it (to show the overlay or to
+ * write the numbers to a file) never holds up a frame.
+ *
+ * Only the game loop writes. It fills in a frame on the side and copies it
+ * into the ring when the frame ends, then publishes it by counting it in a
+ * volatile field. Readers copy the ring and then check the count again to
+ * throw away the frames that were overwritten while they were copying.
+ *
+ * With OpenGL there is no surface to lock, so the blit is the last flush of
+ * the batch and swapping the buffers falls in the time between frames.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class FrameProfiler
+{
+	// The stages of a frame that are timed
+	public static final int UPDATE = 0;
+
+	public static final int PRESENT = 1;
+
+	public static final int LOCK = 2;
+
+	public static final int BLIT = 3;
+
+	public static final int UNLOCK = 4;
+
+	public static final int NUM_STAGES = 5;
+
+	// The other numbers kept for a frame: the time since the last frame and
+	// the number of draw calls
+	public static final int FRAME = NUM_STAGES;
+
+	public static final int DRAW_CALLS = NUM_STAGES + 1;
+
+	// The number of numbers kept for each frame
+	public static final int FRAME_SIZE = NUM_STAGES + 2;
+
+	// The number of frames kept (a power of two)
+	public static final int CAPACITY = 256;
+
+	private static final int MASK = CAPACITY - 1;
+
+	// The height of the overlay and the time its full height stands for (two
+	// frames at 60 frames per second)
+	private static final int OVERLAY_HEIGHT = 100;
+
+	private static final int OVERLAY_MICROS = 33333;
+
+	// The width of the bar of each frame in the overlay
+	private static final int BAR_WIDTH = 6;
+
+	// The number of frames between updates of the text of the overlay
+	private static final int TEXT_FRAMES = 30;
+
+	// The colours of the stages in the overlay
+	private static final int[] STAGE_COLORS = { Color.GREEN, Color.CYAN,
+			Color.YELLOW, Color.RED, Color.MAGENTA };
+
+	// The names of the columns written by write
+	private static final String HEADER = "frame_us,update_us,present_us,"
+			+ "lock_us,blit_us,unlock_us,draw_calls";
+
+	// The numbers of the last frames, in microseconds
+	private final int[] samples = new int[CAPACITY * FRAME_SIZE];
+
+	// The number of frames written so far (the frame being filled in goes in
+	// the slot after the last one)
+	private volatile long frames;
+
+	// The frame that is being filled in and when the last one started
+	private final int[] current = new int[FRAME_SIZE];
+
+	private long lastFrameTime;
+
+	// Whether the overlay is drawn
+	private volatile boolean overlayVisible;
+
+	// The frames copied out for the overlay and its text
+	private int[] overlaySamples;
+
+	private String overlayText = "";
+
+	private int textCountdown;
+
+	/**
+	 * Starts recording a frame
+	 *
+	 * @param frameTime
+	 *            The time the frame started (in nanoseconds)
+	 */
+	public void beginFrame(long frameTime)
+	{
+		for (int field = 0; field < FRAME_SIZE; field++)
+			current[field] = 0;
+		if (lastFrameTime != 0)
+			current[FRAME] = (int) ((frameTime - lastFrameTime) / 1000);
+		lastFrameTime = frameTime;
+	}
+
+	/**
+	 * Records that a stage of the frame ran from the given time until now
+	 *
+	 * @param stage
+	 *            The stage that ran
+	 * @param startTime
+	 *            When the stage started (in nanoseconds)
+	 * @return the time now, which the next stage can start from
+	 */
+	public long record(int stage, long startTime)
+	{
+		long now = System.nanoTime();
+		current[stage] += (int) ((now - startTime) / 1000);
+		return now;
+	}
+
+	/**
+	 * Finishes the frame, adding it to the ring
+	 *
+	 * @param drawCalls
+	 *            The number of draw calls of the frame
+	 */
+	public void endFrame(int drawCalls)
+	{
+		current[DRAW_CALLS] = drawCalls;
+		long frame = frames;
+		System.arraycopy(current, 0, samples, (int) (frame & MASK)
+				* FRAME_SIZE, FRAME_SIZE);
+		frames = frame + 1;
+	}
+
+	/**
+	 * Copies the frames in the ring, oldest first, FRAME_SIZE numbers for
+	 * each frame. This can be called from any thread.
+	 *
+	 * @param copy
+	 *            The array to copy into, with room for CAPACITY frames
+	 * @return the number of frames copied
+	 */
+	public int copyFrames(int[] copy)
+	{
+		long end = frames;
+		long start = Math.max(0, end - CAPACITY);
+		for (long frame = start; frame < end; frame++)
+			System.arraycopy(samples, (int) (frame & MASK) * FRAME_SIZE,
+					copy, (int) (frame - start) * FRAME_SIZE, FRAME_SIZE);
+
+		// The slot after the last frame is being filled in, so anything the
+		// loop got to while copying is dropped
+		long overwritten = frames + 1 - CAPACITY;
+		if (overwritten <= start)
+			return (int) (end - start);
+		int dropped = (int) Math.min(overwritten - start, end - start);
+		System.arraycopy(copy, dropped * FRAME_SIZE, copy, 0,
+				(int) (end - start - dropped) * FRAME_SIZE);
+		return (int) (end - start) - dropped;
+	}
+
+	/**
+	 * Sets whether the overlay is drawn
+	 *
+	 * @param visible
+	 *            Whether to draw the overlay
+	 */
+	public void setOverlayVisible(boolean visible)
+	{
+		overlayVisible = visible;
+	}
+
+	/**
+	 * Returns whether the overlay is drawn
+	 *
+	 * @return whether the overlay is visible
+	 */
+	public boolean isOverlayVisible()
+	{
+		return overlayVisible;
+	}
+
+	/**
+	 * Draws the overlay along the bottom of the screen if it is visible: a
+	 * bar for each of the last frames split into its stages, a line at 60
+	 * frames per second and the averages as text. The overlay covers its
+	 * whole area and marks it as changed, so it can be drawn over a screen
+	 * that only redraws what it changes.
+	 *
+	 * @param g
+	 *            The graphics content to draw with
+	 */
+	public void drawOverlay(Graphics g)
+	{
+		if (!overlayVisible)
+			return;
+		if (overlaySamples == null)
+			overlaySamples = new int[CAPACITY * FRAME_SIZE];
+		int numFrames = copyFrames(overlaySamples);
+
+		int width = g.getWidth();
+		int top = g.getHeight() - OVERLAY_HEIGHT;
+		g.drawRect(0, top, width, OVERLAY_HEIGHT, 0xFF202020, true);
+
+		// Draw the newest frames from the right
+		int numBars = Math.min(numFrames, width / BAR_WIDTH);
+		for (int bar = 0; bar < numBars; bar++)
+		{
+			int frame = (numFrames - 1 - bar) * FRAME_SIZE;
+			int x = width - (bar + 1) * BAR_WIDTH;
+			int bottom = g.getHeight();
+			for (int stage = 0; stage < NUM_STAGES; stage++)
+			{
+				int height = overlaySamples[frame + stage] * OVERLAY_HEIGHT
+						/ OVERLAY_MICROS;
+				height = Math.min(height, bottom - top);
+				if (height <= 0)
+					continue;
+				g.drawRect(x, bottom - height, BAR_WIDTH - 1, height,
+						STAGE_COLORS[stage], true);
+				bottom -= height;
+			}
+		}
+		g.drawRect(0, top + OVERLAY_HEIGHT / 2, width, 1, Color.WHITE, true);
+
+		// Change the text now and then so that it can be read
+		if (--textCountdown <= 0)
+		{
+			overlayText = summarize(overlaySamples, numFrames);
+			textCountdown = TEXT_FRAMES;
+		}
+		g.drawText(4, top + 18, 16, overlayText);
+		g.invalidate(0, top, width, OVERLAY_HEIGHT);
+	}
+
+	/**
+	 * Averages the given frames into a line of text
+	 *
+	 * @param frames
+	 *            The frames, FRAME_SIZE numbers for each
+	 * @param numFrames
+	 *            The number of frames
+	 * @return the averages as text
+	 */
+	private static String summarize(int[] frames, int numFrames)
+	{
+		if (numFrames == 0)
+			return "";
+		long[] totals = new long[FRAME_SIZE];
+		int longest = 0;
+		for (int frame = 0; frame < numFrames; frame++)
+		{
+			for (int field = 0; field < FRAME_SIZE; field++)
+				totals[field] += frames[frame * FRAME_SIZE + field];
+			longest = Math.max(longest, frames[frame * FRAME_SIZE + FRAME]);
+		}
+		float frameMillis = totals[FRAME] / 1000f / numFrames;
+		return String.format("%.1f fps  worst %.1f  upd %.1f  pres %.1f  "
+				+ "blit %.1f ms  %d calls", frameMillis > 0 ? 1000
+				/ frameMillis : 0, longest / 1000f, totals[UPDATE] / 1000f
+				/ numFrames, totals[PRESENT] / 1000f / numFrames,
+				(totals[LOCK] + totals[BLIT] + totals[UNLOCK]) / 1000f
+						/ numFrames, totals[DRAW_CALLS] / numFrames);
+	}
+
+	/**
+	 * Writes the frames in the ring to the given stream as comma separated
+	 * values, one frame per line with the oldest first, and closes it
+	 *
+	 * @param stream
+	 *            The stream to write to
+	 * @throws IOException
+	 *             If the stream couldn't be written to
+	 */
+	public void write(OutputStream stream) throws IOException
+	{
+		int[] copy = new int[CAPACITY * FRAME_SIZE];
+		int numFrames = copyFrames(copy);
+		Writer writer = new OutputStreamWriter(stream, "UTF-8");
+		try
+		{
+			writer.write(HEADER);
+			writer.write('\n');
+			StringBuilder line = new StringBuilder();
+			for (int frame = 0; frame < numFrames; frame++)
+			{
+				line.setLength(0);
+				line.append(copy[frame * FRAME_SIZE + FRAME]);
+				for (int stage = 0; stage < NUM_STAGES; stage++)
+					line.append(',').append(copy[frame * FRAME_SIZE + stage]);
+				line.append(',').append(copy[frame * FRAME_SIZE + DRAW_CALLS]);
+				line.append('\n');
+				writer.write(line.toString());
+			}
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+}
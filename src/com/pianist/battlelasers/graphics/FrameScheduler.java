@@ -0,0 +1,246 @@
+package com.pianist.battlelasers.graphics;
+
+import android.os.Build;
+
+/**
+ * The FrameScheduler class decides when the game loop starts its next frame.
+ * On devices that have a Choreographer, frames start on the display's vsync,
+ * and otherwise they are timed to the frame cap. No frame starts sooner than
+ * the frame cap allows, and while the screen reports that it is idle the loop
+ * drops to a few frames per second until input wakes it up.
+ *
+ * When updating a frame takes longer than a whole frame, the frame isn't
+ * presented so that the game can catch up, and the vsyncs that were missed are
+ * skipped instead of being made up for.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class FrameScheduler
+{
+	// The frame cap unless another is set
+	public static final int DEFAULT_MAX_FPS = 60;
+
+	// The frame rate while the screen is idle
+	public static final int IDLE_FPS = 4;
+
+	// The most frames in a row that aren't presented because updating ran
+	// long
+	private static final int MAX_SKIPPED_FRAMES = 5;
+
+	private static final long IDLE_FRAME_NANOS = 1000000000L / IDLE_FPS;
+
+	// The shortest time between frames
+	private long frameNanos;
+
+	// When the last frame started
+	private long lastFrameTime;
+
+	// The number of frames in a row that weren't presented
+	private int skippedFrames;
+
+	// Whether to start frames on the vsync when the device can
+	private boolean useVsync;
+
+	// Delivers the vsyncs (null if they aren't used)
+	private volatile VsyncListener vsyncListener;
+
+	// Guards the vsync time and the wake up flag, and is notified when either
+	// changes
+	private final Object lock = new Object();
+
+	// The time of the latest vsync and of the vsync the last frame started on
+	private long lastVsync;
+
+	private long usedVsync;
+
+	// Whether the next wait should end straight away
+	private boolean woken;
+
+	/**
+	 * Creates a new scheduler
+	 *
+	 * @param maxFps
+	 *            The most frames per second
+	 * @param useVsync
+	 *            Whether to start frames on the vsync (not wanted when
+	 *            something else, like swapping OpenGL buffers, already waits
+	 *            for it)
+	 */
+	public FrameScheduler(int maxFps, boolean useVsync)
+	{
+		setMaxFps(maxFps);
+		this.useVsync = useVsync;
+	}
+
+	/**
+	 * Sets the frame cap
+	 *
+	 * @param maxFps
+	 *            The most frames per second
+	 */
+	public void setMaxFps(int maxFps)
+	{
+		frameNanos = 1000000000L / Math.max(maxFps, 1);
+	}
+
+	/**
+	 * Starts listening for vsyncs if they are used. This has to be called
+	 * from a thread with a looper (like the UI thread).
+	 */
+	public void start()
+	{
+		if (useVsync
+				&& Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+		{
+			vsyncListener = new VsyncListener(this);
+			vsyncListener.start();
+		}
+	}
+
+	/**
+	 * Stops listening for vsyncs and ends any wait
+	 */
+	public void stop()
+	{
+		if (vsyncListener != null)
+		{
+			vsyncListener.stop();
+			vsyncListener = null;
+		}
+		wake();
+	}
+
+	/**
+	 * Ends the current (or next) idle wait straight away, so that input is
+	 * handled without waiting for an idle frame. Waits for frames that aren't
+	 * idle are short anyway, so they go on, which keeps input from raising
+	 * the frame rate over the cap.
+	 */
+	public void wake()
+	{
+		synchronized (lock)
+		{
+			woken = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Called by the listener on every vsync
+	 *
+	 * @param frameTimeNanos
+	 *            The time of the vsync
+	 */
+	void vsync(long frameTimeNanos)
+	{
+		synchronized (lock)
+		{
+			lastVsync = frameTimeNanos;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits until the next frame should start
+	 *
+	 * @param idle
+	 *            Whether the screen is idle, so a few frames per second are
+	 *            enough
+	 * @return the time the frame started (in nanoseconds)
+	 */
+	public long waitForFrame(boolean idle)
+	{
+		long interval = idle ? IDLE_FRAME_NANOS : frameNanos;
+		long target = lastFrameTime + interval;
+		boolean onVsync = vsyncListener != null && !idle;
+		synchronized (lock)
+		{
+			long frameTime = 0;
+			boolean started = false;
+			while (!started)
+			{
+				long now = System.nanoTime();
+				started = true;
+				frameTime = now;
+				if (woken && idle)
+					continue;
+				if (onVsync)
+				{
+					// Start on the first new vsync near enough to the target
+					// (vsyncs aren't exactly on time), or give up on the
+					// vsyncs if they stopped coming
+					if (lastVsync != usedVsync
+							&& lastVsync >= target - interval / 4)
+					{
+						usedVsync = lastVsync;
+						frameTime = lastVsync;
+					}
+					else if (now < target + interval)
+					{
+						started = false;
+						waitNanos(target + interval - now);
+					}
+				}
+				else if (now < target)
+				{
+					started = false;
+					waitNanos(target - now);
+				}
+			}
+			woken = false;
+			lastFrameTime = frameTime;
+			return frameTime;
+		}
+	}
+
+	/**
+	 * Waits for an idle frame or until woken, used while there is nothing to
+	 * draw on
+	 */
+	public void waitIdle()
+	{
+		synchronized (lock)
+		{
+			if (!woken)
+				waitNanos(IDLE_FRAME_NANOS);
+			woken = false;
+		}
+	}
+
+	/**
+	 * Decides whether the frame that was just updated should be presented.
+	 * Frames whose update took longer than a frame are skipped (but never too
+	 * many in a row) so that the game catches up.
+	 *
+	 * @param updateNanos
+	 *            How long the update took
+	 * @return whether to present the frame
+	 */
+	public boolean shouldPresent(long updateNanos)
+	{
+		if (updateNanos > frameNanos && skippedFrames < MAX_SKIPPED_FRAMES)
+		{
+			skippedFrames++;
+			return false;
+		}
+		skippedFrames = 0;
+		return true;
+	}
+
+	/**
+	 * Waits on the lock for at most the given time
+	 *
+	 * @param nanos
+	 *            The longest time to wait
+	 */
+	private void waitNanos(long nanos)
+	{
+		try
+		{
+			lock.wait(nanos / 1000000, (int) Math.max(nanos % 1000000, 1));
+		}
+		catch (InterruptedException e)
+		{
+		}
+	}
+}
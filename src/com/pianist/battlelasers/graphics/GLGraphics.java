@@ -0,0 +1,671 @@
+package com.pianist.battlelasers.graphics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.microedition.khronos.opengles.GL10;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Bitmap.Config;
+import android.graphics.Paint.FontMetricsInt;
+import android.opengl.GLUtils;
+
+/**
+ * The GLGraphics class draws all the images of the game straight to the
+ * display with OpenGL ES, so there is no framebuffer to draw in software and
+ * then copy to the screen. The screens draw in the same 480 by 800 coordinates
+ * as with CanvasGraphics, which are scaled to the surface by the projection.
+ * GLRenderView sizes the surface by the render scale, and the display scales
+ * the surface up from there.
+ *
+ * Each pixmap is uploaded to a texture the first time it is drawn. Images are
+ * drawn as quads that are collected into a batch until an image from a
+ * different texture is drawn, so everything drawn from one texture (like an
+ * atlas of images) in a row takes a single draw call. Shapes are drawn with a
+ * plain white texture so that they join the batch too, and text is drawn into
+ * a small image that is kept while the same text is shown.
+ *
+ * All the drawing has to happen on the OpenGL thread, between beginFrame and
+ * endFrame, which GLRenderView calls around updating and presenting the
+ * screen.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class GLGraphics extends Graphics
+{
+	// The most quads drawn in a single call
+	private static final int MAX_QUADS = 512;
+
+	// The number of floats in a vertex: the position, the texture coordinates
+	// and the colour
+	private static final int VERTEX_SIZE = 8;
+
+	// The number of straight sides circles are drawn with
+	private static final int CIRCLE_SEGMENTS = 32;
+
+	// The width of lines and outlines (the same as CanvasGraphics)
+	private static final float STROKE_WIDTH = 3;
+
+	// The most pieces of text that are kept as images
+	private static final int MAX_TEXTS = 16;
+
+	/**
+	 * The Texture class keeps track of the texture a pixmap was uploaded to
+	 */
+	static class Texture
+	{
+		// The name of the texture
+		int id;
+
+		// The context the texture was created in
+		int context;
+
+		// Converts pixel coordinates of the image to texture coordinates (the
+		// texture is rounded up to a power of two in size)
+		float scaleU;
+
+		float scaleV;
+
+		// Whether the image was drawn on since it was uploaded
+		boolean stale;
+	}
+
+	// The size of the coordinates the screens draw in
+	int width;
+
+	int height;
+
+	// The OpenGL interface, and a count of the contexts that were created so
+	// that textures from a lost context are uploaded again
+	GL10 gl;
+
+	int context;
+
+	// The quads of the current batch and the texture they are drawn from
+	float[] vertices;
+
+	int numQuads;
+
+	Texture batchTexture;
+
+	FloatBuffer vertexBuffer;
+
+	ShortBuffer indexBuffer;
+
+	// The pixmaps that have a texture, so that the texture can be deleted
+	// when the pixmap is disposed
+	List<Pixmap> uploaded;
+
+	// A single white pixel that shapes are drawn with
+	Pixmap white;
+
+	// The images of the pieces of text that were drawn recently
+	HashMap<String, Pixmap> texts;
+
+	Paint textPaint;
+
+	FontMetricsInt fontMetrics;
+
+	// The corners of a circle with a radius of one
+	float[] circleX;
+
+	float[] circleY;
+
+	/**
+	 * Creates the graphics content for the activity
+	 *
+	 * @param assets
+	 *            The activities assets
+	 * @param renderScale
+	 *            The render scale of the device
+	 */
+	public GLGraphics(AssetManager assets, RenderScale renderScale)
+	{
+		super(assets, renderScale);
+		this.width = renderScale.getLogicalWidth();
+		this.height = renderScale.getLogicalHeight();
+
+		vertices = new float[MAX_QUADS * 4 * VERTEX_SIZE];
+		vertexBuffer = ByteBuffer.allocateDirect(vertices.length * 4)
+				.order(ByteOrder.nativeOrder()).asFloatBuffer();
+
+		// Every quad is drawn as two triangles
+		short[] indices = new short[MAX_QUADS * 6];
+		for (int quad = 0; quad < MAX_QUADS; quad++)
+		{
+			short first = (short) (quad * 4);
+			indices[quad * 6] = first;
+			indices[quad * 6 + 1] = (short) (first + 1);
+			indices[quad * 6 + 2] = (short) (first + 2);
+			indices[quad * 6 + 3] = (short) (first + 2);
+			indices[quad * 6 + 4] = (short) (first + 3);
+			indices[quad * 6 + 5] = first;
+		}
+		indexBuffer = ByteBuffer.allocateDirect(indices.length * 2)
+				.order(ByteOrder.nativeOrder()).asShortBuffer();
+		indexBuffer.put(indices).flip();
+
+		uploaded = new ArrayList<Pixmap>();
+		Bitmap whiteBitmap = Bitmap.createBitmap(1, 1, Config.ARGB_8888);
+		whiteBitmap.eraseColor(Color.WHITE);
+		white = new Pixmap(whiteBitmap, PixmapFormat.ARGB8888);
+
+		texts = new HashMap<String, Pixmap>();
+		textPaint = new Paint();
+		textPaint.setColor(Color.WHITE);
+		fontMetrics = new FontMetricsInt();
+
+		circleX = new float[CIRCLE_SEGMENTS + 1];
+		circleY = new float[CIRCLE_SEGMENTS + 1];
+		for (int corner = 0; corner <= CIRCLE_SEGMENTS; corner++)
+		{
+			double angle = 2 * Math.PI * corner / CIRCLE_SEGMENTS;
+			circleX[corner] = (float) Math.cos(angle);
+			circleY[corner] = (float) Math.sin(angle);
+		}
+	}
+
+	/**
+	 * Sets up a newly created OpenGL context. Any textures from an earlier
+	 * context are gone, so every pixmap is uploaded again when it is next
+	 * drawn.
+	 *
+	 * @param gl
+	 *            The OpenGL interface of the new context
+	 */
+	void surfaceCreated(GL10 gl)
+	{
+		this.gl = gl;
+		context++;
+		uploaded.clear();
+		numQuads = 0;
+		batchTexture = null;
+
+		gl.glDisable(GL10.GL_DEPTH_TEST);
+		gl.glDisable(GL10.GL_DITHER);
+		gl.glEnable(GL10.GL_TEXTURE_2D);
+
+		// Bitmaps are uploaded with premultiplied alpha
+		gl.glEnable(GL10.GL_BLEND);
+		gl.glBlendFunc(GL10.GL_ONE, GL10.GL_ONE_MINUS_SRC_ALPHA);
+
+		gl.glEnableClientState(GL10.GL_VERTEX_ARRAY);
+		gl.glEnableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
+		gl.glEnableClientState(GL10.GL_COLOR_ARRAY);
+	}
+
+	/**
+	 * Scales the coordinates the screens draw in to the new size of the
+	 * display
+	 *
+	 * @param surfaceWidth
+	 *            The width of the display
+	 * @param surfaceHeight
+	 *            The height of the display
+	 */
+	void surfaceChanged(int surfaceWidth, int surfaceHeight)
+	{
+		gl.glViewport(0, 0, surfaceWidth, surfaceHeight);
+		gl.glMatrixMode(GL10.GL_PROJECTION);
+		gl.glLoadIdentity();
+		gl.glOrthof(0, width, height, 0, 1, -1);
+		gl.glMatrixMode(GL10.GL_MODELVIEW);
+		gl.glLoadIdentity();
+	}
+
+	/**
+	 * Gets ready to draw a frame, deleting the textures of the pixmaps that
+	 * were disposed
+	 */
+	void beginFrame()
+	{
+		for (int index = uploaded.size() - 1; index >= 0; index--)
+		{
+			Pixmap pixmap = uploaded.get(index);
+			if (pixmap.disposed)
+			{
+				gl.glDeleteTextures(1, new int[] { pixmap.texture.id }, 0);
+				pixmap.texture = null;
+				uploaded.remove(index);
+			}
+		}
+	}
+
+	/**
+	 * Draws whatever is left in the batch at the end of a frame
+	 */
+	void endFrame()
+	{
+		flush();
+	}
+
+	/**
+	 * Creates a graphics content that draws onto the given pixmap image. The
+	 * image is drawn on in software and uploaded again the next time it is
+	 * drawn, so it should be finished before then.
+	 *
+	 * @param pixmap
+	 *            The image to draw onto
+	 * @return the graphics content for the image
+	 */
+	@Override
+	public Graphics newGraphics(Pixmap pixmap)
+	{
+		if (pixmap.source.texture != null)
+			pixmap.source.texture.stale = true;
+		return new CanvasGraphics(assets, renderScale, pixmap);
+	}
+
+	@Override
+	public void clear(int color)
+	{
+		numQuads = 0;
+		gl.glClearColor(Color.red(color) / 255f, Color.green(color) / 255f,
+				Color.blue(color) / 255f, 1);
+		gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
+		drawCalls++;
+	}
+
+	@Override
+	public void drawPixel(int x, int y, int color)
+	{
+		fillRect(x, y, x + 1, y + 1, color);
+	}
+
+	@Override
+	public void drawLine(int x, int y, int x2, int y2, int color)
+	{
+		float length = (float) Math.hypot(x2 - x, y2 - y);
+		if (length == 0)
+			return;
+
+		// Widen the line on both sides
+		float offsetX = (y - y2) / length * STROKE_WIDTH / 2;
+		float offsetY = (x2 - x) / length * STROKE_WIDTH / 2;
+		addShape(x + offsetX, y + offsetY, x2 + offsetX, y2 + offsetY, x2
+				- offsetX, y2 - offsetY, x - offsetX, y - offsetY, color);
+	}
+
+	@Override
+	public void drawRect(int x, int y, int width, int height, int color,
+			boolean filled)
+	{
+		float right = x + width - 1;
+		float bottom = y + height - 1;
+		if (filled)
+		{
+			fillRect(x, y, right, bottom, color);
+			return;
+		}
+
+		// Draw each side as a line centred on the edge
+		float half = STROKE_WIDTH / 2;
+		fillRect(x - half, y - half, right + half, y + half, color);
+		fillRect(x - half, bottom - half, right + half, bottom + half, color);
+		fillRect(x - half, y + half, x + half, bottom - half, color);
+		fillRect(right - half, y + half, right + half, bottom - half, color);
+	}
+
+	@Override
+	protected void drawImage(Pixmap pixmap, int x, int y, int srcX, int srcY,
+			int srcWidth, int srcHeight)
+	{
+		// Images from an atlas are drawn from the texture of the whole atlas,
+		// and the source is scaled to pixels of the bitmap
+		Texture texture = bind(pixmap.source);
+		float scaleU = pixmap.scale * texture.scaleU;
+		float scaleV = pixmap.scale * texture.scaleV;
+		float u = pixmap.left * texture.scaleU + srcX * scaleU;
+		float v = pixmap.top * texture.scaleV + srcY * scaleV;
+		float u2 = u + srcWidth * scaleU;
+		float v2 = v + srcHeight * scaleV;
+		addQuad(x, y, x + srcWidth, y, x + srcWidth, y + srcHeight, x, y
+				+ srcHeight, u, v, u2, v2, 1, 1, 1, 1);
+	}
+
+	@Override
+	protected void drawImage(Pixmap pixmap, int x, int y)
+	{
+		drawImage(pixmap, x, y, 0, 0, pixmap.getWidth(), pixmap.getHeight());
+	}
+
+	@Override
+	protected void drawImage(Pixmap pixmap, int x, int y, int width,
+			int height, float alpha)
+	{
+		// The textures are premultiplied, so fading scales every channel
+		Texture texture = bind(pixmap.source);
+		float u = pixmap.left * texture.scaleU;
+		float v = pixmap.top * texture.scaleV;
+		float u2 = u + pixmap.width * pixmap.scale * texture.scaleU;
+		float v2 = v + pixmap.height * pixmap.scale * texture.scaleV;
+		addQuad(x, y, x + width, y, x + width, y + height, x, y + height, u,
+				v, u2, v2, alpha, alpha, alpha, alpha);
+	}
+
+	@Override
+	public void drawCircle(int x, int y, int radius, int color, boolean filled)
+	{
+		for (int corner = 0; corner < CIRCLE_SEGMENTS; corner++)
+		{
+			float cos = circleX[corner];
+			float sin = circleY[corner];
+			float nextCos = circleX[corner + 1];
+			float nextSin = circleY[corner + 1];
+			if (filled)
+			{
+				// A triangle from the centre (the last corner repeats the
+				// centre)
+				addShape(x, y, x + cos * radius, y + sin * radius, x + nextCos
+						* radius, y + nextSin * radius, x, y, color);
+			}
+			else
+			{
+				float inner = radius - STROKE_WIDTH / 2;
+				float outer = radius + STROKE_WIDTH / 2;
+				addShape(x + cos * inner, y + sin * inner, x + cos * outer, y
+						+ sin * outer, x + nextCos * outer, y + nextSin * outer,
+						x + nextCos * inner, y + nextSin * inner, color);
+			}
+		}
+	}
+
+	@Override
+	public void drawText(int x, int y, float size, String text)
+	{
+		textPaint.setTextSize(size);
+		textPaint.getFontMetricsInt(fontMetrics);
+
+		String key = size + " " + text;
+		Pixmap image = texts.get(key);
+		if (image == null)
+		{
+			// Forget the older text once too much is kept (the textures are
+			// deleted at the start of the next frame)
+			if (texts.size() == MAX_TEXTS)
+			{
+				for (Pixmap old : texts.values())
+					old.dispose();
+				texts.clear();
+			}
+
+			int textWidth = (int) Math.ceil(textPaint.measureText(text)) + 1;
+			int textHeight = fontMetrics.bottom - fontMetrics.top;
+			Bitmap bitmap = Bitmap.createBitmap(Math.max(textWidth, 1), Math
+					.max(textHeight, 1), Config.ARGB_8888);
+			new Canvas(bitmap).drawText(text, 0, -fontMetrics.top, textPaint);
+			image = new Pixmap(bitmap, PixmapFormat.ARGB8888);
+			texts.put(key, image);
+		}
+
+		// The text is drawn with its baseline at y
+		drawImage(image, x, y + fontMetrics.top);
+	}
+
+	@Override
+	public int getWidth()
+	{
+		return width;
+	}
+
+	@Override
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Returns the texture of the given pixmap, uploading the image first if
+	 * it has no texture in the current context or was drawn on. The batch is
+	 * drawn first if it is from a different texture.
+	 *
+	 * @param pixmap
+	 *            The pixmap to draw
+	 * @return the texture of the pixmap
+	 */
+	private Texture bind(Pixmap pixmap)
+	{
+		Texture texture = pixmap.texture;
+		if (texture == null || texture.context != context || texture.stale)
+			texture = upload(pixmap);
+		if (texture != batchTexture)
+		{
+			flush();
+			batchTexture = texture;
+		}
+		return texture;
+	}
+
+	/**
+	 * Uploads the image of the given pixmap to its texture, creating the
+	 * texture if it has none in the current context
+	 *
+	 * @param pixmap
+	 *            The pixmap to upload
+	 * @return the texture of the pixmap
+	 */
+	private Texture upload(Pixmap pixmap)
+	{
+		// Uploading binds the texture, and the batch could be from the old
+		// image, so the batch has to be drawn first
+		flush();
+		Bitmap bitmap = pixmap.bitmap;
+		Texture texture = pixmap.texture;
+		if (texture == null || texture.context != context)
+		{
+			texture = new Texture();
+			int[] ids = new int[1];
+			gl.glGenTextures(1, ids, 0);
+			texture.id = ids[0];
+			texture.context = context;
+			pixmap.texture = texture;
+			uploaded.add(pixmap);
+
+			// Older devices can only use textures with sides that are a
+			// power of two, so the image goes in the corner of one
+			int textureWidth = Integer.highestOneBit(bitmap.getWidth() * 2 - 1);
+			int textureHeight = Integer
+					.highestOneBit(bitmap.getHeight() * 2 - 1);
+			texture.scaleU = 1f / textureWidth;
+			texture.scaleV = 1f / textureHeight;
+
+			gl.glBindTexture(GL10.GL_TEXTURE_2D, texture.id);
+			gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER,
+					GL10.GL_NEAREST);
+			gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MAG_FILTER,
+					GL10.GL_NEAREST);
+			gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_S,
+					GL10.GL_CLAMP_TO_EDGE);
+			gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_T,
+					GL10.GL_CLAMP_TO_EDGE);
+			int format = GLUtils.getInternalFormat(bitmap);
+			gl.glTexImage2D(GL10.GL_TEXTURE_2D, 0, format, textureWidth,
+					textureHeight, 0, format, GLUtils.getType(bitmap), null);
+		}
+		else
+			gl.glBindTexture(GL10.GL_TEXTURE_2D, texture.id);
+		GLUtils.texSubImage2D(GL10.GL_TEXTURE_2D, 0, 0, 0, bitmap);
+		texture.stale = false;
+		return texture;
+	}
+
+	/**
+	 * Adds a filled rectangle to the batch
+	 *
+	 * @param left
+	 *            The left edge of the rectangle
+	 * @param top
+	 *            The top edge of the rectangle
+	 * @param right
+	 *            The right edge of the rectangle
+	 * @param bottom
+	 *            The bottom edge of the rectangle
+	 * @param color
+	 *            The colour of the rectangle
+	 */
+	private void fillRect(float left, float top, float right, float bottom,
+			int color)
+	{
+		addShape(left, top, right, top, right, bottom, left, bottom, color);
+	}
+
+	/**
+	 * Adds a shape with four corners in the given colour to the batch
+	 *
+	 * @param x1
+	 *            The x coordinate of the first corner
+	 * @param y1
+	 *            The y coordinate of the first corner
+	 * @param x2
+	 *            The x coordinate of the second corner
+	 * @param y2
+	 *            The y coordinate of the second corner
+	 * @param x3
+	 *            The x coordinate of the third corner
+	 * @param y3
+	 *            The y coordinate of the third corner
+	 * @param x4
+	 *            The x coordinate of the fourth corner
+	 * @param y4
+	 *            The y coordinate of the fourth corner
+	 * @param color
+	 *            The colour of the shape
+	 */
+	private void addShape(float x1, float y1, float x2, float y2, float x3,
+			float y3, float x4, float y4, int color)
+	{
+		// The texture is white, so the colour is drawn as it is (with the
+		// alpha premultiplied like the textures)
+		bind(white);
+		float alpha = Color.alpha(color) / 255f;
+		float red = Color.red(color) / 255f * alpha;
+		float green = Color.green(color) / 255f * alpha;
+		float blue = Color.blue(color) / 255f * alpha;
+		addQuad(x1, y1, x2, y2, x3, y3, x4, y4, 0, 0, 1, 1, red, green, blue,
+				alpha);
+	}
+
+	/**
+	 * Adds a quad from the last bound texture to the batch, drawing the batch
+	 * first if it is full
+	 *
+	 * @param x1
+	 *            The x coordinate of the top left corner
+	 * @param y1
+	 *            The y coordinate of the top left corner
+	 * @param x2
+	 *            The x coordinate of the top right corner
+	 * @param y2
+	 *            The y coordinate of the top right corner
+	 * @param x3
+	 *            The x coordinate of the bottom right corner
+	 * @param y3
+	 *            The y coordinate of the bottom right corner
+	 * @param x4
+	 *            The x coordinate of the bottom left corner
+	 * @param y4
+	 *            The y coordinate of the bottom left corner
+	 * @param u
+	 *            The left texture coordinate
+	 * @param v
+	 *            The top texture coordinate
+	 * @param u2
+	 *            The right texture coordinate
+	 * @param v2
+	 *            The bottom texture coordinate
+	 * @param red
+	 *            The red the texture is multiplied by
+	 * @param green
+	 *            The green the texture is multiplied by
+	 * @param blue
+	 *            The blue the texture is multiplied by
+	 * @param alpha
+	 *            The alpha the texture is multiplied by
+	 */
+	private void addQuad(float x1, float y1, float x2, float y2, float x3,
+			float y3, float x4, float y4, float u, float v, float u2, float v2,
+			float red, float green, float blue, float alpha)
+	{
+		if (numQuads == MAX_QUADS)
+			flush();
+
+		int index = numQuads * 4 * VERTEX_SIZE;
+		index = addVertex(index, x1, y1, u, v, red, green, blue, alpha);
+		index = addVertex(index, x2, y2, u2, v, red, green, blue, alpha);
+		index = addVertex(index, x3, y3, u2, v2, red, green, blue, alpha);
+		addVertex(index, x4, y4, u, v2, red, green, blue, alpha);
+		numQuads++;
+	}
+
+	/**
+	 * Stores a vertex in the batch
+	 *
+	 * @param index
+	 *            The index of the vertex in the batch
+	 * @param x
+	 *            The x coordinate of the vertex
+	 * @param y
+	 *            The y coordinate of the vertex
+	 * @param u
+	 *            The horizontal texture coordinate
+	 * @param v
+	 *            The vertical texture coordinate
+	 * @param red
+	 *            The red the texture is multiplied by
+	 * @param green
+	 *            The green the texture is multiplied by
+	 * @param blue
+	 *            The blue the texture is multiplied by
+	 * @param alpha
+	 *            The alpha the texture is multiplied by
+	 * @return the index after the vertex
+	 */
+	private int addVertex(int index, float x, float y, float u, float v,
+			float red, float green, float blue, float alpha)
+	{
+		vertices[index++] = x;
+		vertices[index++] = y;
+		vertices[index++] = u;
+		vertices[index++] = v;
+		vertices[index++] = red;
+		vertices[index++] = green;
+		vertices[index++] = blue;
+		vertices[index++] = alpha;
+		return index;
+	}
+
+	/**
+	 * Draws the quads in the batch with a single call
+	 */
+	private void flush()
+	{
+		if (numQuads == 0)
+			return;
+
+		gl.glBindTexture(GL10.GL_TEXTURE_2D, batchTexture.id);
+		vertexBuffer.clear();
+		vertexBuffer.put(vertices, 0, numQuads * 4 * VERTEX_SIZE);
+
+		int stride = VERTEX_SIZE * 4;
+		vertexBuffer.position(0);
+		gl.glVertexPointer(2, GL10.GL_FLOAT, stride, vertexBuffer);
+		vertexBuffer.position(2);
+		gl.glTexCoordPointer(2, GL10.GL_FLOAT, stride, vertexBuffer);
+		vertexBuffer.position(4);
+		gl.glColorPointer(4, GL10.GL_FLOAT, stride, vertexBuffer);
+
+		gl.glDrawElements(GL10.GL_TRIANGLES, numQuads * 6,
+				GL10.GL_UNSIGNED_SHORT, indexBuffer);
+		drawCalls++;
+		numQuads = 0;
+	}
+}
@@ -0,0 +1,170 @@
+package com.pianist.battlelasers.graphics;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+import com.pianist.battlelasers.activities.BattleLaserActivity;
+import com.pianist.battlelasers.screens.Screen;
+
+import android.graphics.Bitmap.Config;
+import android.opengl.GLSurfaceView;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+
+/**
+ * The GLRenderView class runs the game loop on the OpenGL thread. Every frame
+ * it updates the current screen and has it present itself through GLGraphics,
+ * which draws straight to the display. The whole frame is drawn every time, so
+ * the dirty regions of the screens aren't needed. Swapping the buffers already
+ * waits for the display's vsync, so the FrameScheduler only applies the frame
+ * cap and the idle frame rate, and every frame is presented.
+ *
+ * The surface is made the size and colour depth the render scale picked, and
+ * the display scales it up to the size of the view.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class GLRenderView extends GLSurfaceView implements RenderView,
+		GLSurfaceView.Renderer
+{
+	BattleLaserActivity game;
+
+	GLGraphics graphics;
+
+	FrameScheduler scheduler;
+
+	FixedTimestep timestep;
+
+	FrameProfiler profiler;
+
+	// When the last frame started
+	long startTime;
+
+	/**
+	 * Creates a new GLRenderView that draws the game with the given graphics
+	 *
+	 * @param graphics
+	 *            The graphics the screens draw with
+	 * @param game
+	 *            The game that this view is being created for
+	 */
+	public GLRenderView(GLGraphics graphics, BattleLaserActivity game)
+	{
+		super(game);
+		this.game = game;
+		this.graphics = graphics;
+		this.scheduler = new FrameScheduler(FrameScheduler.DEFAULT_MAX_FPS,
+				false);
+		this.timestep = new FixedTimestep();
+		this.profiler = new FrameProfiler();
+
+		// Draw with as many pixels as the render scale picked
+		RenderScale renderScale = graphics.getRenderScale();
+		if (renderScale.getConfig() == Config.RGB_565)
+			setEGLConfigChooser(5, 6, 5, 0, 0, 0);
+		getHolder().setFixedSize(renderScale.getBufferWidth(),
+				renderScale.getBufferHeight());
+
+		// Keep the textures while the game is paused if the device can
+		setPreserveEGLContextOnPause(true);
+		setRenderer(this);
+	}
+
+	/**
+	 * Resumes the running of the game loop
+	 */
+	public void resume()
+	{
+		startTime = System.nanoTime();
+		timestep.reset();
+		scheduler.start();
+		onResume();
+	}
+
+	/**
+	 * Pauses the game loop
+	 */
+	public void pause()
+	{
+		scheduler.stop();
+		onPause();
+	}
+
+	/**
+	 * Returns the scheduler that decides when frames start
+	 *
+	 * @return the frame scheduler
+	 */
+	public FrameScheduler getScheduler()
+	{
+		return scheduler;
+	}
+
+	/**
+	 * Returns the profiler that records the time each frame takes
+	 *
+	 * @return the frame profiler
+	 */
+	public FrameProfiler getProfiler()
+	{
+		return profiler;
+	}
+
+	/**
+	 * Wakes the game loop up for every touch, so that an idle screen responds
+	 * straight away
+	 */
+	@Override
+	public boolean dispatchTouchEvent(MotionEvent event)
+	{
+		scheduler.wake();
+		return super.dispatchTouchEvent(event);
+	}
+
+	/**
+	 * Wakes the game loop up for every key
+	 */
+	@Override
+	public boolean dispatchKeyEvent(KeyEvent event)
+	{
+		scheduler.wake();
+		return super.dispatchKeyEvent(event);
+	}
+
+	public void onSurfaceCreated(GL10 gl, EGLConfig config)
+	{
+		graphics.surfaceCreated(gl);
+	}
+
+	public void onSurfaceChanged(GL10 gl, int width, int height)
+	{
+		graphics.surfaceChanged(width, height);
+	}
+
+	/**
+	 * Updates the current screen in fixed steps for the time since the last
+	 * frame and draws it
+	 */
+	public void onDrawFrame(GL10 gl)
+	{
+		long frameTime = scheduler.waitForFrame(game.getCurrentScreen()
+				.isIdle());
+		float deltaTime = (frameTime - startTime) / 1000000000.0f;
+		startTime = frameTime;
+		profiler.beginFrame(frameTime);
+
+		long updateStart = System.nanoTime();
+		graphics.beginFrame();
+		float sinceUpdate = timestep.advance(game, deltaTime);
+		Screen screen = game.getCurrentScreen();
+		long presentStart = profiler.record(FrameProfiler.UPDATE,
+				updateStart);
+		screen.present(sinceUpdate);
+		profiler.drawOverlay(graphics);
+		long flushStart = profiler.record(FrameProfiler.PRESENT,
+				presentStart);
+		graphics.endFrame();
+		profiler.record(FrameProfiler.BLIT, flushStart);
+		profiler.endFrame(graphics.takeDrawCalls());
+	}
+}
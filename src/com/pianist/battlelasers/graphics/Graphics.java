@@ -3,37 +3,87 @@ package com.pianist.battlelasers.graphics;
 import java.io.IOException;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import com.pianist.battlelasers.FileIO;
 
 import android.content.res.AssetManager;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.Bitmap.Config;
 import android.graphics.BitmapFactory.Options;
-import android.graphics.Paint.Style;
+import android.os.Build;
 
 /**
  * The Graphics class is the graphics content that draws all the images of the
- * game
- * 
+ * game. The screens only ever draw through this class, so the way the images
+ * reach the display is up to the subclass: CanvasGraphics draws into a
+ * framebuffer bitmap in software and GLGraphics draws straight to the display
+ * with OpenGL ES. The screens draw in the same logical coordinates on every
+ * device, and the RenderScale decides how many pixels those cover and which
+ * set of images is loaded.
+ *
  * @author Peter Gokhshteyn and "Apress Beginning Android Games"
  */
-public class Graphics
+public abstract class Graphics
 {
 	AssetManager assets;
 
-	Bitmap frameBuffer;
+	// How many pixels the screens are drawn with and which images are loaded
+	RenderScale renderScale;
+
+	// The region of the frame buffer that changed since it was last drawn to
+	// the screen
+	Rect dirtyRect = new Rect();
+
+	// The sheets the small images were packed into, and the sheets that were
+	// loaded so far (both stay empty if there is no atlas)
+	TextureAtlas atlas = new TextureAtlas();
+
+	Pixmap[] atlasSheets = new Pixmap[0];
+
+	// The directory the atlas was loaded from and the scale of its sheets
+	String atlasDirectory = "";
+
+	float atlasScale = 1;
+
+	// The images that were decoded ahead of time, and the ones of the
+	// directory of the render scale (both null if there is no bundle or it
+	// was released). The loader threads read them too.
+	volatile AssetBundle bundle;
+
+	volatile AssetBundle scaledBundle;
+
+	// The images queued between beginBatch and endBatch
+	SpriteBatch batch = new SpriteBatch();
 
-	Canvas canvas;
+	boolean batching;
 
-	Paint paint;
+	// The number of draw calls made since they were last taken
+	int drawCalls;
 
-	Rect srcRect = new Rect();
+	// Decodes the images the screens are about to need in the background
+	AssetLoader loader;
 
-	Rect dstRect = new Rect();
+	// The images loaded from files, shared by the screens that use them
+	AssetCache cache;
+
+	// Whether bitmaps can be ARGB4444 on this device (from Android 4.4 on,
+	// decoding or creating one quietly makes an ARGB8888 bitmap instead)
+	boolean hasArgb4444;
+
+	// The version of Android that stopped making ARGB4444 bitmaps
+	private static final int KITKAT = 19;
+
+	// The share of the memory the app may use that unused images can take
+	private static final int UNUSED_MEMORY_SHARE = 8;
+
+	// The most pixels an image with alpha can have to count as a small
+	// sprite, which is decoded with four bits a channel where it can be
+	private static final int SMALL_SPRITE_PIXELS = 128 * 128;
 
 	public static enum PixmapFormat {
 		ARGB8888, ARGB4444, RGB565
@@ -41,98 +91,539 @@ public class Graphics
 
 	/**
 	 * Creates the graphics content for the activity according to the given
-	 * assets and framebuffer
-	 * 
+	 * assets
+	 *
 	 * @param assets
 	 *            The activities assets
-	 * @param frameBuffer
-	 *            the frame set for the activity
+	 * @param renderScale
+	 *            The render scale of the device
 	 */
-	public Graphics(AssetManager assets, Bitmap frameBuffer)
+	protected Graphics(AssetManager assets, RenderScale renderScale)
 	{
 		this.assets = assets;
-		this.frameBuffer = frameBuffer;
-		this.canvas = new Canvas(frameBuffer);
-		this.paint = new Paint();
+		this.renderScale = renderScale;
+		this.loader = new AssetLoader(this);
+		this.cache = new AssetCache((int) Math.min(Integer.MAX_VALUE, Runtime
+				.getRuntime().maxMemory() / UNUSED_MEMORY_SHARE));
+		this.hasArgb4444 = Build.VERSION.SDK_INT < KITKAT;
+	}
+
+	/**
+	 * Returns the loader that decodes images in the background
+	 *
+	 * @return the asset loader
+	 */
+	public AssetLoader getLoader()
+	{
+		return loader;
+	}
+
+	/**
+	 * Returns the render scale the graphics were created with
+	 *
+	 * @return the render scale
+	 */
+	public RenderScale getRenderScale()
+	{
+		return renderScale;
+	}
+
+	/**
+	 * Loads the index of the texture atlas, so that the images in it are
+	 * taken from its sheets from then on. The sheets themselves are only
+	 * loaded when an image on them is first needed. The atlas of the scaled
+	 * images is used if the render scale has one.
+	 *
+	 * @param fileName
+	 *            The name of the index asset
+	 * @throws IOException
+	 *             If the index couldn't be read, in which case every image
+	 *             is still loaded from its own file
+	 */
+	public synchronized void loadAtlas(String fileName) throws IOException
+	{
+		String directory = renderScale.getAssetDirectory();
+		if (directory != null)
+		{
+			try
+			{
+				atlas = TextureAtlas.read(assets.open(directory + fileName));
+				atlasSheets = new Pixmap[atlas.getNumSheets()];
+				atlasDirectory = directory;
+				atlasScale = renderScale.getAssetScale();
+				return;
+			}
+			catch (IOException e)
+			{
+				// Use the atlas of the normal images
+			}
+		}
+		atlas = TextureAtlas.read(assets.open(fileName));
+		atlasSheets = new Pixmap[atlas.getNumSheets()];
+		atlasDirectory = "";
+		atlasScale = 1;
 	}
 
 	/**
-	 * Creates a pixmap image for the given files and format
-	 * 
+	 * Loads the bundle of images that were decoded ahead of time, so that
+	 * the images in it are copied out of it from then on instead of being
+	 * decoded from their files. The bundle of the scaled images is loaded
+	 * too if the render scale has one.
+	 *
+	 * @param fileIO
+	 *            The file reader the bundles are read with
+	 * @param fileName
+	 *            The name of the bundle asset
+	 * @throws IOException
+	 *             If the bundle couldn't be read, in which case every image
+	 *             is decoded from its file
+	 */
+	public synchronized void loadBundle(FileIO fileIO, String fileName)
+			throws IOException
+	{
+		String directory = renderScale.getAssetDirectory();
+		if (directory != null)
+		{
+			try
+			{
+				scaledBundle = AssetBundle.read(fileIO
+						.readAssetBuffer(directory + fileName));
+			}
+			catch (IOException e)
+			{
+				// The scaled images are decoded from their files
+			}
+		}
+		bundle = AssetBundle.read(fileIO.readAssetBuffer(fileName));
+	}
+
+	/**
+	 * Releases the bundles once the images in them have been loaded. When the
+	 * package compresses a bundle it is held on the heap rather than memory
+	 * mapped, so it shouldn't be kept for the life of the game. Images loaded
+	 * after this are decoded from their files.
+	 */
+	public synchronized void releaseBundles()
+	{
+		bundle = null;
+		scaledBundle = null;
+	}
+
+	/**
+	 * Returns the cache of the images loaded from files
+	 *
+	 * @return the asset cache
+	 */
+	public AssetCache getCache()
+	{
+		return cache;
+	}
+
+	/**
+	 * Returns the image of the given file in the given format, taking a
+	 * reference to it that dispose gives back. The image is shared with the
+	 * other screens that use it if it is in the cache (where the asset loader
+	 * puts the images it decodes), and decoded straight away otherwise.
+	 *
 	 * @param fileName
 	 *            The name of the image being created
 	 * @param format
 	 *            The format of the image being created
-	 * @return the pixmap image that was created
+	 * @return the pixmap image
 	 */
 	public Pixmap newPixmap(String fileName, PixmapFormat format)
 	{
-		Config config = null;
+		Pixmap pixmap = cache.acquire(fileName);
+		if (pixmap != null)
+			return pixmap;
+
+		// The loader might be decoding the image, or have just finished it
+		loader.take(fileName);
+		pixmap = cache.acquire(fileName);
+		if (pixmap != null)
+			return pixmap;
+		pixmap = loadPixmap(fileName, format);
+		cache.add(fileName, pixmap);
+		return pixmap;
+	}
+
+	/**
+	 * Loads the pixmap image for the given file and format, on any thread.
+	 * Images that were packed into the texture atlas are a region of their
+	 * sheet, and the rest are loaded from their own file (the scaled one if
+	 * the render scale has one).
+	 *
+	 * @param fileName
+	 *            The name of the image being loaded
+	 * @param format
+	 *            The format of the image being loaded
+	 * @return the pixmap image that was loaded
+	 */
+	Pixmap loadPixmap(String fileName, PixmapFormat format)
+	{
+		TextureAtlas.Region region = atlas.getRegion(fileName);
+		if (region != null)
+			return new Pixmap(getAtlasSheet(region.sheet), region.left,
+					region.top, region.logicalWidth, region.logicalHeight,
+					true);
+		String directory = renderScale.getAssetDirectory();
+		if (directory != null)
+		{
+			try
+			{
+				return decodePixmap(directory + fileName, format,
+						renderScale.getAssetScale());
+			}
+			catch (IOException e)
+			{
+				// Not every image has a scaled version
+			}
+		}
+		try
+		{
+			return decodePixmap(fileName, format, 1);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Couldn't load bitmap from asset '"
+					+ fileName + "'");
+		}
+	}
+
+	/**
+	 * Returns the given sheet of the texture atlas, loading it the first time
+	 *
+	 * @param sheet
+	 *            The index of the sheet
+	 * @return the image of the sheet
+	 */
+	private synchronized Pixmap getAtlasSheet(int sheet)
+	{
+		if (atlasSheets[sheet] == null)
+		{
+			String fileName = atlasDirectory + atlas.getSheet(sheet);
+			try
+			{
+				// Only small sprites are packed, and the screens ask for all
+				// of them in the compact format
+				atlasSheets[sheet] = decodePixmap(fileName,
+						PixmapFormat.ARGB4444, atlasScale);
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException("Couldn't load bitmap from asset '"
+						+ fileName + "'");
+			}
+		}
+		return atlasSheets[sheet];
+	}
 
-		// Handles the different formats
+	/**
+	 * Picks the format an image is decoded in from the format that was asked
+	 * for and what the header of its file says. An image that was asked for
+	 * with eight bits a channel always gets them. Otherwise an image without
+	 * alpha is decoded as RGB565 (which keeps more of its colour than ARGB4444
+	 * in the same memory), and a small sprite with alpha as ARGB4444. A large
+	 * image with alpha keeps the format asked for, except that RGB565 can't
+	 * hold its alpha, so it gets the full eight bits rather than the banding
+	 * of ARGB4444 that it didn't ask for. On a device that can't make ARGB4444
+	 * bitmaps, every image with alpha gets eight bits a channel, which is
+	 * what it would end up with anyway.
+	 *
+	 * @param format
+	 *            The format that was asked for
+	 * @param width
+	 *            The width of the image in pixels
+	 * @param height
+	 *            The height of the image in pixels
+	 * @param hasAlpha
+	 *            Whether the file of the image has alpha
+	 * @param hasArgb4444
+	 *            Whether the device can make ARGB4444 bitmaps
+	 * @return the format to decode the image in
+	 */
+	public static PixmapFormat choosePixmapFormat(PixmapFormat format,
+			int width, int height, boolean hasAlpha, boolean hasArgb4444)
+	{
+		if (format == PixmapFormat.ARGB8888)
+			return format;
+		if (!hasAlpha)
+			return PixmapFormat.RGB565;
+		if (!hasArgb4444)
+			return PixmapFormat.ARGB8888;
+		if ((long) width * height <= SMALL_SPRITE_PIXELS)
+			return PixmapFormat.ARGB4444;
 		if (format == PixmapFormat.RGB565)
-			config = Config.RGB_565;
-		else if (format == PixmapFormat.ARGB4444)
-			config = Config.ARGB_4444;
-		else
-			config = Config.ARGB_8888;
+			return PixmapFormat.ARGB8888;
+		return format;
+	}
+
+	/**
+	 * Decodes the image in the given file in the format the policy picks for
+	 * it, into the bitmap of an image the cache let go of if one is the same
+	 * size and format. The pixels are copied out of the bundle instead if it
+	 * has the image in that format.
+	 *
+	 * @param fileName
+	 *            The name of the image being created
+	 * @param format
+	 *            The format that was asked for
+	 * @param scale
+	 *            The scale the image was made for
+	 * @return the pixmap image that was created
+	 * @throws IOException
+	 *             If the file couldn't be opened
+	 */
+	private Pixmap decodePixmap(String fileName, PixmapFormat format,
+			float scale) throws IOException
+	{
+		Pixmap bundled = copyBundled(fileName, format, scale);
+		if (bundled != null)
+			return bundled;
+
+		PngInfo info = PngInfo.read(assets.open(fileName));
+		if (info != null)
+			format = choosePixmapFormat(format, info.width, info.height,
+					info.hasAlpha, hasArgb4444);
+		Config config = getConfig(format);
 
+		// Decoding into an existing bitmap needs every decoded bitmap to be
+		// mutable, so that it can be reused in turn
 		Options options = new Options();
 		options.inPreferredConfig = config;
+		options.inMutable = true;
+		if (info != null)
+			options.inBitmap = cache.takeReusable(info.width, info.height,
+					config);
 
-		InputStream in = null;
 		Bitmap bitmap = null;
 		try
 		{
-			in = assets.open(fileName);
-			bitmap = BitmapFactory.decodeStream(in);
-			if (bitmap == null)
-				throw new RuntimeException("Couldn't load bitmap from asset '"
-						+ fileName + "'");
+			bitmap = decodeAsset(fileName, options);
 		}
-		catch (IOException e)
+		catch (IllegalArgumentException e)
 		{
+			// The bitmap couldn't be reused after all
+			if (options.inBitmap == null)
+				throw e;
+			options.inBitmap.recycle();
+			options.inBitmap = null;
+			bitmap = decodeAsset(fileName, options);
+		}
+		if (bitmap == null)
 			throw new RuntimeException("Couldn't load bitmap from asset '"
 					+ fileName + "'");
+		return new Pixmap(bitmap, getFormat(bitmap.getConfig()), scale);
+
+	}
+
+	/**
+	 * Copies the pixels of the image in the given file out of the bundle of
+	 * its directory into a bitmap. The bundle holds the images in the formats
+	 * a device with ARGB4444 bitmaps picks for them, so on a device without
+	 * them the ARGB4444 pixels are expanded to ARGB8888 while they are copied,
+	 * which still costs far less than inflating the file.
+	 *
+	 * @param fileName
+	 *            The name of the image
+	 * @param format
+	 *            The format that was asked for
+	 * @param scale
+	 *            The scale the image was made for
+	 * @return the image, or null if it has to be decoded from its file
+	 */
+	private Pixmap copyBundled(String fileName, PixmapFormat format,
+			float scale)
+	{
+		String directory = renderScale.getAssetDirectory();
+		AssetBundle.Entry entry = null;
+		AssetBundle source = null;
+		if (directory != null && fileName.startsWith(directory))
+		{
+			source = scaledBundle;
+			fileName = fileName.substring(directory.length());
+		}
+		else
+			source = bundle;
+		if (source != null)
+			entry = source.getEntry(fileName);
+		if (entry == null
+				|| choosePixmapFormat(format, entry.width, entry.height,
+						entry.hasAlpha, true) != entry.format)
+			return null;
+
+		ByteBuffer pixels;
+		try
+		{
+			pixels = source.getPixels(entry);
+		}
+		catch (IOException e)
+		{
+			// Fall back on the file
+			return null;
+		}
+		PixmapFormat bitmapFormat = entry.format;
+		if (bitmapFormat == PixmapFormat.ARGB4444 && !hasArgb4444)
+		{
+			bitmapFormat = PixmapFormat.ARGB8888;
+			pixels = expandArgb4444(pixels);
+		}
+
+		// The pixels can only be copied into a bitmap that really has the
+		// format and size they were stored for (copying into anything else
+		// throws), so fall back on the file if Android made a different one
+		Config config = getConfig(bitmapFormat);
+		Bitmap bitmap = cache.takeReusable(entry.width, entry.height, config);
+		if (bitmap == null)
+			bitmap = Bitmap.createBitmap(entry.width, entry.height, config);
+		if (bitmap.getConfig() != config
+				|| bitmap.getRowBytes() * bitmap.getHeight() != pixels
+						.remaining())
+		{
+			bitmap.recycle();
+			return null;
+		}
+		bitmap.copyPixelsFromBuffer(pixels);
+		return new Pixmap(bitmap, bitmapFormat, scale);
+	}
+
+	/**
+	 * Expands ARGB4444 pixels (little endian shorts with red in the top bits)
+	 * to the premultiplied RGBA bytes of ARGB8888. Every channel was already
+	 * premultiplied before it was cut to four bits, so it stays no brighter
+	 * than its alpha.
+	 *
+	 * @param pixels
+	 *            The ARGB4444 pixels between the position and the limit
+	 * @return a buffer with the ARGB8888 pixels
+	 */
+	private static ByteBuffer expandArgb4444(ByteBuffer pixels)
+	{
+		ShortBuffer shorts = pixels.order(ByteOrder.LITTLE_ENDIAN)
+				.asShortBuffer();
+		byte[] expanded = new byte[shorts.remaining() * 4];
+		for (int offset = 0; offset < expanded.length; offset += 4)
+		{
+			int pixel = shorts.get();
+			expanded[offset] = (byte) ((pixel >> 12 & 15) * 17);
+			expanded[offset + 1] = (byte) ((pixel >> 8 & 15) * 17);
+			expanded[offset + 2] = (byte) ((pixel >> 4 & 15) * 17);
+			expanded[offset + 3] = (byte) ((pixel & 15) * 17);
+		}
+		return ByteBuffer.wrap(expanded);
+	}
+
+	/**
+	 * Returns the bitmap configuration of the given format
+	 *
+	 * @param format
+	 *            The format
+	 * @return the configuration that stores pixels in the format
+	 */
+	private static Config getConfig(PixmapFormat format)
+	{
+		if (format == PixmapFormat.RGB565)
+			return Config.RGB_565;
+		else if (format == PixmapFormat.ARGB4444)
+			return Config.ARGB_4444;
+		return Config.ARGB_8888;
+	}
+
+	/**
+	 * Returns the format of the given bitmap configuration, which is what a
+	 * bitmap really holds whatever format it was asked for in
+	 *
+	 * @param config
+	 *            The configuration of a bitmap
+	 * @return the format of the pixels of the bitmap
+	 */
+	private static PixmapFormat getFormat(Config config)
+	{
+		if (config == Config.RGB_565)
+			return PixmapFormat.RGB565;
+		else if (config == Config.ARGB_4444)
+			return PixmapFormat.ARGB4444;
+		return PixmapFormat.ARGB8888;
+	}
+
+	/**
+	 * Decodes the image in the given file with the given options
+	 *
+	 * @param fileName
+	 *            The name of the image
+	 * @param options
+	 *            The options to decode with
+	 * @return the decoded bitmap, or null if the file isn't an image
+	 * @throws IOException
+	 *             If the file couldn't be opened
+	 */
+	private Bitmap decodeAsset(String fileName, Options options)
+			throws IOException
+	{
+		InputStream in = assets.open(fileName);
+		try
+		{
+			return BitmapFactory.decodeStream(in, null, options);
 		}
 		finally
 		{
-			if (in != null)
+			try
+			{
+				in.close();
+			}
+			catch (IOException e)
 			{
-				try
-				{
-					in.close();
-				}
-				catch (IOException e)
-				{
-				}
 			}
 		}
-		if (bitmap.getConfig() == Config.RGB_565)
-			format = PixmapFormat.RGB565;
-		else if (bitmap.getConfig() == Config.ARGB_4444)
-			format = PixmapFormat.ARGB4444;
-		else
+	}
+
+	/**
+	 * Creates a blank pixmap image of the given size and format that can be
+	 * drawn on with newGraphics. The image has as many pixels as the
+	 * framebuffer would for the same size, so it isn't blurred when drawn.
+	 *
+	 * @param width
+	 *            The width of the image
+	 * @param height
+	 *            The height of the image
+	 * @param format
+	 *            The format of the image
+	 * @return the blank pixmap image that was created
+	 */
+	public Pixmap newPixmap(int width, int height, PixmapFormat format)
+	{
+		// Newer versions of Android make ARGB8888 bitmaps instead anyway
+		if (format == PixmapFormat.ARGB4444 && !hasArgb4444)
 			format = PixmapFormat.ARGB8888;
-		return new Pixmap(bitmap, format);
 
+		float scale = renderScale.getScale();
+		Bitmap bitmap = Bitmap.createBitmap(Math.round(width * scale), Math
+				.round(height * scale), getConfig(format));
+		return new Pixmap(bitmap, getFormat(bitmap.getConfig()), scale);
 	}
 
+	/**
+	 * Creates a graphics content that draws onto the given pixmap image
+	 * instead of the frame buffer, so that images that don't change can be
+	 * drawn together once
+	 *
+	 * @param pixmap
+	 *            The image to draw onto
+	 * @return the graphics content for the image
+	 */
+	public abstract Graphics newGraphics(Pixmap pixmap);
+
 	/**
 	 * Clears the canvas by drawing uniformally over it
-	 * 
+	 *
 	 * @param color
 	 *            The colour to clear the canvas with
 	 */
-	public void clear(int color)
-	{
-		canvas.drawRGB((color & 0xff0000) >> 16, (color & 0xff00) >> 8,
-				(color & 0xff));
-	}
+	public abstract void clear(int color);
 
 	/**
 	 * Draws a pixel at the given point with the given colour
-	 * 
+	 *
 	 * @param x
 	 *            The x coordinate to draw a pixel at
 	 * @param y
@@ -140,16 +631,12 @@ public class Graphics
 	 * @param color
 	 *            The colour to draw the pixel in
 	 */
-	public void drawPixel(int x, int y, int color)
-	{
-		paint.setColor(color);
-		canvas.drawPoint(x, y, paint);
-	}
+	public abstract void drawPixel(int x, int y, int color);
 
 	/**
 	 * Draws a line from the starting point, xy to the end point x2y2 in the
 	 * given colour
-	 * 
+	 *
 	 * @param x
 	 *            The x coordinate of the starting point
 	 * @param y
@@ -161,17 +648,12 @@ public class Graphics
 	 * @param color
 	 *            The colour to draw the line in
 	 */
-	public void drawLine(int x, int y, int x2, int y2, int color)
-	{
-		paint.setColor(color);
-		paint.setStrokeWidth(3);
-		canvas.drawLine(x, y, x2, y2, paint);
-	}
+	public abstract void drawLine(int x, int y, int x2, int y2, int color);
 
 	/**
 	 * Draws a rectangle at the given point xy with the given width and height
 	 * and the given colour
-	 * 
+	 *
 	 * @param x
 	 *            The x coordinate to draw the rectangle
 	 * @param y
@@ -185,23 +667,34 @@ public class Graphics
 	 * @param filled
 	 *            Whether or not the rectangle should be filled in or not
 	 */
-	public void drawRect(int x, int y, int width, int height, int color,
-			boolean filled)
+	public abstract void drawRect(int x, int y, int width, int height,
+			int color, boolean filled);
+
+	/**
+	 * Starts queuing the images that are drawn instead of drawing them
+	 * straight away. At endBatch they are drawn grouped by the bitmap they
+	 * come from, which saves switching between bitmaps for every image. Only
+	 * images are queued, so nothing else should be drawn until the batch
+	 * ends.
+	 */
+	public void beginBatch()
 	{
-		paint.setColor(color);
-		if (filled)
-			paint.setStyle(Style.FILL);
-		else
-		{
-			paint.setStyle(Style.STROKE);
-			paint.setStrokeWidth(3);
-		}
-		canvas.drawRect(x, y, x + width - 1, y + height - 1, paint);
+		batching = true;
+	}
+
+	/**
+	 * Draws the images that were queued since beginBatch, in an order that
+	 * gives the same picture as drawing them one by one
+	 */
+	public void endBatch()
+	{
+		batching = false;
+		batch.flush(this);
 	}
 
 	/**
 	 * Draws a pixmap image at the given coordinates
-	 * 
+	 *
 	 * @param pixmap
 	 *            The pixmap image to draw
 	 * @param x
@@ -220,21 +713,15 @@ public class Graphics
 	public void drawPixmap(Pixmap pixmap, int x, int y, int srcX, int srcY,
 			int srcWidth, int srcHeight)
 	{
-		srcRect.left = srcX;
-		srcRect.top = srcY;
-		srcRect.right = srcX + srcWidth - 1;
-		srcRect.bottom = srcY + srcHeight - 1;
-
-		dstRect.left = x;
-		dstRect.top = y;
-		dstRect.right = x + srcWidth - 1;
-		dstRect.bottom = y + srcHeight - 1;
-		canvas.drawBitmap(((Pixmap) pixmap).bitmap, srcRect, dstRect, null);
+		if (batching)
+			batch.add(pixmap, x, y, srcX, srcY, srcWidth, srcHeight, false);
+		else
+			drawImage(pixmap, x, y, srcX, srcY, srcWidth, srcHeight);
 	}
 
 	/**
 	 * Draws a circle based on the given coordinates, radius and colour
-	 * 
+	 *
 	 * @param x
 	 *            The x coordinate of the center of the circle
 	 * @param y
@@ -246,22 +733,12 @@ public class Graphics
 	 * @param filled
 	 *            Whether or not to fill the circle in or not
 	 */
-	public void drawCircle(int x, int y, int radius, int color, boolean filled)
-	{
-		paint.setColor(color);
-		if (filled)
-			paint.setStyle(Style.FILL);
-		else
-		{
-			paint.setStyle(Style.STROKE);
-			paint.setStrokeWidth(3);
-		}
-		canvas.drawCircle(x, y, radius, paint);
-	}
-	
+	public abstract void drawCircle(int x, int y, int radius, int color,
+			boolean filled);
+
 	/**
 	 * Draws this given text on the canvas
-	 * 
+	 *
 	 * @param x
 	 * 			 The x coordinate of the text
 	 * @param y
@@ -271,17 +748,11 @@ public class Graphics
 	 * @param text
 	 * 		  	 The text to draw
 	 */
-	public void drawText(int x, int y, float size, String text) 
-	{
-		paint.setColor(Color.WHITE);
-		paint.setStyle(Style.FILL);
-		paint.setTextSize(size);
-		canvas.drawText(text, x, y, paint);
-	}
+	public abstract void drawText(int x, int y, float size, String text);
 
 	/**
 	 * Draws a pixmap image at the given coordinates
-	 * 
+	 *
 	 * @param pixmap
 	 *            The image to draw
 	 * @param x
@@ -291,26 +762,161 @@ public class Graphics
 	 */
 	public void drawPixmap(Pixmap pixmap, int x, int y)
 	{
-		canvas.drawBitmap(((Pixmap) pixmap).bitmap, x, y, null);
+		if (batching)
+			batch.add(pixmap, x, y, 0, 0, pixmap.width, pixmap.height, true);
+		else
+			drawImage(pixmap, x, y);
 	}
 
 	/**
-	 * Returns the width of the frameBuffer
-	 * 
-	 * @return The frame buffer's width
+	 * Draws a whole pixmap image stretched to the given size and faded to the
+	 * given opacity, so that one image can be animated without an image for
+	 * every frame
+	 *
+	 * @param pixmap
+	 *            The image to draw
+	 * @param x
+	 *            The x coordinate of the image
+	 * @param y
+	 *            The y coordinate of the image
+	 * @param width
+	 *            The width to draw the image at
+	 * @param height
+	 *            The height to draw the image at
+	 * @param alpha
+	 *            The opacity to draw the image with (0 to 1)
 	 */
-	public int getWidth()
+	public void drawPixmap(Pixmap pixmap, int x, int y, int width,
+			int height, float alpha)
 	{
-		return frameBuffer.getWidth();
+		if (batching)
+			batch.addStretched(pixmap, x, y, width, height, alpha);
+		else
+			drawImage(pixmap, x, y, width, height, alpha);
 	}
 
 	/**
-	 * Returns the height of the frameBuffer
-	 * 
-	 * @return The frame buffer's height
+	 * Draws part of a pixmap image straight away, whether or not a batch is
+	 * open
+	 *
+	 * @param pixmap
+	 *            The image to draw
+	 * @param x
+	 *            The x coordinate to draw the part at
+	 * @param y
+	 *            The y coordinate to draw the part at
+	 * @param srcX
+	 *            The x coordinate of the part in the image
+	 * @param srcY
+	 *            The y coordinate of the part in the image
+	 * @param srcWidth
+	 *            The width of the part
+	 * @param srcHeight
+	 *            The height of the part
+	 */
+	protected abstract void drawImage(Pixmap pixmap, int x, int y, int srcX,
+			int srcY, int srcWidth, int srcHeight);
+
+	/**
+	 * Draws a whole pixmap image straight away
+	 *
+	 * @param pixmap
+	 *            The image to draw
+	 * @param x
+	 *            The x coordinate of the image
+	 * @param y
+	 *            The y coordinate of the image
+	 */
+	protected abstract void drawImage(Pixmap pixmap, int x, int y);
+
+	/**
+	 * Draws a whole pixmap image stretched and faded straight away
+	 *
+	 * @param pixmap
+	 *            The image to draw
+	 * @param x
+	 *            The x coordinate of the image
+	 * @param y
+	 *            The y coordinate of the image
+	 * @param width
+	 *            The width to draw the image at
+	 * @param height
+	 *            The height to draw the image at
+	 * @param alpha
+	 *            The opacity to draw the image with (0 to 1)
+	 */
+	protected abstract void drawImage(Pixmap pixmap, int x, int y,
+			int width, int height, float alpha);
+
+	/**
+	 * Returns the number of draw calls made since the last time this was
+	 * called and starts counting again. A draw call is a call to the canvas,
+	 * or with OpenGL a batch of quads sent to the display.
+	 *
+	 * @return the number of draw calls
+	 */
+	public int takeDrawCalls()
+	{
+		int calls = drawCalls;
+		drawCalls = 0;
+		return calls;
+	}
+
+	/**
+	 * Marks the given rectangle of the frame buffer as changed so that it is
+	 * drawn to the screen. Screens that use dirty regions have to call this
+	 * for everything they change.
+	 *
+	 * @param x
+	 *            The x coordinate of the rectangle
+	 * @param y
+	 *            The y coordinate of the rectangle
+	 * @param width
+	 *            The width of the rectangle
+	 * @param height
+	 *            The height of the rectangle
 	 */
-	public int getHeight()
+	public synchronized void invalidate(int x, int y, int width, int height)
 	{
-		return frameBuffer.getHeight();
+		dirtyRect.union(x, y, x + width, y + height);
 	}
+
+	/**
+	 * Marks the whole frame buffer as changed
+	 */
+	public void invalidateAll()
+	{
+		invalidate(0, 0, getWidth(), getHeight());
+	}
+
+	/**
+	 * Takes the region of the frame buffer that changed since the last time,
+	 * so that only that region is drawn to the screen
+	 *
+	 * @param region
+	 *            The rectangle to store the changed region in
+	 * @return whether anything changed
+	 */
+	public synchronized boolean takeDirtyRegion(Rect region)
+	{
+		region.set(dirtyRect);
+		dirtyRect.setEmpty();
+		return region.intersect(0, 0, getWidth(), getHeight());
+	}
+
+	/**
+	 * Returns the width of the frameBuffer in the coordinates the screens draw
+	 * in
+	 *
+	 * @return The frame buffer's width
+	 */
+	public abstract int getWidth();
+
+	/**
+	 * Returns the height of the frameBuffer in the coordinates the screens
+	 * draw in
+	 *
+	 * @return The frame buffer's height
+	 */
+	public abstract int getHeight();
 }
@@ -0,0 +1,236 @@
+package com.pianist.battlelasers.graphics;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The Lz4 class compresses and decompresses single blocks in the LZ4 block
+ * format. Decompressing is little more than copying bytes, so it costs far
+ * less than inflating a PNG. Compressing is only done by the tools that
+ * build the asset bundle, so it uses a plain greedy search.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class Lz4
+{
+	// The shortest match that is worth a sequence
+	private static final int MIN_MATCH = 4;
+
+	// The format ends every block with five literals, and the last match
+	// starts at least twelve bytes before the end
+	private static final int LAST_LITERALS = 5;
+
+	private static final int MATCH_FIND_LIMIT = 12;
+
+	// The furthest back a match can be
+	private static final int MAX_OFFSET = 65535;
+
+	// The number of bits of the hash of four bytes
+	private static final int HASH_BITS = 16;
+
+	/**
+	 * Compresses the given bytes into one block
+	 *
+	 * @param source
+	 *            The bytes to compress
+	 * @return the compressed block
+	 */
+	public static byte[] compress(byte[] source)
+	{
+		int length = source.length;
+		byte[] block = new byte[length + length / 255 + 16];
+		int[] table = new int[1 << HASH_BITS];
+		Arrays.fill(table, -1);
+
+		int position = 0;
+		int anchor = 0;
+		int output = 0;
+		int matchLimit = length - LAST_LITERALS;
+		while (position < length - MATCH_FIND_LIMIT)
+		{
+			int sequence = readInt(source, position);
+			int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+			int match = table[hash];
+			table[hash] = position;
+			if (match < 0 || position - match > MAX_OFFSET
+					|| readInt(source, match) != sequence)
+			{
+				position++;
+				continue;
+			}
+
+			int matchLength = MIN_MATCH;
+			while (position + matchLength < matchLimit
+					&& source[match + matchLength] == source[position
+							+ matchLength])
+				matchLength++;
+			output = writeSequence(source, anchor, position - anchor,
+					position - match, matchLength, block, output);
+			position += matchLength;
+			anchor = position;
+		}
+		output = writeSequence(source, anchor, length - anchor, 0, 0, block,
+				output);
+		return Arrays.copyOf(block, output);
+	}
+
+	/**
+	 * Decompresses a block into the given array, which has to be exactly the
+	 * size of the original bytes
+	 *
+	 * @param block
+	 *            The array with the block
+	 * @param offset
+	 *            Where the block starts in the array
+	 * @param length
+	 *            The length of the block
+	 * @param destination
+	 *            The array to decompress into
+	 * @throws IOException
+	 *             If the block is corrupt
+	 */
+	public static void decompress(byte[] block, int offset, int length,
+			byte[] destination) throws IOException
+	{
+		int position = offset;
+		int end = offset + length;
+		int output = 0;
+		try
+		{
+			while (true)
+			{
+				int token = block[position++] & 0xFF;
+				int literals = token >>> 4;
+				if (literals == 15)
+				{
+					int extra;
+					do
+					{
+						extra = block[position++] & 0xFF;
+						literals += extra;
+					}
+					while (extra == 255);
+				}
+				System.arraycopy(block, position, destination, output,
+						literals);
+				position += literals;
+				output += literals;
+				if (position >= end)
+					break;
+
+				int distance = (block[position] & 0xFF)
+						| (block[position + 1] & 0xFF) << 8;
+				position += 2;
+				int matchLength = token & 15;
+				if (matchLength == 15)
+				{
+					int extra;
+					do
+					{
+						extra = block[position++] & 0xFF;
+						matchLength += extra;
+					}
+					while (extra == 255);
+				}
+				matchLength += MIN_MATCH;
+				int match = output - distance;
+				if (distance == 0 || match < 0)
+					throw new IOException("Corrupt LZ4 block");
+
+				// A match can overlap the bytes it produces, in which case
+				// it has to be copied a byte at a time
+				if (distance >= matchLength)
+					System.arraycopy(destination, match, destination, output,
+							matchLength);
+				else
+					for (int index = 0; index < matchLength; index++)
+						destination[output + index] = destination[match
+								+ index];
+				output += matchLength;
+			}
+		}
+		catch (IndexOutOfBoundsException e)
+		{
+			throw new IOException("Corrupt LZ4 block");
+		}
+		if (position != end || output != destination.length)
+			throw new IOException("Corrupt LZ4 block");
+	}
+
+	/**
+	 * Writes a sequence of literals followed by a match, or just the
+	 * literals for the last sequence
+	 *
+	 * @param source
+	 *            The bytes being compressed
+	 * @param start
+	 *            Where the literals start
+	 * @param literals
+	 *            The number of literals
+	 * @param distance
+	 *            How far back the match is
+	 * @param matchLength
+	 *            The length of the match, or 0 for the last sequence
+	 * @param block
+	 *            The block being written
+	 * @param output
+	 *            Where the sequence goes in the block
+	 * @return where the next sequence goes
+	 */
+	private static int writeSequence(byte[] source, int start, int literals,
+			int distance, int matchLength, byte[] block, int output)
+	{
+		int extraMatch = Math.max(matchLength - MIN_MATCH, 0);
+		block[output++] = (byte) (Math.min(literals, 15) << 4 | Math.min(
+				extraMatch, 15));
+		if (literals >= 15)
+			output = writeLength(literals - 15, block, output);
+		System.arraycopy(source, start, block, output, literals);
+		output += literals;
+		if (matchLength == 0)
+			return output;
+
+		block[output++] = (byte) distance;
+		block[output++] = (byte) (distance >>> 8);
+		if (extraMatch >= 15)
+			output = writeLength(extraMatch - 15, block, output);
+		return output;
+	}
+
+	/**
+	 * Writes the rest of a length that didn't fit in the token
+	 *
+	 * @param length
+	 *            The rest of the length
+	 * @param block
+	 *            The block being written
+	 * @param output
+	 *            Where the length goes in the block
+	 * @return where the block continues
+	 */
+	private static int writeLength(int length, byte[] block, int output)
+	{
+		while (length >= 255)
+		{
+			block[output++] = (byte) 255;
+			length -= 255;
+		}
+		block[output++] = (byte) length;
+		return output;
+	}
+
+	/**
+	 * Reads four bytes as an int
+	 *
+	 * @param bytes
+	 *            The array to read from
+	 * @param index
+	 *            Where the bytes start
+	 * @return the int
+	 */
+	private static int readInt(byte[] bytes, int index)
+	{
+		return (bytes[index] & 0xFF) | (bytes[index + 1] & 0xFF) << 8
+				| (bytes[index + 2] & 0xFF) << 16 | bytes[index + 3] << 24;
+	}
+}
@@ -6,7 +6,9 @@ import android.graphics.Bitmap;
 
 /**
  * Keeps track of an image in a Pixmap form. It creates an association between a
- * bitmap image and format for that image
+ * bitmap image and format for that image. The image can also be a region of a
+ * larger bitmap (a texture atlas), which it shares with the other images in
+ * the atlas.
  * 
  * @author Alex Szoke & Peter Gokhshteyn
  */
@@ -16,6 +18,38 @@ public class Pixmap
 
 	PixmapFormat format;
 
+	// The region of the bitmap that holds the image (all of it unless the
+	// image comes from an atlas), with the position in pixels of the bitmap
+	// and the size in the coordinates the screens draw in
+	int left;
+
+	int top;
+
+	int width;
+
+	int height;
+
+	// The number of pixels of the bitmap for each coordinate (less than one
+	// for the images that were scaled down for low end devices)
+	float scale = 1;
+
+	// The pixmap that owns the bitmap (this one unless the image comes from an
+	// atlas)
+	Pixmap source;
+
+	// The texture the image was uploaded to when drawn with OpenGL
+	GLGraphics.Texture texture;
+
+	// The cache the image is kept in and its file name (null for images that
+	// weren't loaded from a file)
+	AssetCache cache;
+
+	String fileName;
+
+	// Whether the bitmap was recycled or handed on to another image, so that
+	// the texture of the image can be deleted
+	volatile boolean disposed;
+
 	/**
 	 * Creates a Pixmap object that connects a bitmap image to a given format
 	 * 
@@ -28,6 +62,79 @@ public class Pixmap
 	{
 		this.bitmap = bitmap;
 		this.format = format;
+		this.width = bitmap.getWidth();
+		this.height = bitmap.getHeight();
+		this.source = this;
+	}
+
+	/**
+	 * Creates a Pixmap object for a bitmap that was drawn at the given scale,
+	 * so that the image is the same size as the normal one when it is drawn
+	 * 
+	 * @param bitmap
+	 *            The given image to use
+	 * @param format
+	 *            The given format to use
+	 * @param scale
+	 *            The number of pixels of the bitmap for each coordinate
+	 */
+	public Pixmap(Bitmap bitmap, PixmapFormat format, float scale)
+	{
+		this(bitmap, format);
+		this.scale = scale;
+		this.width = Math.round(bitmap.getWidth() / scale);
+		this.height = Math.round(bitmap.getHeight() / scale);
+	}
+
+	/**
+	 * Creates a Pixmap object for a region of the given atlas image
+	 * 
+	 * @param atlas
+	 *            The image the region is in
+	 * @param left
+	 *            The x coordinate of the region in the atlas in pixels
+	 * @param top
+	 *            The y coordinate of the region in the atlas in pixels
+	 * @param width
+	 *            The width of the region in pixels
+	 * @param height
+	 *            The height of the region in pixels
+	 */
+	public Pixmap(Pixmap atlas, int left, int top, int width, int height)
+	{
+		this(atlas, left, top, Math.round(width / atlas.scale), Math
+				.round(height / atlas.scale), true);
+	}
+
+	/**
+	 * Creates a Pixmap object for a region of the given atlas image that is
+	 * drawn at the given size (scaled images don't always have a whole number
+	 * of pixels for their size)
+	 * 
+	 * @param atlas
+	 *            The image the region is in
+	 * @param left
+	 *            The x coordinate of the region in the atlas in pixels
+	 * @param top
+	 *            The y coordinate of the region in the atlas in pixels
+	 * @param logicalWidth
+	 *            The width the region is drawn at
+	 * @param logicalHeight
+	 *            The height the region is drawn at
+	 * @param logical
+	 *            Marks the size as the size the region is drawn at
+	 */
+	Pixmap(Pixmap atlas, int left, int top, int logicalWidth,
+			int logicalHeight, boolean logical)
+	{
+		this.bitmap = atlas.bitmap;
+		this.format = atlas.format;
+		this.scale = atlas.scale;
+		this.left = atlas.left + left;
+		this.top = atlas.top + top;
+		this.width = logicalWidth;
+		this.height = logicalHeight;
+		this.source = atlas.source;
 	}
 
 	/**
@@ -36,7 +143,7 @@ public class Pixmap
 	 */
 	public int getWidth()
 	{
-		return bitmap.getWidth();
+		return width;
 	}
 
 	/**
@@ -45,7 +152,7 @@ public class Pixmap
 	 */
 	public int getHeight()
 	{
-		return bitmap.getHeight();
+		return height;
 	}
 
 	/**
@@ -58,10 +165,43 @@ public class Pixmap
 	}
 
 	/**
-	 * Disposes of the image
+	 * Checks whether the bitmap has exactly one pixel for each coordinate
+	 * @return whether the image is drawn without scaling
+	 */
+	public boolean isFullScale()
+	{
+		return scale == 1;
+	}
+
+	/**
+	 * Checks whether the image is a region of a larger atlas image
+	 * @return whether the image comes from an atlas
+	 */
+	public boolean isRegion()
+	{
+		return source != this;
+	}
+
+	/**
+	 * Disposes of the image. An image loaded from a file gives its reference
+	 * back to the cache, which recycles it later if nobody uses it.
 	 */
 	public void dispose()
 	{
-		bitmap.recycle();
+		if (cache != null)
+			cache.release(this);
+		else
+			recycle();
+	}
+
+	/**
+	 * Frees the bitmap of the image. The regions of an atlas leave the atlas
+	 * alone, since the other images in it still use it.
+	 */
+	void recycle()
+	{
+		disposed = true;
+		if (!isRegion())
+			bitmap.recycle();
 	}
 }
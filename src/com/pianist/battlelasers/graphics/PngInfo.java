@@ -0,0 +1,110 @@
+package com.pianist.battlelasers.graphics;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The PngInfo class reads what the header of a PNG file says about its image
+ * without decoding any pixels: its size and whether it has an alpha channel
+ * (or a transparent colour). Graphics uses it to pick the format an image is
+ * decoded in and to find a bitmap of the same size to decode it into.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+class PngInfo
+{
+	// The first bytes of every PNG file
+	private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+
+	// The types of the chunks that matter here
+	private static final int IHDR = 0x49484452;
+
+	private static final int TRNS = 0x74524E53;
+
+	private static final int IDAT = 0x49444154;
+
+	private static final int IEND = 0x49454E44;
+
+	// The colour types that store an alpha value for every pixel
+	private static final int GREY_ALPHA = 4;
+
+	private static final int RGB_ALPHA = 6;
+
+	int width;
+
+	int height;
+
+	boolean hasAlpha;
+
+	/**
+	 * Reads the header of the PNG file in the given stream, and closes it
+	 *
+	 * @param stream
+	 *            The stream of the file
+	 * @return what the header says, or null if the file isn't a PNG
+	 * @throws IOException
+	 *             If the stream couldn't be read
+	 */
+	static PngInfo read(InputStream stream) throws IOException
+	{
+		DataInputStream input = new DataInputStream(new BufferedInputStream(
+				stream));
+		try
+		{
+			if (input.readLong() != SIGNATURE)
+				return null;
+			input.readInt();
+			if (input.readInt() != IHDR)
+				return null;
+			PngInfo info = new PngInfo();
+			info.width = input.readInt();
+			info.height = input.readInt();
+			input.readUnsignedByte();
+			int colourType = input.readUnsignedByte();
+			info.hasAlpha = colourType == GREY_ALPHA
+					|| colourType == RGB_ALPHA;
+			skip(input, 3 + 4);
+
+			// A transparent colour can only be given before the pixels start
+			while (!info.hasAlpha)
+			{
+				int length = input.readInt();
+				int type = input.readInt();
+				if (type == IDAT || type == IEND)
+					break;
+				if (type == TRNS)
+					info.hasAlpha = true;
+				skip(input, length + 4);
+			}
+			return info;
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	/**
+	 * Skips the given number of bytes of a stream
+	 *
+	 * @param input
+	 *            The stream
+	 * @param count
+	 *            The number of bytes to skip
+	 * @throws IOException
+	 *             If the stream ended first
+	 */
+	private static void skip(DataInputStream input, int count)
+			throws IOException
+	{
+		while (count > 0)
+		{
+			int skipped = input.skipBytes(count);
+			if (skipped <= 0)
+				throw new IOException("Truncated PNG file");
+			count -= skipped;
+		}
+	}
+}
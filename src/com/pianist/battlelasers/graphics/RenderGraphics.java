@@ -1,24 +1,36 @@
 package com.pianist.battlelasers.graphics;
 
 import com.pianist.battlelasers.activities.BattleLaserActivity;
+import com.pianist.battlelasers.screens.Screen;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Rect;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
 /**
  * The RenderGraphics class deals with drawing what the game want to present to
  * the screen. It constantly presents what the game draws in the framebuffer and
- * keeps track of the time between frames.
+ * keeps track of the time between frames. Only the region of the framebuffer
+ * that changed is drawn to the screen, and nothing is drawn if nothing changed.
+ * The FrameScheduler decides when each frame starts, and the screens are
+ * updated in fixed steps by FixedTimestep. The framebuffer is the size the
+ * RenderScale picked, so it is scaled to the surface as little as possible.
+ * The FrameProfiler records how long each part of every frame takes.
  * 
  * @author Peter Gokhshteyn
  */
-public class RenderGraphics extends SurfaceView implements Runnable {
+public class RenderGraphics extends SurfaceView implements RenderView, Runnable,
+		SurfaceHolder.Callback {
 	BattleLaserActivity game;
 	SurfaceHolder surface;
 	Bitmap frameBuffer;
+	FrameScheduler scheduler;
+	FixedTimestep timestep = new FixedTimestep();
+	FrameProfiler profiler = new FrameProfiler();
 	Thread graphicsThread = null;
 	volatile boolean running = false;
 
@@ -36,12 +48,36 @@ public class RenderGraphics extends SurfaceView implements Runnable {
 		this.game = game;
 		this.frameBuffer = frameBuffer;
 		this.surface = getHolder();
+		this.scheduler = new FrameScheduler(FrameScheduler.DEFAULT_MAX_FPS,
+				true);
+		surface.addCallback(this);
+	}
+
+	/**
+	 * Returns the scheduler that decides when frames start
+	 * 
+	 * @return the frame scheduler
+	 */
+	public FrameScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Returns the profiler that records the time each frame takes
+	 * 
+	 * @return the frame profiler
+	 */
+	public FrameProfiler getProfiler() {
+		return profiler;
 	}
 
 	/**
 	 * Resumes the running of the RenderGraphics
 	 */
 	public void resume() {
+		game.getGraphics().invalidateAll();
+		scheduler.start();
+		timestep.reset();
 		running = true;
 		graphicsThread = new Thread(this);
 		graphicsThread.start();
@@ -53,29 +89,70 @@ public class RenderGraphics extends SurfaceView implements Runnable {
 	 */
 	public void run() {
 		Rect dstRect = new Rect();
+		Rect dirtyRect = new Rect();
+		Graphics graphics = game.getGraphics();
+		Screen lastScreen = null;
 		long startTime = System.nanoTime();
 		while (running) {
-			if (!surface.getSurface().isValid())
+			// Wait for the surface to be created (without spinning)
+			if (!surface.getSurface().isValid()) {
+				scheduler.waitIdle();
 				continue;
+			}
 			
-			float deltaTime = (System.nanoTime() - startTime) / 1000000000.0f;
-			startTime = System.nanoTime();
-			
-			game.getCurrentScreen().update(deltaTime);
-			game.getCurrentScreen().present(deltaTime);
+			long frameTime = scheduler.waitForFrame(game.getCurrentScreen()
+					.isIdle());
+			float deltaTime = (frameTime - startTime) / 1000000000.0f;
+			startTime = frameTime;
+			profiler.beginFrame(frameTime);
 			
-			Canvas canvas = surface.lockCanvas();
-			canvas.getClipBounds(dstRect);
-			canvas.drawBitmap(frameBuffer, null, dstRect, null);
-			surface.unlockCanvasAndPost(canvas);
+			long updateStart = System.nanoTime();
+			float sinceUpdate = timestep.advance(game, deltaTime);
+			Screen screen = game.getCurrentScreen();
+			long presentStart = profiler.record(FrameProfiler.UPDATE,
+					updateStart);
+			if (!scheduler.shouldPresent(presentStart - updateStart)) {
+				profiler.endFrame(graphics.takeDrawCalls());
+				continue;
+			}
+			screen.present(sinceUpdate);
+			profiler.drawOverlay(graphics);
+			long lockStart = profiler.record(FrameProfiler.PRESENT,
+					presentStart);
 			
-			try
-			{
-				Thread.sleep(10);
+			// A new screen, a screen that doesn't report what it changes and a
+			// resized surface are drawn completely
+			Rect surfaceRect = surface.getSurfaceFrame();
+			if (screen != lastScreen || !screen.usesDirtyRegions()
+					|| !surfaceRect.equals(dstRect)) {
+				graphics.invalidateAll();
+				lastScreen = screen;
+				dstRect.set(surfaceRect);
 			}
-			catch (InterruptedException e)
-			{
+			
+			// Draw the changed region (which is in the coordinates the screens
+			// draw in) scaled up to the surface, rounding outwards, or skip
+			// the frame if nothing changed
+			if (graphics.takeDirtyRegion(dirtyRect)) {
+				float scaleX = (float) dstRect.width() / graphics.getWidth();
+				float scaleY = (float) dstRect.height() / graphics.getHeight();
+				dirtyRect.set((int) (dirtyRect.left * scaleX),
+						(int) (dirtyRect.top * scaleY),
+						(int) Math.ceil(dirtyRect.right * scaleX),
+						(int) Math.ceil(dirtyRect.bottom * scaleY));
+				
+				Canvas canvas = surface.lockCanvas(dirtyRect);
+				long blitStart = profiler.record(FrameProfiler.LOCK,
+						lockStart);
+				if (canvas != null) {
+					canvas.drawBitmap(frameBuffer, null, dstRect, null);
+					long unlockStart = profiler.record(FrameProfiler.BLIT,
+							blitStart);
+					surface.unlockCanvasAndPost(canvas);
+					profiler.record(FrameProfiler.UNLOCK, unlockStart);
+				}
 			}
+			profiler.endFrame(graphics.takeDrawCalls());
 		}
 	}
 
@@ -84,6 +161,7 @@ public class RenderGraphics extends SurfaceView implements Runnable {
 	 */
 	public void pause() {
 		running = false;
+		scheduler.stop();
 		while (true) {
 			try {
 				graphicsThread.join();
@@ -93,4 +171,37 @@ public class RenderGraphics extends SurfaceView implements Runnable {
 			}
 		}
 	}
+
+	/**
+	 * Wakes the game loop up for every touch, so that an idle screen responds
+	 * straight away
+	 */
+	@Override
+	public boolean dispatchTouchEvent(MotionEvent event) {
+		scheduler.wake();
+		return super.dispatchTouchEvent(event);
+	}
+
+	/**
+	 * Wakes the game loop up for every key
+	 */
+	@Override
+	public boolean dispatchKeyEvent(KeyEvent event) {
+		scheduler.wake();
+		return super.dispatchKeyEvent(event);
+	}
+
+	/**
+	 * Wakes the game loop up once there is a surface to draw on
+	 */
+	public void surfaceCreated(SurfaceHolder holder) {
+		scheduler.wake();
+	}
+
+	public void surfaceChanged(SurfaceHolder holder, int format, int width,
+			int height) {
+	}
+
+	public void surfaceDestroyed(SurfaceHolder holder) {
+	}
 }
@@ -0,0 +1,207 @@
+package com.pianist.battlelasers.graphics;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap.Config;
+import android.util.DisplayMetrics;
+
+/**
+ * The RenderScale class decides how many pixels the game is drawn with on this
+ * device. The screens always draw in the same 480 by 800 coordinates, and the
+ * render scale is how many pixels of the framebuffer (or of the OpenGL
+ * surface) each of those coordinates covers, along with the pixel format to
+ * draw in and the set of images to load.
+ *
+ * Devices fall into three tiers. Devices with little memory or a small display
+ * draw at three quarters of the size in RGB_565 with images that were scaled
+ * down to match, ordinary devices draw at the normal size in RGB_565, and
+ * devices with a large display and plenty of memory draw at up to twice the
+ * size in ARGB_8888 so that shapes, text and scaled images stay sharp. The
+ * framebuffer is covered completely every frame, so it never needs alpha.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class RenderScale
+{
+	// The size of the coordinates the screens draw in (in portrait)
+	public static final int LOGICAL_WIDTH = 480;
+
+	public static final int LOGICAL_HEIGHT = 800;
+
+	// The directory the images of the low tier are in, and the scale they
+	// were made for
+	public static final String LOW_ASSETS = "low/";
+
+	public static final float LOW_SCALE = 0.75f;
+
+	// The largest scale the high tier draws at
+	private static final float MAX_SCALE = 2;
+
+	// The memory classes (in megabytes) below which a device is in the low
+	// tier, and from which it can be in the high tier
+	private static final int LOW_MEMORY_CLASS = 32;
+
+	private static final int HIGH_MEMORY_CLASS = 64;
+
+	/**
+	 * The tiers of devices
+	 */
+	public static enum Tier {
+		LOW, NORMAL, HIGH
+	}
+
+	private Tier tier;
+
+	private float scale;
+
+	private int logicalWidth;
+
+	private int logicalHeight;
+
+	/**
+	 * Creates a render scale for the given tier
+	 *
+	 * @param tier
+	 *            The tier of the device
+	 * @param scale
+	 *            The number of pixels drawn for each coordinate
+	 * @param landscape
+	 *            Whether the screens draw in landscape
+	 */
+	public RenderScale(Tier tier, float scale, boolean landscape)
+	{
+		this.tier = tier;
+		this.scale = scale;
+		logicalWidth = landscape ? LOGICAL_HEIGHT : LOGICAL_WIDTH;
+		logicalHeight = landscape ? LOGICAL_WIDTH : LOGICAL_HEIGHT;
+	}
+
+	/**
+	 * Picks the render scale for the device the activity is running on
+	 *
+	 * @param activity
+	 *            The game activity
+	 * @return the render scale for the device
+	 */
+	public static RenderScale choose(Activity activity)
+	{
+		boolean landscape = activity.getResources().getConfiguration().orientation
+				== Configuration.ORIENTATION_LANDSCAPE;
+		DisplayMetrics metrics = activity.getResources().getDisplayMetrics();
+		int displayWidth = landscape ? metrics.heightPixels
+				: metrics.widthPixels;
+		int displayHeight = landscape ? metrics.widthPixels
+				: metrics.heightPixels;
+
+		// The scale the display itself would need
+		float fit = Math.min((float) displayWidth / LOGICAL_WIDTH,
+				(float) displayHeight / LOGICAL_HEIGHT);
+
+		ActivityManager activityManager = (ActivityManager) activity
+				.getSystemService(Context.ACTIVITY_SERVICE);
+		int memoryClass = activityManager.getMemoryClass();
+
+		if (memoryClass <= LOW_MEMORY_CLASS || fit <= LOW_SCALE)
+			return new RenderScale(Tier.LOW, LOW_SCALE, landscape);
+		if (memoryClass < HIGH_MEMORY_CLASS || fit < 1.25f)
+			return new RenderScale(Tier.NORMAL, 1, landscape);
+
+		// Round down to a quarter so that the images are scaled by a simple
+		// amount
+		float scale = Math.min(MAX_SCALE, (int) (fit * 4) / 4f);
+		return new RenderScale(Tier.HIGH, scale, landscape);
+	}
+
+	/**
+	 * Returns the tier of the device
+	 *
+	 * @return the tier
+	 */
+	public Tier getTier()
+	{
+		return tier;
+	}
+
+	/**
+	 * Returns the number of pixels drawn for each coordinate
+	 *
+	 * @return the render scale
+	 */
+	public float getScale()
+	{
+		return scale;
+	}
+
+	/**
+	 * Returns the pixel format to draw in
+	 *
+	 * @return the bitmap config of the framebuffer
+	 */
+	public Config getConfig()
+	{
+		return tier == Tier.HIGH ? Config.ARGB_8888 : Config.RGB_565;
+	}
+
+	/**
+	 * Returns the directory to load images from before the normal images, or
+	 * null if the normal images are used
+	 *
+	 * @return the directory of the images for the tier
+	 */
+	public String getAssetDirectory()
+	{
+		return tier == Tier.LOW ? LOW_ASSETS : null;
+	}
+
+	/**
+	 * Returns the scale that the images in the asset directory were made for
+	 *
+	 * @return the scale of the images
+	 */
+	public float getAssetScale()
+	{
+		return tier == Tier.LOW ? LOW_SCALE : 1;
+	}
+
+	/**
+	 * Returns the width the screens draw in
+	 *
+	 * @return the logical width
+	 */
+	public int getLogicalWidth()
+	{
+		return logicalWidth;
+	}
+
+	/**
+	 * Returns the height the screens draw in
+	 *
+	 * @return the logical height
+	 */
+	public int getLogicalHeight()
+	{
+		return logicalHeight;
+	}
+
+	/**
+	 * Returns the width of the framebuffer in pixels
+	 *
+	 * @return the buffer width
+	 */
+	public int getBufferWidth()
+	{
+		return Math.round(logicalWidth * scale);
+	}
+
+	/**
+	 * Returns the height of the framebuffer in pixels
+	 *
+	 * @return the buffer height
+	 */
+	public int getBufferHeight()
+	{
+		return Math.round(logicalHeight * scale);
+	}
+}
@@ -0,0 +1,35 @@
+package com.pianist.battlelasers.graphics;
+
+/**
+ * The RenderView interface is the view that runs the game loop, updating the
+ * current screen and showing what it draws. RenderGraphics does this with a
+ * software framebuffer and GLRenderView with OpenGL ES.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public interface RenderView
+{
+	/**
+	 * Starts running the game loop
+	 */
+	public void resume();
+
+	/**
+	 * Stops running the game loop, returning once the last frame is finished
+	 */
+	public void pause();
+
+	/**
+	 * Returns the scheduler that decides when frames start
+	 *
+	 * @return the frame scheduler
+	 */
+	public FrameScheduler getScheduler();
+
+	/**
+	 * Returns the profiler that records the time each frame takes
+	 *
+	 * @return the frame profiler
+	 */
+	public FrameProfiler getProfiler();
+}
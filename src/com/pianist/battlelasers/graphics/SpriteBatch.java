@@ -0,0 +1,260 @@
+package com.pianist.battlelasers.graphics;
+
+import java.util.Arrays;
+
+/**
+ * The SpriteBatch class holds the images that are drawn between
+ * Graphics.beginBatch and Graphics.endBatch, and draws them together at the
+ * end grouped by the bitmap they come from. A draw joins the last group of its
+ * bitmap unless it overlaps something queued after that group, in which case
+ * it starts a new group, so the frame looks the same as if everything had been
+ * drawn straight away.
+ *
+ * With OpenGL each group is a single draw call instead of one for every switch
+ * between textures, and on a canvas the same bitmap is drawn many times in a
+ * row.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+class SpriteBatch
+{
+	// The number of draws there is room for at first (the arrays grow when
+	// more are queued)
+	private static final int INITIAL_SIZE = 64;
+
+	// The number of ints stored for each draw: the position and the source
+	// rectangle (or the size a stretched image is drawn at)
+	private static final int DRAW_SIZE = 6;
+
+	// The kinds of draws: part of an image, a whole image and a whole image
+	// that is stretched and faded
+	private static final byte PART = 0;
+
+	private static final byte WHOLE = 1;
+
+	private static final byte STRETCHED = 2;
+
+	// The queued draws, the kind of each one, the opacity of the stretched
+	// ones and the next draw in the same group (-1 for the last one)
+	private Pixmap[] pixmaps;
+
+	private int[] draws;
+
+	private byte[] kinds;
+
+	private float[] alphas;
+
+	private int[] nextDraws;
+
+	private int numDraws;
+
+	// The groups in the order they are drawn: the bitmap they come from, their
+	// first and last draw and the rectangle around all their draws
+	private Pixmap[] sources;
+
+	private int[] firstDraws;
+
+	private int[] lastDraws;
+
+	private int[] bounds;
+
+	private int numGroups;
+
+	/**
+	 * Creates an empty batch
+	 */
+	SpriteBatch()
+	{
+		pixmaps = new Pixmap[INITIAL_SIZE];
+		draws = new int[INITIAL_SIZE * DRAW_SIZE];
+		kinds = new byte[INITIAL_SIZE];
+		alphas = new float[INITIAL_SIZE];
+		nextDraws = new int[INITIAL_SIZE];
+		sources = new Pixmap[INITIAL_SIZE];
+		firstDraws = new int[INITIAL_SIZE];
+		lastDraws = new int[INITIAL_SIZE];
+		bounds = new int[INITIAL_SIZE * 4];
+	}
+
+	/**
+	 * Queues a draw of part of an image
+	 *
+	 * @param pixmap
+	 *            The image to draw
+	 * @param x
+	 *            The x coordinate to draw at
+	 * @param y
+	 *            The y coordinate to draw at
+	 * @param srcX
+	 *            The x coordinate of the part in the image
+	 * @param srcY
+	 *            The y coordinate of the part in the image
+	 * @param srcWidth
+	 *            The width of the part
+	 * @param srcHeight
+	 *            The height of the part
+	 * @param wholeImage
+	 *            Whether the whole image is drawn
+	 */
+	void add(Pixmap pixmap, int x, int y, int srcX, int srcY, int srcWidth,
+			int srcHeight, boolean wholeImage)
+	{
+		queue(pixmap, x, y, srcX, srcY, srcWidth, srcHeight, wholeImage ? WHOLE
+				: PART, 1);
+	}
+
+	/**
+	 * Queues a draw of a whole image that is stretched and faded
+	 *
+	 * @param pixmap
+	 *            The image to draw
+	 * @param x
+	 *            The x coordinate to draw at
+	 * @param y
+	 *            The y coordinate to draw at
+	 * @param width
+	 *            The width to draw the image at
+	 * @param height
+	 *            The height to draw the image at
+	 * @param alpha
+	 *            The opacity to draw the image with
+	 */
+	void addStretched(Pixmap pixmap, int x, int y, int width, int height,
+			float alpha)
+	{
+		queue(pixmap, x, y, 0, 0, width, height, STRETCHED, alpha);
+	}
+
+	/**
+	 * Queues a draw that covers the given size
+	 *
+	 * @param pixmap
+	 *            The image to draw
+	 * @param x
+	 *            The x coordinate to draw at
+	 * @param y
+	 *            The y coordinate to draw at
+	 * @param srcX
+	 *            The x coordinate of the part in the image
+	 * @param srcY
+	 *            The y coordinate of the part in the image
+	 * @param width
+	 *            The width the draw covers
+	 * @param height
+	 *            The height the draw covers
+	 * @param kind
+	 *            The kind of draw
+	 * @param alpha
+	 *            The opacity of a stretched draw
+	 */
+	private void queue(Pixmap pixmap, int x, int y, int srcX, int srcY,
+			int width, int height, byte kind, float alpha)
+	{
+		if (numDraws == pixmaps.length)
+			grow();
+
+		int right = x + width;
+		int bottom = y + height;
+
+		// Look back for a group from the same bitmap, giving up at the first
+		// group in the way
+		int group = -1;
+		for (int index = numGroups - 1; index >= 0; index--)
+		{
+			if (sources[index] == pixmap.source)
+			{
+				group = index;
+				break;
+			}
+			if (bounds[index * 4] < right && x < bounds[index * 4 + 2]
+					&& bounds[index * 4 + 1] < bottom
+					&& y < bounds[index * 4 + 3])
+				break;
+		}
+
+		int draw = numDraws++;
+		pixmaps[draw] = pixmap;
+		draws[draw * DRAW_SIZE] = x;
+		draws[draw * DRAW_SIZE + 1] = y;
+		draws[draw * DRAW_SIZE + 2] = srcX;
+		draws[draw * DRAW_SIZE + 3] = srcY;
+		draws[draw * DRAW_SIZE + 4] = width;
+		draws[draw * DRAW_SIZE + 5] = height;
+		kinds[draw] = kind;
+		alphas[draw] = alpha;
+		nextDraws[draw] = -1;
+
+		if (group == -1)
+		{
+			group = numGroups++;
+			sources[group] = pixmap.source;
+			firstDraws[group] = draw;
+			bounds[group * 4] = x;
+			bounds[group * 4 + 1] = y;
+			bounds[group * 4 + 2] = right;
+			bounds[group * 4 + 3] = bottom;
+		}
+		else
+		{
+			nextDraws[lastDraws[group]] = draw;
+			bounds[group * 4] = Math.min(bounds[group * 4], x);
+			bounds[group * 4 + 1] = Math.min(bounds[group * 4 + 1], y);
+			bounds[group * 4 + 2] = Math.max(bounds[group * 4 + 2], right);
+			bounds[group * 4 + 3] = Math.max(bounds[group * 4 + 3], bottom);
+		}
+		lastDraws[group] = draw;
+	}
+
+	/**
+	 * Draws everything in the batch with the given graphics content and
+	 * empties the batch
+	 *
+	 * @param g
+	 *            The graphics content to draw with
+	 */
+	void flush(Graphics g)
+	{
+		for (int group = 0; group < numGroups; group++)
+		{
+			for (int draw = firstDraws[group]; draw != -1;
+					draw = nextDraws[draw])
+			{
+				int index = draw * DRAW_SIZE;
+				if (kinds[draw] == WHOLE)
+					g.drawImage(pixmaps[draw], draws[index], draws[index + 1]);
+				else if (kinds[draw] == STRETCHED)
+					g.drawImage(pixmaps[draw], draws[index], draws[index + 1],
+							draws[index + 4], draws[index + 5], alphas[draw]);
+				else
+					g.drawImage(pixmaps[draw], draws[index], draws[index + 1],
+							draws[index + 2], draws[index + 3],
+							draws[index + 4], draws[index + 5]);
+			}
+		}
+
+		// Let go of the images so that the batch doesn't keep them around
+		for (int draw = 0; draw < numDraws; draw++)
+			pixmaps[draw] = null;
+		for (int group = 0; group < numGroups; group++)
+			sources[group] = null;
+		numDraws = 0;
+		numGroups = 0;
+	}
+
+	/**
+	 * Doubles the number of draws the batch has room for
+	 */
+	private void grow()
+	{
+		int size = pixmaps.length * 2;
+		pixmaps = Arrays.copyOf(pixmaps, size);
+		draws = Arrays.copyOf(draws, size * DRAW_SIZE);
+		kinds = Arrays.copyOf(kinds, size);
+		alphas = Arrays.copyOf(alphas, size);
+		nextDraws = Arrays.copyOf(nextDraws, size);
+		sources = Arrays.copyOf(sources, size);
+		firstDraws = Arrays.copyOf(firstDraws, size);
+		lastDraws = Arrays.copyOf(lastDraws, size);
+		bounds = Arrays.copyOf(bounds, size * 4);
+	}
+}
@@ -0,0 +1,105 @@
+package com.pianist.battlelasers.graphics;
+
+/**
+ * The SpriteEffect class animates a single sprite by tweening how opaque it is
+ * and how big it is drawn, instead of flipping through a bitmap for every
+ * frame. An effect only holds its parameters, so one effect can be shared by
+ * every sprite it animates, and it is drawn at whatever time the screen is at.
+ * The effect goes from its start values to its end values over its duration,
+ * and an effect that returns goes there in the first half and back in the
+ * second. Before and after its duration it is drawn as it starts and as it
+ * ends.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class SpriteEffect
+{
+	// How long the effect takes, in seconds
+	private float duration;
+
+	// The opacity and the scale the sprite starts and ends at
+	private float startAlpha;
+
+	private float endAlpha;
+
+	private float startScale;
+
+	private float endScale;
+
+	// Whether the effect goes back to its start values
+	private boolean returns;
+
+	/**
+	 * Creates an effect
+	 *
+	 * @param duration
+	 *            How long the effect takes, in seconds
+	 * @param startAlpha
+	 *            The opacity of the sprite at the start (0 to 1)
+	 * @param endAlpha
+	 *            The opacity of the sprite at the end, or half way through
+	 *            if the effect returns
+	 * @param startScale
+	 *            The size of the sprite at the start, as a multiple of its
+	 *            size
+	 * @param endScale
+	 *            The size of the sprite at the end, or half way through if
+	 *            the effect returns
+	 * @param returns
+	 *            Whether the effect goes back to its start values
+	 */
+	public SpriteEffect(float duration, float startAlpha, float endAlpha,
+			float startScale, float endScale, boolean returns)
+	{
+		this.duration = duration;
+		this.startAlpha = startAlpha;
+		this.endAlpha = endAlpha;
+		this.startScale = startScale;
+		this.endScale = endScale;
+		this.returns = returns;
+	}
+
+	/**
+	 * Returns how far the effect is between its start and end values
+	 *
+	 * @param time
+	 *            The time since the effect started, in seconds
+	 * @return the fraction of the way to the end values (0 to 1)
+	 */
+	public float getProgress(float time)
+	{
+		float progress = Math.max(0, Math.min(1, time / duration));
+		if (returns)
+			progress = 1 - Math.abs(progress * 2 - 1);
+		return progress;
+	}
+
+	/**
+	 * Draws the given sprite centred on the given point as it is at the given
+	 * time of the effect
+	 *
+	 * @param g
+	 *            The graphics content to draw with
+	 * @param sprite
+	 *            The sprite to draw
+	 * @param time
+	 *            The time since the effect started, in seconds
+	 * @param centerX
+	 *            The x coordinate of the centre of the sprite
+	 * @param centerY
+	 *            The y coordinate of the centre of the sprite
+	 */
+	public void draw(Graphics g, Pixmap sprite, float time, int centerX,
+			int centerY)
+	{
+		float progress = getProgress(time);
+		float alpha = startAlpha + (endAlpha - startAlpha) * progress;
+		float scale = startScale + (endScale - startScale) * progress;
+		int width = Math.round(sprite.getWidth() * scale);
+		int height = Math.round(sprite.getHeight() * scale);
+		if (alpha <= 0 || width <= 0 || height <= 0)
+			return;
+		g.drawPixmap(sprite, centerX - width / 2, centerY - height / 2,
+				width, height, alpha);
+	}
+}
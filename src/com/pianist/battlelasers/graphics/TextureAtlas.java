@@ -0,0 +1,298 @@
+package com.pianist.battlelasers.graphics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The TextureAtlas class is the index of the sheets that the small images of
+ * the game were packed into ahead of time. It stores the file name of every
+ * sheet and, for every image, the sheet it is on and where. Graphics loads an
+ * image from its sheet when the image is in the atlas, so that a few large
+ * bitmaps are decoded instead of one for every image, and images drawn one
+ * after another can share a texture.
+ *
+ * The asset starts with the magic number and the version, followed by the
+ * number of sheets and their file names, then the number of images and, for
+ * every image, its file name, its sheet (as a byte) and its position and size
+ * (as shorts). From version 2 every image also has the size it is drawn at
+ * (as shorts), which differs from its size on the sheet in the atlas of the
+ * images that were scaled down for low end devices.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class TextureAtlas
+{
+	// The name of the asset the index is stored in
+	public static final String ASSET_NAME = "TextureAtlas.bin";
+
+	// Marks the start of an index file ("BLTA")
+	private static final int MAGIC = 0x424C5441;
+
+	// The version of the file format
+	private static final int VERSION = 2;
+
+	/**
+	 * The Region class is where an image is in the atlas
+	 */
+	public static class Region
+	{
+		// The sheet the image is on
+		public final int sheet;
+
+		// The position and size of the image on the sheet
+		public final int left;
+
+		public final int top;
+
+		public final int width;
+
+		public final int height;
+
+		// The size of the image in the coordinates the screens draw in
+		public final int logicalWidth;
+
+		public final int logicalHeight;
+
+		/**
+		 * Creates a new region
+		 *
+		 * @param sheet
+		 *            The sheet the image is on
+		 * @param left
+		 *            The x coordinate of the image on the sheet
+		 * @param top
+		 *            The y coordinate of the image on the sheet
+		 * @param width
+		 *            The width of the image
+		 * @param height
+		 *            The height of the image
+		 */
+		public Region(int sheet, int left, int top, int width, int height)
+		{
+			this(sheet, left, top, width, height, width, height);
+		}
+
+		/**
+		 * Creates a new region for an image that is drawn at a different
+		 * size than it has on the sheet
+		 *
+		 * @param sheet
+		 *            The sheet the image is on
+		 * @param left
+		 *            The x coordinate of the image on the sheet
+		 * @param top
+		 *            The y coordinate of the image on the sheet
+		 * @param width
+		 *            The width of the image on the sheet
+		 * @param height
+		 *            The height of the image on the sheet
+		 * @param logicalWidth
+		 *            The width the image is drawn at
+		 * @param logicalHeight
+		 *            The height the image is drawn at
+		 */
+		public Region(int sheet, int left, int top, int width, int height,
+				int logicalWidth, int logicalHeight)
+		{
+			this.sheet = sheet;
+			this.left = left;
+			this.top = top;
+			this.width = width;
+			this.height = height;
+			this.logicalWidth = logicalWidth;
+			this.logicalHeight = logicalHeight;
+		}
+	}
+
+	// The file names of the sheets
+	private List<String> sheets;
+
+	// The file names of the images in the order they were added, and where
+	// each one is
+	private List<String> names;
+
+	private HashMap<String, Region> regions;
+
+	/**
+	 * Creates an empty atlas
+	 */
+	public TextureAtlas()
+	{
+		sheets = new ArrayList<String>();
+		names = new ArrayList<String>();
+		regions = new HashMap<String, Region>();
+	}
+
+	/**
+	 * Reads an atlas from the given stream, which is closed afterwards
+	 *
+	 * @param stream
+	 *            The stream to read the atlas from
+	 * @return the atlas that was read
+	 * @throws IOException
+	 *             If the stream couldn't be read or isn't an atlas
+	 */
+	public static TextureAtlas read(InputStream stream) throws IOException
+	{
+		DataInputStream input = new DataInputStream(new BufferedInputStream(
+				stream));
+		try
+		{
+			if (input.readInt() != MAGIC)
+				throw new IOException("Not a texture atlas");
+			int version = input.readInt();
+			if (version < 1 || version > VERSION)
+				throw new IOException("Unknown texture atlas version "
+						+ version);
+
+			TextureAtlas atlas = new TextureAtlas();
+			int numSheets = input.readInt();
+			for (int sheet = 0; sheet < numSheets; sheet++)
+				atlas.addSheet(input.readUTF());
+			int numRegions = input.readInt();
+			for (int index = 0; index < numRegions; index++)
+			{
+				String name = input.readUTF();
+				int sheet = input.readUnsignedByte();
+				int left = input.readUnsignedShort();
+				int top = input.readUnsignedShort();
+				int width = input.readUnsignedShort();
+				int height = input.readUnsignedShort();
+				int logicalWidth = width;
+				int logicalHeight = height;
+				if (version >= 2)
+				{
+					logicalWidth = input.readUnsignedShort();
+					logicalHeight = input.readUnsignedShort();
+				}
+				if (sheet >= numSheets)
+					throw new IOException("Missing sheet for " + name);
+				atlas.addRegion(name, new Region(sheet, left, top, width,
+						height, logicalWidth, logicalHeight));
+			}
+			return atlas;
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	/**
+	 * Writes the atlas to the given stream, which is closed afterwards
+	 *
+	 * @param stream
+	 *            The stream to write the atlas to
+	 * @throws IOException
+	 *             If the stream couldn't be written to
+	 */
+	public void write(OutputStream stream) throws IOException
+	{
+		DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(stream));
+		try
+		{
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(sheets.size());
+			for (String sheet : sheets)
+				output.writeUTF(sheet);
+			output.writeInt(names.size());
+			for (String name : names)
+			{
+				Region region = regions.get(name);
+				output.writeUTF(name);
+				output.writeByte(region.sheet);
+				output.writeShort(region.left);
+				output.writeShort(region.top);
+				output.writeShort(region.width);
+				output.writeShort(region.height);
+				output.writeShort(region.logicalWidth);
+				output.writeShort(region.logicalHeight);
+			}
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+
+	/**
+	 * Adds a sheet to the atlas
+	 *
+	 * @param fileName
+	 *            The file name of the sheet
+	 * @return the index of the sheet
+	 */
+	public int addSheet(String fileName)
+	{
+		sheets.add(fileName);
+		return sheets.size() - 1;
+	}
+
+	/**
+	 * Adds an image to the atlas
+	 *
+	 * @param fileName
+	 *            The file name of the image
+	 * @param region
+	 *            Where the image is
+	 */
+	public void addRegion(String fileName, Region region)
+	{
+		if (regions.put(fileName, region) == null)
+			names.add(fileName);
+	}
+
+	/**
+	 * Returns the number of sheets in the atlas
+	 *
+	 * @return the number of sheets
+	 */
+	public int getNumSheets()
+	{
+		return sheets.size();
+	}
+
+	/**
+	 * Returns the file name of the given sheet
+	 *
+	 * @param sheet
+	 *            The index of the sheet
+	 * @return the file name of the sheet
+	 */
+	public String getSheet(int sheet)
+	{
+		return sheets.get(sheet);
+	}
+
+	/**
+	 * Finds where the given image is in the atlas
+	 *
+	 * @param fileName
+	 *            The file name of the image
+	 * @return where the image is, or null if it isn't in the atlas
+	 */
+	public Region getRegion(String fileName)
+	{
+		return regions.get(fileName);
+	}
+
+	/**
+	 * Returns the number of images in the atlas
+	 *
+	 * @return the number of images
+	 */
+	public int size()
+	{
+		return names.size();
+	}
+}
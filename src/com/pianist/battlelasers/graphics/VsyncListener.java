@@ -0,0 +1,72 @@
+package com.pianist.battlelasers.graphics;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * The VsyncListener class passes every vsync of the display on to a
+ * FrameScheduler. It is kept apart from the scheduler so that devices without
+ * a Choreographer never load it.
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class VsyncListener implements Choreographer.FrameCallback
+{
+	// The scheduler the vsyncs are passed to
+	private FrameScheduler scheduler;
+
+	// Whether to keep listening
+	private volatile boolean running;
+
+	/**
+	 * Creates a new listener
+	 *
+	 * @param scheduler
+	 *            The scheduler the vsyncs are passed to
+	 */
+	VsyncListener(FrameScheduler scheduler)
+	{
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Starts listening for vsyncs on the UI thread
+	 */
+	void start()
+	{
+		running = true;
+		new Handler(Looper.getMainLooper()).post(new Runnable() {
+			public void run()
+			{
+				if (running)
+					Choreographer.getInstance().postFrameCallback(
+							VsyncListener.this);
+			}
+		});
+	}
+
+	/**
+	 * Stops listening after the next vsync
+	 */
+	void stop()
+	{
+		running = false;
+	}
+
+	/**
+	 * Passes the vsync on and listens for the next one
+	 *
+	 * @param frameTimeNanos
+	 *            The time of the vsync
+	 */
+	public void doFrame(long frameTimeNanos)
+	{
+		scheduler.vsync(frameTimeNanos);
+		if (running)
+			Choreographer.getInstance().postFrameCallback(this);
+	}
+}
@@ -35,6 +35,31 @@ public class Input
 		touchHandler = new TouchHandler(view, scaleX, scaleY);
 	}
 
+	/**
+	 * Creates an input object that maps touches to the coordinates the screens
+	 * draw in, whatever size the view is
+	 * 
+	 * @param context
+	 *            The given context of the phone according to the accelerometer
+	 * @param view
+	 *            The current view of the phone
+	 * @param logicalWidth
+	 *            The width of the coordinates the screens draw in
+	 * @param logicalHeight
+	 *            The height of the coordinates the screens draw in
+	 * @param scaleX
+	 *            The scale of the x component until the view has a size
+	 * @param scaleY
+	 *            The scale of the y component until the view has a size
+	 */
+	public Input(Context context, View view, int logicalWidth,
+			int logicalHeight, float scaleX, float scaleY)
+	{
+		keyHandler = new KeyboardHandler(view);
+		touchHandler = new TouchHandler(view, logicalWidth, logicalHeight,
+				scaleX, scaleY);
+	}
+
 	/**
 	 * Checks if the key is pressed
 	 * 
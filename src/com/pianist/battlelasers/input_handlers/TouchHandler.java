@@ -38,6 +38,16 @@ public class TouchHandler implements OnTouchListener
 
 	float scaleY;
 
+	// The size of the coordinates the screens draw in, and the size of the
+	// view the scales were worked out for
+	int logicalWidth;
+
+	int logicalHeight;
+
+	int viewWidth;
+
+	int viewHeight;
+
 	public TouchHandler(View view, float scaleX, float scaleY)
 	{
 		PoolObjectFactory<TouchEvent> factory = new PoolObjectFactory<TouchEvent>() {
@@ -52,8 +62,42 @@ public class TouchHandler implements OnTouchListener
 		this.scaleY = scaleY;
 	}
 
+	/**
+	 * Creates a touch handler that maps the touches to the given coordinates,
+	 * working the scales out from the size of the view so that they stay
+	 * right whatever size the framebuffer is
+	 * 
+	 * @param view
+	 *            The view to listen to
+	 * @param logicalWidth
+	 *            The width of the coordinates the screens draw in
+	 * @param logicalHeight
+	 *            The height of the coordinates the screens draw in
+	 * @param scaleX
+	 *            The scale to use until the view has a size
+	 * @param scaleY
+	 *            The scale to use until the view has a size
+	 */
+	public TouchHandler(View view, int logicalWidth, int logicalHeight,
+			float scaleX, float scaleY)
+	{
+		this(view, scaleX, scaleY);
+		this.logicalWidth = logicalWidth;
+		this.logicalHeight = logicalHeight;
+	}
+
 	public synchronized boolean onTouch(View v, MotionEvent event)
 	{
+		// Scale from the view to the coordinates the screens draw in
+		if (logicalWidth > 0 && v.getWidth() > 0 && v.getHeight() > 0
+				&& (v.getWidth() != viewWidth || v.getHeight() != viewHeight))
+		{
+			viewWidth = v.getWidth();
+			viewHeight = v.getHeight();
+			scaleX = (float) logicalWidth / viewWidth;
+			scaleY = (float) logicalHeight / viewHeight;
+		}
+
 		int action = event.getAction() & MotionEvent.ACTION_MASK;
 		int pointerIndex = (event.getAction() & MotionEvent.ACTION_POINTER_INDEX_MASK) >> MotionEvent.ACTION_POINTER_INDEX_SHIFT;
 		int pointerCount = event.getPointerCount();
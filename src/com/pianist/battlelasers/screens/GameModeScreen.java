@@ -171,6 +171,18 @@ public class GameModeScreen extends Screen
 	{
 	}
 
+	/**
+	 * Returns whether the screen is waiting for the player to pick a mode,
+	 * which is all it does once its images are loaded
+	 * 
+	 * @return whether the images were loaded
+	 */
+	@Override
+	public boolean isIdle()
+	{
+		return loaded;
+	}
+
 	/**
 	 * Called when the screen is being closed or switched. This method recycles
 	 * all the images it doesn't need anymore
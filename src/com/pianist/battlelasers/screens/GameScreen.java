@@ -1,6 +1,7 @@
 package com.pianist.battlelasers.screens;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -13,8 +14,10 @@ import com.pianist.battlelasers.game_objects.Match;
 import com.pianist.battlelasers.game_objects.Mirror;
 import com.pianist.battlelasers.game_objects.Move;
 import com.pianist.battlelasers.game_objects.Match.Layout;
+import com.pianist.battlelasers.graphics.AssetLoader;
 import com.pianist.battlelasers.graphics.Graphics;
 import com.pianist.battlelasers.graphics.Pixmap;
+import com.pianist.battlelasers.graphics.SpriteEffect;
 import com.pianist.battlelasers.graphics.Graphics.PixmapFormat;
 import com.pianist.battlelasers.input_handlers.Input.KeyEvent;
 import com.pianist.battlelasers.input_handlers.Input.TouchEvent;
@@ -32,6 +35,25 @@ import android.graphics.Point;
  */
 public class GameScreen extends Screen
 {
+	// The images used to play the game, which are decoded in the background
+	// while the game starts (and fetched ahead by the setup screens)
+	static final String[] PLAY_IMAGES = { "LaserBounceBottom.png",
+			"LaserBounceLeft.png", "LaserBounceRight.png",
+			"LaserBounceTop.png", "LaserDiagonalNegative.png",
+			"LaserDiagonalPositive.png", "LaserTipBL.png", "LaserTipBR.png",
+			"LaserTipTL.png", "LaserTipTR.png", "MirrorSelect.png",
+			"TapToStart.png", "Player1Wins.png", "Player2Wins.png",
+			"ComputerWins.png", "LastMove.png", "OutOfTime.png",
+			"WinningGlow.png", "GameMenuBackground.png",
+			"WinCircle.png", "PlayCircle.png", "QuitButtonNormal.png",
+			"QuitButtonClicked.png", "ResumeButtonNormal.png",
+			"ResumeButtonClicked.png", "CloseButtonNormal.png",
+			"CloseButtonClicked.png", "RestartButtonNormal.png",
+			"RestartButtonClicked.png", "MenuNextButtonNormal.png",
+			"MenuNextButtonClicked.png", "MenuNewButtonNormal.png",
+			"MenuNewButtonClicked.png", "Player1Name.png", "Player2Name.png",
+			"ComputerName.png" };
+
 	// The grid and list of mirrors that describes the grid (stored in two ways
 	// for efficiency)
 	private ArrayList<Mirror> mirrors;
@@ -76,6 +98,9 @@ public class GameScreen extends Screen
 
 	private float laserStartTime;
 
+	// The time since the last update when the current frame is drawn
+	private float timeSinceUpdate;
+
 	private float winStartTime;
 
 	private float laserDrawEnd;
@@ -89,12 +114,55 @@ public class GameScreen extends Screen
 	// The number of bounces allowed off the back
 	private int numBouncesAllowed;
 
+	// The ways a segment of the laser path is drawn
+	private static final int SEGMENT_LINE = 0;
+
+	private static final int SEGMENT_CROSS = 1;
+
+	private static final int SEGMENT_VER_BOUNCE = 2;
+
+	private static final int SEGMENT_HOR_BOUNCE = 3;
+
+	private static final int SEGMENT_END = 4;
+
+	// The longest the laser path can be (it never goes through the same cell
+	// in the same direction twice)
+	private static final int MAX_LASER_SEGMENTS = 12 * 8 * 4;
+
+	// The path of the current shot: the centre of each cell it goes through,
+	// the direction it leaves the cell in and how the segment is drawn
+	private final int[] laserPathX = new int[MAX_LASER_SEGMENTS];
+
+	private final int[] laserPathY = new int[MAX_LASER_SEGMENTS];
+
+	private final int[] laserDirections = new int[MAX_LASER_SEGMENTS];
+
+	private final int[] laserSegmentTypes = new int[MAX_LASER_SEGMENTS];
+
+	private int laserLength;
+
+	// Whether the path ends on the target
+	private boolean laserHitsTarget;
+
+	// The spaces the path went through, used while tracing it
+	private final boolean[][] laserVisited = new boolean[12][8];
+
 	// The length of a turn in seconds
 	private int turnLength;
 
 	// The speed of the winning animation
 	private final float WINNING_SPEED = 0.25f;
 
+	// The highlight around the target grows to its full size while the
+	// winner is shown
+	private final SpriteEffect winningEffect = new SpriteEffect(
+			WINNING_SPEED, 1, 1, 0.6f, 1, false);
+
+	// The lines and tiles of the grid glow in and fade out again while the
+	// grid is drawn at the start of the game
+	private static final SpriteEffect GLOW_EFFECT = new SpriteEffect(0.5f,
+			0.2f, 1, 1, 1, true);
+
 	// Whether to show the winner pop-up or not
 	private boolean showWinner;
 
@@ -118,11 +186,20 @@ public class GameScreen extends Screen
 	// The computer player
 	private AI computerPlayer;
 
+	// Whether the computer's move is waiting for the menu to close
+	private boolean computerMoveReady;
+
 	// The state of the game
 	private GameState state;
 	
-	// Whether the images have loaded yet
+	// Whether the images have loaded yet, and the progress of decoding them
 	private boolean loadedImages;
+
+	private AssetLoader.Progress playImages;
+
+	// The background, shaded tiles and grid lines drawn together, since they
+	// don't change during the game
+	private Pixmap boardLayer;
 	
 	// If the game is paused or not, to prevent graphic rendering
 	private volatile boolean paused;
@@ -162,6 +239,9 @@ public class GameScreen extends Screen
 		super(game, match);
 		
 		loadedImages = false;
+		playImages = game.getGraphics().getLoader().load(
+				AssetLoader.CURRENT, PixmapFormat.ARGB4444, PLAY_IMAGES);
+		boardLayer = null;
 		mWaitingForPlayer = false;
 		mDeclinedDialogShown = false;
 		mForfeitDialogShown = false;
@@ -198,9 +278,19 @@ public class GameScreen extends Screen
 				newMirror.rotate();
 		}
 
-		// If the match is a one player game, load the AI
+		// If the match is a one player game, load the AI and make its moves as
+		// soon as they are calculated
 		if (match.onePlayer)
-			computerPlayer = new AI(grid, mirrors, match.computerDifficulty);
+		{
+			computerPlayer = new AI(grid, mirrors, match.computerDifficulty,
+					game.getFileIO());
+			computerPlayer.setMoveListener(new AI.MoveListener() {
+				public void moveCalculated()
+				{
+					computerMoveCalculated();
+				}
+			});
+		}
 
 		// Create the two laser guns
 		playerTwo = new LaserGun(0, 3, true);
@@ -238,6 +328,7 @@ public class GameScreen extends Screen
 		lastMoveEnd = null;
 
 		showMenu = false;
+		computerMoveReady = false;
 		letRelease = false;
 		freezeTime = false;
 		
@@ -253,6 +344,16 @@ public class GameScreen extends Screen
 	 */
 	public synchronized void update(float deltaTime)
 	{
+		// Redraw the whole screen while anything is animating, and otherwise
+		// only the timer bar of the player whose turn it is
+		Graphics g = game.getGraphics();
+		if (state == GameState.Animate || state == GameState.AnimatingLaser
+				|| state == GameState.WinningAnimation || shootLaser)
+			g.invalidateAll();
+		else if (match.timerOn)
+			g.invalidate(22, playerOneTurn ? 778 : 75,
+					Assets.timerBar.getWidth(), Assets.timerBar.getHeight());
+
 		// Update the time variables based on game state
 		timeSinceStart += deltaTime;
 		laserStartTime += deltaTime;
@@ -278,6 +379,8 @@ public class GameScreen extends Screen
 				&& keyEvents.get(0).type == KeyEvent.KEY_UP
 				&& keyEvents.get(0).keyCode == android.view.KeyEvent.KEYCODE_BACK)
 		{
+			g.invalidateAll();
+
 			// If the back key was pressed, change the state of the game based
 			// on the current state
 			if (state == GameState.TapToStart) 
@@ -331,6 +434,7 @@ public class GameScreen extends Screen
 				letRelease = true;
 				shootLaser = true;
 				laserStartTime = 0;
+				traceLaser();
 				lastMoveStart = null;
 				lastMoveEnd = null;
 				freezeTime = false;
@@ -341,8 +445,11 @@ public class GameScreen extends Screen
 		// Get all the touch events that happened since the last call of update
 		List<TouchEvent> touchEvents = game.getInput().getTouchEvents();
 
-		// Get the size of the touch events list
+		// Get the size of the touch events list (any touch could change the
+		// screen)
 		int size = touchEvents.size();
+		if (size > 0)
+			g.invalidateAll();
 
 		// For each event
 		for (int event = 0; event < size; event++)
@@ -644,18 +751,10 @@ public class GameScreen extends Screen
 			}
 		}
 
-		// If it is the AI's turn, check if it is done calculating a move and
-		// then make that move if it did
-		if (match.onePlayer && !playerOneTurn && !showMenu)
-		{
-			if (computerPlayer.isFinishedCalculating())
-			{
-				Move computerMove = computerPlayer.getMove();
-				computerPlayer.userMadeMove(computerMove, false);
-				makeMove(computerMove);
-				computerPlayer.checkAIWin();
-			}
-		}
+		// If the computer's move came in while the menu was showing, make it
+		// now that the menu is closed
+		if (computerMoveReady && !showMenu)
+			makeComputerMove();
 
 		// Update the game state based on how much time passed since the time
 		// ran out
@@ -671,6 +770,39 @@ public class GameScreen extends Screen
 		}
 	}
 
+	/**
+	 * Called from the AI's thread when it has calculated its move. The move is
+	 * made straight away unless the menu is showing, in which case it is made
+	 * once the menu is closed
+	 */
+	private synchronized void computerMoveCalculated()
+	{
+		if (showMenu)
+		{
+			computerMoveReady = true;
+			return;
+		}
+		makeComputerMove();
+	}
+
+	/**
+	 * Makes the move the AI calculated if it is still the AI's turn
+	 */
+	private void makeComputerMove()
+	{
+		computerMoveReady = false;
+		if (!match.onePlayer || playerOneTurn)
+			return;
+
+		// The move is null if it was cancelled after it was calculated
+		Move computerMove = computerPlayer.takeMove();
+		if (computerMove == null)
+			return;
+		computerPlayer.userMadeMove(computerMove, false);
+		makeMove(computerMove);
+		computerPlayer.checkAIWin();
+	}
+
 	/**
 	 * Makes a move by updating the grid and changing turns. Used for AI
 	 * 
@@ -679,6 +811,8 @@ public class GameScreen extends Screen
 	 */
 	private void makeMove(Move move)
 	{
+		game.getGraphics().invalidateAll();
+
 		// Retrieve the starting and ending points of the move
 		Point startPoint = move.getStartPoint();
 		Point endPoint = move.getEndPoint();
@@ -720,6 +854,7 @@ public class GameScreen extends Screen
 			state = GameState.AnimatingLaser;
 			shootLaser = true;
 			laserStartTime = 0;
+			traceLaser();
 			lastMoveStart = null;
 			lastMoveEnd = null;
 			letRelease = false;
@@ -728,168 +863,67 @@ public class GameScreen extends Screen
 	}
 
 	/**
-	 * Draws the laser in the given Graphics context
-	 * 
-	 * @param g
-	 *            The graphics to draw the laser to
+	 * Works out the path of the laser for the shot that is starting. The path
+	 * doesn't change while the laser is shown, so it is traced once into the
+	 * segment arrays and every frame just draws as much of it as the animation
+	 * has reached, without allocating anything.
 	 */
-	private void drawLaser(Graphics g)
+	private void traceLaser()
 	{
-		// Calculate the number of full segments to draw and the leftover
-		// segments for the animation
-		int numOfSegments = (state == GameState.AnimatingLaser) ? (int) (ANIMATION_SPEED
-				* laserStartTime / 62)
-				: Integer.MAX_VALUE;
-		int pixelsLeft = (int) (ANIMATION_SPEED * laserStartTime - (int) (ANIMATION_SPEED
-				* laserStartTime / 62) * 62);
-
-		// Find the start point and direction of the laser based on the guns
+		// Find the start cell and direction of the laser based on the guns
 		// orientation and player turn
 		// Note: directions are same as math quadrants
-		Point laserStart;
+		int row;
+		int col;
 		int laserDirection;
 
 		if (!playerOneTurn)
 		{
 			laserDirection = playerTwo.getDirection();
+			row = 1;
 			if (laserDirection == 3)
-				laserStart = new Point(3, 1);
+				col = 3;
 			else
-				laserStart = new Point(4, 1);
+				col = 4;
 		}
 		else
 		{
 			laserDirection = playerOne.getDirection();
+			row = 10;
 			if (laserDirection == 1)
-				laserStart = new Point(4, 10);
+				col = 4;
 			else
-				laserStart = new Point(3, 10);
+				col = 3;
 		}
 
-		// Store which spaces have been visited in order to draw a smooth
-		// cross-over
-		boolean[][] occupied = new boolean[12][8];
+		// Forget the spaces the last shot visited
+		for (boolean[] visitedRow : laserVisited)
+			Arrays.fill(visitedRow, false);
 
-		// Store the next point, the number of back bounces and
-		Point nextPoint = new Point(laserStart);
 		int numBackBounces = 0;
-		int segmentsDone = 0;
-
-		// Whether to draw a horizonal bounce or vertical bounce or neither
-		boolean horBounce = false;
-		boolean verBounce = false;
+		laserLength = 0;
+		laserHitsTarget = false;
 
-		// While there are still segments to draw in the animation
-		while (segmentsDone <= numOfSegments)
+		while (laserLength < MAX_LASER_SEGMENTS)
 		{
-			// Get the drawing position
-			Point drawPoint = getDrawCoordinates(nextPoint.y, nextPoint.x);
+			// Store the centre of the cell (the same as getDrawCoordinates)
+			int segment = laserLength++;
+			laserPathX[segment] = 25 + col * 62;
+			laserPathY[segment] = 97 + row * 62;
 
-			// If the next point is bouncing off the side
-			if (nextPoint.x == 0 || nextPoint.x == 7)
+			int segmentType;
+
+			// If the laser is bouncing off the side
+			if (col == 0 || col == 7)
 			{
-				// If the next point is in the corner
-				if (nextPoint.y == 0 || nextPoint.y == 11)
+				// The laser stops in the corners
+				if (row == 0 || row == 11)
 				{
-					// If the animation is finished
-					if (segmentsDone < numOfSegments)
-					{
-						// Draw the last segment as a line and update the game
-						// state
-						if (laserDirection % 2 == 1)
-							g.drawPixmap(
-									Assets.laserSegPos,
-									drawPoint.x - Assets.laserSegPos.getWidth()
-											/ 2,
-									drawPoint.y
-											- Assets.laserSegPos.getHeight()
-											/ 2 - 1);
-						else
-							g.drawPixmap(
-									Assets.laserSegNeg,
-									drawPoint.x - Assets.laserSegPos.getWidth()
-											/ 2,
-									drawPoint.y
-											- Assets.laserSegPos.getHeight()
-											/ 2 - 1);
-						if (state == GameState.AnimatingLaser)
-							laserDrawEnd = timeSinceStart;
-						state = GameState.Running;
-						return;
-					}
-					// Otherwise, animate the laser based on the number of
-					// pixels left and direction and update the game state
-					else
-					{
-						if (laserDirection == 1)
-						{
-							g.drawPixmap(Assets.laserTipTR, drawPoint.x - 31
-									+ pixelsLeft - Assets.laserTipTR.getWidth()
-									/ 2, drawPoint.y + 31 - pixelsLeft
-									- Assets.laserTipTR.getHeight() / 2);
-							g.drawPixmap(
-									Assets.laserSegPos,
-									drawPoint.x - Assets.laserSegPos.getWidth()
-											/ 2,
-									drawPoint.y
-											+ Assets.laserSegPos.getHeight()
-											/ 2 - pixelsLeft - 11, 0,
-									Assets.laserSegPos.getHeight() - pixelsLeft
-											- 11, pixelsLeft + 11,
-									pixelsLeft + 11);
-						}
-						else if (laserDirection == 2)
-						{
-							g.drawPixmap(Assets.laserTipTL, drawPoint.x + 31
-									- pixelsLeft - Assets.laserTipTL.getWidth()
-									/ 2, drawPoint.y + 31 - pixelsLeft
-									- Assets.laserTipTL.getHeight() / 2);
-							g.drawPixmap(Assets.laserSegNeg, drawPoint.x
-									+ Assets.laserSegNeg.getWidth() / 2
-									- pixelsLeft - 11, drawPoint.y
-									+ Assets.laserSegPos.getHeight() / 2
-									- pixelsLeft - 11,
-									Assets.laserSegNeg.getWidth() - pixelsLeft
-											- 11,
-									Assets.laserSegNeg.getHeight() - pixelsLeft
-											- 11, pixelsLeft + 11,
-									pixelsLeft + 11);
-						}
-						else if (laserDirection == 3)
-						{
-							g.drawPixmap(Assets.laserTipBL, drawPoint.x + 31
-									- pixelsLeft - Assets.laserTipBL.getWidth()
-									/ 2, drawPoint.y - 31 + pixelsLeft
-									- Assets.laserTipBL.getHeight() / 2);
-							g.drawPixmap(Assets.laserSegPos, drawPoint.x
-									+ Assets.laserSegPos.getWidth() / 2
-									- pixelsLeft - 11, drawPoint.y
-									- Assets.laserSegPos.getHeight() / 2,
-									Assets.laserSegPos.getWidth() - pixelsLeft
-											- 11, 0, pixelsLeft + 11,
-									pixelsLeft + 11);
-						}
-						else
-						{
-							g.drawPixmap(Assets.laserTipBR, drawPoint.x - 31
-									+ pixelsLeft - Assets.laserTipBR.getWidth()
-									/ 2, drawPoint.y - 31 + pixelsLeft
-									- Assets.laserTipBR.getHeight() / 2);
-							g.drawPixmap(
-									Assets.laserSegNeg,
-									drawPoint.x - Assets.laserSegNeg.getWidth()
-											/ 2,
-									drawPoint.y
-											- Assets.laserSegNeg.getHeight()
-											/ 2, 0, 0, pixelsLeft + 11,
-									pixelsLeft + 11);
-						}
-						state = GameState.AnimatingLaser;
-						return;
-					}
+					laserDirections[segment] = laserDirection;
+					laserSegmentTypes[segment] = SEGMENT_END;
+					return;
 				}
 
-				// If it didn't hit the corner, turn the laser appropriately
 				if (laserDirection == 1)
 					laserDirection = 2;
 				else if (laserDirection == 2)
@@ -898,443 +932,526 @@ public class GameScreen extends Screen
 					laserDirection = 4;
 				else
 					laserDirection = 3;
+				segmentType = SEGMENT_VER_BOUNCE;
+			}
+			// If the laser is off the back wall
+			else if (row == 0 || row == 11)
+			{
+				// The laser stops once it used up its back bounces
+				if (numBackBounces == numBouncesAllowed)
+				{
+					laserDirections[segment] = laserDirection;
+					laserSegmentTypes[segment] = SEGMENT_END;
+					return;
+				}
+				numBackBounces++;
 
-				// Specify to draw a vertical bounce
-				verBounce = true;
+				if (laserDirection == 1)
+					laserDirection = 4;
+				else if (laserDirection == 4)
+					laserDirection = 1;
+				else if (laserDirection == 3)
+					laserDirection = 2;
+				else
+					laserDirection = 3;
+				segmentType = SEGMENT_HOR_BOUNCE;
 			}
-			// If the next point is off the back wall
-			else if (nextPoint.y == 0 || nextPoint.y == 11)
+			else
 			{
-				// If it is the last bounce and the animation is finished, draw
-				// the last segment as a line and change the game state
-				if (numBackBounces == numBouncesAllowed
-						&& segmentsDone < numOfSegments)
+				Mirror mirror = grid[row][col];
+
+				// Turn the laser off a mirror based on its orientation
+				if (mirror != null && mirror.isHorizontal())
+				{
+					if (laserDirection == 1)
+						laserDirection = 4;
+					else if (laserDirection == 4)
+						laserDirection = 1;
+					else if (laserDirection == 3)
+						laserDirection = 2;
+					else
+						laserDirection = 3;
+					segmentType = SEGMENT_HOR_BOUNCE;
+				}
+				else if (mirror != null)
+				{
+					if (laserDirection == 1)
+						laserDirection = 2;
+					else if (laserDirection == 2)
+						laserDirection = 1;
+					else if (laserDirection == 3)
+						laserDirection = 4;
+					else
+						laserDirection = 3;
+					segmentType = SEGMENT_VER_BOUNCE;
+				}
+				// Spaces that were already visited are drawn as a cross-over
+				else if (laserVisited[row][col])
+					segmentType = SEGMENT_CROSS;
+				else
 				{
+					laserVisited[row][col] = true;
+					segmentType = SEGMENT_LINE;
+				}
+			}
+			laserDirections[segment] = laserDirection;
+			laserSegmentTypes[segment] = segmentType;
+
+			// The laser stops when it hits the target
+			if ((col == 3 && row == 5 && laserDirection == 4)
+					|| (col == 3 && row == 6 && laserDirection == 1)
+					|| (col == 4 && row == 5 && laserDirection == 3)
+					|| (col == 4 && row == 6 && laserDirection == 2))
+			{
+				laserHitsTarget = true;
+				return;
+			}
+
+			// It also stops when it hits either gun
+			if ((col == 3 && (row == 0 || row == 10) && laserDirection == 4)
+					|| (col == 3 && (row == 1 || row == 11) && laserDirection == 1)
+					|| (col == 4 && (row == 0 || row == 10) && laserDirection == 3)
+					|| (col == 4 && (row == 1 || row == 11) && laserDirection == 2))
+				return;
+
+			// Move the laser to the next cell in the direction it is shooting
+			if (laserDirection == 1)
+			{
+				col++;
+				row--;
+			}
+			else if (laserDirection == 2)
+			{
+				col--;
+				row--;
+			}
+			else if (laserDirection == 3)
+			{
+				col--;
+				row++;
+			}
+			else
+			{
+				col++;
+				row++;
+			}
+		}
+	}
+
+	/**
+	 * Draws the laser in the given Graphics context, following the path that
+	 * was traced when it was shot as far as the animation has reached
+	 * 
+	 * @param g
+	 *            The graphics to draw the laser to
+	 */
+	private void drawLaser(Graphics g)
+	{
+		// Calculate the number of full segments to draw and the leftover
+		// segments for the animation (at the time the frame falls on)
+		float laserTime = laserStartTime + timeSinceUpdate;
+		int numOfSegments = (state == GameState.AnimatingLaser) ? (int) (ANIMATION_SPEED
+				* laserTime / 62)
+				: Integer.MAX_VALUE;
+		int pixelsLeft = (int) (ANIMATION_SPEED * laserTime - (int) (ANIMATION_SPEED
+				* laserTime / 62) * 62);
+
+		// Whether to draw a horizonal bounce or vertical bounce or neither
+		boolean horBounce = false;
+		boolean verBounce = false;
+
+		// While there are still segments to draw in the animation
+		for (int segmentsDone = 0; segmentsDone < laserLength
+				&& segmentsDone <= numOfSegments; segmentsDone++)
+		{
+			// Get the drawing position and what to draw
+			int drawX = laserPathX[segmentsDone];
+			int drawY = laserPathY[segmentsDone];
+			int laserDirection = laserDirections[segmentsDone];
+			int segmentType = laserSegmentTypes[segmentsDone];
+
+			// If the laser ends in a corner or off the last back bounce
+			if (segmentType == SEGMENT_END)
+			{
+				// If the animation is finished
+				if (segmentsDone < numOfSegments)
+				{
+					// Draw the last segment as a line and update the game
+					// state
 					if (laserDirection % 2 == 1)
-						g.drawPixmap(Assets.laserSegPos, drawPoint.x
-								- Assets.laserSegPos.getWidth() / 2,
-								drawPoint.y - Assets.laserSegPos.getHeight()
+						g.drawPixmap(
+								Assets.laserSegPos,
+								drawX - Assets.laserSegPos.getWidth()
+										/ 2,
+								drawY
+										- Assets.laserSegPos.getHeight()
 										/ 2 - 1);
 					else
-						g.drawPixmap(Assets.laserSegNeg, drawPoint.x
-								- Assets.laserSegPos.getWidth() / 2,
-								drawPoint.y - Assets.laserSegPos.getHeight()
+						g.drawPixmap(
+								Assets.laserSegNeg,
+								drawX - Assets.laserSegPos.getWidth()
+										/ 2,
+								drawY
+										- Assets.laserSegPos.getHeight()
 										/ 2 - 1);
 					if (state == GameState.AnimatingLaser)
 						laserDrawEnd = timeSinceStart;
 					state = GameState.Running;
 					return;
 				}
-				// Otherwise, if it is the last bounce, but is still animating,
-				// draw the animation and update the game state
-				else if (numBackBounces == numBouncesAllowed
-						&& segmentsDone == numOfSegments)
+				// Otherwise, animate the laser based on the number of
+				// pixels left and direction and update the game state
+				else
 				{
 					if (laserDirection == 1)
 					{
-						g.drawPixmap(Assets.laserTipTR,
-								drawPoint.x - 31 + pixelsLeft
-										- Assets.laserTipTR.getWidth() / 2,
-								drawPoint.y + 31 - pixelsLeft
-										- Assets.laserTipTR.getHeight() / 2);
-						g.drawPixmap(Assets.laserSegPos, drawPoint.x
-								- Assets.laserSegPos.getWidth() / 2,
-								drawPoint.y + Assets.laserSegPos.getHeight()
+						g.drawPixmap(Assets.laserTipTR, drawX - 31
+								+ pixelsLeft - Assets.laserTipTR.getWidth()
+								/ 2, drawY + 31 - pixelsLeft
+								- Assets.laserTipTR.getHeight() / 2);
+						g.drawPixmap(
+								Assets.laserSegPos,
+								drawX - Assets.laserSegPos.getWidth()
+										/ 2,
+								drawY
+										+ Assets.laserSegPos.getHeight()
 										/ 2 - pixelsLeft - 11, 0,
 								Assets.laserSegPos.getHeight() - pixelsLeft
-										- 11, pixelsLeft + 11, pixelsLeft + 11);
+										- 11, pixelsLeft + 11,
+								pixelsLeft + 11);
 					}
 					else if (laserDirection == 2)
 					{
-						g.drawPixmap(Assets.laserTipTL,
-								drawPoint.x + 31 - pixelsLeft
-										- Assets.laserTipTL.getWidth() / 2,
-								drawPoint.y + 31 - pixelsLeft
-										- Assets.laserTipTL.getHeight() / 2);
-						g.drawPixmap(
-								Assets.laserSegNeg,
-								drawPoint.x + Assets.laserSegNeg.getWidth() / 2
-										- pixelsLeft - 11,
-								drawPoint.y + Assets.laserSegPos.getHeight()
-										/ 2 - pixelsLeft - 11,
-								Assets.laserSegNeg.getWidth() - pixelsLeft - 11,
+						g.drawPixmap(Assets.laserTipTL, drawX + 31
+								- pixelsLeft - Assets.laserTipTL.getWidth()
+								/ 2, drawY + 31 - pixelsLeft
+								- Assets.laserTipTL.getHeight() / 2);
+						g.drawPixmap(Assets.laserSegNeg, drawX
+								+ Assets.laserSegNeg.getWidth() / 2
+								- pixelsLeft - 11, drawY
+								+ Assets.laserSegPos.getHeight() / 2
+								- pixelsLeft - 11,
+								Assets.laserSegNeg.getWidth() - pixelsLeft
+										- 11,
 								Assets.laserSegNeg.getHeight() - pixelsLeft
-										- 11, pixelsLeft + 11, pixelsLeft + 11);
+										- 11, pixelsLeft + 11,
+								pixelsLeft + 11);
 					}
 					else if (laserDirection == 3)
 					{
-						g.drawPixmap(Assets.laserTipBL,
-								drawPoint.x + 31 - pixelsLeft
-										- Assets.laserTipBL.getWidth() / 2,
-								drawPoint.y - 31 + pixelsLeft
-										- Assets.laserTipBL.getHeight() / 2);
-						g.drawPixmap(
-								Assets.laserSegPos,
-								drawPoint.x + Assets.laserSegPos.getWidth() / 2
-										- pixelsLeft - 11,
-								drawPoint.y - Assets.laserSegPos.getHeight()
-										/ 2,
-								Assets.laserSegPos.getWidth() - pixelsLeft - 11,
-								0, pixelsLeft + 11, pixelsLeft + 11);
+						g.drawPixmap(Assets.laserTipBL, drawX + 31
+								- pixelsLeft - Assets.laserTipBL.getWidth()
+								/ 2, drawY - 31 + pixelsLeft
+								- Assets.laserTipBL.getHeight() / 2);
+						g.drawPixmap(Assets.laserSegPos, drawX
+								+ Assets.laserSegPos.getWidth() / 2
+								- pixelsLeft - 11, drawY
+								- Assets.laserSegPos.getHeight() / 2,
+								Assets.laserSegPos.getWidth() - pixelsLeft
+										- 11, 0, pixelsLeft + 11,
+								pixelsLeft + 11);
 					}
 					else
 					{
-						g.drawPixmap(Assets.laserTipBR,
-								drawPoint.x - 31 + pixelsLeft
-										- Assets.laserTipBR.getWidth() / 2,
-								drawPoint.y - 31 + pixelsLeft
-										- Assets.laserTipBR.getHeight() / 2);
-						g.drawPixmap(Assets.laserSegNeg, drawPoint.x
-								- Assets.laserSegNeg.getWidth() / 2,
-								drawPoint.y - Assets.laserSegNeg.getHeight()
+						g.drawPixmap(Assets.laserTipBR, drawX - 31
+								+ pixelsLeft - Assets.laserTipBR.getWidth()
+								/ 2, drawY - 31 + pixelsLeft
+								- Assets.laserTipBR.getHeight() / 2);
+						g.drawPixmap(
+								Assets.laserSegNeg,
+								drawX - Assets.laserSegNeg.getWidth()
+										/ 2,
+								drawY
+										- Assets.laserSegNeg.getHeight()
 										/ 2, 0, 0, pixelsLeft + 11,
 								pixelsLeft + 11);
 					}
 					state = GameState.AnimatingLaser;
 					return;
 				}
-				// If it isn't the last bounce, add this bounce to the number of
-				// back bounces
-				else
-					numBackBounces++;
-
-				// Update the direction of the laser
-				if (laserDirection == 1)
-					laserDirection = 4;
-				else if (laserDirection == 4)
-					laserDirection = 1;
-				else if (laserDirection == 3)
-					laserDirection = 2;
-				else
-					laserDirection = 3;
-
-				// Specify to draw a horizontal bounce
-				horBounce = true;
 			}
-			// If there are no bounces off the side
-			else
+			else if (segmentType == SEGMENT_VER_BOUNCE)
+				verBounce = true;
+			else if (segmentType == SEGMENT_HOR_BOUNCE)
+				horBounce = true;
+			// If the space was already visited (cross-over)
+			else if (segmentType == SEGMENT_CROSS)
 			{
-				// Retreave the mirror at the next position
-				Mirror mirror = grid[nextPoint.y][nextPoint.x];
-
-				// If there is a mirror there
-				if (mirror != null)
+				// If it is animating the current segment
+				if (segmentsDone == numOfSegments)
 				{
-					// Turn the laser and update what to draw based on its
-					// orientation
-					if (mirror.isHorizontal())
+					// Draw the animation based on the direction and
+					// number of pixels left to draw
+					if (pixelsLeft < 25)
 					{
 						if (laserDirection == 1)
-							laserDirection = 4;
-						else if (laserDirection == 4)
-							laserDirection = 1;
-						else if (laserDirection == 3)
-							laserDirection = 2;
-						else
-							laserDirection = 3;
-
-						horBounce = true;
-					}
-					else
-					{
-						if (laserDirection == 1)
-							laserDirection = 2;
-						else if (laserDirection == 2)
-							laserDirection = 1;
-						else if (laserDirection == 3)
-							laserDirection = 4;
-						else
-							laserDirection = 3;
-
-						verBounce = true;
-					}
-				}
-				// If there is not mirror at the next draw point
-				else
-				{
-					// If it was already occupied (cross-over)
-					if (occupied[nextPoint.y][nextPoint.x])
-					{
-						// If it is animating the current segment
-						if (segmentsDone == numOfSegments)
 						{
-							// Draw the animation based on the direction and
-							// number of pixels left to draw
-							if (pixelsLeft < 25)
-							{
-								if (laserDirection == 1)
-								{
-									g.drawPixmap(
-											Assets.laserTipTR,
-											drawPoint.x
-													- 31
-													+ pixelsLeft
-													- Assets.laserTipTR
-															.getWidth() / 2,
-											drawPoint.y
-													+ 31
-													- pixelsLeft
-													- Assets.laserTipTR
-															.getHeight() / 2);
-									g.drawPixmap(
-											Assets.laserSegPos,
-											drawPoint.x
-													- Assets.laserSegPos
-															.getWidth() / 2,
-											drawPoint.y
-													+ Assets.laserSegPos
-															.getHeight() / 2
-													- pixelsLeft - 11, 0,
-											Assets.laserSegPos.getHeight()
-													- pixelsLeft - 11,
-											pixelsLeft + 11, pixelsLeft + 11);
-								}
-								else if (laserDirection == 2)
-								{
-									g.drawPixmap(
-											Assets.laserTipTL,
-											drawPoint.x
-													+ 31
-													- pixelsLeft
-													- Assets.laserTipTL
-															.getWidth() / 2,
-											drawPoint.y
-													+ 31
-													- pixelsLeft
-													- Assets.laserTipTL
-															.getHeight() / 2);
-									g.drawPixmap(
-											Assets.laserSegNeg,
-											drawPoint.x
-													+ Assets.laserSegNeg
-															.getWidth() / 2
-													- pixelsLeft - 11,
-											drawPoint.y
-													+ Assets.laserSegPos
-															.getHeight() / 2
-													- pixelsLeft - 11,
-											Assets.laserSegNeg.getWidth()
-													- pixelsLeft - 11,
-											Assets.laserSegNeg.getHeight()
-													- pixelsLeft - 11,
-											pixelsLeft + 11, pixelsLeft + 11);
-								}
-								else if (laserDirection == 3)
-								{
-									g.drawPixmap(
-											Assets.laserTipBL,
-											drawPoint.x
-													+ 31
-													- pixelsLeft
-													- Assets.laserTipBL
-															.getWidth() / 2,
-											drawPoint.y
-													- 31
-													+ pixelsLeft
-													- Assets.laserTipBL
-															.getHeight() / 2);
-									g.drawPixmap(
-											Assets.laserSegPos,
-											drawPoint.x
-													+ Assets.laserSegPos
-															.getWidth() / 2
-													- pixelsLeft - 11,
-											drawPoint.y
-													- Assets.laserSegPos
-															.getHeight() / 2,
-											Assets.laserSegPos.getWidth()
-													- pixelsLeft - 11, 0,
-											pixelsLeft + 11, pixelsLeft + 11);
-								}
-								else
-								{
-									g.drawPixmap(
-											Assets.laserTipBR,
-											drawPoint.x
-													- 31
-													+ pixelsLeft
-													- Assets.laserTipBR
-															.getWidth() / 2,
-											drawPoint.y
-													- 31
-													+ pixelsLeft
-													- Assets.laserTipBR
-															.getHeight() / 2);
-									g.drawPixmap(
-											Assets.laserSegNeg,
-											drawPoint.x
-													- Assets.laserSegNeg
-															.getWidth() / 2,
-											drawPoint.y
-													- Assets.laserSegNeg
-															.getHeight() / 2,
-											0, 0, pixelsLeft + 11,
-											pixelsLeft + 11);
-								}
-							}
-							else
-							{
-								horBounce = true;
-							}
-
-							if (pixelsLeft >= 25)
-							{
-								if (laserDirection < 3)
-								{
-									g.drawPixmap(
-											Assets.laserBounTop,
-											drawPoint.x
-													- Assets.laserBounTop
-															.getWidth() / 2,
-											drawPoint.y);
-								}
-								else
-								{
-									g.drawPixmap(
-											Assets.laserBounBottom,
-											drawPoint.x
-													- Assets.laserBounBottom
-															.getWidth() / 2,
-											drawPoint.y
-													- Assets.laserBounBottom
-															.getHeight());
-								}
-							}
+							g.drawPixmap(
+									Assets.laserTipTR,
+									drawX
+											- 31
+											+ pixelsLeft
+											- Assets.laserTipTR
+													.getWidth() / 2,
+									drawY
+											+ 31
+											- pixelsLeft
+											- Assets.laserTipTR
+													.getHeight() / 2);
+							g.drawPixmap(
+									Assets.laserSegPos,
+									drawX
+											- Assets.laserSegPos
+													.getWidth() / 2,
+									drawY
+											+ Assets.laserSegPos
+													.getHeight() / 2
+											- pixelsLeft - 11, 0,
+									Assets.laserSegPos.getHeight()
+											- pixelsLeft - 11,
+									pixelsLeft + 11, pixelsLeft + 11);
 						}
-						// Otherwise, just draw the cross-over as two horizontal
-						// bounces
-						else
+						else if (laserDirection == 2)
 						{
-							g.drawPixmap(Assets.laserBounTop, drawPoint.x
-									- Assets.laserBounTop.getWidth() / 2,
-									drawPoint.y);
 							g.drawPixmap(
-									Assets.laserBounBottom,
-									drawPoint.x
-											- Assets.laserBounBottom.getWidth()
-											/ 2,
-									drawPoint.y
-											- Assets.laserBounBottom
-													.getHeight());
+									Assets.laserTipTL,
+									drawX
+											+ 31
+											- pixelsLeft
+											- Assets.laserTipTL
+													.getWidth() / 2,
+									drawY
+											+ 31
+											- pixelsLeft
+											- Assets.laserTipTL
+													.getHeight() / 2);
+							g.drawPixmap(
+									Assets.laserSegNeg,
+									drawX
+											+ Assets.laserSegNeg
+													.getWidth() / 2
+											- pixelsLeft - 11,
+									drawY
+											+ Assets.laserSegPos
+													.getHeight() / 2
+											- pixelsLeft - 11,
+									Assets.laserSegNeg.getWidth()
+											- pixelsLeft - 11,
+									Assets.laserSegNeg.getHeight()
+											- pixelsLeft - 11,
+									pixelsLeft + 11, pixelsLeft + 11);
 						}
-					}
-					// If the position was not visited before
-					else
-					{
-						// Store that this position was visited
-						occupied[nextPoint.y][nextPoint.x] = true;
-
-						// If it is animating this current segment
-						if (segmentsDone == numOfSegments)
-						{
-							// Draw the line segment based on the animation
-							if (laserDirection == 1)
-							{
-								g.drawPixmap(Assets.laserTipTR,
-										drawPoint.x - 31 + pixelsLeft
-												- Assets.laserTipTR.getWidth()
-												/ 2, drawPoint.y + 31
-												- pixelsLeft
-												- Assets.laserTipTR.getHeight()
-												/ 2);
-								g.drawPixmap(
-										Assets.laserSegPos,
-										drawPoint.x
-												- Assets.laserSegPos.getWidth()
-												/ 2,
-										drawPoint.y
-												+ Assets.laserSegPos
-														.getHeight() / 2
-												- pixelsLeft - 11, 0,
-										Assets.laserSegPos.getHeight()
-												- pixelsLeft - 11,
-										pixelsLeft + 11, pixelsLeft + 11);
-							}
-							else if (laserDirection == 2)
-							{
-								g.drawPixmap(Assets.laserTipTL,
-										drawPoint.x + 31 - pixelsLeft
-												- Assets.laserTipTL.getWidth()
-												/ 2, drawPoint.y + 31
-												- pixelsLeft
-												- Assets.laserTipTL.getHeight()
-												/ 2);
-								g.drawPixmap(Assets.laserSegNeg, drawPoint.x
-										+ Assets.laserSegNeg.getWidth() / 2
-										- pixelsLeft - 11, drawPoint.y
-										+ Assets.laserSegPos.getHeight() / 2
-										- pixelsLeft - 11,
-										Assets.laserSegNeg.getWidth()
-												- pixelsLeft - 11,
-										Assets.laserSegNeg.getHeight()
-												- pixelsLeft - 11,
-										pixelsLeft + 11, pixelsLeft + 11);
-							}
-							else if (laserDirection == 3)
-							{
-								g.drawPixmap(Assets.laserTipBL,
-										drawPoint.x + 31 - pixelsLeft
-												- Assets.laserTipBL.getWidth()
-												/ 2, drawPoint.y - 31
-												+ pixelsLeft
-												- Assets.laserTipBL.getHeight()
-												/ 2);
-								g.drawPixmap(Assets.laserSegPos, drawPoint.x
-										+ Assets.laserSegPos.getWidth() / 2
-										- pixelsLeft - 11, drawPoint.y
-										- Assets.laserSegPos.getHeight() / 2,
-										Assets.laserSegPos.getWidth()
-												- pixelsLeft - 11, 0,
-										pixelsLeft + 11, pixelsLeft + 11);
-							}
-							else
-							{
-								g.drawPixmap(Assets.laserTipBR,
-										drawPoint.x - 31 + pixelsLeft
-												- Assets.laserTipBR.getWidth()
-												/ 2, drawPoint.y - 31
-												+ pixelsLeft
-												- Assets.laserTipBR.getHeight()
-												/ 2);
-								g.drawPixmap(
-										Assets.laserSegNeg,
-										drawPoint.x
-												- Assets.laserSegNeg.getWidth()
-												/ 2,
-										drawPoint.y
-												- Assets.laserSegNeg
-														.getHeight() / 2, 0, 0,
-										pixelsLeft + 11, pixelsLeft + 11);
-							}
+						else if (laserDirection == 3)
+						{
+							g.drawPixmap(
+									Assets.laserTipBL,
+									drawX
+											+ 31
+											- pixelsLeft
+											- Assets.laserTipBL
+													.getWidth() / 2,
+									drawY
+											- 31
+											+ pixelsLeft
+											- Assets.laserTipBL
+													.getHeight() / 2);
+							g.drawPixmap(
+									Assets.laserSegPos,
+									drawX
+											+ Assets.laserSegPos
+													.getWidth() / 2
+											- pixelsLeft - 11,
+									drawY
+											- Assets.laserSegPos
+													.getHeight() / 2,
+									Assets.laserSegPos.getWidth()
+											- pixelsLeft - 11, 0,
+									pixelsLeft + 11, pixelsLeft + 11);
 						}
-						// Otherwise, just draw the line segment
 						else
 						{
-							if (laserDirection % 2 == 1)
-							{
-								g.drawPixmap(
-										Assets.laserSegPos,
-										drawPoint.x
-												- Assets.laserSegPos.getWidth()
-												/ 2,
-										drawPoint.y
-												- Assets.laserSegPos
-														.getHeight() / 2 - 1);
-							}
-							else
-							{
-								g.drawPixmap(
-										Assets.laserSegNeg,
-										drawPoint.x
-												- Assets.laserSegNeg.getWidth()
-												/ 2,
-										drawPoint.y
-												- Assets.laserSegNeg
-														.getHeight() / 2 - 1);
-							}
+							g.drawPixmap(
+									Assets.laserTipBR,
+									drawX
+											- 31
+											+ pixelsLeft
+											- Assets.laserTipBR
+													.getWidth() / 2,
+									drawY
+											- 31
+											+ pixelsLeft
+											- Assets.laserTipBR
+													.getHeight() / 2);
+							g.drawPixmap(
+									Assets.laserSegNeg,
+									drawX
+											- Assets.laserSegNeg
+													.getWidth() / 2,
+									drawY
+											- Assets.laserSegNeg
+													.getHeight() / 2,
+									0, 0, pixelsLeft + 11,
+									pixelsLeft + 11);
+						}
+					}
+					else
+					{
+						horBounce = true;
+					}
+
+					if (pixelsLeft >= 25)
+					{
+						if (laserDirection < 3)
+						{
+							g.drawPixmap(
+									Assets.laserBounTop,
+									drawX
+											- Assets.laserBounTop
+													.getWidth() / 2,
+									drawY);
+						}
+						else
+						{
+							g.drawPixmap(
+									Assets.laserBounBottom,
+									drawX
+											- Assets.laserBounBottom
+													.getWidth() / 2,
+									drawY
+											- Assets.laserBounBottom
+													.getHeight());
 						}
 					}
 				}
+				// Otherwise, just draw the cross-over as two horizontal
+				// bounces
+				else
+				{
+					g.drawPixmap(Assets.laserBounTop, drawX
+							- Assets.laserBounTop.getWidth() / 2,
+							drawY);
+					g.drawPixmap(
+							Assets.laserBounBottom,
+							drawX
+									- Assets.laserBounBottom.getWidth()
+									/ 2,
+							drawY
+									- Assets.laserBounBottom
+											.getHeight());
+				}
+			}
+			// If the position was not visited before
+			else
+			{
+				// If it is animating this current segment
+				if (segmentsDone == numOfSegments)
+				{
+					// Draw the line segment based on the animation
+					if (laserDirection == 1)
+					{
+						g.drawPixmap(Assets.laserTipTR,
+								drawX - 31 + pixelsLeft
+										- Assets.laserTipTR.getWidth()
+										/ 2, drawY + 31
+										- pixelsLeft
+										- Assets.laserTipTR.getHeight()
+										/ 2);
+						g.drawPixmap(
+								Assets.laserSegPos,
+								drawX
+										- Assets.laserSegPos.getWidth()
+										/ 2,
+								drawY
+										+ Assets.laserSegPos
+												.getHeight() / 2
+										- pixelsLeft - 11, 0,
+								Assets.laserSegPos.getHeight()
+										- pixelsLeft - 11,
+								pixelsLeft + 11, pixelsLeft + 11);
+					}
+					else if (laserDirection == 2)
+					{
+						g.drawPixmap(Assets.laserTipTL,
+								drawX + 31 - pixelsLeft
+										- Assets.laserTipTL.getWidth()
+										/ 2, drawY + 31
+										- pixelsLeft
+										- Assets.laserTipTL.getHeight()
+										/ 2);
+						g.drawPixmap(Assets.laserSegNeg, drawX
+								+ Assets.laserSegNeg.getWidth() / 2
+								- pixelsLeft - 11, drawY
+								+ Assets.laserSegPos.getHeight() / 2
+								- pixelsLeft - 11,
+								Assets.laserSegNeg.getWidth()
+										- pixelsLeft - 11,
+								Assets.laserSegNeg.getHeight()
+										- pixelsLeft - 11,
+								pixelsLeft + 11, pixelsLeft + 11);
+					}
+					else if (laserDirection == 3)
+					{
+						g.drawPixmap(Assets.laserTipBL,
+								drawX + 31 - pixelsLeft
+										- Assets.laserTipBL.getWidth()
+										/ 2, drawY - 31
+										+ pixelsLeft
+										- Assets.laserTipBL.getHeight()
+										/ 2);
+						g.drawPixmap(Assets.laserSegPos, drawX
+								+ Assets.laserSegPos.getWidth() / 2
+								- pixelsLeft - 11, drawY
+								- Assets.laserSegPos.getHeight() / 2,
+								Assets.laserSegPos.getWidth()
+										- pixelsLeft - 11, 0,
+								pixelsLeft + 11, pixelsLeft + 11);
+					}
+					else
+					{
+						g.drawPixmap(Assets.laserTipBR,
+								drawX - 31 + pixelsLeft
+										- Assets.laserTipBR.getWidth()
+										/ 2, drawY - 31
+										+ pixelsLeft
+										- Assets.laserTipBR.getHeight()
+										/ 2);
+						g.drawPixmap(
+								Assets.laserSegNeg,
+								drawX
+										- Assets.laserSegNeg.getWidth()
+										/ 2,
+								drawY
+										- Assets.laserSegNeg
+												.getHeight() / 2, 0, 0,
+								pixelsLeft + 11, pixelsLeft + 11);
+					}
+				}
+				// Otherwise, just draw the line segment
+				else
+				{
+					if (laserDirection % 2 == 1)
+					{
+						g.drawPixmap(
+								Assets.laserSegPos,
+								drawX
+										- Assets.laserSegPos.getWidth()
+										/ 2,
+								drawY
+										- Assets.laserSegPos
+												.getHeight() / 2 - 1);
+					}
+					else
+					{
+						g.drawPixmap(
+								Assets.laserSegNeg,
+								drawX
+										- Assets.laserSegNeg.getWidth()
+										/ 2,
+								drawY
+										- Assets.laserSegNeg
+												.getHeight() / 2 - 1);
+					}
+				}
 			}
 
 			// If the loop specified to draw a vertical bounce
@@ -1355,12 +1472,12 @@ public class GameScreen extends Screen
 										.getWidth() / 2)
 									g.drawPixmap(
 											Assets.laserTipTR,
-											drawPoint.x
+											drawX
 													- 31
 													+ pixelsLeft
 													- Assets.laserTipTR
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTR
@@ -1371,12 +1488,12 @@ public class GameScreen extends Screen
 								else
 									g.drawPixmap(
 											Assets.laserTipTR,
-											drawPoint.x
+											drawX
 													- 31
 													+ pixelsLeft
 													- Assets.laserTipTR
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTR
@@ -1388,12 +1505,12 @@ public class GameScreen extends Screen
 										.getWidth() / 2)
 									g.drawPixmap(
 											Assets.laserTipTL,
-											drawPoint.x
+											drawX
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
@@ -1404,12 +1521,12 @@ public class GameScreen extends Screen
 								else
 									g.drawPixmap(
 											Assets.laserTipTL,
-											drawPoint.x
+											drawX
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
@@ -1417,9 +1534,9 @@ public class GameScreen extends Screen
 							}
 							g.drawPixmap(
 									Assets.laserBounRight,
-									drawPoint.x
+									drawX
 											- Assets.laserBounRight.getWidth(),
-									drawPoint.y
+									drawY
 											+ Assets.laserBounRight.getHeight()
 											/ 2 - pixelsLeft - 3, 0,
 									Assets.laserBounRight.getHeight()
@@ -1431,9 +1548,9 @@ public class GameScreen extends Screen
 						{
 							if (31 - pixelsLeft < Assets.laserTipBR.getWidth() / 2)
 								g.drawPixmap(Assets.laserTipBR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipBR.getWidth()
-												/ 2, drawPoint.y - 31
+												/ 2, drawY - 31
 												+ pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2, 0, 0,
@@ -1442,17 +1559,17 @@ public class GameScreen extends Screen
 										Assets.laserTipTR.getHeight());
 							else
 								g.drawPixmap(Assets.laserTipBR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipBR.getWidth()
-												/ 2, drawPoint.y - 31
+												/ 2, drawY - 31
 												+ pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2);
 							g.drawPixmap(
 									Assets.laserBounRight,
-									drawPoint.x
+									drawX
 											- Assets.laserBounRight.getWidth(),
-									drawPoint.y
+									drawY
 											- Assets.laserBounRight.getHeight()
 											/ 2, 0, 0,
 									Assets.laserBounRight.getWidth(),
@@ -1462,17 +1579,17 @@ public class GameScreen extends Screen
 						{
 							if (pixelsLeft - 31 < Assets.laserTipBL.getWidth() / 2)
 								g.drawPixmap(Assets.laserTipBL,
-										drawPoint.x + 31 - pixelsLeft
+										drawX + 31 - pixelsLeft
 												- Assets.laserTipBL.getWidth()
-												/ 2, drawPoint.y - 31
+												/ 2, drawY - 31
 												+ pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2);
 							else
 								g.drawPixmap(Assets.laserTipBL,
-										drawPoint.x + 31 - pixelsLeft
+										drawX + 31 - pixelsLeft
 												- Assets.laserTipBL.getWidth()
-												/ 2, drawPoint.y - 31
+												/ 2, drawY - 31
 												+ pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2, 0, 0,
@@ -1481,9 +1598,9 @@ public class GameScreen extends Screen
 										Assets.laserTipTR.getHeight());
 							g.drawPixmap(
 									Assets.laserBounRight,
-									drawPoint.x
+									drawX
 											- Assets.laserBounRight.getWidth(),
-									drawPoint.y
+									drawY
 											- Assets.laserBounRight.getHeight()
 											/ 2, 0, 0,
 									Assets.laserBounRight.getWidth(),
@@ -1492,8 +1609,8 @@ public class GameScreen extends Screen
 					}
 					else
 					{
-						g.drawPixmap(Assets.laserBounRight, drawPoint.x
-								- Assets.laserBounRight.getWidth(), drawPoint.y
+						g.drawPixmap(Assets.laserBounRight, drawX
+								- Assets.laserBounRight.getWidth(), drawY
 								- Assets.laserBounRight.getHeight() / 2);
 					}
 				}
@@ -1509,8 +1626,8 @@ public class GameScreen extends Screen
 										.getWidth() / 2)
 									g.drawPixmap(
 											Assets.laserTipTL,
-											drawPoint.x,
-											drawPoint.y
+											drawX,
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
@@ -1523,12 +1640,12 @@ public class GameScreen extends Screen
 								else
 									g.drawPixmap(
 											Assets.laserTipTL,
-											drawPoint.x
+											drawX
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTR
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
@@ -1540,8 +1657,8 @@ public class GameScreen extends Screen
 										.getWidth() / 2)
 									g.drawPixmap(
 											Assets.laserTipTR,
-											drawPoint.x,
-											drawPoint.y
+											drawX,
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
@@ -1554,12 +1671,12 @@ public class GameScreen extends Screen
 								else
 									g.drawPixmap(
 											Assets.laserTipTR,
-											drawPoint.x
+											drawX
 													- 31
 													+ pixelsLeft
 													- Assets.laserTipTL
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
@@ -1567,8 +1684,8 @@ public class GameScreen extends Screen
 							}
 							g.drawPixmap(
 									Assets.laserBounLeft,
-									drawPoint.x,
-									drawPoint.y
+									drawX,
+									drawY
 											+ Assets.laserBounLeft.getHeight()
 											/ 2 - pixelsLeft - 3, 0,
 									Assets.laserBounLeft.getHeight()
@@ -1579,8 +1696,8 @@ public class GameScreen extends Screen
 						else if (pixelsLeft < 31)
 						{
 							if (31 - pixelsLeft < Assets.laserTipTL.getWidth() / 2)
-								g.drawPixmap(Assets.laserTipBL, drawPoint.x,
-										drawPoint.y - 31 + pixelsLeft
+								g.drawPixmap(Assets.laserTipBL, drawX,
+										drawY - 31 + pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2,
 										Assets.laserTipTL.getWidth() / 2
@@ -1590,16 +1707,16 @@ public class GameScreen extends Screen
 										Assets.laserTipTL.getHeight());
 							else
 								g.drawPixmap(Assets.laserTipBL,
-										drawPoint.x + 31 - pixelsLeft
+										drawX + 31 - pixelsLeft
 												- Assets.laserTipTR.getWidth()
-												/ 2, drawPoint.y - 31
+												/ 2, drawY - 31
 												+ pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2);
 							g.drawPixmap(
 									Assets.laserBounLeft,
-									drawPoint.x,
-									drawPoint.y
+									drawX,
+									drawY
 											- Assets.laserBounLeft.getHeight()
 											/ 2, 0, 0,
 									Assets.laserBounLeft.getWidth(),
@@ -1608,8 +1725,8 @@ public class GameScreen extends Screen
 						else
 						{
 							if (pixelsLeft - 31 < Assets.laserTipTL.getWidth() / 2)
-								g.drawPixmap(Assets.laserTipBR, drawPoint.x,
-										drawPoint.y - 31 + pixelsLeft
+								g.drawPixmap(Assets.laserTipBR, drawX,
+										drawY - 31 + pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2,
 										Assets.laserTipTL.getWidth() / 2
@@ -1619,16 +1736,16 @@ public class GameScreen extends Screen
 										Assets.laserTipTL.getHeight());
 							else
 								g.drawPixmap(Assets.laserTipBR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipTL.getWidth()
-												/ 2, drawPoint.y - 31
+												/ 2, drawY - 31
 												+ pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2);
 							g.drawPixmap(
 									Assets.laserBounLeft,
-									drawPoint.x,
-									drawPoint.y
+									drawX,
+									drawY
 											- Assets.laserBounLeft.getHeight()
 											/ 2, 0, 0,
 									Assets.laserBounLeft.getWidth(),
@@ -1637,8 +1754,8 @@ public class GameScreen extends Screen
 					}
 					else
 					{
-						g.drawPixmap(Assets.laserBounLeft, drawPoint.x,
-								drawPoint.y - Assets.laserBounLeft.getHeight()
+						g.drawPixmap(Assets.laserBounLeft, drawX,
+								drawY - Assets.laserBounLeft.getHeight()
 										/ 2);
 					}
 				}
@@ -1661,12 +1778,12 @@ public class GameScreen extends Screen
 										.getHeight())
 									g.drawPixmap(
 											Assets.laserTipBL,
-											drawPoint.x
+											drawX
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipBL
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													- 31
 													+ pixelsLeft
 													- Assets.laserTipBL
@@ -1677,12 +1794,12 @@ public class GameScreen extends Screen
 								else
 									g.drawPixmap(
 											Assets.laserTipBL,
-											drawPoint.x
+											drawX
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipBL
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													- 31
 													+ pixelsLeft
 													- Assets.laserTipBL
@@ -1694,12 +1811,12 @@ public class GameScreen extends Screen
 										.getHeight())
 									g.drawPixmap(
 											Assets.laserTipTL,
-											drawPoint.x
+											drawX
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
@@ -1710,20 +1827,20 @@ public class GameScreen extends Screen
 								else
 									g.drawPixmap(
 											Assets.laserTipTL,
-											drawPoint.x
+											drawX
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
 															.getHeight() / 2);
 							}
-							g.drawPixmap(Assets.laserBounBottom, drawPoint.x
+							g.drawPixmap(Assets.laserBounBottom, drawX
 									+ Assets.laserBounBottom.getWidth() / 2
-									- pixelsLeft - 3, drawPoint.y
+									- pixelsLeft - 3, drawY
 									- Assets.laserBounBottom.getHeight(),
 									Assets.laserBounBottom.getWidth()
 											- pixelsLeft - 3, 0,
@@ -1734,9 +1851,9 @@ public class GameScreen extends Screen
 						{
 							if (31 - pixelsLeft < Assets.laserTipBL.getHeight())
 								g.drawPixmap(Assets.laserTipBR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipBR.getWidth()
-												/ 2, drawPoint.y - 31
+												/ 2, drawY - 31
 												+ pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2, 0, 0,
@@ -1745,18 +1862,18 @@ public class GameScreen extends Screen
 												- pixelsLeft);
 							else
 								g.drawPixmap(Assets.laserTipBR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipBR.getWidth()
-												/ 2, drawPoint.y - 31
+												/ 2, drawY - 31
 												+ pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2);
 							g.drawPixmap(
 									Assets.laserBounBottom,
-									drawPoint.x
+									drawX
 											- Assets.laserBounBottom.getWidth()
 											/ 2,
-									drawPoint.y
+									drawY
 											- Assets.laserBounBottom
 													.getHeight(), 0, 0,
 									pixelsLeft + 3,
@@ -1766,9 +1883,9 @@ public class GameScreen extends Screen
 						{
 							if (pixelsLeft - 31 < Assets.laserTipBL.getHeight())
 								g.drawPixmap(Assets.laserTipTR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipBR.getWidth()
-												/ 2, drawPoint.y + 31
+												/ 2, drawY + 31
 												- pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2, 0, 0,
@@ -1777,18 +1894,18 @@ public class GameScreen extends Screen
 												+ pixelsLeft);
 							else
 								g.drawPixmap(Assets.laserTipTR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipBR.getWidth()
-												/ 2, drawPoint.y + 31
+												/ 2, drawY + 31
 												- pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2);
 							g.drawPixmap(
 									Assets.laserBounBottom,
-									drawPoint.x
+									drawX
 											- Assets.laserBounBottom.getWidth()
 											/ 2,
-									drawPoint.y
+									drawY
 											- Assets.laserBounBottom
 													.getHeight(), 0, 0,
 									pixelsLeft + 3,
@@ -1799,9 +1916,9 @@ public class GameScreen extends Screen
 					{
 						g.drawPixmap(
 								Assets.laserBounBottom,
-								drawPoint.x - Assets.laserBounBottom.getWidth()
+								drawX - Assets.laserBounBottom.getWidth()
 										/ 2,
-								drawPoint.y
+								drawY
 										- Assets.laserBounBottom.getHeight());
 					}
 				}
@@ -1815,10 +1932,10 @@ public class GameScreen extends Screen
 							{
 								if (31 - pixelsLeft < Assets.laserTipTL
 										.getHeight())
-									g.drawPixmap(Assets.laserTipTL, drawPoint.x
+									g.drawPixmap(Assets.laserTipTL, drawX
 											+ 31 - pixelsLeft
 											- Assets.laserTipTL.getWidth() / 2,
-											drawPoint.y, 0,
+											drawY, 0,
 											Assets.laserTipTL.getHeight() / 2
 													+ pixelsLeft - 31,
 											Assets.laserTipTL.getHeight(),
@@ -1827,12 +1944,12 @@ public class GameScreen extends Screen
 								else
 									g.drawPixmap(
 											Assets.laserTipTL,
-											drawPoint.x
+											drawX
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipTL
@@ -1842,10 +1959,10 @@ public class GameScreen extends Screen
 							{
 								if (pixelsLeft - 31 < Assets.laserTipTL
 										.getHeight())
-									g.drawPixmap(Assets.laserTipBL, drawPoint.x
+									g.drawPixmap(Assets.laserTipBL, drawX
 											+ 31 - pixelsLeft
 											- Assets.laserTipBL.getWidth() / 2,
-											drawPoint.y, 0,
+											drawY, 0,
 											Assets.laserTipTL.getHeight() / 2
 													- pixelsLeft + 31,
 											Assets.laserTipTL.getHeight(),
@@ -1854,20 +1971,20 @@ public class GameScreen extends Screen
 								else
 									g.drawPixmap(
 											Assets.laserTipBL,
-											drawPoint.x
+											drawX
 													+ 31
 													- pixelsLeft
 													- Assets.laserTipBL
 															.getWidth() / 2,
-											drawPoint.y
+											drawY
 													- 31
 													+ pixelsLeft
 													- Assets.laserTipBL
 															.getHeight() / 2);
 							}
-							g.drawPixmap(Assets.laserBounTop, drawPoint.x
+							g.drawPixmap(Assets.laserBounTop, drawX
 									+ Assets.laserBounTop.getWidth() / 2
-									- pixelsLeft - 3, drawPoint.y,
+									- pixelsLeft - 3, drawY,
 									Assets.laserBounBottom.getWidth()
 											- pixelsLeft - 3, 0,
 									pixelsLeft + 3,
@@ -1877,9 +1994,9 @@ public class GameScreen extends Screen
 						{
 							if (31 - pixelsLeft < Assets.laserTipTL.getHeight())
 								g.drawPixmap(Assets.laserTipTR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipTR.getWidth()
-												/ 2, drawPoint.y, 0,
+												/ 2, drawY, 0,
 										Assets.laserTipTL.getHeight() / 2
 												+ pixelsLeft - 31,
 										Assets.laserTipTL.getHeight(),
@@ -1887,24 +2004,24 @@ public class GameScreen extends Screen
 												- pixelsLeft);
 							else
 								g.drawPixmap(Assets.laserTipTR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipTR.getWidth()
-												/ 2, drawPoint.y + 31
+												/ 2, drawY + 31
 												- pixelsLeft
 												- Assets.laserTipTR.getHeight()
 												/ 2);
-							g.drawPixmap(Assets.laserBounTop, drawPoint.x
+							g.drawPixmap(Assets.laserBounTop, drawX
 									- Assets.laserBounTop.getWidth() / 2,
-									drawPoint.y, 0, 0, pixelsLeft + 3,
+									drawY, 0, 0, pixelsLeft + 3,
 									Assets.laserBounTop.getHeight());
 						}
 						else
 						{
 							if (pixelsLeft - 31 < Assets.laserTipTL.getHeight())
 								g.drawPixmap(Assets.laserTipBR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipBR.getWidth()
-												/ 2, drawPoint.y, 0,
+												/ 2, drawY, 0,
 										Assets.laserTipTL.getHeight() / 2
 												- pixelsLeft + 31,
 										Assets.laserTipTL.getHeight(),
@@ -1912,185 +2029,49 @@ public class GameScreen extends Screen
 												+ pixelsLeft);
 							else
 								g.drawPixmap(Assets.laserTipBR,
-										drawPoint.x - 31 + pixelsLeft
+										drawX - 31 + pixelsLeft
 												- Assets.laserTipBR.getWidth()
-												/ 2, drawPoint.y - 31
+												/ 2, drawY - 31
 												+ pixelsLeft
 												- Assets.laserTipBR.getHeight()
 												/ 2);
-							g.drawPixmap(Assets.laserBounTop, drawPoint.x
+							g.drawPixmap(Assets.laserBounTop, drawX
 									- Assets.laserBounTop.getWidth() / 2,
-									drawPoint.y, 0, 0, pixelsLeft + 3,
+									drawY, 0, 0, pixelsLeft + 3,
 									Assets.laserBounTop.getHeight());
 						}
 					}
 					else
 					{
-						g.drawPixmap(Assets.laserBounTop, drawPoint.x
+						g.drawPixmap(Assets.laserBounTop, drawX
 								- Assets.laserBounTop.getWidth() / 2,
-								drawPoint.y);
+								drawY);
 					}
 				}
 			}
 
-			// If the next point leads to hitting the target, update the time of
-			// winning, increment the score and update the game state
-			if (nextPoint.x == 3)
-			{
-				if (nextPoint.y == 5 && laserDirection == 4)
-				{
-					if (state != GameState.WinningAnimation)
-					{
-						winGame();
-					}
-					state = GameState.WinningAnimation;
-					return;
-				}
-				else if (nextPoint.y == 6 && laserDirection == 1)
-				{
-					if (state != GameState.WinningAnimation)
-					{
-						winGame();
-					}
-					state = GameState.WinningAnimation;
-					return;
-				}
-			}
-			else if (nextPoint.x == 4)
+			// If this is the last segment, the laser either hit the target, which
+			// wins the game, or one of the guns
+			if (segmentsDone == laserLength - 1)
 			{
-				if (nextPoint.y == 5 && laserDirection == 3)
-				{
-					if (state != GameState.WinningAnimation)
-					{
-						winGame();
-					}
-					state = GameState.WinningAnimation;
-					return;
-				}
-				else if (nextPoint.y == 6 && laserDirection == 2)
+				if (laserHitsTarget)
 				{
 					if (state != GameState.WinningAnimation)
 					{
 						winGame();
 					}
 					state = GameState.WinningAnimation;
-					return;
-				}
-			}
-
-			// If the next point hits a gun, stop drawing the laser and update
-			// the game state
-			if (nextPoint.x == 3)
-			{
-				if (nextPoint.y == 0 && laserDirection == 4)
-				{
-					if (state == GameState.AnimatingLaser)
-					{
-						laserDrawEnd = timeSinceStart;
-					}
-					state = GameState.Running;
-					return;
-				}
-				else if (nextPoint.y == 1 && laserDirection == 1)
-				{
-					if (state == GameState.AnimatingLaser)
-					{
-						laserDrawEnd = timeSinceStart;
-					}
-					state = GameState.Running;
-					return;
-				}
-			}
-			else if (nextPoint.x == 4)
-			{
-				if (nextPoint.y == 0 && laserDirection == 3)
-				{
-					if (state == GameState.AnimatingLaser)
-					{
-						laserDrawEnd = timeSinceStart;
-					}
-					state = GameState.Running;
-					return;
-				}
-				else if (nextPoint.y == 1 && laserDirection == 2)
-				{
-					if (state == GameState.AnimatingLaser)
-					{
-						laserDrawEnd = timeSinceStart;
-					}
-					state = GameState.Running;
-					return;
-				}
-			}
-
-			if (nextPoint.x == 3)
-			{
-				if (nextPoint.y == 10 && laserDirection == 4)
-				{
-					if (state == GameState.AnimatingLaser)
-					{
-						laserDrawEnd = timeSinceStart;
-					}
-					state = GameState.Running;
-					return;
-				}
-				else if (nextPoint.y == 11 && laserDirection == 1)
-				{
-					if (state == GameState.AnimatingLaser)
-					{
-						laserDrawEnd = timeSinceStart;
-					}
-					state = GameState.Running;
-					return;
-				}
-			}
-			else if (nextPoint.x == 4)
-			{
-				if (nextPoint.y == 10 && laserDirection == 3)
-				{
-					if (state == GameState.AnimatingLaser)
-					{
-						laserDrawEnd = timeSinceStart;
-					}
-					state = GameState.Running;
-					return;
 				}
-				else if (nextPoint.y == 11 && laserDirection == 2)
+				else
 				{
 					if (state == GameState.AnimatingLaser)
 					{
 						laserDrawEnd = timeSinceStart;
 					}
 					state = GameState.Running;
-					return;
 				}
+				return;
 			}
-
-			// Move the laser by updating the next point in the direction it is
-			// shooting
-			if (laserDirection == 1)
-			{
-				nextPoint.x++;
-				nextPoint.y--;
-			}
-			else if (laserDirection == 2)
-			{
-				nextPoint.x--;
-				nextPoint.y--;
-			}
-			else if (laserDirection == 3)
-			{
-				nextPoint.x--;
-				nextPoint.y++;
-			}
-			else
-			{
-				nextPoint.x++;
-				nextPoint.y++;
-			}
-
-			// Increment the number of segments drawn
-			segmentsDone++;
 		}
 
 		// Update the game state
@@ -2148,10 +2129,14 @@ public class GameScreen extends Screen
 		// Change turns
 		playerOneTurn = !playerOneTurn;
 
-		// Update the AI's grid and tell it to start calculating the next move
-		// if it is its turn
+		// Cancel any move the AI was calculating, update its grid and tell it
+		// to start calculating the next move if it is its turn
 		if (match.onePlayer)
+		{
+			computerPlayer.cancelMove();
+			computerMoveReady = false;
 			computerPlayer.userMadeMove(lastMove.reverse(), true);
+		}
 		if (match.onePlayer && !playerOneTurn)
 		{
 			computerPlayer.startCalculatingMove(lastMoveStart, lastMoveEnd);
@@ -2192,6 +2177,8 @@ public class GameScreen extends Screen
 	 */
 	private void changeTurns()
 	{
+		game.getGraphics().invalidateAll();
+
 		// Add the last move to the move stack
 		gameMoves.addLast(new Move(lastMoveStart, lastMoveEnd));
 
@@ -2284,15 +2271,12 @@ public class GameScreen extends Screen
 	 */
 	private synchronized void disposeAnimationImages()
 	{
-		for (int index = 0; index < 5; index++)
-		{
-			game.disposeImage(Assets.horAnimation[index]);
-			game.disposeImage(Assets.verAnimation[index]);
-			game.disposeImage(Assets.tileAnimation[index]);
-		}
-		Assets.horAnimation = null;
-		Assets.verAnimation = null;
-		Assets.tileAnimation = null;
+		game.disposeImage(Assets.horGlow);
+		game.disposeImage(Assets.verGlow);
+		game.disposeImage(Assets.tileGlow);
+		Assets.horGlow = null;
+		Assets.verGlow = null;
+		Assets.tileGlow = null;
 	}
 
 	/**
@@ -2340,12 +2324,8 @@ public class GameScreen extends Screen
 		Assets.lastMove = g.newPixmap("LastMove.png", PixmapFormat.ARGB4444);
 		Assets.timeRanOut = g.newPixmap("OutOfTime.png", PixmapFormat.ARGB4444);
 
-		Assets.winningAnimation = new Pixmap[5];
-		for (int animation = 0; animation < 5; animation++)
-		{
-			Assets.winningAnimation[animation] = g.newPixmap("WinningAnimation"
-					+ (animation + 1) + ".png", PixmapFormat.ARGB4444);
-		}
+		Assets.winningGlow = g.newPixmap("WinningGlow.png",
+				PixmapFormat.ARGB4444);
 
 		Assets.gameMenuBackground = g.newPixmap("GameMenuBackground.png",
 				PixmapFormat.ARGB4444);
@@ -2411,21 +2391,27 @@ public class GameScreen extends Screen
 	 * Draws the screen during the animation state of the game
 	 * 
 	 * @param deltaTime
-	 *            The time since the last updating of the screen
+	 *            The time since the last update of the screen
 	 */
 	private void presentAnimation(float deltaTime)
 	{	
 		Graphics g = game.getGraphics();
 		
-		if (!loadedImages) {
+		// Create the images once they are decoded, or when the animation ends
+		// (decoding whatever is left)
+		if (!loadedImages && (playImages.isDone() || timeSinceStart >= 1.3)) {
 			loadedImages = true;
 			loadPlayImages(g);
 		}
 
 		g.drawPixmap(Assets.gameBackground, 0, 0);
 
+		// Draw the animation at the time in between updates that the frame
+		// falls on
+		float time = timeSinceStart + deltaTime;
+
 		// Draw the shaded tiles
-		if (timeSinceStart >= 1.05)
+		if (time >= 1.05)
 		{
 			for (int row = 0; row < 12; row++)
 			{
@@ -2441,29 +2427,21 @@ public class GameScreen extends Screen
 		}
 
 		// Draw the animation that creates the shaded tiles
-		if (timeSinceStart >= 0.7 && timeSinceStart < 1.2)
+		if (time >= 0.7 && time < 1.2)
 		{
 			for (int row = 0; row < 12; row++)
 			{
 				for (int col = row % 2; col < 8; col += 2)
 				{
 					Point drawPos = getDrawCoordinates(row, col);
-					if (timeSinceStart - 0.7 < 0.25)
-						g.drawPixmap(
-								Assets.tileAnimation[(int) ((timeSinceStart - 0.7) * 20)],
-								drawPos.x - Assets.shadedTile.getWidth() / 2,
-								drawPos.y - Assets.shadedTile.getHeight() / 2);
-					else
-						g.drawPixmap(
-								Assets.tileAnimation[9 - (int) ((timeSinceStart - 0.7) * 20)],
-								drawPos.x - Assets.shadedTile.getWidth() / 2,
-								drawPos.y - Assets.shadedTile.getHeight() / 2);
+					GLOW_EFFECT.draw(g, Assets.tileGlow, time - 0.7f,
+							drawPos.x, drawPos.y);
 				}
 			}
 		}
 
 		// Draw the horizontal lines on the grid
-		if (timeSinceStart >= 0.25)
+		if (time >= 0.25)
 		{
 			for (int row = 0; row < 11; row++)
 			{
@@ -2473,7 +2451,7 @@ public class GameScreen extends Screen
 		}
 
 		// Draw the vertical lines on the grid
-		if (timeSinceStart >= 0.65)
+		if (time >= 0.65)
 		{
 			for (int col = 0; col < 7; col++)
 			{
@@ -2482,34 +2460,23 @@ public class GameScreen extends Screen
 		}
 
 		// Draw the animation that draws the horizontal lines
-		if (timeSinceStart < 0.5)
+		if (time < 0.5)
 		{
 			for (int row = 0; row < 11; row++)
 			{
-				if (timeSinceStart < 0.25)
-					g.drawPixmap(
-							Assets.horAnimation[(int) (timeSinceStart * 20)],
-							240 - Assets.horLine.getWidth() / 2, 97 + 62 * row);
-				else
-					g.drawPixmap(
-							Assets.horAnimation[9 - (int) (timeSinceStart * 20)],
-							240 - Assets.horLine.getWidth() / 2, 97 + 62 * row);
+				GLOW_EFFECT.draw(g, Assets.horGlow, time, 240, 97 + 62 * row
+						+ Assets.horGlow.getHeight() / 2);
 			}
 		}
 
 		// Draw the animation that draws the vertical lines
-		if (timeSinceStart >= 0.4 && timeSinceStart < 0.9)
+		if (time >= 0.4 && time < 0.9)
 		{
 			for (int col = 0; col < 7; col++)
 			{
-				if (timeSinceStart - 0.4 < 0.25)
-					g.drawPixmap(
-							Assets.verAnimation[(int) ((timeSinceStart - 0.4) * 20)],
-							25 + 62 * col, 72);
-				else
-					g.drawPixmap(
-							Assets.verAnimation[9 - (int) ((timeSinceStart - 0.4) * 20)],
-							25 + 62 * col, 72);
+				GLOW_EFFECT.draw(g, Assets.verGlow, time - 0.4f, 25 + 62 * col
+						+ Assets.verGlow.getWidth() / 2,
+						72 + Assets.verGlow.getHeight() / 2);
 			}
 		}
 
@@ -2548,6 +2515,7 @@ public class GameScreen extends Screen
 		// Change game states if the animation is finished
 		if (timeSinceStart >= 1.3)
 		{
+			buildBoardLayer(g);
 			turnStart = timeSinceStart;
 			state = GameState.TapToStart;
 			if (!mDisplayed) {
@@ -2562,25 +2530,28 @@ public class GameScreen extends Screen
 	}
 
 	/**
-	 * Draws the game board
+	 * Draws the background, shaded tiles and grid lines onto the board layer
+	 * so that they can be drawn with a single image every frame
+	 * 
+	 * @param g
+	 *            The graphics content of the screen
 	 */
-	private void presentGameScreen()
+	private void buildBoardLayer(Graphics g)
 	{
-		if (paused) {
-			return;
-		}
-		
-		Graphics g = game.getGraphics();
+		game.disposeImage(boardLayer);
+		boardLayer = g.newPixmap(g.getWidth(), g.getHeight(),
+				PixmapFormat.ARGB8888);
+		Graphics layer = g.newGraphics(boardLayer);
 
 		// Draw the background and shaded tiles
-		g.drawPixmap(Assets.gameBackground, 0, 0);
+		layer.drawPixmap(Assets.gameBackground, 0, 0);
 
 		for (int row = 0; row < 12; row++)
 		{
 			for (int col = row % 2; col < 8; col += 2)
 			{
 				Point drawPos = getDrawCoordinates(row, col);
-				g.drawPixmap(Assets.shadedTile,
+				layer.drawPixmap(Assets.shadedTile,
 						drawPos.x - Assets.shadedTile.getWidth() / 2, drawPos.y
 								- Assets.shadedTile.getHeight() / 2);
 
@@ -2590,13 +2561,32 @@ public class GameScreen extends Screen
 		// Draw the grid lines
 		for (int row = 0; row < 11; row++)
 		{
-			g.drawPixmap(Assets.horLine, 240 - Assets.horLine.getWidth() / 2,
-					97 + 62 * row);
+			layer.drawPixmap(Assets.horLine,
+					240 - Assets.horLine.getWidth() / 2, 97 + 62 * row);
 		}
 		for (int col = 0; col < 7; col++)
 		{
-			g.drawPixmap(Assets.verLine, 25 + 62 * col, 72);
+			layer.drawPixmap(Assets.verLine, 25 + 62 * col, 72);
 		}
+	}
+
+	/**
+	 * Draws the game board
+	 */
+	private void presentGameScreen()
+	{
+		if (paused) {
+			return;
+		}
+		
+		Graphics g = game.getGraphics();
+
+		// Draw the background, shaded tiles and grid lines (building them
+		// again if the screen changed size)
+		if (boardLayer == null || boardLayer.getWidth() != g.getWidth()
+				|| boardLayer.getHeight() != g.getHeight())
+			buildBoardLayer(g);
+		g.drawPixmap(boardLayer, 0, 0);
 
 		// Draw the player highlight and shoot the laser if necessary
 		playerTwo.drawHighlight(g, !playerOneTurn);
@@ -2737,14 +2727,8 @@ public class GameScreen extends Screen
 		Graphics g = game.getGraphics();
 
 		// Draw the growing highlight based on the animation speed
-		g.drawPixmap(Assets.winningAnimation[(int) (Math.min(0.999f,
-				(timeSinceStart - winStartTime) / WINNING_SPEED) * 5)],
-				243 - Assets.winningAnimation[(int) (Math.min(0.999f,
-						(timeSinceStart - winStartTime) / WINNING_SPEED) * 5)]
-						.getWidth() / 2,
-				438 - Assets.winningAnimation[(int) (Math.min(0.999f,
-						(timeSinceStart - winStartTime) / WINNING_SPEED) * 5)]
-						.getHeight() / 2);
+		winningEffect.draw(g, Assets.winningGlow, timeSinceStart
+				- winStartTime, 243, 438);
 
 		// Draws the target
 		g.drawPixmap(Assets.target, 243 - Assets.target.getWidth() / 2,
@@ -2847,17 +2831,23 @@ public class GameScreen extends Screen
 	}
 
 	/**
-	 * Draws the game screen based on how much time passed since the last frame
-	 * was drawn
+	 * Draws the game screen based on how much time passed since the last
+	 * update
 	 * 
 	 * @param deltaTime
-	 *            The amount of time since the last frame was drawn
+	 *            The amount of time since the last update
 	 */
 	public synchronized void present(float deltaTime)
 	{
 		if (paused) {
 			return;
 		}
+		timeSinceUpdate = deltaTime;
+
+		// Queue the images of the frame so that the ones from the same bitmap
+		// are drawn together
+		Graphics g = game.getGraphics();
+		g.beginBatch();
 		
 		// Draw the game screen based on what the game state is
 		if (state == GameState.Animate)
@@ -2867,7 +2857,6 @@ public class GameScreen extends Screen
 		else if (state == GameState.TapToStart)
 		{
 			presentGameScreen();
-			Graphics g = game.getGraphics();
 			if (!match.isOnline) {
 				g.drawPixmap(Assets.tapToStart,
 						240 - Assets.tapToStart.getWidth() / 2, 285);
@@ -2876,7 +2865,6 @@ public class GameScreen extends Screen
 		else if (state == GameState.TimeRanOut)
 		{
 			presentGameScreen();
-			Graphics g = game.getGraphics();
 			g.drawPixmap(Assets.timeRanOut,
 					240 - Assets.timeRanOut.getWidth() / 2, 285);
 		}
@@ -2896,6 +2884,8 @@ public class GameScreen extends Screen
 		{
 			presentMenu();
 		}
+
+		g.endBatch();
 	}
 	
 	/**
@@ -2939,6 +2929,38 @@ public class GameScreen extends Screen
 	public synchronized void resume()
 	{
 		paused = false;
+		game.getGraphics().invalidateAll();
+	}
+
+	/**
+	 * The game screen reports what it changes, so that only the timer bar is
+	 * drawn while nothing else happens
+	 * 
+	 * @return true
+	 */
+	@Override
+	public boolean usesDirtyRegions()
+	{
+		return true;
+	}
+
+	/**
+	 * The game is idle while it waits for a tap to start, or for a person to
+	 * move when there is no timer and nothing is animating or held down (a
+	 * held gun fires after a while without any more touches)
+	 * 
+	 * @return whether the game only changes when touched
+	 */
+	@Override
+	public boolean isIdle()
+	{
+		if (state == GameState.TapToStart)
+			return true;
+		boolean humanTurn = (!match.isOnline && !match.onePlayer)
+				|| playerOneTurn;
+		return state == GameState.Running && humanTurn && !shootLaser
+				&& !match.timerOn && !showWinner && !playerOne.isHeld()
+				&& !playerTwo.isHeld();
 	}
 
 	/**
@@ -2950,6 +2972,13 @@ public class GameScreen extends Screen
 		if (mDispose) {
 			disposeAnimationImages();
 		}
+
+		// Stop the computer player's threads
+		if (computerPlayer != null)
+			computerPlayer.dispose();
+
+		game.disposeImage(boardLayer);
+		boardLayer = null;
 		
 		game.disposeImage(Assets.laserBounBottom);
 		game.disposeImage(Assets.laserBounLeft);
@@ -2972,11 +3001,8 @@ public class GameScreen extends Screen
 		game.disposeImage(Assets.computerWins);
 		game.disposeImage(Assets.lastMove);
 
-		for (int animation = 1; animation <= 5; animation++)
-		{
-			game.disposeImage(Assets.winningAnimation[animation - 1]);
-		}
-		Assets.winningAnimation = null;
+		game.disposeImage(Assets.winningGlow);
+		Assets.winningGlow = null;
 	}
 	
 	/**
@@ -180,6 +180,18 @@ public class InstructionsScreen extends Screen
 	{
 	}
 
+	/**
+	 * Returns whether the screen is idle, which it is once its images are
+	 * loaded since the pages only turn when touched
+	 * 
+	 * @return whether the images were loaded
+	 */
+	@Override
+	public boolean isIdle()
+	{
+		return loaded;
+	}
+
 	/**
 	 * Dispose is called whenever the screen is destroyed, to reduce the memory
 	 * taken up by the assets they are all disposed of
@@ -9,9 +9,10 @@ import com.pianist.battlelasers.Assets;
 import com.pianist.battlelasers.activities.BattleLaserActivity;
 import com.pianist.battlelasers.game_objects.Button;
 import com.pianist.battlelasers.game_objects.Match;
+import com.pianist.battlelasers.graphics.AssetLoader;
 import com.pianist.battlelasers.graphics.Graphics;
-import com.pianist.battlelasers.graphics.Pixmap;
 import com.pianist.battlelasers.graphics.Graphics.PixmapFormat;
+import com.pianist.battlelasers.graphics.Pixmap;
 import com.pianist.battlelasers.input_handlers.Input;
 import com.pianist.battlelasers.input_handlers.Input.KeyEvent;
 import com.pianist.battlelasers.input_handlers.Input.TouchEvent;
@@ -24,6 +25,49 @@ import com.pianist.battlelasers.input_handlers.Input.TouchEvent;
  */
 public class MainMenuScreen extends Screen
 {
+	// The format every image of the game is asked for in
+	private static final PixmapFormat IMAGE_FORMAT = PixmapFormat.ARGB4444;
+
+	// The images the menu itself draws, which are decoded before it is shown
+	// (loadMenuImages hands them out to the assets in this order)
+	private static final String[] MENU_IMAGES = {
+			"MainMenuBackground.png", "PlayGameButtonNormal.png",
+			"PlayGameButtonClicked.png", "InstructionsButtonNormal.png",
+			"InstructionsButtonClicked.png", "AboutButtonNormal.png",
+			"AboutButtonClicked.png", "ExitButtonNormal.png",
+			"ExitButtonClicked.png", "AboutBackground.png",
+			"AboutBackButtonNormal.png", "AboutBackButtonClicked.png",
+			"Background.png" };
+
+	// The images of the other screens, which are decoded in the background
+	// while the menu is shown (loadGameImages hands them out in this order)
+	private static final String[] GAME_IMAGES = {
+			"GameMenuButtonNormal.png", "GameMenuButtonClicked.png",
+			"UndoButtonNormal.png", "UndoButtonClicked.png",
+			"SingleButtonNormal.png", "SingleButtonClicked.png",
+			"LocalMulButtonNormal.png", "LocalMulButtonClicked.png",
+			"OnlineMulButtonNormal.png", "OnlineMulButtonClicked.png",
+			"GameBackground.png", "GameModeScreen.png", "GridHighlight.png",
+			"ShadedTile.png", "Target.png", "MirrorBorder.png",
+			"GameTitleBar.png", "HorizonalGlow.png", "VerticalGlow.png",
+			"TileGlow.png", "HorizonalLine.png", "VerticalLine.png",
+			"MirrorHorizonal.png", "MirrorVertical.png", "CannonBottomLeft.png",
+			"CannonBottomRight.png", "CannonTopLeft.png", "CannonTopRight.png",
+			"CannonBottomLeftSelected.png", "CannonBottomRightSelected.png",
+			"CannonTopLeftSelected.png", "CannonTopRightSelected.png",
+			"TimerBar.png", "CannonBottomLeftHighlight.png",
+			"CannonBottomRightHighlight.png", "CannonTopLeftHighlight.png",
+			"CannonTopRightHighlight.png", "InstMenuButtonNormal.png",
+			"InstMenuButtonClicked.png", "Instructions1.png",
+			"Instructions2.png", "Instructions3.png", "RightButtonNormal.png",
+			"RightButtonClicked.png", "LeftButtonNormal.png",
+			"LeftButtonClicked.png", "SingleGameSetupScreen.png",
+			"MultiSetupScreen.png", "GameSetupScreenOn.png",
+			"GameSetupScreenOff.png", "MatchSearchButtonNormal.png",
+			"MatchSearchButtonClicked.png", "EasyModeSelect.png",
+			"MediumModeSelect.png", "OnOffSelect.png", "SingleDigitSelect.png",
+			"DoubleDigitSelect.png", "MixedSelect.png" };
+
 	boolean loaded;
 
 	boolean loadImages;
@@ -42,6 +86,14 @@ public class MainMenuScreen extends Screen
 
 	Match match;
 
+	// The progress of the images of the menu and of the other screens, and
+	// whether the images of the other screens were created
+	AssetLoader.Progress menuImages;
+
+	AssetLoader.Progress gameImages;
+
+	boolean gameImagesLoaded;
+
 	/**
 	 * Creates the main menu with the current activity and the match details
 	 * 
@@ -60,6 +112,17 @@ public class MainMenuScreen extends Screen
 		match.reset();
 		this.match = match;
 		showAbout = false;
+
+		// Start decoding the images in the background, the menu's first
+		gameImagesLoaded = !loadImages;
+		if (loadImages)
+		{
+			AssetLoader loader = game.getGraphics().getLoader();
+			menuImages = loader.load(AssetLoader.CURRENT,
+					IMAGE_FORMAT, MENU_IMAGES);
+			gameImages = loader.load(AssetLoader.PREFETCH,
+					IMAGE_FORMAT, GAME_IMAGES);
+		}
 	}
 
 	/**
@@ -74,186 +137,16 @@ public class MainMenuScreen extends Screen
 	{
 		Graphics g = game.getGraphics();
 
-		// If the graphic haven't loaded yet, load them
+		// If the graphic haven't loaded yet, load them once the menu's images
+		// are decoded (the progress is shown until then)
 		if (!loaded)
 		{
+			if (loadImages && !menuImages.isDone())
+				return;
 			loaded = true;
 
 			if (loadImages)
-			{
-				Assets.gameMenuButtonNor = g.newPixmap(
-						"GameMenuButtonNormal.png", PixmapFormat.ARGB4444);
-				Assets.gameMenuButtonClck = g.newPixmap(
-						"GameMenuButtonClicked.png", PixmapFormat.ARGB4444);
-				Assets.undoButtonNor = g.newPixmap("UndoButtonNormal.png",
-						PixmapFormat.ARGB4444);
-				Assets.undoButtonClck = g.newPixmap("UndoButtonClicked.png",
-						PixmapFormat.ARGB4444);
-				Assets.singleButtonNor = g.newPixmap("SingleButtonNormal.png",
-						PixmapFormat.ARGB4444);
-				Assets.singleButtonClck = g.newPixmap("SingleButtonClicked.png",
-						PixmapFormat.ARGB4444);
-				Assets.localMultButtonNor = g.newPixmap("LocalMulButtonNormal.png",
-						PixmapFormat.ARGB4444);
-				Assets.localMultButtonClck = g.newPixmap("LocalMulButtonClicked.png",
-						PixmapFormat.ARGB4444);
-				Assets.onlineMultButtonNor = g.newPixmap("OnlineMulButtonNormal.png",
-						PixmapFormat.ARGB4444);
-				Assets.onlineMultButtonClck = g.newPixmap("OnlineMulButtonClicked.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.gameBackground = g.newPixmap("GameBackground.png",
-						PixmapFormat.ARGB4444);
-				Assets.gameModeBackground = g.newPixmap("GameModeScreen.png",
-						PixmapFormat.ARGB4444);
-				Assets.gridHighlight = g.newPixmap("GridHighlight.png",
-						PixmapFormat.ARGB4444);
-				Assets.shadedTile = g.newPixmap("ShadedTile.png",
-						PixmapFormat.ARGB4444);
-				Assets.target = g
-						.newPixmap("Target.png", PixmapFormat.ARGB4444);
-				Assets.mirrorBorder = g.newPixmap("MirrorBorder.png",
-						PixmapFormat.ARGB4444);
-				Assets.gameTitleBar = g.newPixmap("GameTitleBar.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.horAnimation = new Pixmap[5];
-				Assets.verAnimation = new Pixmap[5];
-				Assets.tileAnimation = new Pixmap[5];
-				for (int index = 0; index < 5; index++)
-				{
-					Assets.horAnimation[index] = g.newPixmap(
-							"HorizonalAnimation" + (index + 1) + ".png",
-							PixmapFormat.ARGB4444);
-					Assets.verAnimation[index] = g.newPixmap(
-							"VerticalAnimation" + (index + 1) + ".png",
-							PixmapFormat.ARGB4444);
-					Assets.tileAnimation[index] = g.newPixmap("TileAnimation"
-							+ (index + 1) + ".png", PixmapFormat.ARGB4444);
-				}
-				Assets.horLine = g.newPixmap("HorizonalLine.png",
-						PixmapFormat.ARGB4444);
-				Assets.verLine = g.newPixmap("VerticalLine.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.mirrorHorizonal = g.newPixmap("MirrorHorizonal.png",
-						PixmapFormat.ARGB4444);
-				Assets.mirrorVertical = g.newPixmap("MirrorVertical.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.gunBL = g.newPixmap("CannonBottomLeft.png",
-						PixmapFormat.ARGB4444);
-				Assets.gunBR = g.newPixmap("CannonBottomRight.png",
-						PixmapFormat.ARGB4444);
-				Assets.gunTL = g.newPixmap("CannonTopLeft.png",
-						PixmapFormat.ARGB4444);
-				Assets.gunTR = g.newPixmap("CannonTopRight.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.gunBLSel = g.newPixmap("CannonBottomLeftSelected.png",
-						PixmapFormat.ARGB4444);
-				Assets.gunBRSel = g.newPixmap("CannonBottomRightSelected.png",
-						PixmapFormat.ARGB4444);
-				Assets.gunTLSel = g.newPixmap("CannonTopLeftSelected.png",
-						PixmapFormat.ARGB4444);
-				Assets.gunTRSel = g.newPixmap("CannonTopRightSelected.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.timerBar = g.newPixmap("TimerBar.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.gunBLHighlight = g.newPixmap(
-						"CannonBottomLeftHighlight.png", PixmapFormat.ARGB4444);
-				Assets.gunBRHighlight = g
-						.newPixmap("CannonBottomRightHighlight.png",
-								PixmapFormat.ARGB4444);
-				Assets.gunTLHighlight = g.newPixmap(
-						"CannonTopLeftHighlight.png", PixmapFormat.ARGB4444);
-				Assets.gunTRHighlight = g.newPixmap(
-						"CannonTopRightHighlight.png", PixmapFormat.ARGB4444);
-
-				Assets.mainMenuBackground = g.newPixmap(
-						"MainMenuBackground.png", PixmapFormat.ARGB4444);
-
-				Assets.playGameButtonNor = g.newPixmap(
-						"PlayGameButtonNormal.png", PixmapFormat.ARGB4444);
-				Assets.playGameButtonClck = g.newPixmap(
-						"PlayGameButtonClicked.png", PixmapFormat.ARGB4444);
-
-				Assets.instructionsButtonNor = g.newPixmap(
-						"InstructionsButtonNormal.png", PixmapFormat.ARGB4444);
-				Assets.instructionsButtonClck = g.newPixmap(
-						"InstructionsButtonClicked.png", PixmapFormat.ARGB4444);
-				
-				Assets.instMenuButtonNor = g.newPixmap(
-						"InstMenuButtonNormal.png", PixmapFormat.ARGB4444);
-				Assets.instMenuButtonClck = g.newPixmap(
-						"InstMenuButtonClicked.png", PixmapFormat.ARGB4444);
-
-				Assets.aboutButtonNor = g.newPixmap("AboutButtonNormal.png",
-						PixmapFormat.ARGB4444);
-				Assets.aboutButtonClck = g.newPixmap("AboutButtonClicked.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.exitButtonNor = g.newPixmap("ExitButtonNormal.png",
-						PixmapFormat.ARGB4444);
-				Assets.exitButtonClck = g.newPixmap("ExitButtonClicked.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.aboutBackground = g.newPixmap("AboutBackground.png",
-						PixmapFormat.ARGB4444);
-				Assets.aboutBackButtonNor = g.newPixmap(
-						"AboutBackButtonNormal.png", PixmapFormat.ARGB4444);
-				Assets.aboutBackButtonClck = g.newPixmap(
-						"AboutBackButtonClicked.png", PixmapFormat.ARGB4444);
-
-				Assets.gameInstructions1 = g.newPixmap("Instructions1.png",
-						PixmapFormat.ARGB4444);
-				Assets.gameInstructions2 = g.newPixmap("Instructions2.png",
-						PixmapFormat.ARGB4444);
-				Assets.gameInstructions3 = g.newPixmap("Instructions3.png",
-						PixmapFormat.ARGB4444);
-				
-				Assets.rightButtonNor = g.newPixmap("RightButtonNormal.png",
-						PixmapFormat.ARGB4444);
-				Assets.rightButtonClck = g.newPixmap("RightButtonClicked.png",
-						PixmapFormat.ARGB4444);
-				Assets.leftButtonNor = g.newPixmap("LeftButtonNormal.png",
-						PixmapFormat.ARGB4444);
-				Assets.leftButtonClck = g.newPixmap("LeftButtonClicked.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.background = g.newPixmap("Background.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.singleSetupBackground = g.newPixmap("SingleGameSetupScreen.png",
-						PixmapFormat.ARGB4444);
-				Assets.multiSetupBackground = g.newPixmap("MultiSetupScreen.png",
-						PixmapFormat.ARGB4444);
-				Assets.onSetupBackground = g.newPixmap("GameSetupScreenOn.png",
-						PixmapFormat.ARGB4444);
-				Assets.offSetupBackground = g.newPixmap("GameSetupScreenOff.png",
-						PixmapFormat.ARGB4444);
-				
-				Assets.matchSearchButtonNor = g.newPixmap("MatchSearchButtonNormal.png", 
-						PixmapFormat.ARGB4444);
-				Assets.matchSearchButtonClck = g.newPixmap("MatchSearchButtonClicked.png", 
-						PixmapFormat.ARGB4444);
-				
-				Assets.easyModeSelect = g.newPixmap("EasyModeSelect.png",
-						PixmapFormat.ARGB4444);
-				Assets.mediumModeSelect = g.newPixmap("MediumModeSelect.png",
-						PixmapFormat.ARGB4444);
-				Assets.onOffSelect = g.newPixmap("OnOffSelect.png",
-						PixmapFormat.ARGB4444);
-
-				Assets.singleDigitSelect = g.newPixmap("SingleDigitSelect.png",
-						PixmapFormat.ARGB4444);
-				Assets.doubleDigitSelect = g.newPixmap("DoubleDigitSelect.png",
-						PixmapFormat.ARGB4444);
-				Assets.mixedSelect = g.newPixmap("MixedSelect.png",
-						PixmapFormat.ARGB4444);
-			}
+				loadMenuImages(g);
 
 			playGameButton = new Button(140, 325, Assets.playGameButtonNor,
 					Assets.playGameButtonClck);
@@ -270,6 +163,10 @@ public class MainMenuScreen extends Screen
 		// If the graphics have finished loading
 		else
 		{
+			// Create the images of the other screens once they are decoded
+			if (!gameImagesLoaded && gameImages.isDone())
+				loadGameImages(g);
+
 			// Check if the back key was pressed and close the app if it was
 			List<KeyEvent> keyEvents = game.getInput().getKeyEvents();
 			if (keyEvents.size() > 0
@@ -309,6 +206,7 @@ public class MainMenuScreen extends Screen
 			// Change screens or state based on what button was pressed
 			if (playGameButton.wasReleased())
 			{
+				loadGameImages(g);
 				if (game.isGuideCompleted()) {
 					Screen screen = new GameModeScreen(game, match);
 					game.setScreen(screen);
@@ -320,6 +218,7 @@ public class MainMenuScreen extends Screen
 			}
 			if (instructionsButton.wasReleased())
 			{
+				loadGameImages(g);
 				Screen screen = new InstructionsScreen(game, 1, match, false);
 				game.setScreen(screen);
 			}
@@ -338,6 +237,127 @@ public class MainMenuScreen extends Screen
 		}
 	}
 
+	/**
+	 * Creates the images the menu draws, which were decoded in the background
+	 * 
+	 * @param g
+	 *            The graphics from which to load the images
+	 */
+	private void loadMenuImages(Graphics g)
+	{
+		Pixmap[] images = newPixmaps(g, MENU_IMAGES);
+		int image = 0;
+		Assets.mainMenuBackground = images[image++];
+		Assets.playGameButtonNor = images[image++];
+		Assets.playGameButtonClck = images[image++];
+		Assets.instructionsButtonNor = images[image++];
+		Assets.instructionsButtonClck = images[image++];
+		Assets.aboutButtonNor = images[image++];
+		Assets.aboutButtonClck = images[image++];
+		Assets.exitButtonNor = images[image++];
+		Assets.exitButtonClck = images[image++];
+		Assets.aboutBackground = images[image++];
+		Assets.aboutBackButtonNor = images[image++];
+		Assets.aboutBackButtonClck = images[image++];
+		Assets.background = images[image++];
+	}
+
+	/**
+	 * Creates the images of the other screens. Any that weren't decoded in
+	 * the background yet are decoded now.
+	 * 
+	 * @param g
+	 *            The graphics from which to load the images
+	 */
+	private void loadGameImages(Graphics g)
+	{
+		if (gameImagesLoaded)
+			return;
+		gameImagesLoaded = true;
+
+		Pixmap[] images = newPixmaps(g, GAME_IMAGES);
+		int image = 0;
+		Assets.gameMenuButtonNor = images[image++];
+		Assets.gameMenuButtonClck = images[image++];
+		Assets.undoButtonNor = images[image++];
+		Assets.undoButtonClck = images[image++];
+		Assets.singleButtonNor = images[image++];
+		Assets.singleButtonClck = images[image++];
+		Assets.localMultButtonNor = images[image++];
+		Assets.localMultButtonClck = images[image++];
+		Assets.onlineMultButtonNor = images[image++];
+		Assets.onlineMultButtonClck = images[image++];
+		Assets.gameBackground = images[image++];
+		Assets.gameModeBackground = images[image++];
+		Assets.gridHighlight = images[image++];
+		Assets.shadedTile = images[image++];
+		Assets.target = images[image++];
+		Assets.mirrorBorder = images[image++];
+		Assets.gameTitleBar = images[image++];
+		Assets.horGlow = images[image++];
+		Assets.verGlow = images[image++];
+		Assets.tileGlow = images[image++];
+		Assets.horLine = images[image++];
+		Assets.verLine = images[image++];
+		Assets.mirrorHorizonal = images[image++];
+		Assets.mirrorVertical = images[image++];
+		Assets.gunBL = images[image++];
+		Assets.gunBR = images[image++];
+		Assets.gunTL = images[image++];
+		Assets.gunTR = images[image++];
+		Assets.gunBLSel = images[image++];
+		Assets.gunBRSel = images[image++];
+		Assets.gunTLSel = images[image++];
+		Assets.gunTRSel = images[image++];
+		Assets.timerBar = images[image++];
+		Assets.gunBLHighlight = images[image++];
+		Assets.gunBRHighlight = images[image++];
+		Assets.gunTLHighlight = images[image++];
+		Assets.gunTRHighlight = images[image++];
+		Assets.instMenuButtonNor = images[image++];
+		Assets.instMenuButtonClck = images[image++];
+		Assets.gameInstructions1 = images[image++];
+		Assets.gameInstructions2 = images[image++];
+		Assets.gameInstructions3 = images[image++];
+		Assets.rightButtonNor = images[image++];
+		Assets.rightButtonClck = images[image++];
+		Assets.leftButtonNor = images[image++];
+		Assets.leftButtonClck = images[image++];
+		Assets.singleSetupBackground = images[image++];
+		Assets.multiSetupBackground = images[image++];
+		Assets.onSetupBackground = images[image++];
+		Assets.offSetupBackground = images[image++];
+		Assets.matchSearchButtonNor = images[image++];
+		Assets.matchSearchButtonClck = images[image++];
+		Assets.easyModeSelect = images[image++];
+		Assets.mediumModeSelect = images[image++];
+		Assets.onOffSelect = images[image++];
+		Assets.singleDigitSelect = images[image++];
+		Assets.doubleDigitSelect = images[image++];
+		Assets.mixedSelect = images[image++];
+
+		// Every bundled image has been loaded by now
+		g.releaseBundles();
+	}
+
+	/**
+	 * Creates the given images, which were decoded in the background if the
+	 * loader got to them
+	 * 
+	 * @param g
+	 *            The graphics from which to load the images
+	 * @param fileNames
+	 *            The file names of the images
+	 * @return the images in the same order
+	 */
+	private static Pixmap[] newPixmaps(Graphics g, String[] fileNames)
+	{
+		Pixmap[] images = new Pixmap[fileNames.length];
+		for (int index = 0; index < fileNames.length; index++)
+			images[index] = g.newPixmap(fileNames[index], IMAGE_FORMAT);
+		return images;
+	}
+
 	/**
 	 * Draws the main menu screen
 	 * 
@@ -348,6 +368,19 @@ public class MainMenuScreen extends Screen
 	{
 		Graphics g = game.getGraphics();
 
+		// Show how much of the menu is decoded while it is loading
+		if (!loaded)
+		{
+			int barWidth = g.getWidth() / 2;
+			int barX = (g.getWidth() - barWidth) / 2;
+			int barY = g.getHeight() / 2;
+			g.clear(Color.BLACK);
+			g.drawRect(barX, barY, barWidth, 20, Color.WHITE, false);
+			g.drawRect(barX, barY, (int) (barWidth * menuImages.getFraction()),
+					20, Color.WHITE, true);
+			return;
+		}
+
 		// Draw the main menu background
 		g.drawPixmap(Assets.background, 0, 0);
 		g.drawPixmap(Assets.mainMenuBackground, 0, 0);
@@ -387,6 +420,18 @@ public class MainMenuScreen extends Screen
 	{
 	}
 
+	/**
+	 * The main menu only changes when a button is touched, so it can run at
+	 * the idle frame rate once the images are loaded
+	 * 
+	 * @return whether the images were loaded
+	 */
+	@Override
+	public boolean isIdle()
+	{
+		return loaded;
+	}
+
 	@Override
 	/**
 	 * Dispose is called whenever the screen is destroyed, to reduce the 
@@ -8,8 +8,8 @@ import com.pianist.battlelasers.Assets;
 import com.pianist.battlelasers.activities.BattleLaserActivity;
 import com.pianist.battlelasers.game_objects.Button;
 import com.pianist.battlelasers.game_objects.Match;
+import com.pianist.battlelasers.graphics.AssetLoader;
 import com.pianist.battlelasers.graphics.Graphics;
-import com.pianist.battlelasers.graphics.Pixmap;
 import com.pianist.battlelasers.graphics.Graphics.PixmapFormat;
 import com.pianist.battlelasers.input_handlers.Input;
 import com.pianist.battlelasers.input_handlers.Input.KeyEvent;
@@ -50,6 +50,10 @@ public class MultiSetupScreen extends Screen
 		loaded = false;
 		
 		paused = false;
+
+		// Start decoding the images of the game in case it is started
+		game.getGraphics().getLoader().load(AssetLoader.PREFETCH,
+				PixmapFormat.ARGB4444, GameScreen.PLAY_IMAGES);
 	}
 	
 	/**
@@ -123,20 +127,12 @@ public class MultiSetupScreen extends Screen
 				Assets.gameTitleBar = g.newPixmap("GameTitleBar.png",
 						PixmapFormat.ARGB4444);
 
-				Assets.horAnimation = new Pixmap[5];
-				Assets.verAnimation = new Pixmap[5];
-				Assets.tileAnimation = new Pixmap[5];
-				for (int index = 0; index < 5; index++)
-				{
-					Assets.horAnimation[index] = g.newPixmap(
-							"HorizonalAnimation" + (index + 1) + ".png",
-							PixmapFormat.ARGB4444);
-					Assets.verAnimation[index] = g.newPixmap(
-							"VerticalAnimation" + (index + 1) + ".png",
-							PixmapFormat.ARGB4444);
-					Assets.tileAnimation[index] = g.newPixmap("TileAnimation"
-							+ (index + 1) + ".png", PixmapFormat.ARGB4444);
-				}
+				Assets.horGlow = g.newPixmap("HorizonalGlow.png",
+						PixmapFormat.ARGB4444);
+				Assets.verGlow = g.newPixmap("VerticalGlow.png",
+						PixmapFormat.ARGB4444);
+				Assets.tileGlow = g.newPixmap("TileGlow.png",
+						PixmapFormat.ARGB4444);
 				Assets.horLine = g.newPixmap("HorizonalLine.png",
 						PixmapFormat.ARGB4444);
 				Assets.verLine = g.newPixmap("VerticalLine.png",
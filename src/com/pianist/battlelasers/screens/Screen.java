@@ -30,18 +30,20 @@ public abstract class Screen {
     }
 
     /**
-     * Updates the Screen by passing the amount of time since the last frame for smooth movement
+     * Updates the Screen by a fixed step of time (FixedTimestep.STEP), so that timers and
+     * animations don't depend on the frame rate
      * 
      * @param deltaTime
-     * 		The time since the last frame
+     * 		The time since the last update
      */
     public abstract void update(float deltaTime);
 
     /**
-     * Presents the Screen by letting it draw itself to the framebuffer using the given time since the last frame
+     * Presents the Screen by letting it draw itself to the framebuffer. Frames usually fall in between
+     * two updates, so the time since the last update is given for drawing animations smoothly.
      * 
      * @param deltaTime
-     * 		The time since the last frame
+     * 		The time since the last update (less than a step)
      */
     public abstract void present(float deltaTime);
 
@@ -59,5 +61,25 @@ public abstract class Screen {
      * Tells the Screen it is about to be disposed so it can save necessary game state
      */
     public abstract void dispose();
+
+    /**
+     * Returns whether the Screen reports everything it changes to the graphics with invalidate,
+     * so that only the changed regions are drawn. Other screens are drawn completely every frame.
+     * 
+     * @return whether the Screen uses dirty regions
+     */
+    public boolean usesDirtyRegions() {
+        return false;
+    }
+
+    /**
+     * Returns whether the Screen only changes because of input right now, so that the game loop
+     * can drop to a few frames per second until the next touch or key
+     * 
+     * @return whether the Screen is idle
+     */
+    public boolean isIdle() {
+        return false;
+    }
 }
 
@@ -0,0 +1,362 @@
+package com.pianist.battlelasers.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.pianist.battlelasers.game_objects.AI;
+import com.pianist.battlelasers.game_objects.AI.AIDifficulty;
+import com.pianist.battlelasers.game_objects.LaserPaths;
+import com.pianist.battlelasers.game_objects.Match;
+import com.pianist.battlelasers.game_objects.Mirror;
+import com.pianist.battlelasers.game_objects.MirrorBoard;
+import com.pianist.battlelasers.game_objects.PositionSet;
+import com.pianist.battlelasers.game_objects.ShotCache;
+
+/**
+ * The AIBenchmark class measures how long the hot paths of the AI take on a
+ * desktop JVM, so that slow downs can be caught before a release. It runs
+ * every benchmark on all the built in layouts: generating moves, making and
+ * undoing moves, tracing single shots, tracing only the shots a move changes,
+ * checking for repeated grids with different numbers of archived grids and
+ * choosing a whole move at every difficulty.
+ *
+ * Each benchmark is first run for a few warm up rounds so that the JIT
+ * compiler has settled, then for a number of measured rounds. The time of a
+ * single operation is printed as the average over the measured rounds along
+ * with the spread between them.
+ *
+ * Usage: AIBenchmark [-layout index] [-rounds count] [-roundTime
+ * milliseconds] [-searchTime milliseconds] [-filter text]
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class AIBenchmark
+{
+	// The most moves that can be made on a single turn (five for each mirror)
+	private static final int MAX_MOVES = 5 * MirrorBoard.NUM_CELLS;
+
+	// The number of rounds run before measuring
+	private static final int WARM_UP_ROUNDS = 3;
+
+	// The numbers of archived grids the repetition checks are measured with
+	private static final int[] ARCHIVE_SIZES = { 10, 100, 1000 };
+
+	// Collects the results of the operations so that the JIT compiler can't
+	// throw them away
+	private static long sink = 0;
+
+	// The number of measured rounds and how long each one lasts
+	private int rounds;
+
+	private long roundNanos;
+
+	// How long the impossible AI may search for each move
+	private int searchTime;
+
+	// Only benchmarks with this text in their name are run
+	private String filter;
+
+	/**
+	 * The Benchmark class is a single operation that is timed
+	 */
+	private abstract static class Benchmark
+	{
+		final String name;
+
+		/**
+		 * Creates a new benchmark
+		 *
+		 * @param name
+		 *            The name that the results are printed under
+		 */
+		Benchmark(String name)
+		{
+			this.name = name;
+		}
+
+		/**
+		 * Runs the operation once
+		 *
+		 * @return any result of the operation (used so that it isn't
+		 *         optimised away)
+		 */
+		abstract long run();
+
+		/**
+		 * Cleans up after the benchmark is done
+		 */
+		void dispose()
+		{
+		}
+	}
+
+	/**
+	 * Creates a new benchmark runner
+	 *
+	 * @param rounds
+	 *            The number of measured rounds
+	 * @param roundTime
+	 *            How long each round lasts (in milliseconds)
+	 * @param searchTime
+	 *            How long the impossible AI may search for each move (in
+	 *            milliseconds)
+	 * @param filter
+	 *            Only benchmarks with this text in their name are run
+	 */
+	public AIBenchmark(int rounds, int roundTime, int searchTime, String filter)
+	{
+		this.rounds = rounds;
+		this.roundNanos = roundTime * 1000000L;
+		this.searchTime = searchTime;
+		this.filter = filter;
+	}
+
+	/**
+	 * Runs every benchmark on the given layout
+	 *
+	 * @param layout
+	 *            The index of the layout
+	 * @param board
+	 *            The starting board of the layout
+	 */
+	public void runLayout(int layout, final MirrorBoard board)
+	{
+		String prefix = "layout " + layout + " ";
+		final int[] moves = new int[MAX_MOVES];
+		final int numMoves = board.generateMoves(moves, -1, -1);
+
+		measure(new Benchmark(prefix + "generateMoves") {
+			long run()
+			{
+				return board.generateMoves(moves, -1, -1);
+			}
+		});
+
+		measure(new Benchmark(prefix + "makeMove and unmakeMove (all moves)") {
+			long run()
+			{
+				long hash = 0;
+				for (int index = 0; index < numMoves; index++)
+				{
+					board.makeMove(moves[index]);
+					hash ^= board.getHash();
+					board.unmakeMove(moves[index]);
+				}
+				return hash;
+			}
+		});
+
+		measure(new Benchmark(prefix + "shoot (one shot)") {
+			long run()
+			{
+				return LaserPaths.shoot(board, false, true);
+			}
+		});
+
+		final ShotCache shots = new ShotCache();
+		shots.reset(board);
+		measure(new Benchmark(prefix + "resultAfter (all moves, both shots)") {
+			long run()
+			{
+				long total = 0;
+				for (int index = 0; index < numMoves; index++)
+				{
+					int move = moves[index];
+					board.makeMove(move);
+					total += shots.resultAfter(board, move, false, false)
+							+ shots.resultAfter(board, move, false, true);
+					board.unmakeMove(move);
+				}
+				return total;
+			}
+		});
+
+		for (int size : ARCHIVE_SIZES)
+		{
+			final PositionSet archive = createArchive(board, size);
+			measure(new Benchmark(prefix + "usedGrid (all moves, " + size
+					+ " archived)") {
+				long run()
+				{
+					long found = 0;
+					for (int index = 0; index < numMoves; index++)
+					{
+						board.makeMove(moves[index]);
+						if (archive.contains(board.getHash()))
+							found++;
+						board.unmakeMove(moves[index]);
+					}
+					return found;
+				}
+			});
+		}
+
+		for (final AIDifficulty difficulty : AIDifficulty.values())
+		{
+			final AI ai = createAI(board, difficulty);
+			measure(new Benchmark(prefix + "findMove (" + difficulty + ")") {
+				long run()
+				{
+					return ai.chooseMove(-1, -1, System.currentTimeMillis()
+							+ searchTime);
+				}
+
+				void dispose()
+				{
+					ai.dispose();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Warms up and then times the given benchmark, printing the result
+	 *
+	 * @param benchmark
+	 *            The benchmark to time
+	 */
+	private void measure(Benchmark benchmark)
+	{
+		if (!benchmark.name.contains(filter))
+		{
+			benchmark.dispose();
+			return;
+		}
+
+		for (int round = 0; round < WARM_UP_ROUNDS; round++)
+			runRound(benchmark);
+
+		double[] times = new double[rounds];
+		double total = 0;
+		for (int round = 0; round < rounds; round++)
+		{
+			times[round] = runRound(benchmark);
+			total += times[round];
+		}
+		benchmark.dispose();
+
+		double average = total / rounds;
+		double variance = 0;
+		for (double time : times)
+			variance += (time - average) * (time - average);
+		double deviation = Math.sqrt(variance / rounds);
+
+		System.out.println(String.format("%-52s %14.1f ns/op +- %.1f",
+				benchmark.name, average, deviation));
+	}
+
+	/**
+	 * Runs the given benchmark for one round
+	 *
+	 * @param benchmark
+	 *            The benchmark to run
+	 * @return the average time of an operation in the round (in nanoseconds)
+	 */
+	private double runRound(Benchmark benchmark)
+	{
+		long start = System.nanoTime();
+		long elapsed;
+		int operations = 0;
+		do
+		{
+			sink += benchmark.run();
+			operations++;
+			elapsed = System.nanoTime() - start;
+		}
+		while (elapsed < roundNanos);
+		return (double) elapsed / operations;
+	}
+
+	/**
+	 * Creates an archive of grids reached by making random moves from the
+	 * given board, like the grids used in a long game
+	 *
+	 * @param board
+	 *            The board to start from (it is left unchanged)
+	 * @param size
+	 *            The number of grids to archive
+	 * @return the archive of grids
+	 */
+	private static PositionSet createArchive(MirrorBoard board, int size)
+	{
+		Random random = new Random(size);
+		MirrorBoard walk = new MirrorBoard(board);
+		int[] moves = new int[MAX_MOVES];
+		PositionSet archive = new PositionSet();
+		archive.add(walk.getHash());
+		while (archive.size() < size)
+		{
+			int numMoves = walk.generateMoves(moves, -1, -1);
+			walk.makeMove(moves[random.nextInt(numMoves)]);
+			archive.add(walk.getHash());
+		}
+		return archive;
+	}
+
+	/**
+	 * Creates an AI playing on the given board
+	 *
+	 * @param board
+	 *            The board to play on
+	 * @param difficulty
+	 *            The difficulty of the AI
+	 * @return the new AI
+	 */
+	private static AI createAI(MirrorBoard board, AIDifficulty difficulty)
+	{
+		Mirror[][] grid = new Mirror[12][8];
+		List<Mirror> mirrors = new ArrayList<Mirror>();
+		for (int cell = 0; cell < MirrorBoard.NUM_CELLS; cell++)
+		{
+			if (!board.hasMirror(cell))
+				continue;
+			Mirror mirror = new Mirror(MirrorBoard.row(cell),
+					MirrorBoard.col(cell));
+			if (!board.isHorizontal(cell))
+				mirror.rotate();
+			grid[mirror.row][mirror.col] = mirror;
+			mirrors.add(mirror);
+		}
+		return new AI(grid, mirrors, difficulty, null);
+	}
+
+	/**
+	 * Runs the benchmarks on every layout (or the chosen one)
+	 *
+	 * @param args
+	 *            The options described in the class comment
+	 */
+	public static void main(String[] args)
+	{
+		int onlyLayout = -1;
+		int rounds = 5;
+		int roundTime = 500;
+		int searchTime = 200;
+		String filter = "";
+		for (int index = 0; index + 1 < args.length; index += 2)
+		{
+			if (args[index].equals("-layout"))
+				onlyLayout = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-rounds"))
+				rounds = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-roundTime"))
+				roundTime = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-searchTime"))
+				searchTime = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-filter"))
+				filter = args[index + 1];
+		}
+
+		AIBenchmark benchmark = new AIBenchmark(rounds, roundTime,
+				searchTime, filter);
+		Match match = new Match();
+		for (int layout = 0; layout < match.getNumLayouts(); layout++)
+			if (onlyLayout < 0 || layout == onlyLayout)
+				benchmark.runLayout(layout, match.getLayout(layout).toBoard(
+						false));
+
+		// Print the sink so that none of the work can be skipped
+		System.out.println("(" + sink + ")");
+	}
+}
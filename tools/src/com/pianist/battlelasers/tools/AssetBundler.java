@@ -0,0 +1,209 @@
+package com.pianist.battlelasers.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import com.pianist.battlelasers.graphics.AssetBundle;
+import com.pianist.battlelasers.graphics.Graphics;
+import com.pianist.battlelasers.graphics.Graphics.PixmapFormat;
+import com.pianist.battlelasers.graphics.TextureAtlas;
+
+/**
+ * The AssetBundler class decodes the images of a directory ahead of time into
+ * an asset bundle, which the game copies pixels out of while it starts
+ * instead of inflating PNG files. Every image is converted to the format the
+ * format policy of Graphics picks for it when the screens ask for it in the
+ * given format, premultiplied by its alpha like Android keeps it, and stored
+ * LZ4 compressed unless that doesn't make it smaller.
+ *
+ * The formats are the ones picked on devices that can make ARGB4444 bitmaps,
+ * so images with alpha are stored with four bits a channel. Those devices
+ * copy them straight into their bitmaps, and newer ones (Android 4.4 and
+ * later) expand them to eight bits a channel while copying, so one bundle of
+ * half the size serves both.
+ *
+ * The images that were packed into the texture atlas of the directory are
+ * left out, since the game takes them from the sheets of the atlas, which
+ * are bundled instead.
+ *
+ * Usage: AssetBundler [-in directory] [-format ARGB8888|ARGB4444|RGB565]
+ * [-raw]
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class AssetBundler
+{
+	// The format the screens ask for the images in
+	private PixmapFormat format;
+
+	// Whether the pixels are compressed
+	private boolean compress;
+
+	/**
+	 * Creates a new bundler
+	 *
+	 * @param format
+	 *            The format the screens ask for the images in
+	 * @param compress
+	 *            Whether to compress the pixels
+	 */
+	public AssetBundler(PixmapFormat format, boolean compress)
+	{
+		this.format = format;
+		this.compress = compress;
+	}
+
+	/**
+	 * Bundles the images of the given directory into a bundle in the same
+	 * directory
+	 *
+	 * @param directory
+	 *            The directory with the images
+	 * @return the bundle that was written
+	 * @throws IOException
+	 *             If an image couldn't be read or the bundle written
+	 */
+	public AssetBundle bundle(File directory) throws IOException
+	{
+		TextureAtlas atlas = new TextureAtlas();
+		File index = new File(directory, TextureAtlas.ASSET_NAME);
+		if (index.exists())
+			atlas = TextureAtlas.read(new FileInputStream(index));
+
+		AssetBundle bundle = new AssetBundle();
+		String[] names = directory.list();
+		Arrays.sort(names);
+		for (String name : names)
+		{
+			if (!name.endsWith(".png") || atlas.getRegion(name) != null)
+				continue;
+			BufferedImage image = ImageIO.read(new File(directory, name));
+			if (image == null)
+				continue;
+			int width = image.getWidth();
+			int height = image.getHeight();
+			boolean hasAlpha = image.getColorModel().hasAlpha();
+			PixmapFormat imageFormat = Graphics.choosePixmapFormat(format,
+					width, height, hasAlpha, true);
+			bundle.addImage(name, imageFormat, width, height, hasAlpha,
+					encode(image, imageFormat), compress);
+		}
+		bundle.write(new FileOutputStream(new File(directory,
+				AssetBundle.ASSET_NAME)));
+		return bundle;
+	}
+
+	/**
+	 * Converts an image to the bytes a bitmap of the given format holds:
+	 * premultiplied RGBA bytes for ARGB8888, and little endian shorts with
+	 * red in the top bits for the other formats
+	 *
+	 * @param image
+	 *            The image
+	 * @param format
+	 *            The format of the bitmap
+	 * @return the pixels of the bitmap
+	 */
+	private static byte[] encode(BufferedImage image, PixmapFormat format)
+	{
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		int size = format == PixmapFormat.ARGB8888 ? 4 : 2;
+		byte[] bytes = new byte[pixels.length * size];
+		for (int index = 0; index < pixels.length; index++)
+		{
+			int colour = pixels[index];
+			int alpha = colour >>> 24;
+			int red = premultiply((colour >> 16) & 0xFF, alpha);
+			int green = premultiply((colour >> 8) & 0xFF, alpha);
+			int blue = premultiply(colour & 0xFF, alpha);
+			int offset = index * size;
+			if (format == PixmapFormat.ARGB8888)
+			{
+				bytes[offset] = (byte) red;
+				bytes[offset + 1] = (byte) green;
+				bytes[offset + 2] = (byte) blue;
+				bytes[offset + 3] = (byte) alpha;
+				continue;
+			}
+
+			int pixel;
+			if (format == PixmapFormat.RGB565)
+				pixel = reduce(red, 5) << 11 | reduce(green, 6) << 5
+						| reduce(blue, 5);
+			else
+				pixel = reduce(red, 4) << 12 | reduce(green, 4) << 8
+						| reduce(blue, 4) << 4 | reduce(alpha, 4);
+			bytes[offset] = (byte) pixel;
+			bytes[offset + 1] = (byte) (pixel >>> 8);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Multiplies a colour channel by alpha
+	 *
+	 * @param channel
+	 *            The channel (0 to 255)
+	 * @param alpha
+	 *            The alpha (0 to 255)
+	 * @return the premultiplied channel
+	 */
+	private static int premultiply(int channel, int alpha)
+	{
+		return (channel * alpha + 127) / 255;
+	}
+
+	/**
+	 * Rounds an eight bit channel to fewer bits
+	 *
+	 * @param channel
+	 *            The channel (0 to 255)
+	 * @param bits
+	 *            The number of bits to keep
+	 * @return the channel with that many bits
+	 */
+	private static int reduce(int channel, int bits)
+	{
+		int max = (1 << bits) - 1;
+		return (channel * max + 127) / 255;
+	}
+
+	/**
+	 * Bundles the images and prints how big the bundle is
+	 *
+	 * @param args
+	 *            The options described in the class comment
+	 * @throws IOException
+	 *             If an image couldn't be read or the bundle written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		String in = "assets";
+		PixmapFormat format = PixmapFormat.ARGB4444;
+		boolean compress = true;
+		for (int index = 0; index < args.length; index++)
+		{
+			if (args[index].equals("-raw"))
+				compress = false;
+			else if (index + 1 < args.length && args[index].equals("-in"))
+				in = args[++index];
+			else if (index + 1 < args.length
+					&& args[index].equals("-format"))
+				format = PixmapFormat.valueOf(args[++index]);
+		}
+
+		AssetBundle bundle = new AssetBundler(format, compress).bundle(
+				new File(in));
+		System.out.println("Bundled " + bundle.size() + " images into "
+				+ bundle.getDataLength() / 1024 + " KB of pixels in "
+				+ new File(in, AssetBundle.ASSET_NAME));
+	}
+}
@@ -0,0 +1,243 @@
+package com.pianist.battlelasers.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import javax.imageio.ImageIO;
+
+import com.pianist.battlelasers.graphics.RenderScale;
+import com.pianist.battlelasers.graphics.TextureAtlas;
+
+/**
+ * The AssetScaler class makes the smaller images that low end devices load
+ * instead of the normal ones (see RenderScale). Every image is scaled down by
+ * averaging the pixels it covers, with the colours weighted by how solid they
+ * are so that the see through edges don't darken. The small images are then
+ * packed into an atlas of their own, which records the size each image is
+ * drawn at, since a scaled size isn't always a whole number of pixels.
+ *
+ * Images too big for the atlas are written on their own when their scaled
+ * size is a whole number of pixels, and otherwise left out so that the game
+ * loads the normal image.
+ *
+ * Usage: AssetScaler [-in directory] [-out directory] [-scale factor] [-size
+ * pixels] [-padding pixels]
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class AssetScaler
+{
+	// The start of the file names of the atlas sheets, which aren't scaled
+	private static final String SHEET_PREFIX = "TextureAtlas";
+
+	// The number of pixels the scaled images have for each normal one
+	private float scale;
+
+	// The size of the atlas sheets and the space between images
+	private int sheetSize;
+
+	private int padding;
+
+	/**
+	 * Creates a new scaler
+	 *
+	 * @param scale
+	 *            The number of pixels of a scaled image for each normal one
+	 * @param sheetSize
+	 *            The width and the most height of the atlas sheets
+	 * @param padding
+	 *            The space left between images on the sheets
+	 */
+	public AssetScaler(float scale, int sheetSize, int padding)
+	{
+		this.scale = scale;
+		this.sheetSize = sheetSize;
+		this.padding = padding;
+	}
+
+	/**
+	 * Scales the images in the given directory and packs them into an atlas in
+	 * the output directory
+	 *
+	 * @param in
+	 *            The directory with the normal images
+	 * @param out
+	 *            The directory to write the scaled images to
+	 * @return the number of images that were scaled
+	 * @throws IOException
+	 *             If an image couldn't be read or written
+	 */
+	public int scale(File in, File out) throws IOException
+	{
+		out.mkdirs();
+		for (String name : out.list())
+			if (name.endsWith(".png"))
+				new File(out, name).delete();
+
+		// Scale every image, remembering the size it is drawn at
+		HashMap<String, int[]> sizes = new HashMap<String, int[]>();
+		String[] names = in.list();
+		Arrays.sort(names);
+		for (String name : names)
+		{
+			if (!name.endsWith(".png") || name.startsWith(SHEET_PREFIX))
+				continue;
+			BufferedImage pixels = ImageIO.read(new File(in, name));
+			if (pixels == null)
+				continue;
+			ImageIO.write(scaleImage(pixels), "png", new File(out, name));
+			sizes.put(name, new int[] { pixels.getWidth(),
+					pixels.getHeight() });
+		}
+
+		// Pack the images that fit, giving their regions the normal sizes
+		int maxSize = sheetSize / 2;
+		TextureAtlas packed = new AtlasPacker(sheetSize, maxSize, padding)
+				.pack(out, out);
+		TextureAtlas atlas = new TextureAtlas();
+		for (int sheet = 0; sheet < packed.getNumSheets(); sheet++)
+			atlas.addSheet(packed.getSheet(sheet));
+		for (String name : names)
+		{
+			TextureAtlas.Region region = packed.getRegion(name);
+			int[] size = sizes.get(name);
+			if (region != null)
+			{
+				atlas.addRegion(name, new TextureAtlas.Region(region.sheet,
+						region.left, region.top, region.width,
+						region.height, size[0], size[1]));
+				new File(out, name).delete();
+			}
+			else if (size != null && !(isWhole(size[0]) && isWhole(size[1])))
+				new File(out, name).delete();
+		}
+		atlas.write(new FileOutputStream(new File(out,
+				TextureAtlas.ASSET_NAME)));
+		return sizes.size();
+	}
+
+	/**
+	 * Checks whether the given size scales to a whole number of pixels
+	 *
+	 * @param size
+	 *            The normal size
+	 * @return whether the scaled size is exact
+	 */
+	private boolean isWhole(int size)
+	{
+		float scaled = size * scale;
+		return scaled == Math.round(scaled);
+	}
+
+	/**
+	 * Scales an image down by averaging the part of every normal pixel that
+	 * each scaled pixel covers
+	 *
+	 * @param image
+	 *            The normal image
+	 * @return the scaled image
+	 */
+	private BufferedImage scaleImage(BufferedImage image)
+	{
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int scaledWidth = Math.max(1, Math.round(width * scale));
+		int scaledHeight = Math.max(1, Math.round(height * scale));
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		int[] scaled = new int[scaledWidth * scaledHeight];
+
+		// The size of a scaled pixel in normal pixels
+		float stepX = (float) width / scaledWidth;
+		float stepY = (float) height / scaledHeight;
+		for (int y = 0; y < scaledHeight; y++)
+		{
+			float top = y * stepY;
+			float bottom = top + stepY;
+			for (int x = 0; x < scaledWidth; x++)
+			{
+				float left = x * stepX;
+				float right = left + stepX;
+				float alpha = 0;
+				float red = 0;
+				float green = 0;
+				float blue = 0;
+				float area = 0;
+				for (int row = (int) top; row < bottom && row < height; row++)
+				{
+					float coverY = Math.min(bottom, row + 1)
+							- Math.max(top, row);
+					for (int column = (int) left; column < right
+							&& column < width; column++)
+					{
+						float cover = coverY
+								* (Math.min(right, column + 1) - Math.max(
+										left, column));
+						int colour = pixels[row * width + column];
+						float solid = (colour >>> 24) * cover;
+						alpha += solid;
+						red += ((colour >> 16) & 0xFF) * solid;
+						green += ((colour >> 8) & 0xFF) * solid;
+						blue += (colour & 0xFF) * solid;
+						area += cover;
+					}
+				}
+				int colour = 0;
+				if (alpha > 0)
+					colour = Math.round(alpha / area) << 24
+							| Math.round(red / alpha) << 16
+							| Math.round(green / alpha) << 8
+							| Math.round(blue / alpha);
+				scaled[y * scaledWidth + x] = colour;
+			}
+		}
+
+		BufferedImage result = new BufferedImage(scaledWidth, scaledHeight,
+				BufferedImage.TYPE_INT_ARGB);
+		result.setRGB(0, 0, scaledWidth, scaledHeight, scaled, 0,
+				scaledWidth);
+		return result;
+	}
+
+	/**
+	 * Scales the images and writes their atlas
+	 *
+	 * @param args
+	 *            The options described in the class comment
+	 * @throws IOException
+	 *             If an image couldn't be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		String in = "art";
+		String out = "assets/" + RenderScale.LOW_ASSETS;
+		float scale = RenderScale.LOW_SCALE;
+		int sheetSize = 1024;
+		int padding = 2;
+		for (int index = 0; index + 1 < args.length; index += 2)
+		{
+			if (args[index].equals("-in"))
+				in = args[index + 1];
+			else if (args[index].equals("-out"))
+				out = args[index + 1];
+			else if (args[index].equals("-scale"))
+				scale = Float.parseFloat(args[index + 1]);
+			else if (args[index].equals("-size"))
+				sheetSize = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-padding"))
+				padding = Integer.parseInt(args[index + 1]);
+		}
+
+		int scaled = new AssetScaler(scale, sheetSize, padding).scale(
+				new File(in), new File(out));
+		TextureAtlas atlas = TextureAtlas.read(new FileInputStream(new File(
+				out, TextureAtlas.ASSET_NAME)));
+		System.out.println("Scaled " + scaled + " images by " + scale
+				+ ", packing " + atlas.size() + " into "
+				+ atlas.getNumSheets() + " sheets in " + out);
+	}
+}
@@ -0,0 +1,299 @@
+package com.pianist.battlelasers.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import com.pianist.battlelasers.graphics.TextureAtlas;
+
+/**
+ * The AtlasPacker class packs the small images of the game into a few large
+ * sheets and writes the texture atlas index that says where each one went.
+ * Graphics then takes those images from the sheets, and loads every image that
+ * wasn't packed (like the full screen backgrounds) from its own file as
+ * before.
+ *
+ * The images are read from a directory of source art that isn't packaged
+ * with the game. When the atlas is written to another directory, the images
+ * that weren't packed are copied there next to it and the packed ones are
+ * removed from it, so the game only ships each image once.
+ *
+ * The images are sorted from tallest to shortest and placed left to right on
+ * shelves, starting a new shelf when one is full and a new sheet when there is
+ * no room for another shelf. Each sheet is cut down to the smallest power of
+ * two height that holds its shelves.
+ *
+ * Usage: AtlasPacker [-in directory] [-out directory] [-size pixels] [-max
+ * pixels] [-padding pixels]
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class AtlasPacker
+{
+	// The start of the file names of the sheets
+	private static final String SHEET_PREFIX = "TextureAtlas";
+
+	// The width of the sheets (and the most they can be in height)
+	private int sheetSize;
+
+	// The largest width or height of an image that is packed
+	private int maxSize;
+
+	// The space left between images
+	private int padding;
+
+	/**
+	 * The Image class is an image that is being packed
+	 */
+	private static class Image
+	{
+		String name;
+
+		BufferedImage pixels;
+
+		int sheet;
+
+		int left;
+
+		int top;
+	}
+
+	/**
+	 * The Shelf class is a row of images on a sheet
+	 */
+	private static class Shelf
+	{
+		int sheet;
+
+		int top;
+
+		int height;
+
+		// Where the next image on the shelf goes
+		int left;
+	}
+
+	/**
+	 * Creates a new packer
+	 *
+	 * @param sheetSize
+	 *            The width and the most height of the sheets
+	 * @param maxSize
+	 *            The largest width or height of an image that is packed
+	 * @param padding
+	 *            The space left between images
+	 */
+	public AtlasPacker(int sheetSize, int maxSize, int padding)
+	{
+		this.sheetSize = sheetSize;
+		this.maxSize = maxSize;
+		this.padding = padding;
+	}
+
+	/**
+	 * Packs the images in the given directory, writing the sheets and the
+	 * index to the output directory
+	 *
+	 * @param in
+	 *            The directory with the images
+	 * @param out
+	 *            The directory to write the atlas to
+	 * @return the index of the atlas
+	 * @throws IOException
+	 *             If an image couldn't be read or written
+	 */
+	public TextureAtlas pack(File in, File out) throws IOException
+	{
+		// Read every image that is small enough (but not the old sheets)
+		List<Image> images = new ArrayList<Image>();
+		String[] names = in.list();
+		Arrays.sort(names);
+		for (String name : names)
+		{
+			if (!name.endsWith(".png") || name.startsWith(SHEET_PREFIX))
+				continue;
+			BufferedImage pixels = ImageIO.read(new File(in, name));
+			if (pixels == null || pixels.getWidth() > maxSize
+					|| pixels.getHeight() > maxSize)
+				continue;
+			Image image = new Image();
+			image.name = name;
+			image.pixels = pixels;
+			images.add(image);
+		}
+		Collections.sort(images, new Comparator<Image>() {
+			public int compare(Image first, Image second)
+			{
+				if (first.pixels.getHeight() != second.pixels.getHeight())
+					return second.pixels.getHeight()
+							- first.pixels.getHeight();
+				return second.pixels.getWidth() - first.pixels.getWidth();
+			}
+		});
+
+		// Place each image on the first shelf it fits on
+		List<Shelf> shelves = new ArrayList<Shelf>();
+		List<Integer> sheetHeights = new ArrayList<Integer>();
+		for (Image image : images)
+		{
+			int width = image.pixels.getWidth() + padding;
+			int height = image.pixels.getHeight() + padding;
+			Shelf found = null;
+			for (Shelf shelf : shelves)
+			{
+				if (shelf.height >= height
+						&& shelf.left + width <= sheetSize)
+				{
+					found = shelf;
+					break;
+				}
+			}
+			if (found == null)
+			{
+				found = new Shelf();
+				found.height = height;
+				int sheet = sheetHeights.size() - 1;
+				if (sheet < 0
+						|| sheetHeights.get(sheet) + height > sheetSize)
+				{
+					sheetHeights.add(0);
+					sheet++;
+				}
+				found.sheet = sheet;
+				found.top = sheetHeights.get(sheet);
+				sheetHeights.set(sheet, found.top + height);
+				shelves.add(found);
+			}
+			image.sheet = found.sheet;
+			image.left = found.left;
+			image.top = found.top;
+			found.left += width;
+		}
+
+		// Draw the sheets and write them out with the index
+		TextureAtlas atlas = new TextureAtlas();
+		for (int sheet = 0; sheet < sheetHeights.size(); sheet++)
+		{
+			int sheetHeight = Integer
+					.highestOneBit(sheetHeights.get(sheet) * 2 - 1);
+			BufferedImage pixels = new BufferedImage(sheetSize, Math.min(
+					sheetHeight, sheetSize), BufferedImage.TYPE_INT_ARGB);
+			for (Image image : images)
+			{
+				// Copy the pixels exactly (drawing would blend the see
+				// through ones)
+				if (image.sheet != sheet)
+					continue;
+				int width = image.pixels.getWidth();
+				int height = image.pixels.getHeight();
+				pixels.setRGB(image.left, image.top, width, height,
+						image.pixels.getRGB(0, 0, width, height, null, 0,
+								width), 0, width);
+			}
+			String name = SHEET_PREFIX + sheet + ".png";
+			ImageIO.write(pixels, "png", new File(out, name));
+			atlas.addSheet(name);
+		}
+		for (Image image : images)
+			atlas.addRegion(image.name, new TextureAtlas.Region(image.sheet,
+					image.left, image.top, image.pixels.getWidth(),
+					image.pixels.getHeight()));
+		atlas.write(new FileOutputStream(new File(out,
+				TextureAtlas.ASSET_NAME)));
+
+		// Ship the images that weren't packed on their own, and only those
+		if (!in.getCanonicalFile().equals(out.getCanonicalFile()))
+		{
+			for (String name : names)
+			{
+				if (!name.endsWith(".png") || name.startsWith(SHEET_PREFIX))
+					continue;
+				if (atlas.getRegion(name) != null)
+					new File(out, name).delete();
+				else
+					copy(new File(in, name), new File(out, name));
+			}
+		}
+		return atlas;
+	}
+
+	/**
+	 * Copies a file
+	 *
+	 * @param from
+	 *            The file to copy
+	 * @param to
+	 *            The file to write
+	 * @throws IOException
+	 *             If the file couldn't be read or written
+	 */
+	private static void copy(File from, File to) throws IOException
+	{
+		InputStream input = new FileInputStream(from);
+		try
+		{
+			OutputStream output = new FileOutputStream(to);
+			try
+			{
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = input.read(buffer)) > 0)
+					output.write(buffer, 0, read);
+			}
+			finally
+			{
+				output.close();
+			}
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	/**
+	 * Packs the images and writes the atlas
+	 *
+	 * @param args
+	 *            The options described in the class comment
+	 * @throws IOException
+	 *             If an image couldn't be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		String in = "art";
+		String out = "assets";
+		int sheetSize = 1024;
+		int maxSize = 512;
+		int padding = 2;
+		for (int index = 0; index + 1 < args.length; index += 2)
+		{
+			if (args[index].equals("-in"))
+				in = args[index + 1];
+			else if (args[index].equals("-out"))
+				out = args[index + 1];
+			else if (args[index].equals("-size"))
+				sheetSize = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-max"))
+				maxSize = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-padding"))
+				padding = Integer.parseInt(args[index + 1]);
+		}
+
+		TextureAtlas atlas = new AtlasPacker(sheetSize, maxSize, padding)
+				.pack(new File(in), new File(out));
+		System.out.println("Packed " + atlas.size() + " images into "
+				+ atlas.getNumSheets() + " sheets in " + out);
+	}
+}
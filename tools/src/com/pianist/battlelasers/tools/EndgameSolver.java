@@ -0,0 +1,506 @@
+package com.pianist.battlelasers.tools;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import com.pianist.battlelasers.game_objects.EndgameTable;
+import com.pianist.battlelasers.game_objects.LaserPaths;
+import com.pianist.battlelasers.game_objects.Match;
+import com.pianist.battlelasers.game_objects.MirrorBoard;
+
+/**
+ * The EndgameSolver class builds the endgame table asset used by the
+ * impossible AI. It runs on a desktop JVM and solves the positions of the six
+ * mirror layouts (both the normal and the flipped way round) by retrograde
+ * analysis.
+ *
+ * First every position within the given number of turns of the start of a
+ * layout is collected. Then, working backwards from the positions where the
+ * player to move can shoot their opponent, each position is labelled as won
+ * or lost in a number of turns: a position is won in n turns if a move leads
+ * to a position the opponent loses in n - 1 turns, and lost in n turns if
+ * every move leads to a position the opponent wins in less than n turns. A
+ * missed shot passes the turn, so it counts as a move that leaves the mirrors
+ * where they are. Positions at the edge of the collected area, and positions
+ * that neither player can force, stay unlabelled (the game is drawn or
+ * decided by repeating grids).
+ *
+ * A position includes the opponent's last move, since it can't be undone.
+ * The rule that the computer can't repeat a grid depends on the whole game,
+ * so it is left out and the AI still checks every move from the table before
+ * making it.
+ *
+ * Usage: EndgameSolver [-turns count] [-out file]
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class EndgameSolver
+{
+	// The most moves that can be made on a single turn (five for each mirror)
+	private static final int MAX_MOVES = 5 * MirrorBoard.NUM_CELLS;
+
+	// The layouts with six mirrors
+	private static final int FIRST_LAYOUT = 0;
+
+	private static final int LAST_LAYOUT = 2;
+
+	// Mixed into the key of a position when the human (player one) is to move
+	private static final long PLAYER_ONE_KEY = 0x9E3779B97F4A7C15L;
+
+	// The number of turns from the start of a layout to collect positions for
+	private int maxTurns;
+
+	// The mirrors, the horizontal mirrors, the player to move and the
+	// opponent's last move (which can't be undone) of each position, in the
+	// order they were found
+	private long[] mirrors;
+
+	private long[] horizontal;
+
+	private boolean[] playerOneTurn;
+
+	private int[] lastMoves;
+
+	// The number of turns from the start of the layout to each position
+	private int[] turnsFromStart;
+
+	// Whether the moves of each position were collected
+	private boolean[] expanded;
+
+	// The label of each position: the number of turns to the win when
+	// positive, to the loss when negative and zero if it isn't known
+	private int[] labels;
+
+	// The winning move of each position labelled as won
+	private int[] winningMoves;
+
+	private int numPositions;
+
+	// The index of each position by its key
+	private long[] indexKeys;
+
+	private int[] indexValues;
+
+	/**
+	 * Creates a new solver
+	 *
+	 * @param maxTurns
+	 *            The number of turns from the start of a layout to collect
+	 *            positions for
+	 */
+	public EndgameSolver(int maxTurns)
+	{
+		this.maxTurns = maxTurns;
+		mirrors = new long[1 << 16];
+		horizontal = new long[1 << 16];
+		playerOneTurn = new boolean[1 << 16];
+		lastMoves = new int[1 << 16];
+		turnsFromStart = new int[1 << 16];
+		expanded = new boolean[1 << 16];
+		numPositions = 0;
+		indexKeys = new long[1 << 17];
+		indexValues = new int[1 << 17];
+	}
+
+	/**
+	 * Collects and solves the positions of the six mirror layouts
+	 *
+	 * @return the table of positions the computer wins
+	 */
+	public EndgameTable solve()
+	{
+		Match match = new Match();
+		for (int layout = FIRST_LAYOUT; layout <= LAST_LAYOUT; layout++)
+		{
+			for (int flip = 0; flip < 2; flip++)
+				collect(match.getLayout(layout).toBoard(flip == 1));
+			System.out.println("Layout " + layout + ": " + numPositions
+					+ " positions");
+		}
+
+		label();
+
+		// Keep the positions that the computer (player two) wins, other than
+		// the ones it wins by shooting straight away
+		long[] hashes = new long[numPositions];
+		int[] moves = new int[numPositions];
+		int[] turns = new int[numPositions];
+		int size = 0;
+		for (int index = 0; index < numPositions; index++)
+		{
+			if (!playerOneTurn[index] && labels[index] > 1)
+			{
+				hashes[size] = EndgameTable.key(toBoard(index),
+						illegalStart(lastMoves[index]),
+						illegalEnd(lastMoves[index]));
+				moves[size] = winningMoves[index];
+				turns[size] = labels[index];
+				size++;
+			}
+		}
+		return EndgameTable.create(hashes, moves, turns, size);
+	}
+
+	/**
+	 * Collects the positions within the maximum number of turns of the given
+	 * starting board, with the human to move first
+	 *
+	 * @param start
+	 *            The starting board of the layout
+	 */
+	private void collect(MirrorBoard start)
+	{
+		int first = add(start, true, -1, 0);
+		if (first < 0)
+			return;
+
+		// Positions are added in the order they are reached, so the queue is
+		// just the list of positions starting at the first new one
+		int[] moves = new int[MAX_MOVES];
+		for (int index = first; index < numPositions; index++)
+		{
+			if (turnsFromStart[index] == maxTurns || canShoot(index))
+				continue;
+
+			MirrorBoard board = toBoard(index);
+			boolean nextTurn = !playerOneTurn[index];
+			int numMoves = generateMoves(board, index, moves);
+			for (int move = 0; move < numMoves; move++)
+			{
+				board.makeMove(moves[move]);
+				add(board, nextTurn, nextLastMove(moves[move]),
+						turnsFromStart[index] + 1);
+				board.unmakeMove(moves[move]);
+			}
+			expanded[index] = true;
+		}
+	}
+
+	/**
+	 * Labels every position that can be forced by one of the players
+	 */
+	private void label()
+	{
+		labels = new int[numPositions];
+		winningMoves = new int[numPositions];
+
+		// The positions where the player to move can shoot are won in one
+		for (int index = 0; index < numPositions; index++)
+		{
+			if (canShoot(index))
+			{
+				labels[index] = 1;
+				boolean left = LaserPaths.shoot(toBoard(index),
+						playerOneTurn[index], false) >= 0;
+				winningMoves[index] = left ? MirrorBoard.SHOOT_LEFT
+						: MirrorBoard.SHOOT_RIGHT;
+			}
+		}
+
+		// Label the positions lost in an even number of turns and won in an
+		// odd number of turns, until two rounds in a row find nothing new
+		int[] moves = new int[MAX_MOVES];
+		int roundsWithoutChange = 0;
+		for (int turns = 2; roundsWithoutChange < 2; turns++)
+		{
+			int numLabelled = 0;
+			for (int index = 0; index < numPositions; index++)
+			{
+				if (labels[index] != 0 || !expanded[index])
+					continue;
+
+				MirrorBoard board = toBoard(index);
+				boolean nextTurn = !playerOneTurn[index];
+				int numMoves = generateMoves(board, index, moves);
+				boolean allWon = true;
+				int found = EndgameTable.NO_MOVE;
+				for (int move = 0; move < numMoves
+						&& found == EndgameTable.NO_MOVE; move++)
+				{
+					int encoded = moves[move];
+					board.makeMove(encoded);
+					int next = find(board, nextTurn, nextLastMove(encoded));
+					int nextLabel = next < 0 ? 0 : labels[next];
+					board.unmakeMove(encoded);
+
+					if (nextLabel <= 0 || nextLabel >= turns)
+						allWon = false;
+					if (turns % 2 == 1 && nextLabel == -(turns - 1))
+						found = encoded;
+				}
+
+				if (found != EndgameTable.NO_MOVE)
+				{
+					labels[index] = turns;
+					winningMoves[index] = found;
+					numLabelled++;
+				}
+				else if (turns % 2 == 0 && allWon)
+				{
+					labels[index] = -turns;
+					numLabelled++;
+				}
+			}
+			System.out.println("Turns " + turns + ": " + numLabelled
+					+ " positions");
+			roundsWithoutChange = numLabelled == 0 ? roundsWithoutChange + 1
+					: 0;
+		}
+	}
+
+	/**
+	 * Checks whether the player to move in the given position can shoot their
+	 * opponent
+	 *
+	 * @param index
+	 *            The index of the position
+	 * @return whether the player to move wins by shooting
+	 */
+	private boolean canShoot(int index)
+	{
+		MirrorBoard board = toBoard(index);
+		return LaserPaths.shoot(board, playerOneTurn[index], false) >= 0
+				|| LaserPaths.shoot(board, playerOneTurn[index], true) >= 0;
+	}
+
+	/**
+	 * Fills the given array with the moves that can be made in the given
+	 * position, followed by a missed shot
+	 *
+	 * @param board
+	 *            The board of the position
+	 * @param index
+	 *            The index of the position
+	 * @param moves
+	 *            The array to fill
+	 * @return the number of moves
+	 */
+	private int generateMoves(MirrorBoard board, int index, int[] moves)
+	{
+		int lastMove = lastMoves[index];
+		int numMoves = board.generateMoves(moves, illegalStart(lastMove),
+				illegalEnd(lastMove));
+		moves[numMoves++] = MirrorBoard.SHOOT_LEFT;
+		return numMoves;
+	}
+
+	/**
+	 * Returns the last move the next player sees after the given move (a
+	 * missed shot leaves nothing that can't be undone)
+	 *
+	 * @param move
+	 *            The encoded move
+	 * @return the last move, or -1 if there is none
+	 */
+	private static int nextLastMove(int move)
+	{
+		return MirrorBoard.isShot(move) ? -1 : move;
+	}
+
+	/**
+	 * Returns the cell the given last move started on
+	 *
+	 * @param lastMove
+	 *            The encoded last move or -1
+	 * @return the starting cell, or -1 if there is no last move
+	 */
+	private static int illegalStart(int lastMove)
+	{
+		return lastMove < 0 ? -1 : MirrorBoard.moveFrom(lastMove);
+	}
+
+	/**
+	 * Returns the cell the given last move ended on
+	 *
+	 * @param lastMove
+	 *            The encoded last move or -1
+	 * @return the ending cell, or -1 if there is no last move
+	 */
+	private static int illegalEnd(int lastMove)
+	{
+		return lastMove < 0 ? -1 : MirrorBoard.moveTo(lastMove);
+	}
+
+	/**
+	 * Creates the board of the given position
+	 *
+	 * @param index
+	 *            The index of the position
+	 * @return the board with the position's mirrors
+	 */
+	private MirrorBoard toBoard(int index)
+	{
+		MirrorBoard board = new MirrorBoard();
+		long remaining = mirrors[index];
+		while (remaining != 0)
+		{
+			int cell = Long.numberOfTrailingZeros(remaining);
+			remaining &= remaining - 1;
+			board.addMirror(MirrorBoard.row(cell), MirrorBoard.col(cell),
+					(horizontal[index] & (1L << cell)) != 0);
+		}
+		return board;
+	}
+
+	/**
+	 * Returns the key of the given position
+	 *
+	 * @param board
+	 *            The board of the position
+	 * @param isPlayerOneTurn
+	 *            Whether the human is to move
+	 * @param lastMove
+	 *            The opponent's last move or -1
+	 * @return the key of the position
+	 */
+	private static long key(MirrorBoard board, boolean isPlayerOneTurn,
+			int lastMove)
+	{
+		return EndgameTable.key(board, illegalStart(lastMove),
+				illegalEnd(lastMove))
+				^ (isPlayerOneTurn ? PLAYER_ONE_KEY : 0);
+	}
+
+	/**
+	 * Finds the index of the given position
+	 *
+	 * @param board
+	 *            The board of the position
+	 * @param isPlayerOneTurn
+	 *            Whether the human is to move
+	 * @param lastMove
+	 *            The opponent's last move or -1
+	 * @return the index of the position, or -1 if it wasn't collected
+	 */
+	private int find(MirrorBoard board, boolean isPlayerOneTurn, int lastMove)
+	{
+		long key = key(board, isPlayerOneTurn, lastMove);
+		int mask = indexKeys.length - 1;
+		int slot = (int) (key ^ (key >>> 32)) & mask;
+		while (indexValues[slot] != 0)
+		{
+			if (indexKeys[slot] == key)
+				return indexValues[slot] - 1;
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds the given position if it wasn't collected yet
+	 *
+	 * @param board
+	 *            The board of the position
+	 * @param isPlayerOneTurn
+	 *            Whether the human is to move
+	 * @param lastMove
+	 *            The opponent's last move or -1
+	 * @param turns
+	 *            The number of turns from the start of the layout
+	 * @return the index of the new position, or -1 if it was already
+	 *         collected
+	 */
+	private int add(MirrorBoard board, boolean isPlayerOneTurn, int lastMove,
+			int turns)
+	{
+		if (find(board, isPlayerOneTurn, lastMove) >= 0)
+			return -1;
+
+		// Make room for the position, keeping the index at most half full
+		if (numPositions == mirrors.length)
+		{
+			int length = mirrors.length * 2;
+			mirrors = copyOf(mirrors, length);
+			horizontal = copyOf(horizontal, length);
+			int[] newTurnsFromStart = new int[length];
+			System.arraycopy(turnsFromStart, 0, newTurnsFromStart, 0,
+					numPositions);
+			turnsFromStart = newTurnsFromStart;
+			boolean[] newTurns = new boolean[length];
+			System.arraycopy(playerOneTurn, 0, newTurns, 0, numPositions);
+			playerOneTurn = newTurns;
+			int[] newLastMoves = new int[length];
+			System.arraycopy(lastMoves, 0, newLastMoves, 0, numPositions);
+			lastMoves = newLastMoves;
+			boolean[] newExpanded = new boolean[length];
+			System.arraycopy(expanded, 0, newExpanded, 0, numPositions);
+			expanded = newExpanded;
+		}
+		if (numPositions * 2 >= indexKeys.length)
+		{
+			indexKeys = new long[indexKeys.length * 2];
+			indexValues = new int[indexValues.length * 2];
+			for (int index = 0; index < numPositions; index++)
+				insert(key(toBoard(index), playerOneTurn[index],
+						lastMoves[index]), index);
+		}
+
+		int index = numPositions++;
+		mirrors[index] = board.getMirrors();
+		horizontal[index] = board.getHorizontal();
+		playerOneTurn[index] = isPlayerOneTurn;
+		lastMoves[index] = lastMove;
+		turnsFromStart[index] = turns;
+		insert(key(board, isPlayerOneTurn, lastMove), index);
+		return index;
+	}
+
+	/**
+	 * Puts the given key into the index
+	 *
+	 * @param key
+	 *            The key of the position
+	 * @param index
+	 *            The index of the position
+	 */
+	private void insert(long key, int index)
+	{
+		int mask = indexKeys.length - 1;
+		int slot = (int) (key ^ (key >>> 32)) & mask;
+		while (indexValues[slot] != 0)
+			slot = (slot + 1) & mask;
+		indexKeys[slot] = key;
+		indexValues[slot] = index + 1;
+	}
+
+	/**
+	 * Copies the given array into a longer one
+	 *
+	 * @param array
+	 *            The array to copy
+	 * @param length
+	 *            The length of the new array
+	 * @return the longer array
+	 */
+	private static long[] copyOf(long[] array, int length)
+	{
+		long[] copy = new long[length];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	/**
+	 * Solves the six mirror layouts and writes the table to a file
+	 *
+	 * @param args
+	 *            The options described in the class comment
+	 * @throws IOException
+	 *             If the table couldn't be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int maxTurns = 6;
+		String out = "assets/" + EndgameTable.ASSET_NAME;
+		for (int index = 0; index + 1 < args.length; index += 2)
+		{
+			if (args[index].equals("-turns"))
+				maxTurns = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-out"))
+				out = args[index + 1];
+		}
+
+		EndgameTable table = new EndgameSolver(maxTurns).solve();
+		table.write(new FileOutputStream(out));
+		System.out.println("Wrote " + table.size() + " positions to " + out);
+	}
+}
@@ -0,0 +1,281 @@
+package com.pianist.battlelasers.tools;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import com.pianist.battlelasers.game_objects.CancellationToken;
+import com.pianist.battlelasers.game_objects.GameSearch;
+import com.pianist.battlelasers.game_objects.Match;
+import com.pianist.battlelasers.game_objects.MirrorBoard;
+import com.pianist.battlelasers.game_objects.OpeningBook;
+import com.pianist.battlelasers.game_objects.PositionSet;
+import com.pianist.battlelasers.game_objects.ShotCache;
+import com.pianist.battlelasers.game_objects.TranspositionTable;
+
+/**
+ * The OpeningBookGenerator class builds the opening book asset used by the
+ * impossible AI. It runs on a desktop JVM and searches every early position of
+ * the built in layouts (both the normal and the flipped way round) for much
+ * longer than the game can, storing the best reply for each.
+ *
+ * The human always moves first, so the book covers the position after each of
+ * the human's first moves (and after a missed first shot). With a larger book
+ * depth, the book also covers every human reply to the computer's book move,
+ * and so on.
+ *
+ * Usage: OpeningBookGenerator [-time milliseconds] [-depth computer moves]
+ * [-threads count] [-out file]
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class OpeningBookGenerator
+{
+	// The most moves that can be made on a single turn (five for each mirror)
+	private static final int MAX_MOVES = 5 * MirrorBoard.NUM_CELLS;
+
+	// The transposition table has two to the power of this many slots
+	private static final int TABLE_SIZE_BITS = 20;
+
+	// How long to search each position for (in milliseconds)
+	private int searchTime;
+
+	// The number of computer moves to store along each line
+	private int bookDepth;
+
+	// The number of threads to search with
+	private int numThreads;
+
+	// The positions and replies found so far
+	private long[] hashes;
+
+	private int[] replies;
+
+	private int size;
+
+	// The positions already in the book, so that each is only searched once
+	private PositionSet booked;
+
+	// The results of positions that were already searched for the current
+	// layout
+	private TranspositionTable transpositions;
+
+	/**
+	 * Creates a new generator
+	 *
+	 * @param searchTime
+	 *            How long to search each position for (in milliseconds)
+	 * @param bookDepth
+	 *            The number of computer moves to store along each line
+	 * @param numThreads
+	 *            The number of threads to search with
+	 */
+	public OpeningBookGenerator(int searchTime, int bookDepth, int numThreads)
+	{
+		this.searchTime = searchTime;
+		this.bookDepth = bookDepth;
+		this.numThreads = numThreads;
+		hashes = new long[1024];
+		replies = new int[1024];
+		size = 0;
+		booked = new PositionSet();
+	}
+
+	/**
+	 * Adds the early positions of every built in layout to the book
+	 *
+	 * @return the finished book
+	 */
+	public OpeningBook generate()
+	{
+		Match match = new Match();
+		for (int layout = 0; layout < match.getNumLayouts(); layout++)
+		{
+			for (int flip = 0; flip < 2; flip++)
+			{
+				transpositions = new TranspositionTable(TABLE_SIZE_BITS);
+				MirrorBoard root = match.getLayout(layout).toBoard(flip == 1);
+				long[] line = new long[2 * bookDepth + 1];
+				line[0] = root.getHash();
+
+				// The human missed their first shot
+				addLine(root, line, 1, -1, -1, bookDepth);
+
+				// The human moved a mirror
+				addHumanReplies(root, line, 1, -1, -1, bookDepth);
+
+				System.out.println("Layout " + layout
+						+ (flip == 1 ? " (flipped)" : "") + ": " + size
+						+ " positions");
+			}
+		}
+		return OpeningBook.create(hashes, replies, size);
+	}
+
+	/**
+	 * Adds the positions after each of the human's moves on the given board
+	 *
+	 * @param board
+	 *            The board before the human moves (it is left unchanged)
+	 * @param line
+	 *            The hashes of the grids used so far
+	 * @param lineLength
+	 *            The number of grids used so far
+	 * @param illegalStart
+	 *            The cell the computer's last move started on or -1
+	 * @param illegalEnd
+	 *            The cell the computer's last move ended on or -1
+	 * @param remaining
+	 *            The number of computer moves left to store
+	 */
+	private void addHumanReplies(MirrorBoard board, long[] line,
+			int lineLength, int illegalStart, int illegalEnd, int remaining)
+	{
+		int[] moves = new int[MAX_MOVES];
+		int numMoves = board.generateMoves(moves, illegalStart, illegalEnd);
+		MirrorBoard next = new MirrorBoard(board);
+		for (int index = 0; index < numMoves; index++)
+		{
+			int move = moves[index];
+			next.makeMove(move);
+			if (!contains(line, lineLength, next.getHash()))
+			{
+				line[lineLength] = next.getHash();
+				addLine(next, line, lineLength + 1,
+						MirrorBoard.moveFrom(move), MirrorBoard.moveTo(move),
+						remaining);
+			}
+			next.unmakeMove(move);
+		}
+	}
+
+	/**
+	 * Searches for the computer's reply on the given board and adds it to the
+	 * book, then follows up with the human's replies if more moves should be
+	 * stored
+	 *
+	 * @param board
+	 *            The board with the computer to move (it is left unchanged)
+	 * @param line
+	 *            The hashes of the grids used so far
+	 * @param lineLength
+	 *            The number of grids used so far
+	 * @param illegalStart
+	 *            The cell the human's last move started on or -1
+	 * @param illegalEnd
+	 *            The cell the human's last move ended on or -1
+	 * @param remaining
+	 *            The number of computer moves left to store
+	 */
+	private void addLine(MirrorBoard board, long[] line, int lineLength,
+			int illegalStart, int illegalEnd, int remaining)
+	{
+		// The AI takes winning shots without looking in the book and doesn't
+		// need the same position twice
+		ShotCache shots = new ShotCache();
+		shots.reset(board);
+		if (shots.getResult(false, false) >= 0
+				|| shots.getResult(false, true) >= 0
+				|| booked.contains(board.getHash()))
+			return;
+
+		PositionSet usedGrids = new PositionSet();
+		for (int index = 0; index < lineLength; index++)
+			usedGrids.add(line[index]);
+		GameSearch search = new GameSearch(transpositions, usedGrids,
+				numThreads);
+		int reply = search.search(board, shots, illegalStart, illegalEnd,
+				System.currentTimeMillis() + searchTime,
+				new CancellationToken());
+		search.shutdown();
+		if (MirrorBoard.isShot(reply))
+			return;
+		add(board.getHash(), reply);
+
+		// Follow up with every reply from the human
+		if (remaining > 1)
+		{
+			MirrorBoard next = new MirrorBoard(board);
+			next.makeMove(reply);
+			line[lineLength] = next.getHash();
+			addHumanReplies(next, line, lineLength + 1,
+					MirrorBoard.moveFrom(reply), MirrorBoard.moveTo(reply),
+					remaining - 1);
+		}
+	}
+
+	/**
+	 * Adds a position and its reply to the book
+	 *
+	 * @param hash
+	 *            The hash of the position
+	 * @param reply
+	 *            The encoded reply
+	 */
+	private void add(long hash, int reply)
+	{
+		if (size == hashes.length)
+		{
+			long[] newHashes = new long[size * 2];
+			int[] newReplies = new int[size * 2];
+			System.arraycopy(hashes, 0, newHashes, 0, size);
+			System.arraycopy(replies, 0, newReplies, 0, size);
+			hashes = newHashes;
+			replies = newReplies;
+		}
+		hashes[size] = hash;
+		replies[size] = reply;
+		size++;
+		booked.add(hash);
+	}
+
+	/**
+	 * Checks whether the given hash is one of the first hashes of the line
+	 *
+	 * @param line
+	 *            The hashes of the grids used so far
+	 * @param lineLength
+	 *            The number of grids used so far
+	 * @param hash
+	 *            The hash to look for
+	 * @return whether the hash is in the line
+	 */
+	private static boolean contains(long[] line, int lineLength, long hash)
+	{
+		for (int index = 0; index < lineLength; index++)
+			if (line[index] == hash)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Generates the book and writes it to a file
+	 *
+	 * @param args
+	 *            The options described in the class comment
+	 * @throws IOException
+	 *             If the book couldn't be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int searchTime = 10000;
+		int bookDepth = 1;
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		String out = "assets/" + OpeningBook.ASSET_NAME;
+		for (int index = 0; index + 1 < args.length; index += 2)
+		{
+			if (args[index].equals("-time"))
+				searchTime = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-depth"))
+				bookDepth = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-threads"))
+				numThreads = Integer.parseInt(args[index + 1]);
+			else if (args[index].equals("-out"))
+				out = args[index + 1];
+		}
+
+		OpeningBook book = new OpeningBookGenerator(searchTime, bookDepth,
+				numThreads).generate();
+		book.write(new FileOutputStream(out));
+		System.out.println("Wrote " + book.size() + " positions to " + out);
+	}
+}
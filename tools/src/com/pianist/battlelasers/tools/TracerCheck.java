@@ -0,0 +1,417 @@
+package com.pianist.battlelasers.tools;
+
+import java.util.Random;
+
+import com.pianist.battlelasers.game_objects.LaserPaths;
+import com.pianist.battlelasers.game_objects.MirrorBoard;
+
+/**
+ * The TracerCheck class checks that the table driven laser tracer in
+ * LaserPaths gives the same result as the tracer the AI used before it, which
+ * moved the laser one cell at a time. The old tracer is kept here as the
+ * reference. Every board with up to a given number of mirrors on the legal
+ * cells is checked, in both orientations of every mirror, followed by a
+ * number of random boards with more mirrors on them. Each board is shot by
+ * both players in both directions.
+ *
+ * The check prints the first few boards the tracers disagree on and exits
+ * with a non zero status if there were any.
+ *
+ * Usage: TracerCheck [-mirrors count] [-boards count] [-seed seed]
+ *
+ * @author Peter Gokhshteyn and Alex Szoke
+ */
+public class TracerCheck
+{
+	// The number of disagreements that are printed in full
+	private static final int MAX_PRINTED = 10;
+
+	// The most mirrors put on a random board
+	private static final int MAX_RANDOM_MIRRORS = 16;
+
+	// The longest the laser can travel without repeating where it is and
+	// which way it is going (8 columns, 12 rows, 4 directions and up to one
+	// bounce off a back wall), so a longer shot means the old tracer loops
+	private static final int MAX_SHOT_LENGTH = 8 * 12 * 4 * 2;
+
+	// The number of boards and shots checked so far
+	private long boards = 0;
+
+	private long shots = 0;
+
+	// The number of shots the tracers disagreed on
+	private long failures = 0;
+
+	/**
+	 * Shoots the laser across the given board the way the AI did before the
+	 * path tables, one cell at a time
+	 *
+	 * @param board
+	 *            The board that contains the mirrors
+	 * @param playerOneTurn
+	 *            Whether player one is shooting
+	 * @param turnedRight
+	 *            Whether the player is shooting right (from their perspective)
+	 * @return -1 if it is not a winning shot or a positive integer representing
+	 *         the length of the winning shot
+	 */
+	static int oldShoot(MirrorBoard board, boolean playerOneTurn,
+			boolean turnedRight)
+	{
+		int laserX;
+		int laserY;
+		int laserDirection;
+
+		// Based on whose turn it is and if the player is shooting right, find
+		// the starting position and direction of the laser
+		if (!playerOneTurn)
+		{
+			laserY = 1;
+			if (turnedRight)
+			{
+				laserX = 3;
+				laserDirection = 3;
+			}
+			else
+			{
+				laserX = 4;
+				laserDirection = 4;
+			}
+		}
+		else
+		{
+			laserY = 10;
+			if (turnedRight)
+			{
+				laserX = 4;
+				laserDirection = 1;
+			}
+			else
+			{
+				laserX = 3;
+				laserDirection = 2;
+			}
+		}
+
+		// Store the total shot length and number of back bounces
+		int numBackBounces = 0;
+		int shotLength = 0;
+
+		while (shotLength <= MAX_SHOT_LENGTH)
+		{
+			// If the laser is bouncing off the side
+			if (laserX == 0 || laserX == 7)
+			{
+				// If the laser is in the corner, return no win
+				if (laserY == 0 || laserY == 11)
+					return -1;
+
+				// Otherwise, turn appropriately
+				if (laserDirection == 1)
+					laserDirection = 2;
+				else if (laserDirection == 2)
+					laserDirection = 1;
+				else if (laserDirection == 3)
+					laserDirection = 4;
+				else
+					laserDirection = 3;
+			}
+			// Otherwise, if the laser is just bouncing off the back
+			else if (laserY == 0 || laserY == 11)
+			{
+				// Check if it has already bounced back once and return if it
+				// did
+				if (numBackBounces == 1)
+					return -1;
+				else
+					numBackBounces++;
+
+				// Turn appropriately
+				if (laserDirection == 1)
+					laserDirection = 4;
+				else if (laserDirection == 4)
+					laserDirection = 1;
+				else if (laserDirection == 3)
+					laserDirection = 2;
+				else
+					laserDirection = 3;
+			}
+			else
+			{
+				// If the laser is not bouncing off the sides, check if there is
+				// a mirror at the next position and turn if needed
+				int cell = MirrorBoard.cell(laserY, laserX);
+				if (board.hasMirror(cell))
+				{
+					if (board.isHorizontal(cell))
+					{
+						if (laserDirection == 1)
+							laserDirection = 4;
+						else if (laserDirection == 4)
+							laserDirection = 1;
+						else if (laserDirection == 3)
+							laserDirection = 2;
+						else
+							laserDirection = 3;
+					}
+					else
+					{
+						if (laserDirection == 1)
+							laserDirection = 2;
+						else if (laserDirection == 2)
+							laserDirection = 1;
+						else if (laserDirection == 3)
+							laserDirection = 4;
+						else
+							laserDirection = 3;
+					}
+				}
+			}
+
+			// Check if the laser will hit the target the next turn, and if it
+			// does, return the length of the laser shot
+			if (laserX == 3)
+			{
+				if (laserY == 5 && laserDirection == 4)
+				{
+					return shotLength;
+				}
+				else if (laserY == 6 && laserDirection == 1)
+				{
+					return shotLength;
+				}
+			}
+			else if (laserX == 4)
+			{
+				if (laserY == 5 && laserDirection == 3)
+				{
+					return shotLength;
+				}
+				else if (laserY == 6 && laserDirection == 2)
+				{
+					return shotLength;
+				}
+			}
+
+			// Check if the laser will hit the top gun and return no win if it
+			// does
+			if (laserX == 3)
+			{
+				if (laserY == 0 && laserDirection == 4)
+				{
+					return -1;
+				}
+				else if (laserY == 1 && laserDirection == 1)
+				{
+					return -1;
+				}
+			}
+			else if (laserX == 4)
+			{
+				if (laserY == 0 && laserDirection == 3)
+				{
+					return -1;
+				}
+				else if (laserY == 1 && laserDirection == 2)
+				{
+					return -1;
+				}
+			}
+
+			// Check if the laser will hit the bottom gun and return no win if
+			// it does
+			if (laserX == 3)
+			{
+				if (laserY == 10 && laserDirection == 4)
+				{
+					return -1;
+				}
+				else if (laserY == 11 && laserDirection == 1)
+				{
+					return -1;
+				}
+			}
+			else if (laserX == 4)
+			{
+				if (laserY == 10 && laserDirection == 3)
+				{
+					return -1;
+				}
+				else if (laserY == 11 && laserDirection == 2)
+				{
+					return -1;
+				}
+			}
+
+			// Move the laser in the appropriate direction
+			if (laserDirection == 1)
+			{
+				laserX++;
+				laserY--;
+			}
+			else if (laserDirection == 2)
+			{
+				laserX--;
+				laserY--;
+			}
+			else if (laserDirection == 3)
+			{
+				laserX--;
+				laserY++;
+			}
+			else
+			{
+				laserX++;
+				laserY++;
+			}
+
+			// Update the shot length
+			shotLength++;
+		}
+		throw new IllegalStateException("The laser never stops");
+	}
+
+	/**
+	 * Shoots all four shots of the given board with both tracers and prints
+	 * the shots they disagree on
+	 *
+	 * @param board
+	 *            The board to check
+	 */
+	private void check(MirrorBoard board)
+	{
+		boards++;
+		for (int shot = 0; shot < 4; shot++)
+		{
+			boolean playerOneTurn = shot < 2;
+			boolean turnedRight = shot % 2 == 0;
+			int expected = oldShoot(board, playerOneTurn, turnedRight);
+			int actual = LaserPaths.shoot(board, playerOneTurn, turnedRight);
+			shots++;
+			if (expected == actual)
+				continue;
+
+			failures++;
+			if (failures <= MAX_PRINTED)
+				System.out.println("Player " + (playerOneTurn ? 1 : 2)
+						+ " shooting " + (turnedRight ? "right" : "left")
+						+ ": expected " + expected + " but got " + actual
+						+ " on " + describe(board));
+		}
+	}
+
+	/**
+	 * Checks every board with up to the given number of mirrors added to the
+	 * given board on legal cells from the given cell on
+	 *
+	 * @param board
+	 *            The board with the mirrors placed so far
+	 * @param firstCell
+	 *            The first cell another mirror can go on
+	 * @param mirrorsLeft
+	 *            The number of mirrors that can still be added
+	 */
+	private void checkAll(MirrorBoard board, int firstCell, int mirrorsLeft)
+	{
+		check(board);
+		if (mirrorsLeft == 0)
+			return;
+		for (int cell = firstCell; cell < MirrorBoard.NUM_CELLS; cell++)
+		{
+			if ((MirrorBoard.LEGAL_CELLS & (1L << cell)) == 0)
+				continue;
+			for (int horizontal = 0; horizontal < 2; horizontal++)
+			{
+				MirrorBoard next = new MirrorBoard(board);
+				next.addMirror(MirrorBoard.row(cell), MirrorBoard.col(cell),
+						horizontal == 1);
+				checkAll(next, cell + 1, mirrorsLeft - 1);
+			}
+		}
+	}
+
+	/**
+	 * Checks the given number of boards with random mirrors on legal cells
+	 *
+	 * @param count
+	 *            The number of boards
+	 * @param random
+	 *            The generator to place the mirrors with
+	 */
+	private void checkRandom(long count, Random random)
+	{
+		for (long board = 0; board < count; board++)
+		{
+			MirrorBoard mirrors = new MirrorBoard();
+			int numMirrors = 1 + random.nextInt(MAX_RANDOM_MIRRORS);
+			for (int mirror = 0; mirror < numMirrors; mirror++)
+			{
+				int cell = random.nextInt(MirrorBoard.NUM_CELLS);
+				if ((MirrorBoard.LEGAL_CELLS & (1L << cell)) != 0)
+					mirrors.addMirror(MirrorBoard.row(cell),
+							MirrorBoard.col(cell), random.nextBoolean());
+			}
+			check(mirrors);
+		}
+	}
+
+	/**
+	 * Describes where the mirrors of a board are
+	 *
+	 * @param board
+	 *            The board
+	 * @return the row, column and orientation of every mirror
+	 */
+	private static String describe(MirrorBoard board)
+	{
+		StringBuilder text = new StringBuilder();
+		for (int cell = 0; cell < MirrorBoard.NUM_CELLS; cell++)
+		{
+			if (!board.hasMirror(cell))
+				continue;
+			if (text.length() > 0)
+				text.append(' ');
+			text.append(MirrorBoard.row(cell)).append(',')
+					.append(MirrorBoard.col(cell))
+					.append(board.isHorizontal(cell) ? 'H' : 'V');
+		}
+		return text.length() == 0 ? "an empty board" : text.toString();
+	}
+
+	/**
+	 * Runs the check and prints how many shots were compared
+	 *
+	 * @param args
+	 *            The options described in the class comment
+	 */
+	public static void main(String[] args)
+	{
+		int mirrors = 3;
+		long randomBoards = 1000000;
+		long seed = 1;
+		for (int index = 0; index + 1 < args.length; index++)
+		{
+			if (args[index].equals("-mirrors"))
+				mirrors = Integer.parseInt(args[++index]);
+			else if (args[index].equals("-boards"))
+				randomBoards = Long.parseLong(args[++index]);
+			else if (args[index].equals("-seed"))
+				seed = Long.parseLong(args[++index]);
+		}
+
+		TracerCheck checker = new TracerCheck();
+		long start = System.currentTimeMillis();
+		checker.checkAll(new MirrorBoard(), 0, mirrors);
+		System.out.println("Checked every board with up to " + mirrors
+				+ " mirrors (" + checker.boards + " boards)");
+		long exhaustive = checker.boards;
+		checker.checkRandom(randomBoards, new Random(seed));
+		System.out.println("Checked " + (checker.boards - exhaustive)
+				+ " random boards");
+		System.out.println(checker.shots + " shots, " + checker.failures
+				+ " disagreements, in "
+				+ (System.currentTimeMillis() - start) + " ms");
+		if (checker.failures > 0)
+			System.exit(1);
+	}
+}